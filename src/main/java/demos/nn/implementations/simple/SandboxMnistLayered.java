@@ -14,6 +14,7 @@ import math.costfunctions.CrossEntropyCostFunction;
 import math.evaluation.ArgMaxEvaluationFunction;
 import math.linearalgebra.simple.SMatrix;
 import math.linearalgebra.simple.SimpleMatrix;
+import math.linearalgebra.sparse.SparseMatrix;
 import math.optimizers.ADAM;
 import neuralnetwork.DeepLearnable;
 import neuralnetwork.initialiser.MethodConstants;
@@ -113,6 +114,8 @@ public class SandboxMnistLayered extends AbstractDemo<SMatrix> {
 			values[i] = Double.parseDouble(rest[i]) / 255;
 		}
 
-		return new NetworkInput<>(new SimpleMatrix(values), new SimpleMatrix(labels));
+		// most pixels are blank, the first layer only reads the weight columns of the others
+		return new NetworkInput<>(SparseMatrix.of(values, SimpleMatrix::new),
+			new SimpleMatrix(labels));
 	}
 }
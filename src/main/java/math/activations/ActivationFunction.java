@@ -1,5 +1,8 @@
 package math.activations;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleUnaryOperator;
 import math.activations.functional.DifferentiableFunction;
 import math.linearalgebra.Matrix;
 
@@ -11,8 +14,122 @@ public abstract class ActivationFunction<M> implements DifferentiableFunction<M>
 
 	public abstract void setValues(double in);
 
+	/**
+	 * This activation applied to a single element, so that kernels producing its input can apply
+	 * it while writing each element. Null for activations that are not element wise.
+	 *
+	 * @return f: double -> double, or null
+	 */
+	public DoubleUnaryOperator scalarFunction() {
+		return null;
+	}
+
+	/**
+	 * The derivative of this activation for a single element, in terms of the activated value like
+	 * {@link #derivative(Matrix)}. Null for activations that are not element wise.
+	 *
+	 * @return f': double -> double, or null
+	 */
+	public DoubleUnaryOperator scalarDerivative() {
+		return null;
+	}
+
+	/**
+	 * Whether {@link #function(Matrix)} works element by element, so that a batch can be activated
+	 * as a whole. Activations with their own matrix kernels return true here and null from {@link
+	 * #scalarFunction()}, so that the kernels are not bypassed.
+	 *
+	 * @return true when every element of the output only depends on the same element of the input
+	 */
+	public boolean isElementWise() {
+		return scalarFunction() != null;
+	}
+
+	/**
+	 * This activation applied to m, reusing the storage of m where the activation allows it.
+	 *
+	 * @param m input, may be overwritten
+	 *
+	 * @return activated m
+	 */
+	public Matrix<M> functionInPlace(Matrix<M> m) {
+		DoubleUnaryOperator scalar = scalarFunction();
+		return scalar == null ? function(m) : m.mapValuesInPlace(scalar);
+	}
+
+	/**
+	 * The activation of a layer, function(weight X in + bias), fused into the product when the
+	 * activation has a {@link #scalarFunction()}.
+	 *
+	 * @param weight layer weights
+	 * @param in     layer input
+	 * @param bias   layer bias
+	 *
+	 * @return activated output of the layer
+	 */
+	public Matrix<M> affine(Matrix<M> weight, Matrix<M> in, Matrix<M> bias) {
+		DoubleUnaryOperator scalar = scalarFunction();
+		if (scalar == null) {
+			return function(weight.multiply(in).add(bias));
+		}
+		return weight.multiplyAddMap(in, bias, scalar);
+	}
+
+	/**
+	 * {@link #affine(Matrix, Matrix, Matrix)} written into destination, for callers that keep
+	 * their buffers between examples.
+	 *
+	 * @param destination receives the product, dimensions of the layer output
+	 *
+	 * @return activated output of the layer, destination unless the activation needs new storage
+	 */
+	public Matrix<M> affineInto(Matrix<M> weight, Matrix<M> in, Matrix<M> bias,
+		Matrix<M> destination) {
+		weight.multiplyInto(in, destination);
+		DoubleUnaryOperator scalar = scalarFunction();
+		if (scalar == null) {
+			return functionInPlace(destination.addInPlace(bias));
+		}
+		return destination.zipWithInPlace(bias, (p, b) -> scalar.applyAsDouble(p + b));
+	}
+
+	/**
+	 * {@link #affine(Matrix, Matrix, Matrix)} of a batch with one example per column. Functions
+	 * that are not element wise, e.g. softmax, are applied to each column on its own.
+	 */
+	public Matrix<M> affineBatch(Matrix<M> weight, Matrix<M> batch, Matrix<M> bias) {
+		Matrix<M> z = weight.multiply(batch).broadcastAddInPlace(bias);
+		DoubleUnaryOperator scalar = scalarFunction();
+		if (scalar != null) {
+			return z.mapValuesInPlace(scalar);
+		}
+		if (z.cols() == 1 || isElementWise()) {
+			return functionInPlace(z);
+		}
+		List<Matrix<M>> columns = new ArrayList<>(z.cols());
+		for (int j = 0; j < z.cols(); j++) {
+			columns.add(function(z.sliceColumns(j, j + 1)));
+		}
+		return z.stackColumns(columns);
+	}
+
 	public Matrix<M> derivativeOnInput(Matrix<M> input, Matrix<M> out) {
-		return out.hadamard(derivative(input));
+		DoubleUnaryOperator derivative = scalarDerivative();
+		if (derivative == null) {
+			return out.hadamard(derivative(input));
+		}
+		return out.zipWith(input, (o, a) -> o * derivative.applyAsDouble(a));
+	}
+
+	/**
+	 * {@link #derivativeOnInput(Matrix, Matrix)} overwriting out.
+	 */
+	public Matrix<M> derivativeOnInputInPlace(Matrix<M> input, Matrix<M> out) {
+		DoubleUnaryOperator derivative = scalarDerivative();
+		if (derivative == null) {
+			return out.hadamardInPlace(derivative(input));
+		}
+		return out.zipWithInPlace(input, (o, a) -> o * derivative.applyAsDouble(a));
 	}
 
 	public abstract String getName();
@@ -1,5 +1,6 @@
 package math.activations;
 
+import java.util.function.DoubleUnaryOperator;
 import math.linearalgebra.Matrix;
 
 public class DoNothingFunction<M> extends ActivationFunction<M> {
@@ -12,9 +13,19 @@ public class DoNothingFunction<M> extends ActivationFunction<M> {
 		return m;
 	}
 
+	@Override
+	public DoubleUnaryOperator scalarFunction() {
+		return DoubleUnaryOperator.identity();
+	}
+
+	@Override
+	public DoubleUnaryOperator scalarDerivative() {
+		return e -> 1d;
+	}
+
 	@Override
 	public Matrix<M> derivative(Matrix<M> m) {
-		return m.mapElements(e -> 1d);
+		return m.mapValues(scalarDerivative());
 	}
 
 	@Override
@@ -1,5 +1,6 @@
 package math.activations;
 
+import java.util.function.DoubleUnaryOperator;
 import math.linearalgebra.Matrix;
 
 public class LeakyReluFunction<M> extends ReluFunction<M> {
@@ -17,12 +18,26 @@ public class LeakyReluFunction<M> extends ReluFunction<M> {
 
 	@Override
 	public Matrix<M> function(Matrix<M> in) {
-		return in.mapElements((e) -> e > 0 ? e : alpha * e);
+		return in.mapValues(this::leakyRelu);
+	}
+
+	private double leakyRelu(double e) {
+		return e > 0 ? e : alpha * e;
+	}
+
+	@Override
+	public DoubleUnaryOperator scalarFunction() {
+		return this::leakyRelu;
+	}
+
+	@Override
+	public DoubleUnaryOperator scalarDerivative() {
+		return (e) -> e > 0 ? 1 : alpha;
 	}
 
 	@Override
 	public Matrix<M> derivative(Matrix<M> in) {
-		return in.mapElements((e) -> e > 0 ? 1 : alpha);
+		return in.mapValues(scalarDerivative());
 	}
 
 	@Override
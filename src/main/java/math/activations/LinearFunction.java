@@ -1,5 +1,6 @@
 package math.activations;
 
+import java.util.function.DoubleUnaryOperator;
 import math.linearalgebra.Matrix;
 
 public class LinearFunction<M> extends ActivationFunction<M> {
@@ -19,12 +20,22 @@ public class LinearFunction<M> extends ActivationFunction<M> {
 
 	@Override
 	public Matrix<M> function(Matrix<M> m) {
-		return m.mapElements((e) -> e * value);
+		return m.mapValues((e) -> e * value);
+	}
+
+	@Override
+	public DoubleUnaryOperator scalarFunction() {
+		return (e) -> e * value;
+	}
+
+	@Override
+	public DoubleUnaryOperator scalarDerivative() {
+		return (e) -> value;
 	}
 
 	@Override
 	public Matrix<M> derivative(Matrix<M> m) {
-		return m.mapElements((e) -> value);
+		return m.mapValues(scalarDerivative());
 	}
 
 	@Override
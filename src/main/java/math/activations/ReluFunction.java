@@ -1,5 +1,6 @@
 package math.activations;
 
+import java.util.function.DoubleUnaryOperator;
 import math.linearalgebra.Matrix;
 
 public class ReluFunction<M> extends ActivationFunction<M> {
@@ -10,12 +11,26 @@ public class ReluFunction<M> extends ActivationFunction<M> {
 
 	@Override
 	public Matrix<M> function(Matrix<M> m) {
-		return m.mapElements((e) -> e > 0 ? e : 0);
+		return m.mapValues(this::relu);
+	}
+
+	private double relu(double e) {
+		return e > 0 ? e : 0;
+	}
+
+	@Override
+	public DoubleUnaryOperator scalarFunction() {
+		return this::relu;
+	}
+
+	@Override
+	public DoubleUnaryOperator scalarDerivative() {
+		return (e) -> e > 0 ? 1d : 0;
 	}
 
 	@Override
 	public Matrix<M> derivative(Matrix<M> m) {
-		return m.mapElements((e) -> e > 0 ? 1d : 0);
+		return m.mapValues(scalarDerivative());
 	}
 
 	@Override
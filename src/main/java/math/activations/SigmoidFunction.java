@@ -1,5 +1,6 @@
 package math.activations;
 
+import java.util.function.DoubleUnaryOperator;
 import math.linearalgebra.Matrix;
 
 public class SigmoidFunction<M> extends ActivationFunction<M> {
@@ -7,16 +8,26 @@ public class SigmoidFunction<M> extends ActivationFunction<M> {
 
 	@Override
 	public Matrix<M> function(Matrix<M> m) {
-		return m.mapElements(this::sigmoid);
+		return m.mapValues(this::sigmoid);
 	}
 
 	private double sigmoid(double input) {
 		return 1 / (1 + Math.exp(-input));
 	}
 
+	@Override
+	public DoubleUnaryOperator scalarFunction() {
+		return this::sigmoid;
+	}
+
+	@Override
+	public DoubleUnaryOperator scalarDerivative() {
+		return this::sigmoidDerivative;
+	}
+
 	@Override
 	public Matrix<M> derivative(Matrix<M> m) {
-		return m.mapElements(this::sigmoidDerivative);
+		return m.mapValues(scalarDerivative());
 	}
 
 	private double sigmoidDerivative(double input) {
@@ -20,11 +20,23 @@ public class SoftmaxFunction<M> extends ActivationFunction<M> {
 		if (input.cols() != 1) {
 			throw new IllegalArgumentException("You can only perform SoftMax on a vector.");
 		}
-		Matrix<M> max = input.maxVector();
-		Matrix<M> z = input.subtract(max);
-		double sum = z.mapElements(Math::exp).sum();
+		return softMaxInPlace(input.copy());
+	}
+
+	private Matrix<M> softMaxInPlace(Matrix<M> input) {
+		double max = input.max();
+		Matrix<M> exp = input.mapValuesInPlace(e -> Math.exp(e - max));
+		double sum = exp.sum();
 
-		return z.mapElements((e) -> Math.exp(e) / sum);
+		return exp.mapValuesInPlace(e -> e / sum);
+	}
+
+	@Override
+	public Matrix<M> functionInPlace(Matrix<M> m) {
+		if (m.cols() != 1) {
+			throw new IllegalArgumentException("You can only perform SoftMax on a vector.");
+		}
+		return this.softMaxInPlace(m);
 	}
 
 	@Override
@@ -39,11 +51,17 @@ public class SoftmaxFunction<M> extends ActivationFunction<M> {
 
 	@Override
 	public Matrix<M> derivativeOnInput(final Matrix<M> input, final Matrix<M> out) {
-		double xOut = input.hadamard(out).sum();
+		double xOut = input.dot(out);
 		Matrix<M> derive = out.subtract(xOut);
 		return input.hadamard(derive);
 	}
 
+	@Override
+	public Matrix<M> derivativeOnInputInPlace(final Matrix<M> input, final Matrix<M> out) {
+		double xOut = input.dot(out);
+		return out.zipWithInPlace(input, (o, a) -> a * (o - xOut));
+	}
+
 	@Override
 	public String getName() {
 		return "Softmax";
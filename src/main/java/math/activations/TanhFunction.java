@@ -1,21 +1,32 @@
 package math.activations;
 
+import java.util.function.DoubleUnaryOperator;
 import math.linearalgebra.Matrix;
 
 public class TanhFunction<M> extends ActivationFunction<M> {
 
 	@Override
 	public Matrix<M> function(Matrix<M> m) {
-		return m.mapElements(this::tanh);
+		return m.mapValues(this::tanh);
 	}
 
 	private double tanh(double a) {
 		return Math.tanh(a);
 	}
 
+	@Override
+	public DoubleUnaryOperator scalarFunction() {
+		return this::tanh;
+	}
+
+	@Override
+	public DoubleUnaryOperator scalarDerivative() {
+		return this::tanhDerivative;
+	}
+
 	@Override
 	public Matrix<M> derivative(Matrix<M> m) {
-		return m.mapElements(this::tanhDerivative);
+		return m.mapValues(scalarDerivative());
 	}
 
 	private double tanhDerivative(double a) {
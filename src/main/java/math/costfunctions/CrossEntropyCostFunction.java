@@ -27,8 +27,7 @@ public class CrossEntropyCostFunction<M> implements CostFunction<M> {
 
 	@Override
 	public double calculateSingle(NetworkInput<M> data) {
-		var inner = data.getLabel().hadamard(data.getData().add(1e-9).mapElements(Math::log));
-		return inner.sum();
+		return data.getLabel().zipWith(data.getData(), (y, p) -> y * Math.log(p + 1e-9)).sum();
 	}
 
 	@Override
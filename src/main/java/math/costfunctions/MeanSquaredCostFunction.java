@@ -26,8 +26,7 @@ public class MeanSquaredCostFunction<M> implements CostFunction<M> {
 	@Override
 	public double calculateSingle(NetworkInput<M> data) {
 		var ni = data;
-		var diff = ni.getData().subtract(ni.getLabel());
-		return diff.hadamard(diff).sum();
+		return ni.getData().subtract(ni.getLabel()).sumOfSquares();
 	}
 
 	@Override
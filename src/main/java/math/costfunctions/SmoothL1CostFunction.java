@@ -29,7 +29,7 @@ public class SmoothL1CostFunction<M> implements CostFunction<M> {
 	@Override
 	public double calculateSingle(NetworkInput<M> data) {
 		Matrix<M> diff = data.getLabel().subtract(data.getData());
-		return diff.mapElements(e -> {
+		return diff.mapValuesInPlace(e -> {
 			if (Math.abs(e) < l1) {
 				return e * e / 2;
 			} else {
@@ -41,7 +41,7 @@ public class SmoothL1CostFunction<M> implements CostFunction<M> {
 	@Override
 	public Matrix<M> applyCostFunctionGradient(Matrix<M> in, Matrix<M> correct) {
 		Matrix<M> diff = correct.subtract(in);
-		return diff.mapElements(e -> {
+		return diff.mapValuesInPlace(e -> {
 			if (Math.abs(e) < l1) {
 				return Math.abs(e);
 			} else {
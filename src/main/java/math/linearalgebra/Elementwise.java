@@ -0,0 +1,119 @@
+package math.linearalgebra;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import utilities.compute.ComputeExecutor;
+
+/**
+ * Runs the element wise kernels of the dense backends, e.g. the sums, products and mappings of
+ * the optimizer updates, split into ranges across a pool once a matrix has at least the parallel
+ * threshold of elements. Smaller matrices run on the calling thread as one range, as before.
+ * <p>
+ * Every element is written by exactly one range and depends on no other element, so the result
+ * does not depend on how the storage is split. The operators passed to {@link
+ * Matrix#mapValues(java.util.function.DoubleUnaryOperator)} and {@link Matrix#zipWith(Matrix,
+ * java.util.function.DoubleBinaryOperator)} may however run on several threads at once on large
+ * matrices, so they must not keep state of their own.
+ */
+public final class Elementwise {
+
+	// Below this many elements a range is not split further, 16K doubles is 128 KB.
+	static final int MIN_TASK_SIZE = 1 << 14;
+
+	private static volatile int parallelThreshold = 1 << 16;
+	// used unless the calling thread works for a bound executor, null for the shared one
+	private static volatile ComputeExecutor executor;
+
+	private Elementwise() {
+	}
+
+	/**
+	 * Sets the pool that large element wise operations are split across.
+	 *
+	 * @param forkJoinPool pool to run the operations on
+	 */
+	public static void setPool(ForkJoinPool forkJoinPool) {
+		executor = ComputeExecutor.of(forkJoinPool);
+	}
+
+	/**
+	 * Sets the executor that large element wise operations are split across, null for the shared
+	 * one. Operations stay on the calling thread if it is sequential. The executor bound to the
+	 * calling thread takes precedence (see {@link ComputeExecutor#bound()}).
+	 *
+	 * @param computeExecutor executor to run the operations on
+	 */
+	public static void setExecutor(ComputeExecutor computeExecutor) {
+		executor = computeExecutor;
+	}
+
+	/**
+	 * Sets the number of elements from which an element wise operation runs in parallel.
+	 *
+	 * @param threshold elements, Integer.MAX_VALUE disables the parallel path
+	 */
+	public static void setParallelThreshold(int threshold) {
+		parallelThreshold = threshold;
+	}
+
+	public static int getParallelThreshold() {
+		return parallelThreshold;
+	}
+
+	/**
+	 * Runs range over [0, length) of the elements of a flat array.
+	 */
+	public static void forEach(int length, Range range) {
+		forEach(length, 1, range);
+	}
+
+	/**
+	 * Runs range over [0, length) of units of unitSize elements each, e.g. the rows of a matrix
+	 * whose rows are not contiguous. A split never falls inside a unit.
+	 */
+	public static void forEach(int length, int unitSize, Range range) {
+		if (length > 1 && (long) length * unitSize >= parallelThreshold) {
+			ComputeExecutor out = ComputeExecutor.resolve(executor);
+			if (!out.isSequential()) {
+				int grain = Math.max(1, MIN_TASK_SIZE / Math.max(1, unitSize));
+				out.invoke(new RangeTask(range, 0, length, grain));
+				return;
+			}
+		}
+		range.apply(0, length);
+	}
+
+	// sequential kernel over the units [from, to)
+	@FunctionalInterface
+	public interface Range {
+
+		void apply(int from, int to);
+	}
+
+	private static final class RangeTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Range range;
+		private final int from;
+		private final int to;
+		private final int grain;
+
+		RangeTask(Range range, int from, int to, int grain) {
+			this.range = range;
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= grain) {
+				range.apply(from, to);
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new RangeTask(range, from, mid, grain), new RangeTask(range, mid, to, grain));
+		}
+	}
+}
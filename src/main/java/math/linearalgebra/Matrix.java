@@ -1,5 +1,14 @@
 package math.linearalgebra;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
 import java.util.function.Function;
 import utilities.exceptions.MatrixException;
 
@@ -77,18 +86,65 @@ public interface Matrix<M> {
 	 */
 	double map(Function<Matrix<M>, Double> mapping);
 
+	/**
+	 * Map each element with this function, overwriting this. Boxes every element, prefer
+	 * {@link #mapValuesInPlace(DoubleUnaryOperator)}.
+	 *
+	 * @param mapping f: Double -> Double each element
+	 */
 	default void mapElementsMutable(Function<Double, Double> mapping) {
-		setDelegate(this.mapElements(mapping).delegate());
+		mapValuesInPlace(mapping::apply);
 	}
 
 	/**
-	 * Map each element with this function
+	 * Map each element with this function. Boxes every element, prefer
+	 * {@link #mapValues(DoubleUnaryOperator)}.
 	 *
 	 * @param mapping f: Double -> Double each element
 	 *
 	 * @return this.map(e - > mapping ( e));
 	 */
-	Matrix<M> mapElements(Function<Double, Double> mapping);
+	default Matrix<M> mapElements(Function<Double, Double> mapping) {
+		return mapValues(mapping::apply);
+	}
+
+	/**
+	 * Map each element with this function, run directly on the backing storage.
+	 *
+	 * @param mapping f: double -> double each element
+	 *
+	 * @return new Matrix<M>, this.map(e - > mapping ( e));
+	 */
+	Matrix<M> mapValues(DoubleUnaryOperator mapping);
+
+	/**
+	 * Map each element with this function, overwriting this.
+	 *
+	 * @param mapping f: double -> double each element
+	 *
+	 * @return this, after this[i][j] = mapping(this[i][j])
+	 */
+	Matrix<M> mapValuesInPlace(DoubleUnaryOperator mapping);
+
+	/**
+	 * Combine each element with the corresponding element of other.
+	 *
+	 * @param other   right operand, same dimensions as this
+	 * @param mapping f: (double, double) -> double each pair of elements
+	 *
+	 * @return new Matrix<M>, mapping(this[i][j], other[i][j])
+	 */
+	Matrix<M> zipWith(Matrix<M> other, DoubleBinaryOperator mapping);
+
+	/**
+	 * Combine each element with the corresponding element of other, overwriting this.
+	 *
+	 * @param other   right operand, same dimensions as this
+	 * @param mapping f: (double, double) -> double each pair of elements
+	 *
+	 * @return this, after this[i][j] = mapping(this[i][j], other[i][j])
+	 */
+	Matrix<M> zipWithInPlace(Matrix<M> other, DoubleBinaryOperator mapping);
 
 	/**
 	 * The delegate part of the delegate pattern.
@@ -183,6 +239,31 @@ public interface Matrix<M> {
 	 */
 	double norm() throws MatrixException;
 
+	/**
+	 * Sum of the squares of all entries, the squared Frobenius norm. Unlike {@link #norm()} this
+	 * is defined for any shape, e.g. the norm of a weight gradient.
+	 *
+	 * @return sum of this[i][j]^2
+	 */
+	double sumOfSquares();
+
+	/**
+	 * Min of this Matrix<M> over all entries.
+	 *
+	 * @return min of this
+	 */
+	double min();
+
+	/**
+	 * Sum of the element wise products, the Frobenius inner product, without building the
+	 * hadamard product.
+	 *
+	 * @param other right operand, same dimensions as this
+	 *
+	 * @return sum of this[i][j] * other[i][j]
+	 */
+	double dot(Matrix<M> other);
+
 	/**
 	 * Name of underlying implementation.
 	 */
@@ -220,6 +301,15 @@ public interface Matrix<M> {
 	 */
 	int cols();
 
+	/**
+	 * Bytes of storage per element of this Matrix<M>
+	 *
+	 * @return bytes per element, 8 unless the backend stores fewer bits
+	 */
+	default int elementBytes() {
+		return Double.BYTES;
+	}
+
 	/**
 	 * Matrix<M> multiplication, should throw if cols and rows do not match. Contract is This X in,
 	 * i.e. this_rows*this_cols X in_cols*in_rows
@@ -230,8 +320,326 @@ public interface Matrix<M> {
 	 */
 	Matrix<M> multiply(Matrix<M> otherMatrix);
 
+	/**
+	 * Fused layer kernel, activation(this X in + bias), where the bias is added and the activation
+	 * applied as each element of the product is written instead of in one pass (and one temporary)
+	 * per operation. The default composes the separate operations.
+	 *
+	 * @param in            right operand
+	 * @param bias          added to the product, same dimensions as the product
+	 * @param activation    applied to each element after the bias
+	 * @param preActivation if not null, receives this X in + bias
+	 *
+	 * @return new Matrix<M>, activation(this X in + bias)
+	 */
+	default Matrix<M> multiplyAddMap(Matrix<M> in, Matrix<M> bias, DoubleUnaryOperator activation,
+		Matrix<M> preActivation) {
+		Matrix<M> z = this.multiply(in).addInPlace(bias);
+		if (preActivation != null) {
+			preActivation.zipWithInPlace(z, (previous, e) -> e);
+		}
+		return z.mapValuesInPlace(activation);
+	}
+
+	/**
+	 * {@link #multiplyAddMap(Matrix, Matrix, DoubleUnaryOperator, Matrix)} without keeping the
+	 * pre-activation.
+	 */
+	default Matrix<M> multiplyAddMap(Matrix<M> in, Matrix<M> bias,
+		DoubleUnaryOperator activation) {
+		return multiplyAddMap(in, bias, activation, null);
+	}
+
+	/**
+	 * Matrix<M> multiplication with this transposed, this^T X in, without building the transpose.
+	 * Contract is this_cols*this_rows X in_rows*in_cols, i.e. rows must match.
+	 *
+	 * @param otherMatrix right operand
+	 *
+	 * @return new Matrix<M>, this^T multiplied with otherMatrix
+	 */
+	Matrix<M> multiplyTransposeLeft(Matrix<M> otherMatrix);
+
+	/**
+	 * {@link #multiplyTransposeLeft(Matrix)} into an existing matrix, overwriting all of
+	 * destination, which must not be one of the operands. The default computes a new product and
+	 * copies it over.
+	 *
+	 * @param otherMatrix right operand
+	 * @param destination receives this^T X otherMatrix
+	 *
+	 * @return destination
+	 */
+	default Matrix<M> multiplyTransposeLeftInto(Matrix<M> otherMatrix, Matrix<M> destination) {
+		return destination.zipWithInPlace(multiplyTransposeLeft(otherMatrix), (previous, e) -> e);
+	}
+
+	/**
+	 * Matrix<M> multiplication with the right operand transposed, this X in^T, without building
+	 * the transpose. Contract is this_rows*this_cols X in_cols*in_rows, i.e. columns must match.
+	 *
+	 * @param otherMatrix right operand
+	 *
+	 * @return new Matrix<M>, this multiplied with otherMatrix^T
+	 */
+	Matrix<M> multiplyTransposeRight(Matrix<M> otherMatrix);
+
+	/**
+	 * {@link #multiplyTransposeRight(Matrix)} into an existing matrix, overwriting all of
+	 * destination, which must not be one of the operands.
+	 *
+	 * @param otherMatrix right operand
+	 * @param destination receives this X otherMatrix^T
+	 *
+	 * @return destination
+	 */
+	Matrix<M> multiplyTransposeRightInto(Matrix<M> otherMatrix, Matrix<M> destination);
+
 	Matrix<M> copy();
 
+	/**
+	 * The matrix to hold the values of other in place of this one, e.g. when the parameters of a
+	 * network are copied from another. Backends with a storage format of their own keep it and
+	 * round other into this, the others return a copy of other.
+	 *
+	 * @param other values to take over, same dimensions as this
+	 *
+	 * @return this or a copy of other
+	 */
+	default Matrix<M> assign(Matrix<M> other) {
+		return other.copy();
+	}
+
+	/**
+	 * Add in to this Matrix<M>, overwriting this.
+	 *
+	 * @param in right operand
+	 *
+	 * @return this, after this[i][j] += in[i][j]
+	 */
+	Matrix<M> addInPlace(Matrix<M> in);
+
+	/**
+	 * Subtract in from this Matrix<M>, overwriting this.
+	 *
+	 * @param in right operand
+	 *
+	 * @return this, after this[i][j] -= in[i][j]
+	 */
+	Matrix<M> subtractInPlace(Matrix<M> in);
+
+	/**
+	 * Element wise multiplication, overwriting this.
+	 *
+	 * @param in right operand
+	 *
+	 * @return this, after this[i][j] *= in[i][j]
+	 */
+	Matrix<M> hadamardInPlace(Matrix<M> in);
+
+	/**
+	 * Element wise division, overwriting this.
+	 *
+	 * @param in right operand
+	 *
+	 * @return this, after this[i][j] /= in[i][j]
+	 */
+	Matrix<M> divideInPlace(Matrix<M> in);
+
+	/**
+	 * Multiply each element with this scalar, overwriting this.
+	 *
+	 * @param scalar to multiply with
+	 *
+	 * @return this, after this[i][j] *= scalar
+	 */
+	Matrix<M> scaleInPlace(double scalar);
+
+	/**
+	 * Set every element of this to value.
+	 *
+	 * @param value new value of all elements
+	 *
+	 * @return this
+	 */
+	Matrix<M> fill(double value);
+
+	/**
+	 * Matrix<M> multiplication into an existing matrix, overwriting all of destination. Same
+	 * contract as {@link #multiply(Matrix)}, destination must have this_rows X in_cols elements and
+	 * must not be one of the operands.
+	 *
+	 * @param otherMatrix right operand
+	 * @param destination receives this X otherMatrix
+	 *
+	 * @return destination
+	 */
+	Matrix<M> multiplyInto(Matrix<M> otherMatrix, Matrix<M> destination);
+
+	// Batch operations. A mini-batch is a matrix with one example per column, so a layer runs over
+	// the whole batch with a single product instead of one product per example.
+
+	/**
+	 * Columns from (inclusive) to to (exclusive) of this. Backends with strided storage
+	 * (SimpleMatrix, UJMPMatrix) return a view sharing elements with this, so in place operations
+	 * on it write through, the others return a copy.
+	 *
+	 * @param from first column
+	 * @param to   one past the last column
+	 *
+	 * @return rows() X (to - from) slice of this
+	 *
+	 * @throws MatrixException if the range is outside of this
+	 */
+	Matrix<M> sliceColumns(int from, int to);
+
+	/**
+	 * Rows from (inclusive) to to (exclusive) of this, shared like {@link #sliceColumns(int,
+	 * int)}.
+	 *
+	 * @param from first row
+	 * @param to   one past the last row
+	 *
+	 * @return (to - from) X cols() slice of this
+	 *
+	 * @throws MatrixException if the range is outside of this
+	 */
+	Matrix<M> sliceRows(int from, int to);
+
+	/**
+	 * Places the given matrices side by side, typically the column vectors of a batch of {@link
+	 * neuralnetwork.inputs.NetworkInput}s. Like {@link #zeroes(int, int)} this only decides the
+	 * backend, the contents of this are not part of the result.
+	 *
+	 * @param columns matrices with the same number of rows
+	 *
+	 * @return new Matrix<M>, rows X (sum of the columns of all matrices)
+	 *
+	 * @throws MatrixException if the row counts differ
+	 */
+	Matrix<M> stackColumns(List<? extends Matrix<M>> columns);
+
+	/**
+	 * Batched product: this times each of the given matrices, typically the column vectors of
+	 * independent examples against the same weight. The matrices are stacked with {@link
+	 * #stackColumns(List)} into one operand, so the backend runs a single product instead of one
+	 * small one per matrix, and the result is split again with {@link #sliceColumns(int, int)}, so
+	 * the parts may be views of one product.
+	 *
+	 * @param matrices matrices with cols() rows
+	 *
+	 * @return this X matrices.get(i) for every i, in order
+	 *
+	 * @throws MatrixException if the dimensions do not match
+	 */
+	default List<Matrix<M>> multiplyEach(List<? extends Matrix<M>> matrices) {
+		List<Matrix<M>> out = new ArrayList<>(matrices.size());
+		if (matrices.isEmpty()) {
+			return out;
+		}
+		Matrix<M> product = this.multiply(matrices.get(0).stackColumns(matrices));
+		int from = 0;
+		for (Matrix<M> matrix : matrices) {
+			int to = from + matrix.cols();
+			out.add(product.sliceColumns(from, to));
+			from = to;
+		}
+		return out;
+	}
+
+	/**
+	 * Add a column vector to every column of this, e.g. a bias to the pre-activations of a batch.
+	 *
+	 * @param column rows() X 1 operand
+	 *
+	 * @return new Matrix<M>, this[i][j] + column[i]
+	 */
+	Matrix<M> broadcastAdd(Matrix<M> column);
+
+	/**
+	 * {@link #broadcastAdd(Matrix)} overwriting this.
+	 *
+	 * @param column rows() X 1 operand
+	 *
+	 * @return this, after this[i][j] += column[i]
+	 */
+	Matrix<M> broadcastAddInPlace(Matrix<M> column);
+
+	/**
+	 * Sum of every row, e.g. the bias gradient of a batch of deltas.
+	 *
+	 * @return new rows() X 1 Matrix<M>
+	 */
+	Matrix<M> sumRows();
+
+	/**
+	 * Max of every column.
+	 *
+	 * @return new 1 X cols() Matrix<M>
+	 */
+	Matrix<M> maxPerColumn();
+
+	/**
+	 * {@link #argMax()} of every column, e.g. the predicted classes of a batch.
+	 *
+	 * @return row index of the max of each column
+	 */
+	int[] argMaxPerColumn();
+
+	// Binary I/O. Every backend writes the same layout, a header with the order of its elements and
+	// its rows() * cols() elements as doubles (see MatrixIO), so what one backend writes another can
+	// read.
+
+	/**
+	 * Writes the header and the elements of this at the position of buffer, in its byte order, and
+	 * advances the position past them. The backends override this with bulk copies of their
+	 * storage, in the order they store it.
+	 *
+	 * @param buffer buffer with at least {@link MatrixIO#bytes(Matrix)} bytes remaining
+	 *
+	 * @throws MatrixException if fewer bytes remain
+	 */
+	default void writeTo(ByteBuffer buffer) {
+		DoubleBuffer out = MatrixIO.write(buffer, rows(), cols(), false);
+		for (double[] row : rawCopy()) {
+			out.put(row);
+		}
+	}
+
+	/**
+	 * Overwrites the elements of this with the matrix at the position of buffer, in its byte order,
+	 * and advances the position past it.
+	 *
+	 * @param buffer buffer with at least {@link MatrixIO#bytes(Matrix)} bytes remaining
+	 *
+	 * @return this
+	 *
+	 * @throws MatrixException if fewer bytes remain, the header is not valid, or this is read only
+	 */
+	Matrix<M> readFrom(ByteBuffer buffer);
+
+	/**
+	 * Writes the header and the elements of this to channel, little-endian.
+	 */
+	default void writeTo(WritableByteChannel channel) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(MatrixIO.bytes(this)).order(MatrixIO.ORDER);
+		writeTo(buffer);
+		MatrixIO.write(channel, buffer.flip());
+	}
+
+	/**
+	 * Overwrites the elements of this with a little-endian matrix read from channel.
+	 *
+	 * @return this
+	 *
+	 * @throws java.io.EOFException if the channel ends first
+	 */
+	default Matrix<M> readFrom(ReadableByteChannel channel) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(MatrixIO.bytes(this)).order(MatrixIO.ORDER);
+		MatrixIO.readFully(channel, buffer);
+		return readFrom(buffer.flip());
+	}
+
 	enum MatrixType {
 		VECTOR, SQUARE, ZEROES, ONES, IDENTITY
 	}
@@ -0,0 +1,161 @@
+package math.linearalgebra;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import math.linearalgebra.bridge.FlatStorage;
+import utilities.exceptions.MatrixException;
+
+/**
+ * Buffer and channel plumbing of {@link Matrix#writeTo(ByteBuffer)} and {@link
+ * Matrix#readFrom(ByteBuffer)}. Every backend uses the same layout: a {@link #HEADER} with the
+ * order of the elements, 0 for row major and 1 for column major, as a long, then the rows() *
+ * cols() doubles in that order, all in the byte order of the buffer, which is {@link #ORDER} for
+ * channels. A backend writes its elements in the order it stores them, so they go out and come
+ * back in with bulk transfers; only a backend reading the other order transposes them, once.
+ */
+public final class MatrixIO {
+
+	// byte order of matrices written to and read from channels
+	public static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+	// bytes before the elements of a matrix
+	public static final int HEADER = Long.BYTES;
+
+	private static final long ROW_MAJOR = 0;
+	private static final long COLUMN_MAJOR = 1;
+
+	private MatrixIO() {
+	}
+
+	/**
+	 * @return bytes taken by the header and the elements of matrix
+	 */
+	public static int bytes(Matrix<?> matrix) {
+		long bytes = HEADER + (long) matrix.rows() * matrix.cols() * Double.BYTES;
+		if (bytes > Integer.MAX_VALUE) {
+			throw new MatrixException("Matrix too large for one buffer: " + bytes + " bytes.");
+		}
+		return (int) bytes;
+	}
+
+	/**
+	 * Writes the header of a rows x cols matrix whose elements follow in the given order.
+	 *
+	 * @return the view of buffer to put the elements in, see {@link #doubles(ByteBuffer, int)}
+	 *
+	 * @throws MatrixException if fewer bytes than the header and the elements remain in buffer
+	 */
+	public static DoubleBuffer write(ByteBuffer buffer, int rows, int cols, boolean columnMajor) {
+		require(buffer, rows * cols);
+		buffer.putLong(columnMajor ? COLUMN_MAJOR : ROW_MAJOR);
+		return doubles(buffer, rows * cols);
+	}
+
+	/**
+	 * Reads the header of a rows x cols matrix and its elements.
+	 *
+	 * @return the elements in the given order: a view of buffer if they were written in it, else a
+	 * transposed copy
+	 *
+	 * @throws MatrixException if fewer bytes remain in buffer or the header is not valid
+	 */
+	public static DoubleBuffer read(ByteBuffer buffer, int rows, int cols, boolean columnMajor) {
+		require(buffer, rows * cols);
+		boolean written = isColumnMajor(buffer.getLong());
+		return inOrder(doubles(buffer, rows * cols), rows, cols, written, columnMajor);
+	}
+
+	/**
+	 * @return the header of a matrix whose elements are in the given order, in {@link #ORDER} and
+	 * ready to be written to a channel
+	 */
+	public static ByteBuffer header(boolean columnMajor) {
+		return ByteBuffer.allocate(HEADER).order(ORDER)
+			.putLong(columnMajor ? COLUMN_MAJOR : ROW_MAJOR).flip();
+	}
+
+	/**
+	 * @return true if the header at the position of buffer announces column major elements
+	 *
+	 * @throws MatrixException if it is not a header
+	 */
+	public static boolean isColumnMajor(ByteBuffer header) {
+		return isColumnMajor(header.getLong());
+	}
+
+	/**
+	 * @return the rows x cols elements of in, written in one order, in the order wanted: in itself
+	 * if they agree, else the elements transposed into a new buffer
+	 */
+	public static DoubleBuffer inOrder(DoubleBuffer in, int rows, int cols, boolean columnMajor,
+		boolean wanted) {
+		if (columnMajor == wanted) {
+			return in;
+		}
+		double[] data = new double[rows * cols];
+		in.get(data);
+		FlatStorage storage = new FlatStorage(data, rows, cols, columnMajor);
+		return DoubleBuffer.wrap(wanted ? storage.columnMajor() : storage.rowMajor());
+	}
+
+	private static boolean isColumnMajor(long order) {
+		if (order != ROW_MAJOR && order != COLUMN_MAJOR) {
+			throw new MatrixException("Not a matrix header: " + order + ".");
+		}
+		return order == COLUMN_MAJOR;
+	}
+
+	private static void require(ByteBuffer buffer, int elements) {
+		int bytes = HEADER + elements * Double.BYTES;
+		if (buffer.remaining() < bytes) {
+			throw new MatrixException(
+				"Buffer has " + buffer.remaining() + " bytes left, " + bytes + " are needed.");
+		}
+	}
+
+	/**
+	 * The next elements doubles of buffer, in its byte order. The position of buffer advances past
+	 * them, so the view is to be read or written completely.
+	 *
+	 * @throws MatrixException if fewer bytes remain in buffer
+	 */
+	public static DoubleBuffer doubles(ByteBuffer buffer, int elements) {
+		int bytes = elements * Double.BYTES;
+		if (buffer.remaining() < bytes) {
+			throw new MatrixException(
+				"Buffer has " + buffer.remaining() + " bytes left, " + bytes + " are needed.");
+		}
+		ByteBuffer view = buffer.slice().order(buffer.order());
+		view.limit(bytes);
+		buffer.position(buffer.position() + bytes);
+		return view.asDoubleBuffer();
+	}
+
+	/**
+	 * Writes the remaining bytes of buffer to channel.
+	 */
+	public static void write(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * Fills the remaining bytes of buffer from channel.
+	 *
+	 * @throws EOFException if the channel ends first
+	 */
+	public static void readFully(ReadableByteChannel channel, ByteBuffer buffer)
+		throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				throw new EOFException(buffer.remaining() + " bytes of a matrix missing.");
+			}
+		}
+	}
+}
@@ -0,0 +1,242 @@
+package math.linearalgebra;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.DoubleBinaryOperator;
+import utilities.compute.ComputeExecutor;
+
+/**
+ * Reduction kernels over the backing arrays of the dense backends, so a sum, norm or max reads the
+ * storage in place instead of going through a copy.
+ * <p>
+ * Sums are pairwise: a range is halved until it is at most {@link #BLOCK_SIZE} elements long,
+ * each block is summed sequentially and the partial sums are added up the tree. The rounding
+ * error grows with the logarithm of the length instead of linearly, which matters for the loss
+ * and gradient sums over large batches and wide layers. Ranges of at least the parallel threshold
+ * fork the top of the same tree onto a pool; the split points do not depend on the number of
+ * threads, so the parallel and the sequential result are bit for bit the same.
+ */
+public final class Reductions {
+
+	// Elements summed sequentially at the leaves of the pairwise tree, 128 doubles is 1 KB.
+	static final int BLOCK_SIZE = 128;
+
+	private static volatile int parallelThreshold = 1 << 16;
+	// used unless the calling thread works for a bound executor, null for the shared one
+	private static volatile ComputeExecutor executor;
+
+	private Reductions() {
+	}
+
+	/**
+	 * Sets the pool that large reductions are split across.
+	 *
+	 * @param forkJoinPool pool to run the reductions on
+	 */
+	public static void setPool(ForkJoinPool forkJoinPool) {
+		executor = ComputeExecutor.of(forkJoinPool);
+	}
+
+	/**
+	 * Sets the executor that large reductions are split across, null for the shared one.
+	 * Reductions stay on the calling thread if it is sequential. The executor bound to the calling
+	 * thread takes precedence (see {@link ComputeExecutor#bound()}).
+	 *
+	 * @param computeExecutor executor to run the reductions on
+	 */
+	public static void setExecutor(ComputeExecutor computeExecutor) {
+		executor = computeExecutor;
+	}
+
+	/**
+	 * Sets the number of elements from which a reduction runs in parallel.
+	 *
+	 * @param threshold length, Integer.MAX_VALUE disables the parallel path
+	 */
+	public static void setParallelThreshold(int threshold) {
+		parallelThreshold = threshold;
+	}
+
+	public static int getParallelThreshold() {
+		return parallelThreshold;
+	}
+
+	// sum of a[from], ..., a[to - 1]
+	public static double sum(double[] a, int from, int to) {
+		return reduce((lo, hi) -> {
+			double sum = 0;
+			for (int i = lo; i < hi; i++) {
+				sum += a[i];
+			}
+			return sum;
+		}, Double::sum, 0, from, to);
+	}
+
+	// sum of a[i] * a[i] over [from, to)
+	public static double sumOfSquares(double[] a, int from, int to) {
+		return reduce((lo, hi) -> {
+			double sum = 0;
+			for (int i = lo; i < hi; i++) {
+				sum += a[i] * a[i];
+			}
+			return sum;
+		}, Double::sum, 0, from, to);
+	}
+
+	// sum of a[aFrom + k] * b[bFrom + k] for k < length
+	public static double dot(double[] a, int aFrom, double[] b, int bFrom, int length) {
+		int shift = bFrom - aFrom;
+		return reduce((lo, hi) -> {
+			double sum = 0;
+			for (int i = lo; i < hi; i++) {
+				sum += a[i] * b[i + shift];
+			}
+			return sum;
+		}, Double::sum, 0, aFrom, aFrom + length);
+	}
+
+	// sum of a[from], ..., a[to - 1] widened and accumulated in double
+	public static double sum(float[] a, int from, int to) {
+		return reduce((lo, hi) -> {
+			double sum = 0;
+			for (int i = lo; i < hi; i++) {
+				sum += a[i];
+			}
+			return sum;
+		}, Double::sum, 0, from, to);
+	}
+
+	// sum of a[i] * a[i] over [from, to), accumulated in double
+	public static double sumOfSquares(float[] a, int from, int to) {
+		return reduce((lo, hi) -> {
+			double sum = 0;
+			for (int i = lo; i < hi; i++) {
+				sum += (double) a[i] * a[i];
+			}
+			return sum;
+		}, Double::sum, 0, from, to);
+	}
+
+	// sum of a[aFrom + k] * b[bFrom + k] for k < length, accumulated in double
+	public static double dot(float[] a, int aFrom, float[] b, int bFrom, int length) {
+		int shift = bFrom - aFrom;
+		return reduce((lo, hi) -> {
+			double sum = 0;
+			for (int i = lo; i < hi; i++) {
+				sum += (double) a[i] * b[i + shift];
+			}
+			return sum;
+		}, Double::sum, 0, aFrom, aFrom + length);
+	}
+
+	// largest of a[from], ..., a[to - 1], -Double.MAX_VALUE for an empty range
+	public static double max(double[] a, int from, int to) {
+		return reduce((lo, hi) -> {
+			double max = -Double.MAX_VALUE;
+			for (int i = lo; i < hi; i++) {
+				if (a[i] > max) {
+					max = a[i];
+				}
+			}
+			return max;
+		}, Math::max, -Double.MAX_VALUE, from, to);
+	}
+
+	// smallest of a[from], ..., a[to - 1], Double.MAX_VALUE for an empty range
+	public static double min(double[] a, int from, int to) {
+		return reduce((lo, hi) -> {
+			double min = Double.MAX_VALUE;
+			for (int i = lo; i < hi; i++) {
+				if (a[i] < min) {
+					min = a[i];
+				}
+			}
+			return min;
+		}, Math::min, Double.MAX_VALUE, from, to);
+	}
+
+	/**
+	 * Position of the largest of count elements starting at from, stride apart, e.g. a column of a
+	 * row-major matrix. Ties go to the first element, an empty range gives -1.
+	 *
+	 * @return k such that a[from + k * stride] is the max
+	 */
+	public static int argMax(double[] a, int from, int count, int stride) {
+		double max = -Double.MAX_VALUE;
+		int argMax = -1;
+		for (int k = 0, i = from; k < count; k++, i += stride) {
+			if (a[i] > max) {
+				max = a[i];
+				argMax = k;
+			}
+		}
+		return argMax;
+	}
+
+	private static double reduce(Block block, DoubleBinaryOperator combine, double identity,
+		int from, int to) {
+		if (to - from >= parallelThreshold) {
+			ComputeExecutor out = ComputeExecutor.resolve(executor);
+			if (!out.isSequential()) {
+				return out.invoke(new ReduceTask(block, combine, identity, from, to));
+			}
+		}
+		return pairwise(block, combine, identity, from, to);
+	}
+
+	private static double pairwise(Block block, DoubleBinaryOperator combine, double identity,
+		int from, int to) {
+		if (to - from <= BLOCK_SIZE) {
+			return from < to ? block.reduce(from, to) : identity;
+		}
+		int mid = split(from, to);
+		return combine.applyAsDouble(pairwise(block, combine, identity, from, mid),
+			pairwise(block, combine, identity, mid, to));
+	}
+
+	// midpoint rounded to a whole block, so every leaf but the last is exactly BLOCK_SIZE long
+	private static int split(int from, int to) {
+		int blocks = (to - from + BLOCK_SIZE - 1) / BLOCK_SIZE;
+		return from + blocks / 2 * BLOCK_SIZE;
+	}
+
+	// sequential reduction of [from, to), at most BLOCK_SIZE elements
+	private interface Block {
+
+		double reduce(int from, int to);
+	}
+
+	private static final class ReduceTask extends RecursiveTask<Double> {
+
+		private static final long serialVersionUID = 1L;
+
+		// Below this many elements a subtree is reduced on the current thread.
+		private static final int MIN_TASK_SIZE = 1 << 14;
+
+		private final Block block;
+		private final DoubleBinaryOperator combine;
+		private final double identity;
+		private final int from;
+		private final int to;
+
+		ReduceTask(Block block, DoubleBinaryOperator combine, double identity, int from, int to) {
+			this.block = block;
+			this.combine = combine;
+			this.identity = identity;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Double compute() {
+			if (to - from <= MIN_TASK_SIZE) {
+				return pairwise(block, combine, identity, from, to);
+			}
+			int mid = split(from, to);
+			ReduceTask right = new ReduceTask(block, combine, identity, mid, to);
+			right.fork();
+			double left = new ReduceTask(block, combine, identity, from, mid).compute();
+			return combine.applyAsDouble(left, right.join());
+		}
+	}
+}
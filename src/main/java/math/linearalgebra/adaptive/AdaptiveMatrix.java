@@ -0,0 +1,225 @@
+package math.linearalgebra.adaptive;
+
+import java.util.List;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import math.linearalgebra.Matrix;
+import math.linearalgebra.simple.SMatrix;
+import math.linearalgebra.simple.SimpleMatrix;
+import math.linearalgebra.sparse.SparseMatrix;
+import utilities.exceptions.MatrixException;
+
+/**
+ * {@link SimpleMatrix} whose products run on the kernel a {@link KernelProfile} measured fastest
+ * for their shape, so the tiny products of an RL network stay on the naive loop while the 784 x
+ * 100 layers of a classifier in the same JVM go to the parallel or the ojAlgo kernel.
+ * <p>
+ * The storage is an {@link SMatrix} as for SimpleMatrix and the two mix freely. Operations return
+ * AdaptiveMatrix again, so the routing survives a training step. The transposed products of back
+ * propagation keep the dedicated kernels of SMatrix.
+ */
+public class AdaptiveMatrix extends SimpleMatrix {
+
+	private static volatile KernelProfile profile = new KernelProfile();
+
+	public AdaptiveMatrix(SMatrix delegate) {
+		super(delegate);
+	}
+
+	public AdaptiveMatrix(double[][] vals) {
+		super(vals);
+	}
+
+	public AdaptiveMatrix(double[] ds) {
+		super(ds);
+	}
+
+	/**
+	 * Sets the profile all adaptive matrices route their products with, e.g. one loaded with
+	 * {@link KernelProfile#load(java.nio.file.Path)}.
+	 *
+	 * @param kernelProfile profile to use
+	 */
+	public static void setProfile(KernelProfile kernelProfile) {
+		profile = kernelProfile;
+	}
+
+	public static KernelProfile getProfile() {
+		return profile;
+	}
+
+	private Kernel kernel(SMatrix right) {
+		if (cols() != right.rows()) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		return profile.kernelFor(rows(), cols(), right.cols());
+	}
+
+	private static AdaptiveMatrix wrap(Matrix<SMatrix> matrix) {
+		return new AdaptiveMatrix(matrix.delegate());
+	}
+
+	@Override
+	public AdaptiveMatrix multiply(Matrix<SMatrix> otherMatrix) {
+		if (otherMatrix instanceof SparseMatrix) {
+			return wrap(super.multiply(otherMatrix));
+		}
+		SMatrix right = otherMatrix.delegate();
+		return new AdaptiveMatrix(
+			kernel(right).multiplyInto(delegate(), right, new SMatrix(rows(), right.cols())));
+	}
+
+	@Override
+	public Matrix<SMatrix> multiplyInto(Matrix<SMatrix> otherMatrix, Matrix<SMatrix> destination) {
+		if (otherMatrix instanceof SparseMatrix) {
+			return super.multiplyInto(otherMatrix, destination);
+		}
+		SMatrix right = otherMatrix.delegate();
+		kernel(right).multiplyInto(delegate(), right, destination.delegate());
+		return destination;
+	}
+
+	@Override
+	public AdaptiveMatrix multiplyAddMap(Matrix<SMatrix> in, Matrix<SMatrix> bias,
+		DoubleUnaryOperator activation, Matrix<SMatrix> preActivation) {
+		if (in instanceof SparseMatrix) {
+			return wrap(super.multiplyAddMap(in, bias, activation, preActivation));
+		}
+		SMatrix right = in.delegate();
+		SMatrix out = kernel(right).multiplyInto(delegate(), right, new SMatrix(rows(), right.cols()));
+		return new AdaptiveMatrix(out.plusMapEquals(bias.delegate(), activation,
+			preActivation == null ? null : preActivation.delegate()));
+	}
+
+	// The operations below are those of SimpleMatrix, their results wrapped again.
+
+	@Override
+	public AdaptiveMatrix hadamard(Matrix<SMatrix> otherMatrix) {
+		return wrap(super.hadamard(otherMatrix));
+	}
+
+	@Override
+	public AdaptiveMatrix multiply(double scalar) {
+		return wrap(super.multiply(scalar));
+	}
+
+	@Override
+	public AdaptiveMatrix add(Matrix<SMatrix> in) {
+		return wrap(super.add(in));
+	}
+
+	@Override
+	public AdaptiveMatrix add(double in) {
+		return wrap(super.add(in));
+	}
+
+	@Override
+	public AdaptiveMatrix subtract(double in) {
+		return wrap(super.subtract(in));
+	}
+
+	@Override
+	public AdaptiveMatrix subtract(Matrix<SMatrix> in) {
+		return wrap(super.subtract(in));
+	}
+
+	@Override
+	public AdaptiveMatrix divide(double in) {
+		return wrap(super.divide(in));
+	}
+
+	@Override
+	public AdaptiveMatrix divide(Matrix<SMatrix> right) {
+		return wrap(super.divide(right));
+	}
+
+	@Override
+	public AdaptiveMatrix mapValues(DoubleUnaryOperator mapping) {
+		return wrap(super.mapValues(mapping));
+	}
+
+	@Override
+	public AdaptiveMatrix zipWith(Matrix<SMatrix> other, DoubleBinaryOperator mapping) {
+		return wrap(super.zipWith(other, mapping));
+	}
+
+	@Override
+	public AdaptiveMatrix transpose() {
+		return wrap(super.transpose());
+	}
+
+	@Override
+	public AdaptiveMatrix maxVector() {
+		return wrap(super.maxVector());
+	}
+
+	@Override
+	public AdaptiveMatrix zeroes(int rows, int cols) {
+		return new AdaptiveMatrix(new SMatrix(rows, cols));
+	}
+
+	@Override
+	public AdaptiveMatrix ones(int rows, int cols) {
+		return wrap(super.ones(rows, cols));
+	}
+
+	@Override
+	public AdaptiveMatrix identity(int rows, int cols) {
+		return wrap(super.identity(rows, cols));
+	}
+
+	@Override
+	public AdaptiveMatrix multiplyTransposeLeft(Matrix<SMatrix> otherMatrix) {
+		return wrap(super.multiplyTransposeLeft(otherMatrix));
+	}
+
+	@Override
+	public AdaptiveMatrix multiplyTransposeRight(Matrix<SMatrix> otherMatrix) {
+		return wrap(super.multiplyTransposeRight(otherMatrix));
+	}
+
+	@Override
+	public AdaptiveMatrix copy() {
+		return new AdaptiveMatrix(delegate().copy());
+	}
+
+	@Override
+	public AdaptiveMatrix sliceColumns(int from, int to) {
+		return wrap(super.sliceColumns(from, to));
+	}
+
+	@Override
+	public AdaptiveMatrix sliceRows(int from, int to) {
+		return wrap(super.sliceRows(from, to));
+	}
+
+	@Override
+	public AdaptiveMatrix stackColumns(List<? extends Matrix<SMatrix>> columns) {
+		return wrap(super.stackColumns(columns));
+	}
+
+	@Override
+	public AdaptiveMatrix broadcastAdd(Matrix<SMatrix> column) {
+		return wrap(super.broadcastAdd(column));
+	}
+
+	@Override
+	public AdaptiveMatrix sumRows() {
+		return wrap(super.sumRows());
+	}
+
+	@Override
+	public AdaptiveMatrix maxPerColumn() {
+		return wrap(super.maxPerColumn());
+	}
+
+	@Override
+	public String name() {
+		return "AdaptiveMatrix";
+	}
+
+	@Override
+	public String toString() {
+		return "AdaptiveMatrix=[" + delegate().toString() + "]";
+	}
+}
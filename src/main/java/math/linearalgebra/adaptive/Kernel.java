@@ -0,0 +1,74 @@
+package math.linearalgebra.adaptive;
+
+import math.linearalgebra.simple.SMatrix;
+import org.ojalgo.matrix.store.Primitive64Store;
+import utilities.exceptions.MatrixException;
+
+/**
+ * The kernels a {@link KernelProfile} chooses between for C = A * B. All of them read and write
+ * {@link SMatrix} operands, so switching kernels never converts a matrix.
+ */
+public enum Kernel {
+
+	/**
+	 * One dot product per element, no tiling and no tasks.
+	 */
+	NAIVE {
+		@Override
+		public SMatrix multiplyInto(SMatrix a, SMatrix b, SMatrix c) {
+			return a.timesNaiveInto(b, c);
+		}
+	},
+
+	/**
+	 * The tiled kernels of {@link SMatrix} on the calling thread.
+	 */
+	BLOCKED {
+		@Override
+		public SMatrix multiplyInto(SMatrix a, SMatrix b, SMatrix c) {
+			return a.timesBlockedInto(b, c);
+		}
+	},
+
+	/**
+	 * The tiled kernels of {@link SMatrix} split across its executor.
+	 */
+	PARALLEL {
+		@Override
+		public SMatrix multiplyInto(SMatrix a, SMatrix b, SMatrix c) {
+			return a.timesParallelInto(b, c);
+		}
+	},
+
+	/**
+	 * ojAlgo's multithreaded multiply on the arrays of the operands. A row-major array read as
+	 * column major is the transpose, so C^T = B^T * A^T is computed without copies. Views are
+	 * copied first.
+	 */
+	OJALGO {
+		@Override
+		public SMatrix multiplyInto(SMatrix a, SMatrix b, SMatrix c) {
+			if (a.cols() != b.rows() || c.rows() != a.rows() || c.cols() != b.cols()) {
+				throw new MatrixException("Illegal matrix dimensions.");
+			}
+			double[] left = a.storage() != null ? a.storage() : a.copy().storage();
+			double[] right = b.storage() != null ? b.storage() : b.copy().storage();
+			SMatrix target = c.storage() != null ? c : new SMatrix(c.rows(), c.cols());
+			Primitive64Store.wrap(target.storage(), b.cols()).fillByMultiplying(
+				Primitive64Store.wrap(right, b.cols()), Primitive64Store.wrap(left, a.cols()));
+			if (target != c) {
+				c.zipEquals(target, (previous, e) -> e);
+			}
+			return c;
+		}
+	};
+
+	/**
+	 * @param a left operand
+	 * @param b right operand
+	 * @param c destination, overwritten, must not share storage with a or b
+	 *
+	 * @return c = a * b
+	 */
+	public abstract SMatrix multiplyInto(SMatrix a, SMatrix b, SMatrix c);
+}
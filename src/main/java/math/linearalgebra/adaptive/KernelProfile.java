@@ -0,0 +1,180 @@
+package math.linearalgebra.adaptive;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import math.linearalgebra.simple.SMatrix;
+
+/**
+ * Which {@link Kernel} runs the products of each shape.
+ * <p>
+ * Shapes are bucketed by rounding every dimension up to a power of two. The first product of a
+ * bucket times every candidate kernel on random operands of that shape and keeps the fastest, so a
+ * network pays one calibration per layer and batch size, a few milliseconds each for the usual
+ * layer sizes. A profile can be saved and loaded again, e.g. to skip the calibration at startup or
+ * to pin the kernels measured on a quiet machine. Shapes missing from a loaded profile are still
+ * calibrated on first use.
+ */
+public class KernelProfile {
+
+	// Timed runs per kernel, the fastest counts. One more untimed run warms the kernel up.
+	private static final int TRIALS = 5;
+
+	// Multiply-adds per timed run, products smaller than this are repeated until they reach it so
+	// that the timer resolution does not decide.
+	private static final long TRIAL_WORK = 1L << 18;
+
+	// Above this many multiply-adds a single timed run is enough.
+	private static final long LARGE_WORK = 1L << 24;
+
+	private final Set<Kernel> candidates;
+	private final Map<Integer, Kernel> kernels = new ConcurrentHashMap<>();
+
+	public KernelProfile() {
+		this(EnumSet.allOf(Kernel.class));
+	}
+
+	/**
+	 * @param candidates kernels to choose from, a single kernel disables the calibration
+	 */
+	public KernelProfile(Set<Kernel> candidates) {
+		if (candidates.isEmpty()) {
+			throw new IllegalArgumentException("No candidate kernels.");
+		}
+		this.candidates = EnumSet.copyOf(candidates);
+	}
+
+	/**
+	 * Reads a profile written by {@link #save(Path)}, calibrating unknown shapes with all kernels.
+	 *
+	 * @param path properties file of bucket to kernel
+	 *
+	 * @return the loaded profile
+	 */
+	public static KernelProfile load(Path path) throws IOException {
+		Properties properties = new Properties();
+		try (Reader reader = Files.newBufferedReader(path)) {
+			properties.load(reader);
+		}
+		KernelProfile profile = new KernelProfile();
+		for (String shape : properties.stringPropertyNames()) {
+			String[] dims = shape.split("x");
+			if (dims.length != 3) {
+				throw new IOException("Malformed shape " + shape + " in " + path);
+			}
+			profile.kernels.put(
+				bucket(Integer.parseInt(dims[0]), Integer.parseInt(dims[1]), Integer.parseInt(dims[2])),
+				Kernel.valueOf(properties.getProperty(shape).trim()));
+		}
+		return profile;
+	}
+
+	/**
+	 * Writes the kernel of every calibrated bucket, keyed by its largest shape, e.g. {@code
+	 * 128x1024x1=OJALGO}.
+	 *
+	 * @param path properties file to write
+	 */
+	public void save(Path path) throws IOException {
+		Properties properties = new Properties();
+		properties.putAll(kernels());
+		try (Writer writer = Files.newBufferedWriter(path)) {
+			properties.store(writer, "Kernel per product shape, rows x inner x columns");
+		}
+	}
+
+	/**
+	 * Threads meeting a new bucket at the same time may each calibrate it, the first kernel published
+	 * wins. The calibration runs outside the map so that it blocks no other bucket.
+	 *
+	 * @return the kernel for an m x k times k x n product, calibrated if the bucket is new
+	 */
+	public Kernel kernelFor(int m, int k, int n) {
+		int bucket = bucket(m, k, n);
+		Kernel kernel = kernels.get(bucket);
+		if (kernel != null) {
+			return kernel;
+		}
+		kernel = fastest(m, k, n);
+		Kernel published = kernels.putIfAbsent(bucket, kernel);
+		return published != null ? published : kernel;
+	}
+
+	/**
+	 * Times the candidates on an m x k times k x n product now, replacing the kernel of its bucket,
+	 * e.g. to calibrate the layers of a network at startup.
+	 *
+	 * @return the fastest kernel
+	 */
+	public Kernel calibrate(int m, int k, int n) {
+		Kernel kernel = fastest(m, k, n);
+		kernels.put(bucket(m, k, n), kernel);
+		return kernel;
+	}
+
+	/**
+	 * @return the kernel of every calibrated bucket, keyed by its largest shape
+	 */
+	public Map<String, String> kernels() {
+		Map<String, String> out = new TreeMap<>();
+		for (Map.Entry<Integer, Kernel> entry : kernels.entrySet()) {
+			int key = entry.getKey();
+			out.put((1 << (key >>> 10)) + "x" + (1 << (key >>> 5 & 31)) + "x" + (1 << (key & 31)),
+				entry.getValue().name());
+		}
+		return out;
+	}
+
+	private Kernel fastest(int m, int k, int n) {
+		if (candidates.size() == 1) {
+			return candidates.iterator().next();
+		}
+		SMatrix a = SMatrix.random(m, k);
+		SMatrix b = SMatrix.random(k, n);
+		SMatrix c = new SMatrix(m, n);
+		long work = Math.max(1, (long) m * k * n);
+		int repeats = (int) Math.max(1, TRIAL_WORK / work);
+		int trials = work >= LARGE_WORK ? 1 : TRIALS;
+
+		Kernel best = null;
+		long bestTime = Long.MAX_VALUE;
+		for (Kernel kernel : candidates) {
+			kernel.multiplyInto(a, b, c);
+			long time = Long.MAX_VALUE;
+			for (int t = 0; t < trials; t++) {
+				long start = System.nanoTime();
+				for (int r = 0; r < repeats; r++) {
+					kernel.multiplyInto(a, b, c);
+				}
+				time = Math.min(time, System.nanoTime() - start);
+			}
+			if (time < bestTime) {
+				bestTime = time;
+				best = kernel;
+			}
+		}
+		return best;
+	}
+
+	// exponents of the dimensions rounded up to a power of two, 5 bits each
+	private static int bucket(int m, int k, int n) {
+		return exponent(m) << 10 | exponent(k) << 5 | exponent(n);
+	}
+
+	private static int exponent(int dimension) {
+		return dimension <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(dimension - 1);
+	}
+
+	@Override
+	public String toString() {
+		return "KernelProfile" + kernels();
+	}
+}
@@ -0,0 +1,99 @@
+package math.linearalgebra.bridge;
+
+import java.util.ArrayList;
+import java.util.List;
+import math.linearalgebra.Matrix;
+import math.linearalgebra.adaptive.AdaptiveMatrix;
+import math.linearalgebra.floats.FMatrix;
+import math.linearalgebra.floats.FloatMatrix;
+import math.linearalgebra.offheap.DMatrix;
+import math.linearalgebra.offheap.OffHeapMatrix;
+import math.linearalgebra.offheap.OffHeapScope;
+import math.linearalgebra.ojalgo.OjAlgoMatrix;
+import math.linearalgebra.ojalgo.OjAlgoStoreMatrix;
+import math.linearalgebra.simple.SMatrix;
+import math.linearalgebra.simple.SimpleMatrix;
+import math.linearalgebra.ujmp.UJMPMatrix;
+import org.ojalgo.matrix.Primitive64Matrix;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ujmp.core.doublematrix.impl.DefaultDenseDoubleMatrix2D;
+
+/**
+ * Builds matrices of one backend from the {@link FlatStorage} of any other, so parameters move
+ * between backends without the {@code double[][]} of {@link Matrix#rawCopy()}.
+ * <p>
+ * {@link #convert(Matrix)} always gives the new matrix its own elements: one bulk copy, or a
+ * transposing copy when the orders differ. {@link #share(Matrix)} skips the copy where a backend
+ * stores a flat array in the order of the source, SimpleMatrix and adaptive from row major, ojAlgo
+ * store and UJMP from column major storage. The shared matrix then changes with the source, which
+ * the in place updates of the optimizers make unsafe for parameters that are still trained.
+ *
+ * @param <M> the backend type built
+ */
+@FunctionalInterface
+public interface Backend<M> {
+
+	Backend<SMatrix> SIMPLE = s -> new SimpleMatrix(SMatrix.wrap(s.rowMajor(), s.rows(), s.cols()));
+
+	Backend<SMatrix> ADAPTIVE = s -> new AdaptiveMatrix(
+		SMatrix.wrap(s.rowMajor(), s.rows(), s.cols()));
+
+	Backend<FMatrix> FLOAT = s -> {
+		double[] data = s.rowMajor();
+		FMatrix out = new FMatrix(s.rows(), s.cols());
+		float[] storage = out.storage();
+		for (int i = 0; i < data.length; i++) {
+			storage[i] = (float) data[i];
+		}
+		return new FloatMatrix(out);
+	};
+
+	Backend<Primitive64Store> OJALGO_STORE = s -> new OjAlgoStoreMatrix(
+		Primitive64Store.wrap(s.columnMajor(), s.rows()));
+
+	// Primitive64Matrix is immutable and copies the store it is built from.
+	Backend<Primitive64Matrix> OJALGO = s -> new OjAlgoMatrix(
+		Primitive64Matrix.FACTORY.copy(Primitive64Store.wrap(s.columnMajor(), s.rows())));
+
+	Backend<org.ujmp.core.Matrix> UJMP = s -> new UJMPMatrix(
+		new DefaultDenseDoubleMatrix2D(s.columnMajor(), s.rows(), s.cols()));
+
+	/**
+	 * @return the off heap backend, one bulk copy into storage allocated in scope
+	 */
+	static Backend<DMatrix> offHeap(OffHeapScope scope) {
+		return s -> {
+			DMatrix out = new DMatrix(scope, s.rows(), s.cols());
+			out.bytes().asDoubleBuffer().put(s.rowMajor());
+			return new OffHeapMatrix(out);
+		};
+	}
+
+	/**
+	 * @return a matrix of this backend on the elements of storage
+	 */
+	Matrix<M> wrap(FlatStorage storage);
+
+	/**
+	 * @return a copy of matrix on this backend, independent of matrix
+	 */
+	default Matrix<M> convert(Matrix<?> matrix) {
+		return wrap(FlatStorage.of(matrix).detached());
+	}
+
+	default List<Matrix<M>> convert(List<? extends Matrix<?>> matrices) {
+		List<Matrix<M>> out = new ArrayList<>(matrices.size());
+		for (Matrix<?> matrix : matrices) {
+			out.add(convert(matrix));
+		}
+		return out;
+	}
+
+	/**
+	 * @return matrix on this backend, a view of the storage of matrix where the orders match, so
+	 * that changing one changes the other
+	 */
+	default Matrix<M> share(Matrix<?> matrix) {
+		return wrap(FlatStorage.of(matrix));
+	}
+}
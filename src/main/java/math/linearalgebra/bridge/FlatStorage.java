@@ -0,0 +1,165 @@
+package math.linearalgebra.bridge;
+
+import math.linearalgebra.Matrix;
+import math.linearalgebra.floats.FMatrix;
+import math.linearalgebra.offheap.DMatrix;
+import math.linearalgebra.simple.SMatrix;
+import org.ojalgo.matrix.Primitive64Matrix;
+import org.ojalgo.matrix.store.Primitive64Store;
+import org.ujmp.core.interfaces.HasColumnMajorDoubleArray1D;
+import org.ujmp.core.interfaces.HasRowMajorDoubleArray2D;
+import utilities.exceptions.MatrixException;
+
+/**
+ * The elements of a dense matrix in one flat {@code double[]}, row or column major, whichever the
+ * backend stores. Where the backend keeps such an array, it is shared instead of copied: writing
+ * to the array changes the matrix it was read from.
+ */
+public final class FlatStorage {
+
+	private final double[] data;
+	private final int rows;
+	private final int cols;
+	private final boolean columnMajor;
+	// data is the array of a matrix, not a copy made for this storage
+	private final boolean shared;
+	// rowMajor and columnMajor copy a shared array instead of returning it
+	private final boolean detached;
+
+	public FlatStorage(double[] data, int rows, int cols, boolean columnMajor) {
+		this(data, rows, cols, columnMajor, true, false);
+	}
+
+	private FlatStorage(double[] data, int rows, int cols, boolean columnMajor, boolean shared,
+		boolean detached) {
+		if (data.length != rows * cols) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		this.data = data;
+		this.rows = rows;
+		this.cols = cols;
+		this.columnMajor = columnMajor;
+		this.shared = shared;
+		this.detached = detached;
+	}
+
+	private static FlatStorage copied(double[] data, int rows, int cols, boolean columnMajor) {
+		return new FlatStorage(data, rows, cols, columnMajor, false, false);
+	}
+
+	/**
+	 * Reads the storage of any matrix: shared for the double backends on a plain array
+	 * ({@link SMatrix} that is not a view, Primitive64Store, column major UJMP), one bulk copy
+	 * for the others, and {@link Matrix#rawCopy()} for backends unknown here.
+	 */
+	public static FlatStorage of(Matrix<?> matrix) {
+		Object delegate = matrix.delegate();
+		int rows = matrix.rows(), cols = matrix.cols();
+		if (delegate instanceof SMatrix) {
+			SMatrix s = (SMatrix) delegate;
+			double[] storage = s.storage();
+			return storage != null ? new FlatStorage(storage, rows, cols, false)
+				: copied(s.copy().storage(), rows, cols, false);
+		} else if (delegate instanceof FMatrix) {
+			float[] storage = ((FMatrix) delegate).storage();
+			double[] data = new double[storage.length];
+			for (int i = 0; i < data.length; i++) {
+				data[i] = storage[i];
+			}
+			return copied(data, rows, cols, false);
+		} else if (delegate instanceof DMatrix) {
+			double[] data = new double[rows * cols];
+			((DMatrix) delegate).bytes().asDoubleBuffer().get(data);
+			return copied(data, rows, cols, false);
+		} else if (delegate instanceof Primitive64Store) {
+			return new FlatStorage(((Primitive64Store) delegate).data, rows, cols, true);
+		} else if (delegate instanceof Primitive64Matrix) {
+			// immutable, so its store is not reachable: one bulk copy
+			Primitive64Store store = Primitive64Store.FACTORY.make(rows, cols);
+			((Primitive64Matrix) delegate).supplyTo(store);
+			return copied(store.data, rows, cols, true);
+		} else if (delegate instanceof HasColumnMajorDoubleArray1D) {
+			double[] data = ((HasColumnMajorDoubleArray1D) delegate).getColumnMajorDoubleArray1D();
+			return new FlatStorage(data, rows, cols, true);
+		} else if (delegate instanceof HasRowMajorDoubleArray2D) {
+			return rowMajor(((HasRowMajorDoubleArray2D) delegate).getRowMajorDoubleArray2D());
+		}
+		return rowMajor(matrix.rawCopy());
+	}
+
+	private static FlatStorage rowMajor(double[][] values) {
+		int rows = values.length, cols = values[0].length;
+		double[] data = new double[rows * cols];
+		for (int i = 0; i < rows; i++) {
+			System.arraycopy(values[i], 0, data, i * cols, cols);
+		}
+		return copied(data, rows, cols, false);
+	}
+
+	/**
+	 * @return the same elements, read as arrays that no matrix holds: the shared array is copied
+	 * when it would be returned, a transposing or converting read is not copied again
+	 */
+	public FlatStorage detached() {
+		return shared && !detached ? new FlatStorage(data, rows, cols, columnMajor, true, true)
+			: this;
+	}
+
+	public int rows() {
+		return rows;
+	}
+
+	public int cols() {
+		return cols;
+	}
+
+	public boolean isColumnMajor() {
+		return columnMajor;
+	}
+
+	/**
+	 * @return the elements row by row, the shared array if it is in that order and this storage is
+	 * not {@link #detached()}, else a copy
+	 */
+	public double[] rowMajor() {
+		return columnMajor ? transpose(data, cols, rows) : data();
+	}
+
+	/**
+	 * @return the elements column by column, the shared array if it is in that order and this
+	 * storage is not {@link #detached()}, else a copy
+	 */
+	public double[] columnMajor() {
+		return columnMajor ? data() : transpose(data, rows, cols);
+	}
+
+	/**
+	 * @return the elements in the order given by {@link #isColumnMajor()}, the shared array unless
+	 * this storage is {@link #detached()}, e.g. for kernels that read either order with strides
+	 */
+	public double[] array() {
+		return data();
+	}
+
+	private double[] data() {
+		return detached ? data.clone() : data;
+	}
+
+	// the same elements with the order of the M-by-N row-major array a swapped
+	private static double[] transpose(double[] a, int M, int N) {
+		final int block = 64;
+		double[] out = new double[a.length];
+		for (int ii = 0; ii < M; ii += block) {
+			int iMax = Math.min(ii + block, M);
+			for (int jj = 0; jj < N; jj += block) {
+				int jMax = Math.min(jj + block, N);
+				for (int i = ii; i < iMax; i++) {
+					for (int j = jj; j < jMax; j++) {
+						out[j * M + i] = a[i * N + j];
+					}
+				}
+			}
+		}
+		return out;
+	}
+}
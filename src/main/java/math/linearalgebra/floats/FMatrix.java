@@ -0,0 +1,656 @@
+package math.linearalgebra.floats;
+
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import math.linearalgebra.Elementwise;
+import math.linearalgebra.Reductions;
+import utilities.exceptions.MatrixException;
+
+/**
+ * Dense row-major single precision matrix backed by a contiguous {@code float[]}, half the memory
+ * (and memory bandwidth) of {@link math.linearalgebra.simple.SMatrix}.
+ * <p>
+ * Precision: every element is stored as a float, so element wise results are rounded to float
+ * after each operation. Products, sums and norms accumulate in double and are rounded once when
+ * stored, which keeps the error of long dot products (wide layers, large batches) close to that of
+ * a single rounding instead of growing with the inner dimension.
+ */
+public class FMatrix {
+
+	// Column tile width for the product, 64 floats is a quarter of a kilobyte per row of B.
+	static final int BLOCK_SIZE = 64;
+
+	private final int M; // number of rows
+	private final int N; // number of columns
+	private final float[] data; // row-major storage
+
+	// create M-by-N matrix of 0's
+	public FMatrix(int M, int N) {
+		this(new float[M * N], M, N);
+	}
+
+	// create matrix based on 2d array, narrowing each value to float
+	public FMatrix(double[][] vals) {
+		this(vals.length, vals[0].length);
+		for (int i = 0; i < M; i++) {
+			for (int j = 0; j < N; j++) {
+				this.data[i * N + j] = (float) vals[i][j];
+			}
+		}
+	}
+
+	// create column vector based on 1d array, narrowing each value to float
+	public FMatrix(double[] ds) {
+		this(ds.length, 1);
+		for (int i = 0; i < M; i++) {
+			this.data[i] = (float) ds[i];
+		}
+	}
+
+	private FMatrix(float[] data, int M, int N) {
+		this.M = M;
+		this.N = N;
+		this.data = data;
+	}
+
+	// create and return an M-by-N matrix with every element equal to value
+	public static FMatrix filled(int M, int N, double value) {
+		FMatrix A = new FMatrix(M, N);
+		Arrays.fill(A.data, (float) value);
+		return A;
+	}
+
+	// create and return the M-by-N identity matrix
+	public static FMatrix identity(int M, int N) {
+		FMatrix I = new FMatrix(M, N);
+		for (int i = 0; i < Math.min(M, N); i++) {
+			I.data[i * N + i] = 1;
+		}
+		return I;
+	}
+
+	public int rows() {
+		return this.M;
+	}
+
+	public int cols() {
+		return this.N;
+	}
+
+	// return C = A * B
+	public FMatrix times(FMatrix B) {
+		return timesInto(B, new FMatrix(M, B.N));
+	}
+
+	// C = A * B written into an existing matrix, C must not share storage with A or B
+	public FMatrix timesInto(FMatrix B, FMatrix C) {
+		FMatrix A = this;
+		if (A.N != B.M || C.M != A.M || C.N != B.N) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		final int n = A.N;
+		if (B.N == 1) {
+			for (int i = 0; i < A.M; i++) {
+				int a = i * n;
+				double sum = 0;
+				for (int k = 0; k < n; k++) {
+					sum += (double) A.data[a + k] * B.data[k];
+				}
+				C.data[i] = (float) sum;
+			}
+			return C;
+		}
+
+		// i-k-j over one column tile of B at a time, with a double accumulator for the tile row
+		double[] acc = new double[BLOCK_SIZE];
+		for (int jj = 0; jj < B.N; jj += BLOCK_SIZE) {
+			int width = Math.min(BLOCK_SIZE, B.N - jj);
+			for (int i = 0; i < A.M; i++) {
+				Arrays.fill(acc, 0, width, 0d);
+				int a = i * n;
+				for (int k = 0; k < n; k++) {
+					double aik = A.data[a + k];
+					int b = k * B.N + jj;
+					for (int j = 0; j < width; j++) {
+						acc[j] += aik * B.data[b + j];
+					}
+				}
+				int c = i * C.N + jj;
+				for (int j = 0; j < width; j++) {
+					C.data[c + j] = (float) acc[j];
+				}
+			}
+		}
+		return C;
+	}
+
+	// return f(A * B + C), C added and f applied in double as each element of the product is
+	// stored instead of in separate passes, Z (may be null) receives A * B + C
+	public FMatrix timesPlusMap(FMatrix B, FMatrix C, DoubleUnaryOperator f, FMatrix Z) {
+		FMatrix A = this;
+		if (A.N != B.M || C.M != A.M || C.N != B.N
+			|| Z != null && (Z.M != C.M || Z.N != C.N)) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		FMatrix out = new FMatrix(A.M, B.N);
+		if (B.N == 1) {
+			final int n = A.N;
+			for (int i = 0; i < A.M; i++) {
+				int a = i * n;
+				double sum = 0;
+				for (int k = 0; k < n; k++) {
+					sum += (double) A.data[a + k] * B.data[k];
+				}
+				sum += C.data[i];
+				if (Z != null) {
+					Z.data[i] = (float) sum;
+				}
+				out.data[i] = (float) f.applyAsDouble(sum);
+			}
+			return out;
+		}
+
+		// the tiled product finishes one column tile at a time, so the epilogue runs after it
+		timesInto(B, out);
+		for (int i = 0; i < out.data.length; i++) {
+			double z = (double) out.data[i] + C.data[i];
+			if (Z != null) {
+				Z.data[i] = (float) z;
+			}
+			out.data[i] = (float) f.applyAsDouble(z);
+		}
+		return out;
+	}
+
+	// return C = A^T * B without forming A^T
+	public FMatrix transposeTimes(FMatrix B) {
+		FMatrix A = this;
+		if (A.M != B.M) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		// k-i-j over contiguous rows of A and B, accumulated in double and rounded once
+		double[] acc = new double[A.N * B.N];
+		for (int k = 0; k < A.M; k++) {
+			int a = k * A.N;
+			int b = k * B.N;
+			for (int i = 0; i < A.N; i++) {
+				double aki = A.data[a + i];
+				int c = i * B.N;
+				for (int j = 0; j < B.N; j++) {
+					acc[c + j] += aki * B.data[b + j];
+				}
+			}
+		}
+		FMatrix C = new FMatrix(A.N, B.N);
+		for (int i = 0; i < acc.length; i++) {
+			C.data[i] = (float) acc[i];
+		}
+		return C;
+	}
+
+	// return C = A * B^T without forming B^T
+	public FMatrix timesTranspose(FMatrix B) {
+		return timesTransposeInto(B, new FMatrix(M, B.M));
+	}
+
+	// C = A * B^T written into an existing matrix, every element a dot product of two rows
+	public FMatrix timesTransposeInto(FMatrix B, FMatrix C) {
+		FMatrix A = this;
+		if (A.N != B.N || C.M != A.M || C.N != B.M) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		final int n = A.N;
+		for (int jj = 0; jj < B.M; jj += BLOCK_SIZE) {
+			int jMax = Math.min(jj + BLOCK_SIZE, B.M);
+			for (int i = 0; i < A.M; i++) {
+				int a = i * n;
+				for (int j = jj; j < jMax; j++) {
+					int b = j * n;
+					double sum = 0;
+					for (int k = 0; k < n; k++) {
+						sum += (double) A.data[a + k] * B.data[b + k];
+					}
+					C.data[i * C.N + j] = (float) sum;
+				}
+			}
+		}
+		return C;
+	}
+
+	// create and return the transpose of the invoking matrix
+	public FMatrix transpose() {
+		FMatrix A = new FMatrix(N, M);
+		for (int ii = 0; ii < M; ii += BLOCK_SIZE) {
+			int iMax = Math.min(ii + BLOCK_SIZE, M);
+			for (int jj = 0; jj < N; jj += BLOCK_SIZE) {
+				int jMax = Math.min(jj + BLOCK_SIZE, N);
+				for (int i = ii; i < iMax; i++) {
+					for (int j = jj; j < jMax; j++) {
+						A.data[j * M + i] = this.data[i * N + j];
+					}
+				}
+			}
+		}
+		return A;
+	}
+
+	// return C = A + B
+	public FMatrix plus(FMatrix B) {
+		float[] b = checkDimensions(B).data;
+		FMatrix out = new FMatrix(M, N);
+		Elementwise.forEach(data.length, (from, to) -> {
+			for (int i = from; i < to; i++) {
+				out.data[i] = data[i] + b[i];
+			}
+		});
+		return out;
+	}
+
+	// return C = A - B
+	public FMatrix minus(FMatrix B) {
+		float[] b = checkDimensions(B).data;
+		FMatrix out = new FMatrix(M, N);
+		Elementwise.forEach(data.length, (from, to) -> {
+			for (int i = from; i < to; i++) {
+				out.data[i] = data[i] - b[i];
+			}
+		});
+		return out;
+	}
+
+	public FMatrix hadamard(FMatrix B) {
+		float[] b = checkDimensions(B).data;
+		FMatrix out = new FMatrix(M, N);
+		Elementwise.forEach(data.length, (from, to) -> {
+			for (int i = from; i < to; i++) {
+				out.data[i] = data[i] * b[i];
+			}
+		});
+		return out;
+	}
+
+	public FMatrix divide(FMatrix B) {
+		float[] b = checkDimensions(B).data;
+		FMatrix out = new FMatrix(M, N);
+		Elementwise.forEach(data.length, (from, to) -> {
+			for (int i = from; i < to; i++) {
+				out.data[i] = data[i] / b[i];
+			}
+		});
+		return out;
+	}
+
+	public FMatrix plus(double in) {
+		float v = (float) in;
+		FMatrix out = new FMatrix(M, N);
+		Elementwise.forEach(data.length, (from, to) -> {
+			for (int i = from; i < to; i++) {
+				out.data[i] = data[i] + v;
+			}
+		});
+		return out;
+	}
+
+	public FMatrix minus(double in) {
+		return plus(-in);
+	}
+
+	public FMatrix times(double in) {
+		float v = (float) in;
+		FMatrix out = new FMatrix(M, N);
+		Elementwise.forEach(data.length, (from, to) -> {
+			for (int i = from; i < to; i++) {
+				out.data[i] = data[i] * v;
+			}
+		});
+		return out;
+	}
+
+	public FMatrix divide(double in) {
+		FMatrix out = new FMatrix(M, N);
+		Elementwise.forEach(data.length, (from, to) -> {
+			for (int i = from; i < to; i++) {
+				out.data[i] = (float) (data[i] / in);
+			}
+		});
+		return out;
+	}
+
+	// A += B
+	public FMatrix plusEquals(FMatrix B) {
+		float[] b = checkDimensions(B).data;
+		Elementwise.forEach(data.length, (from, to) -> {
+			for (int i = from; i < to; i++) {
+				data[i] += b[i];
+			}
+		});
+		return this;
+	}
+
+	// A -= B
+	public FMatrix minusEquals(FMatrix B) {
+		float[] b = checkDimensions(B).data;
+		Elementwise.forEach(data.length, (from, to) -> {
+			for (int i = from; i < to; i++) {
+				data[i] -= b[i];
+			}
+		});
+		return this;
+	}
+
+	// A .*= B
+	public FMatrix hadamardEquals(FMatrix B) {
+		float[] b = checkDimensions(B).data;
+		Elementwise.forEach(data.length, (from, to) -> {
+			for (int i = from; i < to; i++) {
+				data[i] *= b[i];
+			}
+		});
+		return this;
+	}
+
+	// A ./= B
+	public FMatrix divideEquals(FMatrix B) {
+		float[] b = checkDimensions(B).data;
+		Elementwise.forEach(data.length, (from, to) -> {
+			for (int i = from; i < to; i++) {
+				data[i] /= b[i];
+			}
+		});
+		return this;
+	}
+
+	// A *= in
+	public FMatrix timesEquals(double in) {
+		float v = (float) in;
+		Elementwise.forEach(data.length, (from, to) -> {
+			for (int i = from; i < to; i++) {
+				data[i] *= v;
+			}
+		});
+		return this;
+	}
+
+	public FMatrix fill(double value) {
+		Arrays.fill(data, (float) value);
+		return this;
+	}
+
+	// A = f(A)
+	public FMatrix mapEquals(DoubleUnaryOperator mapping) {
+		return map(mapping, this);
+	}
+
+	// A = f(A, B)
+	public FMatrix zipEquals(FMatrix B, DoubleBinaryOperator mapping) {
+		return zip(checkDimensions(B), mapping, this);
+	}
+
+	// applies mapping to every element in double precision and rounds the result back to float
+	public FMatrix map(DoubleUnaryOperator mapping) {
+		return map(mapping, new FMatrix(M, N));
+	}
+
+	// combines the elements of A and B in double precision and rounds the result back to float
+	public FMatrix zip(FMatrix B, DoubleBinaryOperator mapping) {
+		return zip(checkDimensions(B), mapping, new FMatrix(M, N));
+	}
+
+	// out = f(A), out may be A itself
+	private FMatrix map(DoubleUnaryOperator mapping, FMatrix out) {
+		Elementwise.forEach(data.length, (from, to) -> {
+			for (int i = from; i < to; i++) {
+				out.data[i] = (float) mapping.applyAsDouble(data[i]);
+			}
+		});
+		return out;
+	}
+
+	// out = f(A, B), out may be A itself
+	private FMatrix zip(FMatrix B, DoubleBinaryOperator mapping, FMatrix out) {
+		Elementwise.forEach(data.length, (from, to) -> {
+			for (int i = from; i < to; i++) {
+				out.data[i] = (float) mapping.applyAsDouble(data[i], B.data[i]);
+			}
+		});
+		return out;
+	}
+
+	private FMatrix checkDimensions(FMatrix B) {
+		if (B.M != M || B.N != N) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		return B;
+	}
+
+	public int argMax() {
+		double max = -Double.MAX_VALUE;
+		int argMax = -1;
+		for (int i = 0; i < this.M; i++) {
+			double value = data[i * N];
+			if (value > max) {
+				max = value;
+				argMax = i;
+			}
+		}
+		return argMax;
+	}
+
+	public double max() {
+		double max = -Double.MAX_VALUE;
+		for (float value : data) {
+			if (value > max) {
+				max = value;
+			}
+		}
+		return max;
+	}
+
+	public double min() {
+		double min = Double.MAX_VALUE;
+		for (float value : data) {
+			if (value < min) {
+				min = value;
+			}
+		}
+		return min;
+	}
+
+	public double sum() {
+		return Reductions.sum(data, 0, data.length);
+	}
+
+	public double sumOfSquares() {
+		return Reductions.sumOfSquares(data, 0, data.length);
+	}
+
+	// sum of A[i][j] * B[i][j], accumulated in double
+	public double dot(FMatrix B) {
+		checkDimensions(B);
+		return Reductions.dot(data, 0, B.data, 0, data.length);
+	}
+
+	public double norm() {
+		if (this.N != 1) {
+			throw new MatrixException("Not a vector.");
+		}
+		return Math.sqrt(sumOfSquares());
+	}
+
+	/**
+	 * Element (i, j) widened to double.
+	 */
+	public double get(int i, int j) {
+		return data[i * N + j];
+	}
+
+	// copy of columns [from, to), the kernels rely on contiguous rows so slices are not views
+	public FMatrix sliceColumns(int from, int to) {
+		if (from < 0 || to > N || from > to) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		FMatrix out = new FMatrix(M, to - from);
+		for (int i = 0; i < M; i++) {
+			System.arraycopy(data, i * N + from, out.data, i * out.N, out.N);
+		}
+		return out;
+	}
+
+	// copy of rows [from, to)
+	public FMatrix sliceRows(int from, int to) {
+		if (from < 0 || to > M || from > to) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		return new FMatrix(Arrays.copyOfRange(data, from * N, to * N), to - from, N);
+	}
+
+	// return [A_0 A_1 ...], the blocks side by side
+	public static FMatrix stackColumns(List<FMatrix> blocks) {
+		if (blocks.isEmpty()) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		int M = blocks.get(0).M;
+		int N = 0;
+		for (FMatrix B : blocks) {
+			if (B.M != M) {
+				throw new MatrixException("Illegal matrix dimensions.");
+			}
+			N += B.N;
+		}
+		FMatrix out = new FMatrix(M, N);
+		int col = 0;
+		for (FMatrix B : blocks) {
+			for (int i = 0; i < M; i++) {
+				System.arraycopy(B.data, i * B.N, out.data, i * N + col, B.N);
+			}
+			col += B.N;
+		}
+		return out;
+	}
+
+	// return C = A + b, the column vector b added to every column of A
+	public FMatrix plusColumn(FMatrix b) {
+		return copy().plusColumnEquals(b);
+	}
+
+	// A[:, j] += b for every column j
+	public FMatrix plusColumnEquals(FMatrix b) {
+		if (b.M != M || b.N != 1) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		for (int i = 0; i < M; i++) {
+			float bi = b.data[i];
+			int row = i * N;
+			for (int j = 0; j < N; j++) {
+				data[row + j] += bi;
+			}
+		}
+		return this;
+	}
+
+	// return the M-by-1 vector of row sums, accumulated in double
+	public FMatrix sumRows() {
+		FMatrix out = new FMatrix(M, 1);
+		for (int i = 0; i < M; i++) {
+			int row = i * N;
+			double sum = 0;
+			for (int j = 0; j < N; j++) {
+				sum += data[row + j];
+			}
+			out.data[i] = (float) sum;
+		}
+		return out;
+	}
+
+	// return the 1-by-N vector of column maxima, read row by row to stay contiguous
+	public FMatrix maxPerColumn() {
+		FMatrix out = new FMatrix(1, N);
+		Arrays.fill(out.data, -Float.MAX_VALUE);
+		for (int i = 0; i < M; i++) {
+			int row = i * N;
+			for (int j = 0; j < N; j++) {
+				if (data[row + j] > out.data[j]) {
+					out.data[j] = data[row + j];
+				}
+			}
+		}
+		return out;
+	}
+
+	// row index of the max of every column
+	public int[] argMaxPerColumn() {
+		float[] max = new float[N];
+		int[] argMax = new int[N];
+		Arrays.fill(max, -Float.MAX_VALUE);
+		Arrays.fill(argMax, -1);
+		for (int i = 0; i < M; i++) {
+			int row = i * N;
+			for (int j = 0; j < N; j++) {
+				if (data[row + j] > max[j]) {
+					max[j] = data[row + j];
+					argMax[j] = i;
+				}
+			}
+		}
+		return argMax;
+	}
+
+	// the row-major storage, exposed for bulk copies to and from other backends
+	public float[] storage() {
+		return data;
+	}
+
+	public FMatrix copy() {
+		return new FMatrix(data.clone(), M, N);
+	}
+
+	public double[][] rawCopy() {
+		double[][] result = new double[M][N];
+		for (int i = 0; i < M; i++) {
+			for (int j = 0; j < N; j++) {
+				result[i][j] = data[i * N + j];
+			}
+		}
+		return result;
+	}
+
+	// writes the elements widened to doubles, row by row
+	public void writeTo(DoubleBuffer out) {
+		for (float value : data) {
+			out.put(value);
+		}
+	}
+
+	// overwrites the elements with doubles rounded to float, row by row
+	public FMatrix readFrom(DoubleBuffer in) {
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (float) in.get();
+		}
+		return this;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		FMatrix B = (FMatrix) o;
+		return M == B.M && N == B.N && Arrays.equals(data, B.data);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * (31 * M + N) + Arrays.hashCode(data);
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.deepToString(this.rawCopy());
+	}
+}
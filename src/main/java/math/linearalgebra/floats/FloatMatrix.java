@@ -0,0 +1,345 @@
+package math.linearalgebra.floats;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Function;
+import math.linearalgebra.Matrix;
+import math.linearalgebra.MatrixIO;
+import utilities.exceptions.MatrixException;
+
+public class FloatMatrix implements Matrix<FMatrix> {
+
+	private static final String NAME = "FloatMatrix";
+	private FMatrix delegate;
+
+	public FloatMatrix(FMatrix in) {
+		this.delegate = in;
+	}
+
+	public FloatMatrix(double[][] vals) {
+		this.delegate = new FMatrix(vals);
+	}
+
+	public FloatMatrix(double[] ds) {
+		this.delegate = new FMatrix(ds);
+	}
+
+	@Override
+	public FloatMatrix hadamard(Matrix<FMatrix> otherMatrix) {
+		return new FloatMatrix(this.delegate.hadamard(otherMatrix.delegate()));
+	}
+
+	@Override
+	public FloatMatrix multiply(double scalar) {
+		return new FloatMatrix(this.delegate.times(scalar));
+	}
+
+	@Override
+	public FloatMatrix add(Matrix<FMatrix> in) {
+		return new FloatMatrix(this.delegate.plus(in.delegate()));
+	}
+
+	@Override
+	public FloatMatrix add(double in) {
+		return new FloatMatrix(this.delegate.plus(in));
+	}
+
+	@Override
+	public FloatMatrix subtract(double in) {
+		return new FloatMatrix(this.delegate.minus(in));
+	}
+
+	@Override
+	public FloatMatrix subtract(Matrix<FMatrix> in) {
+		return new FloatMatrix(this.delegate.minus(in.delegate()));
+	}
+
+	@Override
+	public FloatMatrix divide(double in) {
+		return new FloatMatrix(this.delegate.divide(in));
+	}
+
+	@Override
+	public double map(Function<Matrix<FMatrix>, Double> mapping) {
+		return mapping.apply(this);
+	}
+
+	@Override
+	public FloatMatrix mapValues(DoubleUnaryOperator mapping) {
+		return new FloatMatrix(this.delegate.map(mapping));
+	}
+
+	@Override
+	public FloatMatrix mapValuesInPlace(DoubleUnaryOperator mapping) {
+		this.delegate.mapEquals(mapping);
+		return this;
+	}
+
+	@Override
+	public FloatMatrix zipWith(Matrix<FMatrix> other, DoubleBinaryOperator mapping) {
+		return new FloatMatrix(this.delegate.zip(other.delegate(), mapping));
+	}
+
+	@Override
+	public FloatMatrix zipWithInPlace(Matrix<FMatrix> other, DoubleBinaryOperator mapping) {
+		this.delegate.zipEquals(other.delegate(), mapping);
+		return this;
+	}
+
+	@Override
+	public FMatrix delegate() {
+		return this.delegate;
+	}
+
+	@Override
+	public void setDelegate(FMatrix delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public double sum() {
+		return this.delegate.sum();
+	}
+
+	@Override
+	public double max() {
+		return this.delegate.max();
+	}
+
+	@Override
+	public int argMax() {
+		return this.delegate.argMax();
+	}
+
+	@Override
+	public FloatMatrix transpose() {
+		return new FloatMatrix(this.delegate.transpose());
+	}
+
+	@Override
+	public FloatMatrix divide(Matrix<FMatrix> right) {
+		return new FloatMatrix(this.delegate.divide(right.delegate()));
+	}
+
+	@Override
+	public FloatMatrix maxVector() {
+		return new FloatMatrix(FMatrix.filled(rows(), 1, this.delegate.max()));
+	}
+
+	@Override
+	public FloatMatrix zeroes(int rows, int cols) {
+		return new FloatMatrix(new FMatrix(rows, cols));
+	}
+
+	@Override
+	public FloatMatrix ones(int rows, int cols) {
+		return new FloatMatrix(FMatrix.filled(rows, cols, 1d));
+	}
+
+	@Override
+	public FloatMatrix identity(int rows, int cols) {
+		return new FloatMatrix(FMatrix.identity(rows, cols));
+	}
+
+	@Override
+	public double norm() throws MatrixException {
+		return this.delegate.norm();
+	}
+
+	@Override
+	public double sumOfSquares() {
+		return this.delegate.sumOfSquares();
+	}
+
+	@Override
+	public double min() {
+		return this.delegate.min();
+	}
+
+	@Override
+	public double dot(Matrix<FMatrix> other) {
+		return this.delegate.dot(other.delegate());
+	}
+
+	@Override
+	public String name() {
+		return NAME;
+	}
+
+	@Override
+	public double[][] rawCopy() {
+		return this.delegate.rawCopy();
+	}
+
+	@Override
+	public void writeTo(ByteBuffer buffer) {
+		this.delegate.writeTo(MatrixIO.write(buffer, rows(), cols(), false));
+	}
+
+	@Override
+	public FloatMatrix readFrom(ByteBuffer buffer) {
+		this.delegate.readFrom(MatrixIO.read(buffer, rows(), cols(), false));
+		return this;
+	}
+
+	@Override
+	public int rows() {
+		return this.delegate.rows();
+	}
+
+	@Override
+	public int cols() {
+		return this.delegate.cols();
+	}
+
+	@Override
+	public int elementBytes() {
+		return Float.BYTES;
+	}
+
+	@Override
+	public FloatMatrix multiply(Matrix<FMatrix> otherMatrix) {
+		return new FloatMatrix(this.delegate.times(otherMatrix.delegate()));
+	}
+
+	@Override
+	public FloatMatrix multiplyAddMap(Matrix<FMatrix> in, Matrix<FMatrix> bias,
+		DoubleUnaryOperator activation, Matrix<FMatrix> preActivation) {
+		return new FloatMatrix(this.delegate.timesPlusMap(in.delegate(), bias.delegate(), activation,
+			preActivation == null ? null : preActivation.delegate()));
+	}
+
+	@Override
+	public FloatMatrix multiplyTransposeLeft(Matrix<FMatrix> otherMatrix) {
+		return new FloatMatrix(this.delegate.transposeTimes(otherMatrix.delegate()));
+	}
+
+	@Override
+	public FloatMatrix multiplyTransposeRight(Matrix<FMatrix> otherMatrix) {
+		return new FloatMatrix(this.delegate.timesTranspose(otherMatrix.delegate()));
+	}
+
+	@Override
+	public Matrix<FMatrix> multiplyTransposeRightInto(Matrix<FMatrix> otherMatrix,
+		Matrix<FMatrix> destination) {
+		this.delegate.timesTransposeInto(otherMatrix.delegate(), destination.delegate());
+		return destination;
+	}
+
+	@Override
+	public Matrix<FMatrix> copy() {
+		return new FloatMatrix(this.delegate.copy());
+	}
+
+	@Override
+	public FloatMatrix addInPlace(Matrix<FMatrix> in) {
+		this.delegate.plusEquals(in.delegate());
+		return this;
+	}
+
+	@Override
+	public FloatMatrix subtractInPlace(Matrix<FMatrix> in) {
+		this.delegate.minusEquals(in.delegate());
+		return this;
+	}
+
+	@Override
+	public FloatMatrix hadamardInPlace(Matrix<FMatrix> in) {
+		this.delegate.hadamardEquals(in.delegate());
+		return this;
+	}
+
+	@Override
+	public FloatMatrix divideInPlace(Matrix<FMatrix> in) {
+		this.delegate.divideEquals(in.delegate());
+		return this;
+	}
+
+	@Override
+	public FloatMatrix scaleInPlace(double scalar) {
+		this.delegate.timesEquals(scalar);
+		return this;
+	}
+
+	@Override
+	public FloatMatrix fill(double value) {
+		this.delegate.fill(value);
+		return this;
+	}
+
+	@Override
+	public Matrix<FMatrix> multiplyInto(Matrix<FMatrix> otherMatrix, Matrix<FMatrix> destination) {
+		this.delegate.timesInto(otherMatrix.delegate(), destination.delegate());
+		return destination;
+	}
+
+	@Override
+	public FloatMatrix sliceColumns(int from, int to) {
+		return new FloatMatrix(this.delegate.sliceColumns(from, to));
+	}
+
+	@Override
+	public FloatMatrix sliceRows(int from, int to) {
+		return new FloatMatrix(this.delegate.sliceRows(from, to));
+	}
+
+	@Override
+	public FloatMatrix stackColumns(List<? extends Matrix<FMatrix>> columns) {
+		List<FMatrix> blocks = new ArrayList<>(columns.size());
+		for (Matrix<FMatrix> column : columns) {
+			blocks.add(column.delegate());
+		}
+		return new FloatMatrix(FMatrix.stackColumns(blocks));
+	}
+
+	@Override
+	public FloatMatrix broadcastAdd(Matrix<FMatrix> column) {
+		return new FloatMatrix(this.delegate.plusColumn(column.delegate()));
+	}
+
+	@Override
+	public FloatMatrix broadcastAddInPlace(Matrix<FMatrix> column) {
+		this.delegate.plusColumnEquals(column.delegate());
+		return this;
+	}
+
+	@Override
+	public FloatMatrix sumRows() {
+		return new FloatMatrix(this.delegate.sumRows());
+	}
+
+	@Override
+	public FloatMatrix maxPerColumn() {
+		return new FloatMatrix(this.delegate.maxPerColumn());
+	}
+
+	@Override
+	public int[] argMaxPerColumn() {
+		return this.delegate.argMaxPerColumn();
+	}
+
+	@Override
+	public int hashCode() {
+		return delegate.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		FloatMatrix matrix = (FloatMatrix) o;
+		return delegate.equals(matrix.delegate);
+	}
+
+	@Override
+	public String toString() {
+		return "FloatMatrix=[" + this.delegate.toString() + "]";
+	}
+}
@@ -0,0 +1,241 @@
+package math.linearalgebra.half;
+
+import java.util.Arrays;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import math.linearalgebra.simple.SMatrix;
+
+/**
+ * Dense row-major matrix of 16 bit floats, a quarter of the memory of the double matrices.
+ * <p>
+ * The products take a double {@link SMatrix} on the right. Each row of this matrix is widened to
+ * float once per product, into a buffer of one row, and accumulated in double against the right
+ * operand, so the weights are read at 2 bytes an element and never exist as doubles in full.
+ */
+public class HMatrix {
+
+	private final int M; // number of rows
+	private final int N; // number of columns
+	private final short[] data; // row-major 16 bit patterns
+	private final HalfFormat format;
+
+	// create M-by-N matrix of 0's
+	public HMatrix(int M, int N, HalfFormat format) {
+		this.M = M;
+		this.N = N;
+		this.data = new short[M * N];
+		this.format = format;
+	}
+
+	// create matrix based on 2d array, rounded to the format
+	public HMatrix(double[][] vals, HalfFormat format) {
+		this(vals.length, vals[0].length, format);
+		for (int i = 0; i < M; i++) {
+			for (int j = 0; j < N; j++) {
+				data[i * N + j] = format.narrow((float) vals[i][j]);
+			}
+		}
+	}
+
+	// create matrix from the 16 bit patterns of every element
+	public HMatrix(short[][] bits, HalfFormat format) {
+		this(bits.length, bits[0].length, format);
+		for (int i = 0; i < M; i++) {
+			System.arraycopy(bits[i], 0, data, i * N, N);
+		}
+	}
+
+	private HMatrix(HMatrix other) {
+		this.M = other.M;
+		this.N = other.N;
+		this.data = other.data.clone();
+		this.format = other.format;
+	}
+
+	public HalfFormat format() {
+		return format;
+	}
+
+	public int rows() {
+		return M;
+	}
+
+	public int cols() {
+		return N;
+	}
+
+	public double get(int i, int j) {
+		return format.widen(data[i * N + j]);
+	}
+
+	// bytes of the stored elements
+	public long bytes() {
+		return (long) data.length * Short.BYTES;
+	}
+
+	public HMatrix copy() {
+		return new HMatrix(this);
+	}
+
+	// overwrite every element with the rounded elements of B
+	public HMatrix set(SMatrix B) {
+		if (B.rows() != M || B.cols() != N) {
+			throw new RuntimeException("Illegal matrix dimensions.");
+		}
+		double[] b = dense(B);
+		for (int i = 0; i < data.length; i++) {
+			data[i] = format.narrow((float) b[i]);
+		}
+		return this;
+	}
+
+	// A = f(A) element wise, each result rounded to the format
+	public HMatrix mapEquals(DoubleUnaryOperator f) {
+		for (int i = 0; i < data.length; i++) {
+			data[i] = format.narrow((float) f.applyAsDouble(format.widen(data[i])));
+		}
+		return this;
+	}
+
+	// A = f(A, B) element wise, each result rounded to the format
+	public HMatrix zipEquals(SMatrix B, DoubleBinaryOperator f) {
+		if (B.rows() != M || B.cols() != N) {
+			throw new RuntimeException("Illegal matrix dimensions.");
+		}
+		double[] b = dense(B);
+		for (int i = 0; i < data.length; i++) {
+			data[i] = format.narrow((float) f.applyAsDouble(format.widen(data[i]), b[i]));
+		}
+		return this;
+	}
+
+	// adds element i of the M-by-1 column b to every element of row i
+	public HMatrix plusColumnEquals(SMatrix b) {
+		if (b.rows() != M || b.cols() != 1) {
+			throw new RuntimeException("Illegal matrix dimensions.");
+		}
+		double[] column = dense(b);
+		for (int i = 0; i < M; i++) {
+			for (int j = i * N; j < (i + 1) * N; j++) {
+				data[j] = format.narrow((float) (format.widen(data[j]) + column[i]));
+			}
+		}
+		return this;
+	}
+
+	public HMatrix fill(double value) {
+		Arrays.fill(data, format.narrow((float) value));
+		return this;
+	}
+
+	// return the elements widened into a double matrix
+	public SMatrix widen() {
+		SMatrix out = new SMatrix(M, N);
+		double[] o = out.storage();
+		for (int i = 0; i < data.length; i++) {
+			o[i] = format.widen(data[i]);
+		}
+		return out;
+	}
+
+	public double[][] rawCopy() {
+		double[][] out = new double[M][N];
+		for (int i = 0; i < M; i++) {
+			for (int j = 0; j < N; j++) {
+				out[i][j] = get(i, j);
+			}
+		}
+		return out;
+	}
+
+	public short[][] bits() {
+		short[][] out = new short[M][N];
+		for (int i = 0; i < M; i++) {
+			System.arraycopy(data, i * N, out[i], 0, N);
+		}
+		return out;
+	}
+
+	// row i widened into buffer
+	private float[] row(int i, float[] buffer) {
+		int a = i * N;
+		for (int k = 0; k < N; k++) {
+			buffer[k] = format.widen(data[a + k]);
+		}
+		return buffer;
+	}
+
+	// C = A * B, C must not share storage with B
+	public SMatrix timesInto(SMatrix B, SMatrix C) {
+		if (N != B.rows() || C.rows() != M || C.cols() != B.cols()) {
+			throw new RuntimeException("Illegal matrix dimensions.");
+		}
+		final int n = B.cols();
+		double[] b = dense(B);
+		SMatrix target = C.storage() != null ? C : new SMatrix(M, n);
+		double[] c = target.storage();
+		float[] a = new float[N];
+		for (int i = 0; i < M; i++) {
+			row(i, a);
+			int ci = i * n;
+			if (n == 1) {
+				double sum = 0;
+				for (int k = 0; k < N; k++) {
+					sum += a[k] * b[k];
+				}
+				c[ci] = sum;
+				continue;
+			}
+			for (int j = 0; j < n; j++) {
+				c[ci + j] = 0;
+			}
+			for (int k = 0; k < N; k++) {
+				double aik = a[k];
+				int bk = k * n;
+				for (int j = 0; j < n; j++) {
+					c[ci + j] += aik * b[bk + j];
+				}
+			}
+		}
+		return writeBack(target, C);
+	}
+
+	// C = A^T * B without forming A^T, C must not share storage with B
+	public SMatrix transposeTimesInto(SMatrix B, SMatrix C) {
+		if (M != B.rows() || C.rows() != N || C.cols() != B.cols()) {
+			throw new RuntimeException("Illegal matrix dimensions.");
+		}
+		final int n = B.cols();
+		double[] b = dense(B);
+		SMatrix target = C.storage() != null ? C : new SMatrix(N, n);
+		double[] c = target.storage();
+		Arrays.fill(c, 0);
+		float[] a = new float[N];
+		// row i of A scales row i of B into every row of C
+		for (int i = 0; i < M; i++) {
+			row(i, a);
+			int bi = i * n;
+			for (int k = 0; k < N; k++) {
+				double aik = a[k];
+				int ck = k * n;
+				for (int j = 0; j < n; j++) {
+					c[ck + j] += aik * b[bi + j];
+				}
+			}
+		}
+		return writeBack(target, C);
+	}
+
+	// the row-major elements of B, copied if B is a view
+	private static double[] dense(SMatrix B) {
+		double[] b = B.storage();
+		return b != null ? b : B.copy().storage();
+	}
+
+	private static SMatrix writeBack(SMatrix target, SMatrix C) {
+		if (target != C) {
+			C.zipEquals(target, (previous, e) -> e);
+		}
+		return C;
+	}
+}
@@ -0,0 +1,104 @@
+package math.linearalgebra.half;
+
+/**
+ * 16 bit floating point formats for stored weights. Both narrow with round to nearest even and
+ * widen exactly to float.
+ */
+public enum HalfFormat {
+
+	/**
+	 * IEEE 754 binary16: 5 exponent and 10 mantissa bits, about 3 decimal digits up to 65504.
+	 */
+	FLOAT16 {
+		@Override
+		public short narrow(float f) {
+			int bits = Float.floatToRawIntBits(f);
+			short sign = (short) ((bits & 0x8000_0000) >> 16);
+			if (Float.isNaN(f)) {
+				return (short) (sign | 0x7e00 | (bits & 0x007f_e000) >> 13);
+			}
+			float abs = Math.abs(f);
+			if (abs >= 0x1.ffep15f) {
+				return (short) (sign | 0x7c00);
+			}
+			if (abs <= 0x1.0p-25f) {
+				return sign;
+			}
+			int exponent = Math.getExponent(f);
+			int shift = 13;
+			int significand = bits & 0x007f_ffff;
+			if (exponent < -14) {
+				// subnormal, the implicit bit becomes part of the stored mantissa
+				shift += -14 - exponent;
+				exponent = -15;
+				significand |= 0x0080_0000;
+			}
+			int mantissa = significand >> shift;
+			int lsb = significand & 1 << shift;
+			int round = significand & 1 << shift - 1;
+			int sticky = significand & (1 << shift - 1) - 1;
+			if (round != 0 && (lsb | sticky) != 0) {
+				// may carry into the exponent, which is the correctly rounded result
+				mantissa++;
+			}
+			return (short) (sign | (exponent + 15 << 10) + mantissa);
+		}
+
+		@Override
+		public float widen(short h) {
+			return Float16Table.VALUES[h & 0xffff];
+		}
+	},
+
+	/**
+	 * The upper half of a float: 8 exponent and 7 mantissa bits, the full range of float at about
+	 * 2 decimal digits.
+	 */
+	BFLOAT16 {
+		@Override
+		public short narrow(float f) {
+			int bits = Float.floatToRawIntBits(f);
+			if (Float.isNaN(f)) {
+				return (short) (bits >>> 16 | 0x0040);
+			}
+			return (short) (bits + 0x7fff + (bits >>> 16 & 1) >>> 16);
+		}
+
+		@Override
+		public float widen(short h) {
+			return Float.intBitsToFloat(h << 16);
+		}
+	};
+
+	/**
+	 * @return the 16 bit pattern closest to f
+	 */
+	public abstract short narrow(float f);
+
+	/**
+	 * @return the float with the value of the 16 bit pattern h
+	 */
+	public abstract float widen(short h);
+
+	// all 65536 float16 values, widening is a lookup in the kernels
+	private static final class Float16Table {
+
+		private static final float[] VALUES = new float[1 << 16];
+
+		static {
+			for (int h = 0; h < VALUES.length; h++) {
+				int exponent = h >>> 10 & 0x1f;
+				int mantissa = h & 0x3ff;
+				float abs;
+				if (exponent == 0x1f) {
+					abs = mantissa == 0 ? Float.POSITIVE_INFINITY : Float.NaN;
+				} else if (exponent == 0) {
+					abs = mantissa * 0x1p-24f;
+				} else {
+					abs = Float.intBitsToFloat(exponent + 112 << 23 | mantissa << 13);
+				}
+				VALUES[h] = (h & 0x8000) != 0 ? -abs : abs;
+			}
+		}
+	}
+}
@@ -0,0 +1,370 @@
+package math.linearalgebra.half;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Function;
+import math.linearalgebra.Matrix;
+import math.linearalgebra.MatrixIO;
+import math.linearalgebra.simple.SMatrix;
+import math.linearalgebra.simple.SimpleMatrix;
+import utilities.exceptions.MatrixException;
+
+/**
+ * {@link Matrix} of the double {@link SMatrix} backend that stores its elements in 16 bits, for
+ * the weights of trained layers (see {@link HMatrix}).
+ * <p>
+ * The products of a layer, {@code weight X in} forward and {@code weight^T X delta} backward, run
+ * on the 16 bit storage, and so do the in place operations, element by element, rounding each
+ * result to the format. Updating the weights in place therefore works, at the precision of the
+ * format and without a double copy. Operations returning a new matrix work on a widened {@link
+ * SimpleMatrix} and return that double matrix, and {@link #delegate()} is a widened copy.
+ */
+public class HalfMatrix implements Matrix<SMatrix> {
+
+	private HMatrix delegate;
+
+	public HalfMatrix(HMatrix delegate) {
+		this.delegate = delegate;
+	}
+
+	public HalfMatrix(double[][] vals, HalfFormat format) {
+		this.delegate = new HMatrix(vals, format);
+	}
+
+	public static HalfMatrix of(Matrix<SMatrix> matrix, HalfFormat format) {
+		return new HalfMatrix(new HMatrix(matrix.rows(), matrix.cols(), format)
+			.set(matrix.delegate()));
+	}
+
+	public HMatrix half() {
+		return delegate;
+	}
+
+	public HalfFormat format() {
+		return delegate.format();
+	}
+
+	private SimpleMatrix widen() {
+		return new SimpleMatrix(delegate.widen());
+	}
+
+	@Override
+	public Matrix<SMatrix> multiply(Matrix<SMatrix> otherMatrix) {
+		SMatrix in = otherMatrix.delegate();
+		return new SimpleMatrix(delegate.timesInto(in, new SMatrix(rows(), in.cols())));
+	}
+
+	@Override
+	public Matrix<SMatrix> multiplyInto(Matrix<SMatrix> otherMatrix, Matrix<SMatrix> destination) {
+		delegate.timesInto(otherMatrix.delegate(), destination.delegate());
+		return destination;
+	}
+
+	@Override
+	public Matrix<SMatrix> multiplyAddMap(Matrix<SMatrix> in, Matrix<SMatrix> bias,
+		DoubleUnaryOperator activation, Matrix<SMatrix> preActivation) {
+		SMatrix right = in.delegate();
+		SMatrix out = delegate.timesInto(right, new SMatrix(rows(), right.cols()));
+		return new SimpleMatrix(out.plusMapEquals(bias.delegate(), activation,
+			preActivation == null ? null : preActivation.delegate()));
+	}
+
+	@Override
+	public Matrix<SMatrix> multiplyTransposeLeft(Matrix<SMatrix> otherMatrix) {
+		SMatrix in = otherMatrix.delegate();
+		return new SimpleMatrix(delegate.transposeTimesInto(in, new SMatrix(cols(), in.cols())));
+	}
+
+	@Override
+	public Matrix<SMatrix> multiplyTransposeLeftInto(Matrix<SMatrix> otherMatrix,
+		Matrix<SMatrix> destination) {
+		delegate.transposeTimesInto(otherMatrix.delegate(), destination.delegate());
+		return destination;
+	}
+
+	@Override
+	public Matrix<SMatrix> multiplyTransposeRight(Matrix<SMatrix> otherMatrix) {
+		return widen().multiplyTransposeRight(otherMatrix);
+	}
+
+	@Override
+	public Matrix<SMatrix> multiplyTransposeRightInto(Matrix<SMatrix> otherMatrix,
+		Matrix<SMatrix> destination) {
+		return widen().multiplyTransposeRightInto(otherMatrix, destination);
+	}
+
+	@Override
+	public SMatrix delegate() {
+		return delegate.widen();
+	}
+
+	@Override
+	public void setDelegate(SMatrix delegate) {
+		if (delegate.rows() == rows() && delegate.cols() == cols()) {
+			this.delegate.set(delegate);
+		} else {
+			this.delegate = new HMatrix(delegate.rows(), delegate.cols(), format()).set(delegate);
+		}
+	}
+
+	@Override
+	public double[][] rawCopy() {
+		return delegate.rawCopy();
+	}
+
+	@Override
+	public void writeTo(ByteBuffer buffer) {
+		delegate.widen().writeTo(MatrixIO.write(buffer, rows(), cols(), false));
+	}
+
+	@Override
+	public HalfMatrix readFrom(ByteBuffer buffer) {
+		SMatrix read = new SMatrix(rows(), cols());
+		delegate.set(read.readFrom(MatrixIO.read(buffer, rows(), cols(), false)));
+		return this;
+	}
+
+	@Override
+	public int rows() {
+		return delegate.rows();
+	}
+
+	@Override
+	public int cols() {
+		return delegate.cols();
+	}
+
+	@Override
+	public int elementBytes() {
+		return Short.BYTES;
+	}
+
+	@Override
+	public HalfMatrix copy() {
+		return new HalfMatrix(delegate.copy());
+	}
+
+	// keeps the 16 bit storage, rounding the values of other
+	@Override
+	public HalfMatrix assign(Matrix<SMatrix> other) {
+		setDelegate(other.delegate());
+		return this;
+	}
+
+	@Override
+	public String name() {
+		return "HalfMatrix";
+	}
+
+	// The operations below work on the widened matrix.
+
+	@Override
+	public Matrix<SMatrix> hadamard(Matrix<SMatrix> otherMatrix) {
+		return widen().hadamard(otherMatrix);
+	}
+
+	@Override
+	public Matrix<SMatrix> multiply(double scalar) {
+		return widen().multiply(scalar);
+	}
+
+	@Override
+	public Matrix<SMatrix> add(Matrix<SMatrix> in) {
+		return widen().add(in);
+	}
+
+	@Override
+	public Matrix<SMatrix> add(double in) {
+		return widen().add(in);
+	}
+
+	@Override
+	public Matrix<SMatrix> subtract(double in) {
+		return widen().subtract(in);
+	}
+
+	@Override
+	public Matrix<SMatrix> subtract(Matrix<SMatrix> in) {
+		return widen().subtract(in);
+	}
+
+	@Override
+	public Matrix<SMatrix> divide(double in) {
+		return widen().divide(in);
+	}
+
+	@Override
+	public Matrix<SMatrix> divide(Matrix<SMatrix> right) {
+		return widen().divide(right);
+	}
+
+	@Override
+	public double map(Function<Matrix<SMatrix>, Double> mapping) {
+		return mapping.apply(this);
+	}
+
+	@Override
+	public Matrix<SMatrix> mapValues(DoubleUnaryOperator mapping) {
+		return widen().mapValues(mapping);
+	}
+
+	@Override
+	public Matrix<SMatrix> zipWith(Matrix<SMatrix> other, DoubleBinaryOperator mapping) {
+		return widen().zipWith(other, mapping);
+	}
+
+	@Override
+	public double sum() {
+		return widen().sum();
+	}
+
+	@Override
+	public double max() {
+		return widen().max();
+	}
+
+	@Override
+	public double min() {
+		return widen().min();
+	}
+
+	@Override
+	public int argMax() {
+		return widen().argMax();
+	}
+
+	@Override
+	public double norm() throws MatrixException {
+		return widen().norm();
+	}
+
+	@Override
+	public double sumOfSquares() {
+		return widen().sumOfSquares();
+	}
+
+	@Override
+	public double dot(Matrix<SMatrix> other) {
+		return widen().dot(other);
+	}
+
+	@Override
+	public Matrix<SMatrix> transpose() {
+		return widen().transpose();
+	}
+
+	@Override
+	public Matrix<SMatrix> maxVector() {
+		return widen().maxVector();
+	}
+
+	@Override
+	public Matrix<SMatrix> zeroes(int rows, int cols) {
+		return new SimpleMatrix(new SMatrix(rows, cols));
+	}
+
+	@Override
+	public Matrix<SMatrix> ones(int rows, int cols) {
+		return widen().ones(rows, cols);
+	}
+
+	@Override
+	public Matrix<SMatrix> identity(int rows, int cols) {
+		return widen().identity(rows, cols);
+	}
+
+	@Override
+	public Matrix<SMatrix> sliceColumns(int from, int to) {
+		return widen().sliceColumns(from, to);
+	}
+
+	@Override
+	public Matrix<SMatrix> sliceRows(int from, int to) {
+		return widen().sliceRows(from, to);
+	}
+
+	@Override
+	public Matrix<SMatrix> stackColumns(List<? extends Matrix<SMatrix>> columns) {
+		return widen().stackColumns(columns);
+	}
+
+	@Override
+	public Matrix<SMatrix> broadcastAdd(Matrix<SMatrix> column) {
+		return widen().broadcastAdd(column);
+	}
+
+	@Override
+	public Matrix<SMatrix> sumRows() {
+		return widen().sumRows();
+	}
+
+	@Override
+	public Matrix<SMatrix> maxPerColumn() {
+		return widen().maxPerColumn();
+	}
+
+	@Override
+	public int[] argMaxPerColumn() {
+		return widen().argMaxPerColumn();
+	}
+
+	// The in place operations below run on the 16 bit storage.
+
+	@Override
+	public HalfMatrix mapValuesInPlace(DoubleUnaryOperator mapping) {
+		delegate.mapEquals(mapping);
+		return this;
+	}
+
+	@Override
+	public HalfMatrix zipWithInPlace(Matrix<SMatrix> other, DoubleBinaryOperator mapping) {
+		delegate.zipEquals(other.delegate(), mapping);
+		return this;
+	}
+
+	@Override
+	public HalfMatrix broadcastAddInPlace(Matrix<SMatrix> column) {
+		delegate.plusColumnEquals(column.delegate());
+		return this;
+	}
+
+	@Override
+	public HalfMatrix addInPlace(Matrix<SMatrix> in) {
+		return zipWithInPlace(in, Double::sum);
+	}
+
+	@Override
+	public HalfMatrix subtractInPlace(Matrix<SMatrix> in) {
+		return zipWithInPlace(in, (a, b) -> a - b);
+	}
+
+	@Override
+	public HalfMatrix hadamardInPlace(Matrix<SMatrix> in) {
+		return zipWithInPlace(in, (a, b) -> a * b);
+	}
+
+	@Override
+	public HalfMatrix divideInPlace(Matrix<SMatrix> in) {
+		return zipWithInPlace(in, (a, b) -> a / b);
+	}
+
+	@Override
+	public HalfMatrix scaleInPlace(double scalar) {
+		return mapValuesInPlace(e -> e * scalar);
+	}
+
+	@Override
+	public HalfMatrix fill(double value) {
+		delegate.fill(value);
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return new StringJoiner(", ", HalfMatrix.class.getSimpleName() + "[", "]")
+			.add("format=" + format()).add("rows=" + rows()).add("cols=" + cols()).toString();
+	}
+}
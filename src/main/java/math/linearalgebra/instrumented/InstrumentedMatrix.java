@@ -0,0 +1,516 @@
+package math.linearalgebra.instrumented;
+
+import static math.linearalgebra.instrumented.MatrixProfile.Op.BROADCAST;
+import static math.linearalgebra.instrumented.MatrixProfile.Op.COPY;
+import static math.linearalgebra.instrumented.MatrixProfile.Op.CREATE;
+import static math.linearalgebra.instrumented.MatrixProfile.Op.ELEMENTWISE;
+import static math.linearalgebra.instrumented.MatrixProfile.Op.ELEMENTWISE_IN_PLACE;
+import static math.linearalgebra.instrumented.MatrixProfile.Op.MAP;
+import static math.linearalgebra.instrumented.MatrixProfile.Op.MAP_IN_PLACE;
+import static math.linearalgebra.instrumented.MatrixProfile.Op.MULTIPLY;
+import static math.linearalgebra.instrumented.MatrixProfile.Op.MULTIPLY_ADD_MAP;
+import static math.linearalgebra.instrumented.MatrixProfile.Op.MULTIPLY_TRANSPOSE_LEFT;
+import static math.linearalgebra.instrumented.MatrixProfile.Op.MULTIPLY_TRANSPOSE_RIGHT;
+import static math.linearalgebra.instrumented.MatrixProfile.Op.REDUCE;
+import static math.linearalgebra.instrumented.MatrixProfile.Op.SLICE;
+import static math.linearalgebra.instrumented.MatrixProfile.Op.STACK;
+import static math.linearalgebra.instrumented.MatrixProfile.Op.TRANSPOSE;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Function;
+import math.linearalgebra.Matrix;
+import math.linearalgebra.instrumented.MatrixProfile.Op;
+import neuralnetwork.DeepLearnable;
+import utilities.exceptions.MatrixException;
+import utilities.types.Pair;
+
+/**
+ * Decorator of any {@link Matrix} that records every operation in a {@link MatrixProfile}: calls,
+ * floating point operations, bytes of the results and time. Results are decorated with the same
+ * profile, so a network whose parameters are decorated (see {@link #instrument(DeepLearnable,
+ * MatrixProfile)}) is profiled through its activations, deltas and updates; the networks log the
+ * profile at the end of training.
+ * <p>
+ * Operands are unwrapped before they reach the decorated matrix, so backends still see their own
+ * types. The overhead is two {@link System#nanoTime()} calls and four striped counter updates per
+ * operation, which matters for the small matrices of a single example only.
+ *
+ * @param <M> the decorated backend type
+ */
+public class InstrumentedMatrix<M> implements Matrix<M> {
+
+	private final Matrix<M> inner;
+	private final MatrixProfile profile;
+
+	public InstrumentedMatrix(Matrix<M> inner, MatrixProfile profile) {
+		this.inner = inner instanceof InstrumentedMatrix ? ((InstrumentedMatrix<M>) inner).inner
+			: inner;
+		this.profile = profile;
+	}
+
+	/**
+	 * Replaces the parameters of network by decorated copies.
+	 *
+	 * @return profile
+	 */
+	public static <M> MatrixProfile instrument(DeepLearnable<M> network, MatrixProfile profile) {
+		List<Matrix<M>> weights = new ArrayList<>();
+		List<Matrix<M>> biases = new ArrayList<>();
+		for (Pair<Matrix<M>, Matrix<M>> parameter : network.getParameters()) {
+			weights.add(new InstrumentedMatrix<>(parameter.left(), profile));
+			biases.add(new InstrumentedMatrix<>(parameter.right(), profile));
+		}
+		network.copyParameters(weights, biases);
+		return profile;
+	}
+
+	public Matrix<M> inner() {
+		return inner;
+	}
+
+	public MatrixProfile profile() {
+		return profile;
+	}
+
+	private static <M> Matrix<M> unwrap(Matrix<M> matrix) {
+		return matrix instanceof InstrumentedMatrix ? ((InstrumentedMatrix<M>) matrix).inner
+			: matrix;
+	}
+
+	private long size() {
+		return (long) inner.rows() * inner.cols();
+	}
+
+	// records an operation returning a new matrix, which is decorated in turn
+	private Matrix<M> result(Op op, long flops, long start, Matrix<M> out) {
+		long nanos = System.nanoTime() - start;
+		profile.record(op, flops, (long) out.rows() * out.cols(), nanos);
+		return new InstrumentedMatrix<>(out, profile);
+	}
+
+	// records an operation updating this matrix
+	private InstrumentedMatrix<M> inPlace(Op op, long flops, long start) {
+		profile.record(op, flops, 0, System.nanoTime() - start);
+		return this;
+	}
+
+	// records an operation writing into destination, which is returned as given
+	private Matrix<M> into(Op op, long flops, long start, Matrix<M> destination) {
+		profile.record(op, flops, 0, System.nanoTime() - start);
+		return destination;
+	}
+
+	private void value(Op op, long flops, long start) {
+		profile.record(op, flops, 0, System.nanoTime() - start);
+	}
+
+	@Override
+	public Matrix<M> multiply(Matrix<M> otherMatrix) {
+		long start = System.nanoTime();
+		Matrix<M> out = inner.multiply(unwrap(otherMatrix));
+		return result(MULTIPLY, 2L * size() * otherMatrix.cols(), start, out);
+	}
+
+	@Override
+	public Matrix<M> multiplyInto(Matrix<M> otherMatrix, Matrix<M> destination) {
+		long start = System.nanoTime();
+		inner.multiplyInto(unwrap(otherMatrix), unwrap(destination));
+		return into(MULTIPLY, 2L * size() * otherMatrix.cols(), start, destination);
+	}
+
+	@Override
+	public Matrix<M> multiplyAddMap(Matrix<M> in, Matrix<M> bias, DoubleUnaryOperator activation,
+		Matrix<M> preActivation) {
+		long start = System.nanoTime();
+		Matrix<M> out = inner
+			.multiplyAddMap(unwrap(in), unwrap(bias), activation, unwrap(preActivation));
+		long outputs = (long) inner.rows() * in.cols();
+		return result(MULTIPLY_ADD_MAP, 2L * size() * in.cols() + 2L * outputs, start, out);
+	}
+
+	@Override
+	public Matrix<M> multiplyTransposeLeft(Matrix<M> otherMatrix) {
+		long start = System.nanoTime();
+		Matrix<M> out = inner.multiplyTransposeLeft(unwrap(otherMatrix));
+		return result(MULTIPLY_TRANSPOSE_LEFT, 2L * size() * otherMatrix.cols(), start, out);
+	}
+
+	@Override
+	public Matrix<M> multiplyTransposeLeftInto(Matrix<M> otherMatrix, Matrix<M> destination) {
+		long start = System.nanoTime();
+		inner.multiplyTransposeLeftInto(unwrap(otherMatrix), unwrap(destination));
+		return into(MULTIPLY_TRANSPOSE_LEFT, 2L * size() * otherMatrix.cols(), start, destination);
+	}
+
+	@Override
+	public Matrix<M> multiplyTransposeRight(Matrix<M> otherMatrix) {
+		long start = System.nanoTime();
+		Matrix<M> out = inner.multiplyTransposeRight(unwrap(otherMatrix));
+		return result(MULTIPLY_TRANSPOSE_RIGHT, 2L * size() * otherMatrix.rows(), start, out);
+	}
+
+	@Override
+	public Matrix<M> multiplyTransposeRightInto(Matrix<M> otherMatrix, Matrix<M> destination) {
+		long start = System.nanoTime();
+		inner.multiplyTransposeRightInto(unwrap(otherMatrix), unwrap(destination));
+		return into(MULTIPLY_TRANSPOSE_RIGHT, 2L * size() * otherMatrix.rows(), start,
+			destination);
+	}
+
+	@Override
+	public Matrix<M> hadamard(Matrix<M> otherMatrix) {
+		long start = System.nanoTime();
+		return result(ELEMENTWISE, size(), start, inner.hadamard(unwrap(otherMatrix)));
+	}
+
+	@Override
+	public Matrix<M> multiply(double scalar) {
+		long start = System.nanoTime();
+		return result(ELEMENTWISE, size(), start, inner.multiply(scalar));
+	}
+
+	@Override
+	public Matrix<M> add(Matrix<M> in) {
+		long start = System.nanoTime();
+		return result(ELEMENTWISE, size(), start, inner.add(unwrap(in)));
+	}
+
+	@Override
+	public Matrix<M> add(double in) {
+		long start = System.nanoTime();
+		return result(ELEMENTWISE, size(), start, inner.add(in));
+	}
+
+	@Override
+	public Matrix<M> subtract(double in) {
+		long start = System.nanoTime();
+		return result(ELEMENTWISE, size(), start, inner.subtract(in));
+	}
+
+	@Override
+	public Matrix<M> subtract(Matrix<M> in) {
+		long start = System.nanoTime();
+		return result(ELEMENTWISE, size(), start, inner.subtract(unwrap(in)));
+	}
+
+	@Override
+	public Matrix<M> divide(double in) {
+		long start = System.nanoTime();
+		return result(ELEMENTWISE, size(), start, inner.divide(in));
+	}
+
+	@Override
+	public Matrix<M> divide(Matrix<M> right) {
+		long start = System.nanoTime();
+		return result(ELEMENTWISE, size(), start, inner.divide(unwrap(right)));
+	}
+
+	@Override
+	public double map(Function<Matrix<M>, Double> mapping) {
+		return mapping.apply(this);
+	}
+
+	@Override
+	public Matrix<M> mapValues(DoubleUnaryOperator mapping) {
+		long start = System.nanoTime();
+		return result(MAP, size(), start, inner.mapValues(mapping));
+	}
+
+	@Override
+	public Matrix<M> mapValuesInPlace(DoubleUnaryOperator mapping) {
+		long start = System.nanoTime();
+		inner.mapValuesInPlace(mapping);
+		return inPlace(MAP_IN_PLACE, size(), start);
+	}
+
+	@Override
+	public Matrix<M> zipWith(Matrix<M> other, DoubleBinaryOperator mapping) {
+		long start = System.nanoTime();
+		return result(MAP, size(), start, inner.zipWith(unwrap(other), mapping));
+	}
+
+	@Override
+	public Matrix<M> zipWithInPlace(Matrix<M> other, DoubleBinaryOperator mapping) {
+		long start = System.nanoTime();
+		inner.zipWithInPlace(unwrap(other), mapping);
+		return inPlace(MAP_IN_PLACE, size(), start);
+	}
+
+	@Override
+	public M delegate() {
+		return inner.delegate();
+	}
+
+	@Override
+	public void setDelegate(M delegate) {
+		inner.setDelegate(delegate);
+	}
+
+	@Override
+	public double sum() {
+		long start = System.nanoTime();
+		double out = inner.sum();
+		value(REDUCE, size(), start);
+		return out;
+	}
+
+	@Override
+	public double max() {
+		long start = System.nanoTime();
+		double out = inner.max();
+		value(REDUCE, size(), start);
+		return out;
+	}
+
+	@Override
+	public double min() {
+		long start = System.nanoTime();
+		double out = inner.min();
+		value(REDUCE, size(), start);
+		return out;
+	}
+
+	@Override
+	public int argMax() {
+		long start = System.nanoTime();
+		int out = inner.argMax();
+		value(REDUCE, size(), start);
+		return out;
+	}
+
+	@Override
+	public double norm() throws MatrixException {
+		long start = System.nanoTime();
+		double out = inner.norm();
+		value(REDUCE, 2L * size(), start);
+		return out;
+	}
+
+	@Override
+	public double sumOfSquares() {
+		long start = System.nanoTime();
+		double out = inner.sumOfSquares();
+		value(REDUCE, 2L * size(), start);
+		return out;
+	}
+
+	@Override
+	public double dot(Matrix<M> other) {
+		long start = System.nanoTime();
+		double out = inner.dot(unwrap(other));
+		value(REDUCE, 2L * size(), start);
+		return out;
+	}
+
+	@Override
+	public Matrix<M> transpose() {
+		long start = System.nanoTime();
+		return result(TRANSPOSE, 0, start, inner.transpose());
+	}
+
+	@Override
+	public Matrix<M> maxVector() {
+		long start = System.nanoTime();
+		return result(REDUCE, size(), start, inner.maxVector());
+	}
+
+	@Override
+	public Matrix<M> zeroes(int rows, int cols) {
+		long start = System.nanoTime();
+		return result(CREATE, 0, start, inner.zeroes(rows, cols));
+	}
+
+	@Override
+	public Matrix<M> ones(int rows, int cols) {
+		long start = System.nanoTime();
+		return result(CREATE, 0, start, inner.ones(rows, cols));
+	}
+
+	@Override
+	public Matrix<M> identity(int rows, int cols) {
+		long start = System.nanoTime();
+		return result(CREATE, 0, start, inner.identity(rows, cols));
+	}
+
+	@Override
+	public String name() {
+		return "Instrumented" + inner.name();
+	}
+
+	@Override
+	public double[][] rawCopy() {
+		long start = System.nanoTime();
+		double[][] out = inner.rawCopy();
+		profile.record(COPY, 0, size(), System.nanoTime() - start);
+		return out;
+	}
+
+	@Override
+	public void writeTo(ByteBuffer buffer) {
+		long start = System.nanoTime();
+		inner.writeTo(buffer);
+		profile.record(COPY, 0, size(), System.nanoTime() - start);
+	}
+
+	@Override
+	public InstrumentedMatrix<M> readFrom(ByteBuffer buffer) {
+		long start = System.nanoTime();
+		inner.readFrom(buffer);
+		return inPlace(COPY, 0, start);
+	}
+
+	// the channel variants go to the decorated matrix, which may avoid the intermediate buffer
+
+	@Override
+	public void writeTo(WritableByteChannel channel) throws IOException {
+		long start = System.nanoTime();
+		inner.writeTo(channel);
+		profile.record(COPY, 0, size(), System.nanoTime() - start);
+	}
+
+	@Override
+	public InstrumentedMatrix<M> readFrom(ReadableByteChannel channel) throws IOException {
+		long start = System.nanoTime();
+		inner.readFrom(channel);
+		return inPlace(COPY, 0, start);
+	}
+
+	@Override
+	public int rows() {
+		return inner.rows();
+	}
+
+	@Override
+	public int cols() {
+		return inner.cols();
+	}
+
+	@Override
+	public int elementBytes() {
+		return inner.elementBytes();
+	}
+
+	@Override
+	public Matrix<M> copy() {
+		long start = System.nanoTime();
+		return result(COPY, 0, start, inner.copy());
+	}
+
+	@Override
+	public Matrix<M> assign(Matrix<M> other) {
+		long start = System.nanoTime();
+		Matrix<M> out = inner.assign(unwrap(other));
+		return out == inner ? inPlace(COPY, 0, start) : result(COPY, 0, start, out);
+	}
+
+	@Override
+	public Matrix<M> addInPlace(Matrix<M> in) {
+		long start = System.nanoTime();
+		inner.addInPlace(unwrap(in));
+		return inPlace(ELEMENTWISE_IN_PLACE, size(), start);
+	}
+
+	@Override
+	public Matrix<M> subtractInPlace(Matrix<M> in) {
+		long start = System.nanoTime();
+		inner.subtractInPlace(unwrap(in));
+		return inPlace(ELEMENTWISE_IN_PLACE, size(), start);
+	}
+
+	@Override
+	public Matrix<M> hadamardInPlace(Matrix<M> in) {
+		long start = System.nanoTime();
+		inner.hadamardInPlace(unwrap(in));
+		return inPlace(ELEMENTWISE_IN_PLACE, size(), start);
+	}
+
+	@Override
+	public Matrix<M> divideInPlace(Matrix<M> in) {
+		long start = System.nanoTime();
+		inner.divideInPlace(unwrap(in));
+		return inPlace(ELEMENTWISE_IN_PLACE, size(), start);
+	}
+
+	@Override
+	public Matrix<M> scaleInPlace(double scalar) {
+		long start = System.nanoTime();
+		inner.scaleInPlace(scalar);
+		return inPlace(ELEMENTWISE_IN_PLACE, size(), start);
+	}
+
+	@Override
+	public Matrix<M> fill(double value) {
+		long start = System.nanoTime();
+		inner.fill(value);
+		return inPlace(ELEMENTWISE_IN_PLACE, 0, start);
+	}
+
+	@Override
+	public Matrix<M> sliceColumns(int from, int to) {
+		long start = System.nanoTime();
+		return result(SLICE, 0, start, inner.sliceColumns(from, to));
+	}
+
+	@Override
+	public Matrix<M> sliceRows(int from, int to) {
+		long start = System.nanoTime();
+		return result(SLICE, 0, start, inner.sliceRows(from, to));
+	}
+
+	@Override
+	public Matrix<M> stackColumns(List<? extends Matrix<M>> columns) {
+		long start = System.nanoTime();
+		List<Matrix<M>> unwrapped = new ArrayList<>(columns.size());
+		for (Matrix<M> column : columns) {
+			unwrapped.add(unwrap(column));
+		}
+		return result(STACK, 0, start, inner.stackColumns(unwrapped));
+	}
+
+	@Override
+	public Matrix<M> broadcastAdd(Matrix<M> column) {
+		long start = System.nanoTime();
+		return result(BROADCAST, size(), start, inner.broadcastAdd(unwrap(column)));
+	}
+
+	@Override
+	public Matrix<M> broadcastAddInPlace(Matrix<M> column) {
+		long start = System.nanoTime();
+		inner.broadcastAddInPlace(unwrap(column));
+		return inPlace(BROADCAST, size(), start);
+	}
+
+	@Override
+	public Matrix<M> sumRows() {
+		long start = System.nanoTime();
+		return result(REDUCE, size(), start, inner.sumRows());
+	}
+
+	@Override
+	public Matrix<M> maxPerColumn() {
+		long start = System.nanoTime();
+		return result(REDUCE, size(), start, inner.maxPerColumn());
+	}
+
+	@Override
+	public int[] argMaxPerColumn() {
+		long start = System.nanoTime();
+		int[] out = inner.argMaxPerColumn();
+		value(REDUCE, size(), start);
+		return out;
+	}
+
+	@Override
+	public String toString() {
+		return new StringJoiner(", ", InstrumentedMatrix.class.getSimpleName() + "[", "]")
+			.add("inner=" + inner).toString();
+	}
+}
@@ -0,0 +1,113 @@
+package math.linearalgebra.instrumented;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the matrix operations run through {@link InstrumentedMatrix}: per kind of operation
+ * the number of calls, the floating point operations, the bytes allocated for results and the
+ * time spent. The counters are {@link LongAdder}s, striped per thread under contention, so the
+ * examples of a batch running in parallel do not serialise on them.
+ * <p>
+ * Bytes count the elements of the matrices an operation returns, at {@code elementBytes} each, so
+ * they are the allocation of the backend's storage, not of the JVM as a whole.
+ */
+public final class MatrixProfile {
+
+	public enum Op {
+		MULTIPLY, MULTIPLY_ADD_MAP, MULTIPLY_TRANSPOSE_LEFT, MULTIPLY_TRANSPOSE_RIGHT,
+		ELEMENTWISE, ELEMENTWISE_IN_PLACE, MAP, MAP_IN_PLACE, REDUCE, TRANSPOSE, BROADCAST,
+		SLICE, STACK, CREATE, COPY
+	}
+
+	private final Counters[] counters;
+	private final int elementBytes;
+
+	public MatrixProfile() {
+		this(Double.BYTES);
+	}
+
+	/**
+	 * @param elementBytes bytes of one element of the profiled backend, e.g. 4 for floats
+	 */
+	public MatrixProfile(int elementBytes) {
+		this.elementBytes = elementBytes;
+		this.counters = new Counters[Op.values().length];
+		for (int i = 0; i < counters.length; i++) {
+			counters[i] = new Counters();
+		}
+	}
+
+	void record(Op op, long flops, long elements, long nanos) {
+		Counters c = counters[op.ordinal()];
+		c.calls.increment();
+		c.flops.add(flops);
+		c.bytes.add(elements * elementBytes);
+		c.nanos.add(nanos);
+	}
+
+	public long calls(Op op) {
+		return counters[op.ordinal()].calls.sum();
+	}
+
+	public long flops(Op op) {
+		return counters[op.ordinal()].flops.sum();
+	}
+
+	public long bytes(Op op) {
+		return counters[op.ordinal()].bytes.sum();
+	}
+
+	public long nanos(Op op) {
+		return counters[op.ordinal()].nanos.sum();
+	}
+
+	public void reset() {
+		for (Counters c : counters) {
+			c.calls.reset();
+			c.flops.reset();
+			c.bytes.reset();
+			c.nanos.reset();
+		}
+	}
+
+	/**
+	 * @return a table of the operations that were called, the most time consuming first
+	 */
+	public String report() {
+		long total = 0;
+		for (Op op : Op.values()) {
+			total += nanos(op);
+		}
+		StringBuilder b = new StringBuilder(String.format(Locale.ROOT,
+			"%n%-26s %12s %12s %12s %12s %7s", "Operation", "Calls", "MFLOP", "MB", "ms", "Time"));
+		Op[] ops = Op.values();
+		Arrays.sort(ops, Comparator.comparingLong(this::nanos).reversed());
+		for (Op op : ops) {
+			long calls = calls(op);
+			if (calls == 0) {
+				continue;
+			}
+			long nanos = nanos(op);
+			b.append(String.format(Locale.ROOT, "%n%-26s %12d %12.1f %12.1f %12.1f %6.1f%%", op,
+				calls, flops(op) / 1e6, bytes(op) / 1e6, nanos / 1e6,
+				total == 0 ? 0d : 100d * nanos / total));
+		}
+		return b.toString();
+	}
+
+	@Override
+	public String toString() {
+		return report();
+	}
+
+	private static final class Counters {
+
+		private final LongAdder calls = new LongAdder();
+		private final LongAdder flops = new LongAdder();
+		private final LongAdder bytes = new LongAdder();
+		private final LongAdder nanos = new LongAdder();
+	}
+}
@@ -0,0 +1,195 @@
+package math.linearalgebra.lazy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import math.linearalgebra.Matrix;
+
+/**
+ * Element wise expression tree over backend matrices. A tree reading at most two distinct
+ * matrices compiles to a single scalar operator, so it is evaluated by one {@link
+ * Matrix#mapValues(DoubleUnaryOperator)} or {@link Matrix#zipWith(Matrix, DoubleBinaryOperator)}
+ * whatever its depth. Larger trees are cut into such pieces first.
+ */
+abstract class Expression<M> {
+
+	abstract void collect(List<Matrix<M>> leaves);
+
+	// the tree as a function of the single matrix it reads
+	abstract DoubleUnaryOperator unary(Matrix<M> a);
+
+	// the tree as a function of the two matrices it reads
+	abstract DoubleBinaryOperator binary(Matrix<M> a, Matrix<M> b);
+
+	abstract Expression<M> reduce();
+
+	// distinct matrices read by the tree, compared by identity
+	final List<Matrix<M>> leaves() {
+		List<Matrix<M>> leaves = new ArrayList<>(2);
+		collect(leaves);
+		return leaves;
+	}
+
+	final Matrix<M> evaluate() {
+		Expression<M> reduced = this.reduce();
+		if (reduced instanceof Leaf) {
+			return ((Leaf<M>) reduced).value;
+		}
+		List<Matrix<M>> leaves = reduced.leaves();
+		Matrix<M> a = leaves.get(0);
+		if (leaves.size() == 1) {
+			return a.mapValues(reduced.unary(a));
+		}
+		Matrix<M> b = leaves.get(1);
+		return a.zipWith(b, reduced.binary(a, b));
+	}
+
+	// evaluates the tree into destination, in place when destination is one of the matrices read
+	final Matrix<M> evaluateInto(Matrix<M> destination) {
+		Expression<M> reduced = this.reduce();
+		List<Matrix<M>> leaves = reduced.leaves();
+		Matrix<M> a = leaves.get(0);
+		if (leaves.size() == 1) {
+			DoubleUnaryOperator f = reduced.unary(a);
+			return a == destination ? destination.mapValuesInPlace(f)
+				: destination.zipWithInPlace(a, (x, y) -> f.applyAsDouble(y));
+		}
+		Matrix<M> b = leaves.get(1);
+		DoubleBinaryOperator f = reduced.binary(a, b);
+		if (a == destination) {
+			return destination.zipWithInPlace(b, f);
+		} else if (b == destination) {
+			return destination.zipWithInPlace(a, (y, x) -> f.applyAsDouble(x, y));
+		}
+		// a third matrix, it takes a temporary
+		return destination.zipWithInPlace(a.zipWith(b, f), (x, y) -> y);
+	}
+
+	static final class Leaf<M> extends Expression<M> {
+
+		private final Matrix<M> value;
+
+		Leaf(Matrix<M> value) {
+			this.value = value;
+		}
+
+		Matrix<M> value() {
+			return value;
+		}
+
+		@Override
+		void collect(List<Matrix<M>> leaves) {
+			for (Matrix<M> leaf : leaves) {
+				if (leaf == value) {
+					return;
+				}
+			}
+			leaves.add(value);
+		}
+
+		@Override
+		DoubleUnaryOperator unary(Matrix<M> a) {
+			return x -> x;
+		}
+
+		@Override
+		DoubleBinaryOperator binary(Matrix<M> a, Matrix<M> b) {
+			return value == a ? (x, y) -> x : (x, y) -> y;
+		}
+
+		@Override
+		Expression<M> reduce() {
+			return this;
+		}
+	}
+
+	static final class Map<M> extends Expression<M> {
+
+		private final Expression<M> child;
+		private final DoubleUnaryOperator f;
+
+		Map(Expression<M> child, DoubleUnaryOperator f) {
+			this.child = child;
+			this.f = f;
+		}
+
+		@Override
+		void collect(List<Matrix<M>> leaves) {
+			child.collect(leaves);
+		}
+
+		@Override
+		DoubleUnaryOperator unary(Matrix<M> a) {
+			DoubleUnaryOperator c = child.unary(a);
+			return x -> f.applyAsDouble(c.applyAsDouble(x));
+		}
+
+		@Override
+		DoubleBinaryOperator binary(Matrix<M> a, Matrix<M> b) {
+			DoubleBinaryOperator c = child.binary(a, b);
+			return (x, y) -> f.applyAsDouble(c.applyAsDouble(x, y));
+		}
+
+		@Override
+		Expression<M> reduce() {
+			Expression<M> reduced = child.reduce();
+			return reduced == child ? this : new Map<>(reduced, f);
+		}
+	}
+
+	static final class Zip<M> extends Expression<M> {
+
+		private final Expression<M> left;
+		private final Expression<M> right;
+		private final DoubleBinaryOperator f;
+
+		Zip(Expression<M> left, Expression<M> right, DoubleBinaryOperator f) {
+			this.left = left;
+			this.right = right;
+			this.f = f;
+		}
+
+		@Override
+		void collect(List<Matrix<M>> leaves) {
+			left.collect(leaves);
+			right.collect(leaves);
+		}
+
+		@Override
+		DoubleUnaryOperator unary(Matrix<M> a) {
+			DoubleUnaryOperator l = left.unary(a);
+			DoubleUnaryOperator r = right.unary(a);
+			return x -> f.applyAsDouble(l.applyAsDouble(x), r.applyAsDouble(x));
+		}
+
+		@Override
+		DoubleBinaryOperator binary(Matrix<M> a, Matrix<M> b) {
+			// a side reading only one of the two matrices still gets both values
+			DoubleBinaryOperator l = left.binary(a, b);
+			DoubleBinaryOperator r = right.binary(a, b);
+			return (x, y) -> f.applyAsDouble(l.applyAsDouble(x, y), r.applyAsDouble(x, y));
+		}
+
+		@Override
+		Expression<M> reduce() {
+			if (leaves().size() <= 2) {
+				return this;
+			}
+			Expression<M> l = left.reduce();
+			Expression<M> r = right.reduce();
+			// each side reads at most two matrices now, evaluate the wider one (then the other)
+			// into a temporary until the whole node reads two
+			if (l.leaves().size() >= r.leaves().size()) {
+				l = new Leaf<>(l.evaluate());
+			} else {
+				r = new Leaf<>(r.evaluate());
+			}
+			Zip<M> out = new Zip<>(l, r, f);
+			if (out.leaves().size() > 2) {
+				out = new Zip<>(new Leaf<>(l.evaluate()), new Leaf<>(r.evaluate()), f);
+			}
+			return out;
+		}
+	}
+}
@@ -0,0 +1,417 @@
+package math.linearalgebra.lazy;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Function;
+import math.linearalgebra.Matrix;
+import math.linearalgebra.lazy.Expression.Leaf;
+import math.linearalgebra.lazy.Expression.Zip;
+import utilities.exceptions.MatrixException;
+
+/**
+ * {@link Matrix} over any backend that records element wise operations instead of running them.
+ * <p>
+ * {@code LazyMatrix.of(m).divide(c1).multiply(lR).divide(LazyMatrix.of(v).mapValues(Math::sqrt)
+ * .add(EPSILON))} allocates nothing but the expression. The chain runs when the result is needed
+ * as a matrix, i.e. by {@link #delegate()}, {@link #rawCopy()}, {@link #copy()}, a product, a
+ * reduction, a transpose, a slice or an in place operation, and then as a single pass of the
+ * backend for every two distinct matrices it reads (see {@link Expression}). The result is kept,
+ * so later uses do not evaluate it again. {@link #evaluateInto(Matrix)} runs the chain into an
+ * existing matrix instead, in place when it is one of the matrices read.
+ * <p>
+ * The matrices in the expression are read when it is evaluated, so they should not be changed in
+ * place before that. Take a {@link #copy()} to keep the current values.
+ *
+ * @param <M> the backend type
+ */
+public class LazyMatrix<M> implements Matrix<M> {
+
+	private static final String NAME = "LazyMatrix";
+	private final Expression<M> expression;
+	private Matrix<M> value;
+
+	private LazyMatrix(Expression<M> expression) {
+		this.expression = expression;
+	}
+
+	private LazyMatrix(Matrix<M> value) {
+		this(new Leaf<>(value));
+		this.value = value;
+	}
+
+	public static <M> LazyMatrix<M> of(Matrix<M> matrix) {
+		if (matrix instanceof LazyMatrix) {
+			return (LazyMatrix<M>) matrix;
+		}
+		return new LazyMatrix<>(matrix);
+	}
+
+	/**
+	 * @return the evaluated matrix of the backend
+	 */
+	public Matrix<M> evaluate() {
+		Matrix<M> out = this.value;
+		if (out == null) {
+			out = expression.evaluate();
+			this.value = out;
+		}
+		return out;
+	}
+
+	/**
+	 * Evaluates the expression into destination instead of a new matrix. When destination is one
+	 * of the matrices the expression reads, this is a single in place pass of the backend without
+	 * a temporary, e.g. {@code LazyMatrix.of(v).multiply(beta).add(LazyMatrix.of(g).multiply(lR))
+	 * .evaluateInto(v)} for the velocity of {@link math.optimizers.Momentum}. Destination is kept as
+	 * the value of this.
+	 *
+	 * @param destination matrix of the same shape
+	 *
+	 * @return destination
+	 */
+	public Matrix<M> evaluateInto(Matrix<M> destination) {
+		if (destination.rows() != rows() || destination.cols() != cols()) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		Matrix<M> out = this.value != null ? destination.zipWithInPlace(this.value, (x, y) -> y)
+			: expression.evaluateInto(destination);
+		this.value = out;
+		return out;
+	}
+
+	private static <M> Expression<M> expression(Matrix<M> matrix) {
+		if (matrix instanceof LazyMatrix) {
+			LazyMatrix<M> lazy = (LazyMatrix<M>) matrix;
+			return lazy.value == null ? lazy.expression : new Leaf<>(lazy.value);
+		}
+		return new Leaf<>(matrix);
+	}
+
+	private LazyMatrix<M> record(DoubleUnaryOperator f) {
+		return new LazyMatrix<>(new Expression.Map<>(expression(this), f));
+	}
+
+	private LazyMatrix<M> record(Matrix<M> other, DoubleBinaryOperator f) {
+		if (other.rows() != rows() || other.cols() != cols()) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		return new LazyMatrix<>(new Zip<>(expression(this), expression(other), f));
+	}
+
+	@Override
+	public LazyMatrix<M> hadamard(Matrix<M> otherMatrix) {
+		return record(otherMatrix, (a, b) -> a * b);
+	}
+
+	@Override
+	public LazyMatrix<M> multiply(double scalar) {
+		return record(e -> e * scalar);
+	}
+
+	@Override
+	public LazyMatrix<M> add(Matrix<M> in) {
+		return record(in, Double::sum);
+	}
+
+	@Override
+	public LazyMatrix<M> add(double in) {
+		return record(e -> e + in);
+	}
+
+	@Override
+	public LazyMatrix<M> subtract(double in) {
+		return record(e -> e - in);
+	}
+
+	@Override
+	public LazyMatrix<M> subtract(Matrix<M> in) {
+		return record(in, (a, b) -> a - b);
+	}
+
+	@Override
+	public LazyMatrix<M> divide(double in) {
+		return record(e -> e / in);
+	}
+
+	@Override
+	public LazyMatrix<M> divide(Matrix<M> right) {
+		return record(right, (a, b) -> a / b);
+	}
+
+	@Override
+	public double map(Function<Matrix<M>, Double> mapping) {
+		return mapping.apply(this);
+	}
+
+	@Override
+	public LazyMatrix<M> mapValues(DoubleUnaryOperator mapping) {
+		return record(mapping);
+	}
+
+	@Override
+	public LazyMatrix<M> zipWith(Matrix<M> other, DoubleBinaryOperator mapping) {
+		return record(other, mapping);
+	}
+
+	// The operations below need the values, they evaluate the expression and work on the result.
+
+	@Override
+	public LazyMatrix<M> mapValuesInPlace(DoubleUnaryOperator mapping) {
+		evaluate().mapValuesInPlace(mapping);
+		return this;
+	}
+
+	@Override
+	public LazyMatrix<M> zipWithInPlace(Matrix<M> other, DoubleBinaryOperator mapping) {
+		evaluate().zipWithInPlace(other, mapping);
+		return this;
+	}
+
+	@Override
+	public M delegate() {
+		return evaluate().delegate();
+	}
+
+	@Override
+	public void setDelegate(M delegate) {
+		evaluate().setDelegate(delegate);
+	}
+
+	@Override
+	public double sum() {
+		return evaluate().sum();
+	}
+
+	@Override
+	public double max() {
+		return evaluate().max();
+	}
+
+	@Override
+	public int argMax() {
+		return evaluate().argMax();
+	}
+
+	@Override
+	public Matrix<M> transpose() {
+		return evaluate().transpose();
+	}
+
+	@Override
+	public Matrix<M> maxVector() {
+		return evaluate().maxVector();
+	}
+
+	@Override
+	public Matrix<M> zeroes(int rows, int cols) {
+		return anyLeaf().zeroes(rows, cols);
+	}
+
+	@Override
+	public Matrix<M> ones(int rows, int cols) {
+		return anyLeaf().ones(rows, cols);
+	}
+
+	@Override
+	public Matrix<M> identity(int rows, int cols) {
+		return anyLeaf().identity(rows, cols);
+	}
+
+	private Matrix<M> anyLeaf() {
+		return this.value != null ? this.value : expression.leaves().get(0);
+	}
+
+	@Override
+	public double norm() throws MatrixException {
+		return evaluate().norm();
+	}
+
+	@Override
+	public double sumOfSquares() {
+		return evaluate().sumOfSquares();
+	}
+
+	@Override
+	public double min() {
+		return evaluate().min();
+	}
+
+	@Override
+	public double dot(Matrix<M> other) {
+		return evaluate().dot(other);
+	}
+
+	@Override
+	public String name() {
+		return NAME;
+	}
+
+	@Override
+	public double[][] rawCopy() {
+		return evaluate().rawCopy();
+	}
+
+	@Override
+	public void writeTo(ByteBuffer buffer) {
+		evaluate().writeTo(buffer);
+	}
+
+	@Override
+	public LazyMatrix<M> readFrom(ByteBuffer buffer) {
+		evaluate().readFrom(buffer);
+		return this;
+	}
+
+	@Override
+	public int rows() {
+		return anyLeaf().rows();
+	}
+
+	@Override
+	public int cols() {
+		return anyLeaf().cols();
+	}
+
+	@Override
+	public int elementBytes() {
+		return anyLeaf().elementBytes();
+	}
+
+	@Override
+	public Matrix<M> multiply(Matrix<M> otherMatrix) {
+		return evaluate().multiply(otherMatrix);
+	}
+
+	@Override
+	public Matrix<M> multiplyTransposeLeft(Matrix<M> otherMatrix) {
+		return evaluate().multiplyTransposeLeft(otherMatrix);
+	}
+
+	@Override
+	public Matrix<M> multiplyTransposeLeftInto(Matrix<M> otherMatrix, Matrix<M> destination) {
+		return evaluate().multiplyTransposeLeftInto(otherMatrix, destination);
+	}
+
+	@Override
+	public Matrix<M> multiplyTransposeRight(Matrix<M> otherMatrix) {
+		return evaluate().multiplyTransposeRight(otherMatrix);
+	}
+
+	@Override
+	public Matrix<M> multiplyTransposeRightInto(Matrix<M> otherMatrix, Matrix<M> destination) {
+		return evaluate().multiplyTransposeRightInto(otherMatrix, destination);
+	}
+
+	@Override
+	public Matrix<M> multiplyInto(Matrix<M> otherMatrix, Matrix<M> destination) {
+		return evaluate().multiplyInto(otherMatrix, destination);
+	}
+
+	@Override
+	public Matrix<M> sliceColumns(int from, int to) {
+		return evaluate().sliceColumns(from, to);
+	}
+
+	@Override
+	public Matrix<M> sliceRows(int from, int to) {
+		return evaluate().sliceRows(from, to);
+	}
+
+	@Override
+	public Matrix<M> stackColumns(List<? extends Matrix<M>> columns) {
+		return anyLeaf().stackColumns(columns);
+	}
+
+	@Override
+	public Matrix<M> broadcastAdd(Matrix<M> column) {
+		return evaluate().broadcastAdd(column);
+	}
+
+	@Override
+	public LazyMatrix<M> broadcastAddInPlace(Matrix<M> column) {
+		evaluate().broadcastAddInPlace(column);
+		return this;
+	}
+
+	@Override
+	public Matrix<M> sumRows() {
+		return evaluate().sumRows();
+	}
+
+	@Override
+	public Matrix<M> maxPerColumn() {
+		return evaluate().maxPerColumn();
+	}
+
+	@Override
+	public int[] argMaxPerColumn() {
+		return evaluate().argMaxPerColumn();
+	}
+
+	@Override
+	public Matrix<M> copy() {
+		// a snapshot, the leaves of the expression may be changed in place after this
+		return new LazyMatrix<>(evaluate().copy());
+	}
+
+	@Override
+	public LazyMatrix<M> addInPlace(Matrix<M> in) {
+		evaluate().addInPlace(in);
+		return this;
+	}
+
+	@Override
+	public LazyMatrix<M> subtractInPlace(Matrix<M> in) {
+		evaluate().subtractInPlace(in);
+		return this;
+	}
+
+	@Override
+	public LazyMatrix<M> hadamardInPlace(Matrix<M> in) {
+		evaluate().hadamardInPlace(in);
+		return this;
+	}
+
+	@Override
+	public LazyMatrix<M> divideInPlace(Matrix<M> in) {
+		evaluate().divideInPlace(in);
+		return this;
+	}
+
+	@Override
+	public LazyMatrix<M> scaleInPlace(double scalar) {
+		evaluate().scaleInPlace(scalar);
+		return this;
+	}
+
+	@Override
+	public LazyMatrix<M> fill(double value) {
+		evaluate().fill(value);
+		return this;
+	}
+
+	@Override
+	public int hashCode() {
+		return evaluate().hashCode();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		return evaluate().equals(((LazyMatrix<?>) o).evaluate());
+	}
+
+	@Override
+	public String toString() {
+		return new StringJoiner(", ", LazyMatrix.class.getSimpleName() + "[", "]")
+			.add("value=" + evaluate()).toString();
+	}
+}
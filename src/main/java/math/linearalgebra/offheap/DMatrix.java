@@ -0,0 +1,650 @@
+package math.linearalgebra.offheap;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleSupplier;
+import java.util.function.DoubleUnaryOperator;
+import math.linearalgebra.Elementwise;
+import math.linearalgebra.Reductions;
+import utilities.exceptions.MatrixException;
+
+/**
+ * Dense row-major double matrix whose storage belongs to an {@link OffHeapScope}, outside the
+ * Java heap for all but small matrices. Large weights, gradients and optimizer state then cost the
+ * garbage collector nothing to mark or copy, whatever the size of the model.
+ * <p>
+ * Matrices returned by an operation are allocated in the scope of the matrix it is called on.
+ * The products copy one tile of an operand to the heap at a time and run on it, so the buffers
+ * are read sequentially. Elements are stored little-endian, so {@link #bytes()} can be written
+ * to and read from a channel as is.
+ */
+public class DMatrix {
+
+	// Doubles of an operand copied to the heap per tile of the products, 128 kB.
+	static final int TILE_SIZE = 1 << 14;
+
+	private final int M; // number of rows
+	private final int N; // number of columns
+	private final ByteBuffer bytes; // storage, owned by the scope
+	private final DoubleBuffer data; // row-major view of bytes, absolute indexing only
+	private final OffHeapScope scope;
+
+	// create M-by-N matrix of 0's
+	public DMatrix(OffHeapScope scope, int M, int N) {
+		this.M = M;
+		this.N = N;
+		this.scope = scope;
+		this.bytes = scope.allocate((long) M * N);
+		this.data = bytes.asDoubleBuffer();
+	}
+
+	// create matrix based on 2d array
+	public DMatrix(OffHeapScope scope, double[][] vals) {
+		this(scope, vals.length, vals[0].length);
+		for (int i = 0; i < M; i++) {
+			store(i * N, vals[i], N);
+		}
+	}
+
+	// create column vector based on 1d array
+	public DMatrix(OffHeapScope scope, double[] ds) {
+		this(scope, ds.length, 1);
+		store(0, ds, M);
+	}
+
+	// create and return an M-by-N matrix with every element equal to value
+	public static DMatrix filled(OffHeapScope scope, int M, int N, double value) {
+		return new DMatrix(scope, M, N).fill(value);
+	}
+
+	// create and return the M-by-N identity matrix
+	public static DMatrix identity(OffHeapScope scope, int M, int N) {
+		DMatrix I = new DMatrix(scope, M, N);
+		for (int i = 0; i < Math.min(M, N); i++) {
+			I.data.put(i * N + i, 1);
+		}
+		return I;
+	}
+
+	public OffHeapScope scope() {
+		return scope;
+	}
+
+	public int rows() {
+		return this.M;
+	}
+
+	public int cols() {
+		return this.N;
+	}
+
+	/**
+	 * The storage of this matrix, little-endian, M * N * 8 bytes. The buffer is a view: writing
+	 * into it changes the matrix.
+	 */
+	public ByteBuffer bytes() {
+		scope.checkOpen();
+		return bytes.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	// writes the elements row by row, one bulk copy
+	public void writeTo(DoubleBuffer out) {
+		scope.checkOpen();
+		out.put(data.duplicate());
+	}
+
+	// overwrites the elements row by row, one bulk copy
+	public DMatrix readFrom(DoubleBuffer in) {
+		scope.checkOpen();
+		data.duplicate().put(in);
+		return this;
+	}
+
+	// whether the storage is outside the heap
+	public boolean isDirect() {
+		return bytes.isDirect();
+	}
+
+	// copies length elements from index from into dst
+	private void load(int from, double[] dst, int length) {
+		data.duplicate().position(from).get(dst, 0, length);
+	}
+
+	// copies length elements of src to index from
+	private void store(int from, double[] src, int length) {
+		data.duplicate().position(from).put(src, 0, length);
+	}
+
+	private DMatrix like(int M, int N) {
+		return new DMatrix(scope, M, N);
+	}
+
+	// return C = A * B
+	public DMatrix times(DMatrix B) {
+		return timesInto(B, like(M, B.N));
+	}
+
+	// C = A * B written into an existing matrix, C must not share storage with A or B
+	public DMatrix timesInto(DMatrix B, DMatrix C) {
+		DMatrix A = this;
+		checkOpen(B, C);
+		if (A.N != B.M || C.M != A.M || C.N != B.N) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		final int n = B.N;
+		// i-k-j over a tile of rows of B at a time, C accumulated row by row on the heap
+		int depth = Math.max(1, Math.min(A.N, TILE_SIZE / Math.max(1, n)));
+		double[] tile = new double[depth * n];
+		double[] a = new double[depth];
+		double[] acc = new double[n];
+		for (int kk = 0; kk < A.N; kk += depth) {
+			int d = Math.min(depth, A.N - kk);
+			B.load(kk * n, tile, d * n);
+			for (int i = 0; i < A.M; i++) {
+				A.load(i * A.N + kk, a, d);
+				if (kk == 0) {
+					Arrays.fill(acc, 0);
+				} else {
+					C.load(i * n, acc, n);
+				}
+				for (int k = 0; k < d; k++) {
+					double aik = a[k];
+					int b = k * n;
+					for (int j = 0; j < n; j++) {
+						acc[j] += aik * tile[b + j];
+					}
+				}
+				C.store(i * n, acc, n);
+			}
+		}
+		return C;
+	}
+
+	// return f(A * B + C), Z (may be null) receives A * B + C
+	public DMatrix timesPlusMap(DMatrix B, DMatrix C, DoubleUnaryOperator f, DMatrix Z) {
+		if (N != B.M || C.M != M || C.N != B.N || Z != null && (Z.M != C.M || Z.N != C.N)) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		DMatrix out = timesInto(B, like(M, B.N));
+		C.scope.checkOpen();
+		for (int i = 0; i < out.M * out.N; i++) {
+			double z = out.data.get(i) + C.data.get(i);
+			if (Z != null) {
+				Z.data.put(i, z);
+			}
+			out.data.put(i, f.applyAsDouble(z));
+		}
+		return out;
+	}
+
+	// return C = A^T * B without forming A^T
+	public DMatrix transposeTimes(DMatrix B) {
+		return transposeTimesInto(B, like(N, B.N));
+	}
+
+	// C = A^T * B written into an existing matrix, a tile of rows of C at a time
+	public DMatrix transposeTimesInto(DMatrix B, DMatrix C) {
+		DMatrix A = this;
+		checkOpen(B, C);
+		if (A.M != B.M || C.M != A.N || C.N != B.N) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		final int n = B.N;
+		int height = Math.max(1, Math.min(A.N, TILE_SIZE / Math.max(1, n)));
+		double[] acc = new double[height * n];
+		double[] a = new double[height];
+		double[] b = new double[n];
+		for (int ii = 0; ii < A.N; ii += height) {
+			int h = Math.min(height, A.N - ii);
+			Arrays.fill(acc, 0);
+			// k-i-j over contiguous rows of A and B
+			for (int k = 0; k < A.M; k++) {
+				A.load(k * A.N + ii, a, h);
+				B.load(k * n, b, n);
+				for (int i = 0; i < h; i++) {
+					double aki = a[i];
+					int c = i * n;
+					for (int j = 0; j < n; j++) {
+						acc[c + j] += aki * b[j];
+					}
+				}
+			}
+			C.store(ii * n, acc, h * n);
+		}
+		return C;
+	}
+
+	// return C = A * B^T without forming B^T
+	public DMatrix timesTranspose(DMatrix B) {
+		return timesTransposeInto(B, like(M, B.M));
+	}
+
+	// C = A * B^T written into an existing matrix, every element a dot product of two rows
+	public DMatrix timesTransposeInto(DMatrix B, DMatrix C) {
+		DMatrix A = this;
+		checkOpen(B, C);
+		if (A.N != B.N || C.M != A.M || C.N != B.M) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		final int n = A.N;
+		int height = Math.max(1, Math.min(B.M, TILE_SIZE / Math.max(1, n)));
+		double[] tile = new double[height * n];
+		double[] a = new double[n];
+		double[] c = new double[height];
+		for (int jj = 0; jj < B.M; jj += height) {
+			int h = Math.min(height, B.M - jj);
+			B.load(jj * n, tile, h * n);
+			for (int i = 0; i < A.M; i++) {
+				A.load(i * n, a, n);
+				for (int j = 0; j < h; j++) {
+					int b = j * n;
+					double sum = 0;
+					for (int k = 0; k < n; k++) {
+						sum += a[k] * tile[b + k];
+					}
+					c[j] = sum;
+				}
+				C.store(i * C.N + jj, c, h);
+			}
+		}
+		return C;
+	}
+
+	// create and return the transpose of the invoking matrix
+	public DMatrix transpose() {
+		scope.checkOpen();
+		DMatrix A = like(N, M);
+		double[] row = new double[N];
+		for (int i = 0; i < M; i++) {
+			load(i * N, row, N);
+			for (int j = 0; j < N; j++) {
+				A.data.put(j * M + i, row[j]);
+			}
+		}
+		return A;
+	}
+
+	// return C = A + B
+	public DMatrix plus(DMatrix B) {
+		return zip(checkDimensions(B), Double::sum, like(M, N));
+	}
+
+	// return C = A - B
+	public DMatrix minus(DMatrix B) {
+		return zip(checkDimensions(B), (a, b) -> a - b, like(M, N));
+	}
+
+	public DMatrix hadamard(DMatrix B) {
+		return zip(checkDimensions(B), (a, b) -> a * b, like(M, N));
+	}
+
+	public DMatrix divide(DMatrix B) {
+		return zip(checkDimensions(B), (a, b) -> a / b, like(M, N));
+	}
+
+	public DMatrix plus(double in) {
+		return map(e -> e + in, like(M, N));
+	}
+
+	public DMatrix minus(double in) {
+		return plus(-in);
+	}
+
+	public DMatrix times(double in) {
+		return map(e -> e * in, like(M, N));
+	}
+
+	public DMatrix divide(double in) {
+		return map(e -> e / in, like(M, N));
+	}
+
+	// A += B
+	public DMatrix plusEquals(DMatrix B) {
+		return zip(checkDimensions(B), Double::sum, this);
+	}
+
+	// A -= B
+	public DMatrix minusEquals(DMatrix B) {
+		return zip(checkDimensions(B), (a, b) -> a - b, this);
+	}
+
+	// A .*= B
+	public DMatrix hadamardEquals(DMatrix B) {
+		return zip(checkDimensions(B), (a, b) -> a * b, this);
+	}
+
+	// A ./= B
+	public DMatrix divideEquals(DMatrix B) {
+		return zip(checkDimensions(B), (a, b) -> a / b, this);
+	}
+
+	// A *= in
+	public DMatrix timesEquals(double in) {
+		return map(e -> e * in, this);
+	}
+
+	public DMatrix fill(double value) {
+		scope.checkOpen();
+		for (int i = 0; i < M * N; i++) {
+			data.put(i, value);
+		}
+		return this;
+	}
+
+	// sets every element, row by row, to the next value of the generator
+	public DMatrix generate(DoubleSupplier generator) {
+		scope.checkOpen();
+		for (int i = 0; i < M * N; i++) {
+			data.put(i, generator.getAsDouble());
+		}
+		return this;
+	}
+
+	// A = f(A)
+	public DMatrix mapEquals(DoubleUnaryOperator mapping) {
+		return map(mapping, this);
+	}
+
+	// A = f(A, B)
+	public DMatrix zipEquals(DMatrix B, DoubleBinaryOperator mapping) {
+		return zip(checkDimensions(B), mapping, this);
+	}
+
+	public DMatrix map(DoubleUnaryOperator mapping) {
+		return map(mapping, like(M, N));
+	}
+
+	public DMatrix zip(DMatrix B, DoubleBinaryOperator mapping) {
+		return zip(checkDimensions(B), mapping, like(M, N));
+	}
+
+	// out = f(A), out may be A itself
+	private DMatrix map(DoubleUnaryOperator mapping, DMatrix out) {
+		scope.checkOpen();
+		Elementwise.forEach(M * N, (from, to) -> {
+			for (int i = from; i < to; i++) {
+				out.data.put(i, mapping.applyAsDouble(data.get(i)));
+			}
+		});
+		return out;
+	}
+
+	// out = f(A, B), out may be A itself
+	private DMatrix zip(DMatrix B, DoubleBinaryOperator mapping, DMatrix out) {
+		Elementwise.forEach(M * N, (from, to) -> {
+			for (int i = from; i < to; i++) {
+				out.data.put(i, mapping.applyAsDouble(data.get(i), B.data.get(i)));
+			}
+		});
+		return out;
+	}
+
+	private void checkOpen(DMatrix B, DMatrix C) {
+		scope.checkOpen();
+		B.scope.checkOpen();
+		C.scope.checkOpen();
+	}
+
+	private DMatrix checkDimensions(DMatrix B) {
+		scope.checkOpen();
+		B.scope.checkOpen();
+		if (B.M != M || B.N != N) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		return B;
+	}
+
+	public int argMax() {
+		scope.checkOpen();
+		double max = -Double.MAX_VALUE;
+		int argMax = -1;
+		for (int i = 0; i < this.M; i++) {
+			double value = data.get(i * N);
+			if (value > max) {
+				max = value;
+				argMax = i;
+			}
+		}
+		return argMax;
+	}
+
+	public double max() {
+		scope.checkOpen();
+		double max = -Double.MAX_VALUE;
+		for (int i = 0; i < M * N; i++) {
+			max = Math.max(max, data.get(i));
+		}
+		return max;
+	}
+
+	public double min() {
+		scope.checkOpen();
+		double min = Double.MAX_VALUE;
+		for (int i = 0; i < M * N; i++) {
+			min = Math.min(min, data.get(i));
+		}
+		return min;
+	}
+
+	// pairwise sums of tiles copied to the heap, added in order
+	public double sum() {
+		scope.checkOpen();
+		double sum = 0;
+		double[] tile = new double[Math.min(TILE_SIZE, M * N)];
+		for (int from = 0; from < M * N; from += tile.length) {
+			int length = Math.min(tile.length, M * N - from);
+			load(from, tile, length);
+			sum += Reductions.sum(tile, 0, length);
+		}
+		return sum;
+	}
+
+	public double sumOfSquares() {
+		scope.checkOpen();
+		double sum = 0;
+		double[] tile = new double[Math.min(TILE_SIZE, M * N)];
+		for (int from = 0; from < M * N; from += tile.length) {
+			int length = Math.min(tile.length, M * N - from);
+			load(from, tile, length);
+			sum += Reductions.sumOfSquares(tile, 0, length);
+		}
+		return sum;
+	}
+
+	// sum of A[i][j] * B[i][j]
+	public double dot(DMatrix B) {
+		checkDimensions(B);
+		double sum = 0;
+		double[] a = new double[Math.min(TILE_SIZE, M * N)];
+		double[] b = new double[a.length];
+		for (int from = 0; from < M * N; from += a.length) {
+			int length = Math.min(a.length, M * N - from);
+			load(from, a, length);
+			B.load(from, b, length);
+			sum += Reductions.dot(a, 0, b, 0, length);
+		}
+		return sum;
+	}
+
+	public double norm() {
+		if (this.N != 1) {
+			throw new MatrixException("Not a vector.");
+		}
+		return Math.sqrt(sumOfSquares());
+	}
+
+	public double get(int i, int j) {
+		scope.checkOpen();
+		return data.get(i * N + j);
+	}
+
+	// copy of columns [from, to)
+	public DMatrix sliceColumns(int from, int to) {
+		scope.checkOpen();
+		if (from < 0 || to > N || from > to) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		DMatrix out = like(M, to - from);
+		DoubleBuffer src = data.duplicate();
+		DoubleBuffer dst = out.data.duplicate();
+		for (int i = 0; i < M; i++) {
+			src.limit(i * N + to).position(i * N + from);
+			dst.put(src);
+		}
+		return out;
+	}
+
+	// copy of rows [from, to)
+	public DMatrix sliceRows(int from, int to) {
+		scope.checkOpen();
+		if (from < 0 || to > M || from > to) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		DMatrix out = like(to - from, N);
+		out.data.duplicate().put(data.duplicate().limit(to * N).position(from * N));
+		return out;
+	}
+
+	// return [A_0 A_1 ...], the blocks side by side, in the scope of the first block
+	public static DMatrix stackColumns(List<DMatrix> blocks) {
+		if (blocks.isEmpty()) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		int M = blocks.get(0).M;
+		int N = 0;
+		for (DMatrix B : blocks) {
+			B.scope.checkOpen();
+			if (B.M != M) {
+				throw new MatrixException("Illegal matrix dimensions.");
+			}
+			N += B.N;
+		}
+		DMatrix out = blocks.get(0).like(M, N);
+		DoubleBuffer dst = out.data.duplicate();
+		int col = 0;
+		for (DMatrix B : blocks) {
+			DoubleBuffer src = B.data.duplicate();
+			for (int i = 0; i < M; i++) {
+				src.limit((i + 1) * B.N).position(i * B.N);
+				dst.position(i * N + col);
+				dst.put(src);
+			}
+			col += B.N;
+		}
+		return out;
+	}
+
+	// return C = A + b, the column vector b added to every column of A
+	public DMatrix plusColumn(DMatrix b) {
+		return copy().plusColumnEquals(b);
+	}
+
+	// A[:, j] += b for every column j
+	public DMatrix plusColumnEquals(DMatrix b) {
+		scope.checkOpen();
+		if (b.M != M || b.N != 1) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		for (int i = 0; i < M; i++) {
+			double bi = b.data.get(i);
+			int row = i * N;
+			for (int j = 0; j < N; j++) {
+				data.put(row + j, data.get(row + j) + bi);
+			}
+		}
+		return this;
+	}
+
+	// return the M-by-1 vector of row sums
+	public DMatrix sumRows() {
+		scope.checkOpen();
+		DMatrix out = like(M, 1);
+		double[] row = new double[N];
+		for (int i = 0; i < M; i++) {
+			load(i * N, row, N);
+			out.data.put(i, Reductions.sum(row, 0, N));
+		}
+		return out;
+	}
+
+	// return the 1-by-N vector of column maxima, read row by row to stay contiguous
+	public DMatrix maxPerColumn() {
+		scope.checkOpen();
+		double[] max = new double[N];
+		Arrays.fill(max, -Double.MAX_VALUE);
+		for (int i = 0; i < M; i++) {
+			int row = i * N;
+			for (int j = 0; j < N; j++) {
+				max[j] = Math.max(max[j], data.get(row + j));
+			}
+		}
+		DMatrix out = like(1, N);
+		out.store(0, max, N);
+		return out;
+	}
+
+	// row index of the max of every column
+	public int[] argMaxPerColumn() {
+		scope.checkOpen();
+		double[] max = new double[N];
+		int[] argMax = new int[N];
+		Arrays.fill(max, -Double.MAX_VALUE);
+		Arrays.fill(argMax, -1);
+		for (int i = 0; i < M; i++) {
+			int row = i * N;
+			for (int j = 0; j < N; j++) {
+				if (data.get(row + j) > max[j]) {
+					max[j] = data.get(row + j);
+					argMax[j] = i;
+				}
+			}
+		}
+		return argMax;
+	}
+
+	// copy in the same scope, a bulk copy of the storage
+	public DMatrix copy() {
+		scope.checkOpen();
+		DMatrix out = like(M, N);
+		out.bytes.duplicate().put(bytes.duplicate());
+		return out;
+	}
+
+	public double[][] rawCopy() {
+		scope.checkOpen();
+		double[][] result = new double[M][N];
+		for (int i = 0; i < M; i++) {
+			load(i * N, result[i], N);
+		}
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		DMatrix B = (DMatrix) o;
+		scope.checkOpen();
+		B.scope.checkOpen();
+		return M == B.M && N == B.N && data.equals(B.data);
+	}
+
+	@Override
+	public int hashCode() {
+		scope.checkOpen();
+		return 31 * (31 * M + N) + data.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return scope.isOpen() ? Arrays.deepToString(this.rawCopy()) : "closed";
+	}
+}
@@ -0,0 +1,384 @@
+package math.linearalgebra.offheap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Function;
+import math.linearalgebra.Matrix;
+import math.linearalgebra.MatrixIO;
+import utilities.exceptions.MatrixException;
+
+/**
+ * {@link Matrix} of the off heap {@link DMatrix} backend. Every matrix belongs to the
+ * {@link OffHeapScope} of its storage, and the matrices an operation returns, including
+ * {@link #zeroes(int, int)} and friends, are allocated in the scope of the matrix it is called on.
+ */
+public class OffHeapMatrix implements Matrix<DMatrix> {
+
+	private static final String NAME = "OffHeapMatrix";
+	private DMatrix delegate;
+
+	public OffHeapMatrix(DMatrix in) {
+		this.delegate = in;
+	}
+
+	public OffHeapMatrix(OffHeapScope scope, double[][] vals) {
+		this.delegate = new DMatrix(scope, vals);
+	}
+
+	public OffHeapMatrix(OffHeapScope scope, double[] ds) {
+		this.delegate = new DMatrix(scope, ds);
+	}
+
+	public OffHeapScope scope() {
+		return this.delegate.scope();
+	}
+
+	@Override
+	public OffHeapMatrix hadamard(Matrix<DMatrix> otherMatrix) {
+		return new OffHeapMatrix(this.delegate.hadamard(otherMatrix.delegate()));
+	}
+
+	@Override
+	public OffHeapMatrix multiply(double scalar) {
+		return new OffHeapMatrix(this.delegate.times(scalar));
+	}
+
+	@Override
+	public OffHeapMatrix add(Matrix<DMatrix> in) {
+		return new OffHeapMatrix(this.delegate.plus(in.delegate()));
+	}
+
+	@Override
+	public OffHeapMatrix add(double in) {
+		return new OffHeapMatrix(this.delegate.plus(in));
+	}
+
+	@Override
+	public OffHeapMatrix subtract(double in) {
+		return new OffHeapMatrix(this.delegate.minus(in));
+	}
+
+	@Override
+	public OffHeapMatrix subtract(Matrix<DMatrix> in) {
+		return new OffHeapMatrix(this.delegate.minus(in.delegate()));
+	}
+
+	@Override
+	public OffHeapMatrix divide(double in) {
+		return new OffHeapMatrix(this.delegate.divide(in));
+	}
+
+	@Override
+	public double map(Function<Matrix<DMatrix>, Double> mapping) {
+		return mapping.apply(this);
+	}
+
+	@Override
+	public OffHeapMatrix mapValues(DoubleUnaryOperator mapping) {
+		return new OffHeapMatrix(this.delegate.map(mapping));
+	}
+
+	@Override
+	public OffHeapMatrix mapValuesInPlace(DoubleUnaryOperator mapping) {
+		this.delegate.mapEquals(mapping);
+		return this;
+	}
+
+	@Override
+	public OffHeapMatrix zipWith(Matrix<DMatrix> other, DoubleBinaryOperator mapping) {
+		return new OffHeapMatrix(this.delegate.zip(other.delegate(), mapping));
+	}
+
+	@Override
+	public OffHeapMatrix zipWithInPlace(Matrix<DMatrix> other, DoubleBinaryOperator mapping) {
+		this.delegate.zipEquals(other.delegate(), mapping);
+		return this;
+	}
+
+	@Override
+	public DMatrix delegate() {
+		return this.delegate;
+	}
+
+	@Override
+	public void setDelegate(DMatrix delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public double sum() {
+		return this.delegate.sum();
+	}
+
+	@Override
+	public double max() {
+		return this.delegate.max();
+	}
+
+	@Override
+	public int argMax() {
+		return this.delegate.argMax();
+	}
+
+	@Override
+	public OffHeapMatrix transpose() {
+		return new OffHeapMatrix(this.delegate.transpose());
+	}
+
+	@Override
+	public OffHeapMatrix divide(Matrix<DMatrix> right) {
+		return new OffHeapMatrix(this.delegate.divide(right.delegate()));
+	}
+
+	@Override
+	public OffHeapMatrix maxVector() {
+		return new OffHeapMatrix(DMatrix.filled(scope(), rows(), 1, this.delegate.max()));
+	}
+
+	@Override
+	public OffHeapMatrix zeroes(int rows, int cols) {
+		return new OffHeapMatrix(new DMatrix(scope(), rows, cols));
+	}
+
+	@Override
+	public OffHeapMatrix ones(int rows, int cols) {
+		return new OffHeapMatrix(DMatrix.filled(scope(), rows, cols, 1d));
+	}
+
+	@Override
+	public OffHeapMatrix identity(int rows, int cols) {
+		return new OffHeapMatrix(DMatrix.identity(scope(), rows, cols));
+	}
+
+	@Override
+	public double norm() throws MatrixException {
+		return this.delegate.norm();
+	}
+
+	@Override
+	public double sumOfSquares() {
+		return this.delegate.sumOfSquares();
+	}
+
+	@Override
+	public double min() {
+		return this.delegate.min();
+	}
+
+	@Override
+	public double dot(Matrix<DMatrix> other) {
+		return this.delegate.dot(other.delegate());
+	}
+
+	@Override
+	public String name() {
+		return NAME;
+	}
+
+	@Override
+	public double[][] rawCopy() {
+		return this.delegate.rawCopy();
+	}
+
+	@Override
+	public void writeTo(ByteBuffer buffer) {
+		this.delegate.writeTo(MatrixIO.write(buffer, rows(), cols(), false));
+	}
+
+	@Override
+	public OffHeapMatrix readFrom(ByteBuffer buffer) {
+		this.delegate.readFrom(MatrixIO.read(buffer, rows(), cols(), false));
+		return this;
+	}
+
+	// The storage is little-endian and row major already, so it goes to and from the channel after
+	// its header without a copy. Column major elements are transposed on the heap once.
+
+	@Override
+	public void writeTo(WritableByteChannel channel) throws IOException {
+		MatrixIO.write(channel, MatrixIO.header(false));
+		MatrixIO.write(channel, this.delegate.bytes());
+	}
+
+	@Override
+	public OffHeapMatrix readFrom(ReadableByteChannel channel) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(MatrixIO.HEADER).order(MatrixIO.ORDER);
+		MatrixIO.readFully(channel, header);
+		if (!MatrixIO.isColumnMajor(header.flip())) {
+			MatrixIO.readFully(channel, this.delegate.bytes());
+			return this;
+		}
+		ByteBuffer elements = ByteBuffer.allocate(MatrixIO.bytes(this) - MatrixIO.HEADER)
+			.order(MatrixIO.ORDER);
+		MatrixIO.readFully(channel, elements);
+		this.delegate.readFrom(MatrixIO.inOrder(elements.flip().asDoubleBuffer(), rows(), cols(),
+			true, false));
+		return this;
+	}
+
+	@Override
+	public int rows() {
+		return this.delegate.rows();
+	}
+
+	@Override
+	public int cols() {
+		return this.delegate.cols();
+	}
+
+	@Override
+	public OffHeapMatrix multiply(Matrix<DMatrix> otherMatrix) {
+		return new OffHeapMatrix(this.delegate.times(otherMatrix.delegate()));
+	}
+
+	@Override
+	public OffHeapMatrix multiplyAddMap(Matrix<DMatrix> in, Matrix<DMatrix> bias,
+		DoubleUnaryOperator activation, Matrix<DMatrix> preActivation) {
+		return new OffHeapMatrix(this.delegate.timesPlusMap(in.delegate(), bias.delegate(), activation,
+			preActivation == null ? null : preActivation.delegate()));
+	}
+
+	@Override
+	public OffHeapMatrix multiplyTransposeLeft(Matrix<DMatrix> otherMatrix) {
+		return new OffHeapMatrix(this.delegate.transposeTimes(otherMatrix.delegate()));
+	}
+
+	@Override
+	public Matrix<DMatrix> multiplyTransposeLeftInto(Matrix<DMatrix> otherMatrix,
+		Matrix<DMatrix> destination) {
+		this.delegate.transposeTimesInto(otherMatrix.delegate(), destination.delegate());
+		return destination;
+	}
+
+	@Override
+	public OffHeapMatrix multiplyTransposeRight(Matrix<DMatrix> otherMatrix) {
+		return new OffHeapMatrix(this.delegate.timesTranspose(otherMatrix.delegate()));
+	}
+
+	@Override
+	public Matrix<DMatrix> multiplyTransposeRightInto(Matrix<DMatrix> otherMatrix,
+		Matrix<DMatrix> destination) {
+		this.delegate.timesTransposeInto(otherMatrix.delegate(), destination.delegate());
+		return destination;
+	}
+
+	@Override
+	public Matrix<DMatrix> copy() {
+		return new OffHeapMatrix(this.delegate.copy());
+	}
+
+	@Override
+	public OffHeapMatrix addInPlace(Matrix<DMatrix> in) {
+		this.delegate.plusEquals(in.delegate());
+		return this;
+	}
+
+	@Override
+	public OffHeapMatrix subtractInPlace(Matrix<DMatrix> in) {
+		this.delegate.minusEquals(in.delegate());
+		return this;
+	}
+
+	@Override
+	public OffHeapMatrix hadamardInPlace(Matrix<DMatrix> in) {
+		this.delegate.hadamardEquals(in.delegate());
+		return this;
+	}
+
+	@Override
+	public OffHeapMatrix divideInPlace(Matrix<DMatrix> in) {
+		this.delegate.divideEquals(in.delegate());
+		return this;
+	}
+
+	@Override
+	public OffHeapMatrix scaleInPlace(double scalar) {
+		this.delegate.timesEquals(scalar);
+		return this;
+	}
+
+	@Override
+	public OffHeapMatrix fill(double value) {
+		this.delegate.fill(value);
+		return this;
+	}
+
+	@Override
+	public Matrix<DMatrix> multiplyInto(Matrix<DMatrix> otherMatrix, Matrix<DMatrix> destination) {
+		this.delegate.timesInto(otherMatrix.delegate(), destination.delegate());
+		return destination;
+	}
+
+	@Override
+	public OffHeapMatrix sliceColumns(int from, int to) {
+		return new OffHeapMatrix(this.delegate.sliceColumns(from, to));
+	}
+
+	@Override
+	public OffHeapMatrix sliceRows(int from, int to) {
+		return new OffHeapMatrix(this.delegate.sliceRows(from, to));
+	}
+
+	@Override
+	public OffHeapMatrix stackColumns(List<? extends Matrix<DMatrix>> columns) {
+		List<DMatrix> blocks = new ArrayList<>(columns.size());
+		for (Matrix<DMatrix> column : columns) {
+			blocks.add(column.delegate());
+		}
+		return new OffHeapMatrix(DMatrix.stackColumns(blocks));
+	}
+
+	@Override
+	public OffHeapMatrix broadcastAdd(Matrix<DMatrix> column) {
+		return new OffHeapMatrix(this.delegate.plusColumn(column.delegate()));
+	}
+
+	@Override
+	public OffHeapMatrix broadcastAddInPlace(Matrix<DMatrix> column) {
+		this.delegate.plusColumnEquals(column.delegate());
+		return this;
+	}
+
+	@Override
+	public OffHeapMatrix sumRows() {
+		return new OffHeapMatrix(this.delegate.sumRows());
+	}
+
+	@Override
+	public OffHeapMatrix maxPerColumn() {
+		return new OffHeapMatrix(this.delegate.maxPerColumn());
+	}
+
+	@Override
+	public int[] argMaxPerColumn() {
+		return this.delegate.argMaxPerColumn();
+	}
+
+	@Override
+	public int hashCode() {
+		return delegate.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		OffHeapMatrix matrix = (OffHeapMatrix) o;
+		return delegate.equals(matrix.delegate);
+	}
+
+	@Override
+	public String toString() {
+		return "OffHeapMatrix=[" + this.delegate.toString() + "]";
+	}
+}
@@ -0,0 +1,159 @@
+package math.linearalgebra.offheap;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import utilities.exceptions.MatrixException;
+
+/**
+ * Owner of the storage of {@link DMatrix} matrices. Matrices of at least {@code minDirect}
+ * elements are allocated in direct buffers outside the Java heap, smaller ones, i.e. the vectors
+ * and temporaries of a single example, stay on the heap where allocating them is cheap.
+ * <p>
+ * {@link #close()} frees every direct buffer still in use at once, without waiting for the
+ * garbage collector, after which the matrices of the scope must not be used; their operations
+ * throw. Direct buffers that become unreachable while the scope is open are freed by the garbage
+ * collector as usual. A scope must not be closed while one of its matrices is in use by another
+ * thread.
+ * <p>
+ * The JVM caps direct memory at the maximum heap size unless {@code -XX:MaxDirectMemorySize} is
+ * given, so a small heap for a large model needs that flag.
+ */
+@Slf4j
+public final class OffHeapScope implements AutoCloseable {
+
+	// matrices below this many elements are allocated on the heap by default
+	public static final int DEFAULT_MIN_DIRECT = 1 << 10;
+
+	// sun.misc.Unsafe.invokeCleaner(ByteBuffer), null where it is not available
+	private static final MethodHandle INVOKE_CLEANER = invokeCleaner();
+
+	private final int minDirect;
+	private final Set<Allocation> allocations = ConcurrentHashMap.newKeySet();
+	private final ReferenceQueue<ByteBuffer> collected = new ReferenceQueue<>();
+	private final AtomicLong directBytes = new AtomicLong();
+	private volatile boolean open = true;
+
+	public OffHeapScope() {
+		this(DEFAULT_MIN_DIRECT);
+	}
+
+	/**
+	 * @param minDirect matrices with fewer elements are allocated on the heap, 0 to allocate all of
+	 *                  them off heap
+	 */
+	public OffHeapScope(int minDirect) {
+		this.minDirect = minDirect;
+	}
+
+	/**
+	 * @return zeroed little-endian storage for the given number of doubles
+	 */
+	ByteBuffer allocate(long elements) {
+		checkOpen();
+		if (elements > Integer.MAX_VALUE / Double.BYTES) {
+			throw new MatrixException("Matrix too large for one buffer: " + elements + " elements.");
+		}
+		int bytes = (int) elements * Double.BYTES;
+		if (elements < minDirect) {
+			return ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		}
+		expunge();
+		ByteBuffer buffer = ByteBuffer.allocateDirect(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		allocations.add(new Allocation(buffer, collected));
+		directBytes.addAndGet(bytes);
+		return buffer;
+	}
+
+	void checkOpen() {
+		if (!open) {
+			throw new MatrixException("Off heap scope closed.");
+		}
+	}
+
+	public boolean isOpen() {
+		return open;
+	}
+
+	/**
+	 * @return bytes of the direct buffers of this scope that have not been collected or freed
+	 */
+	public long directBytes() {
+		expunge();
+		return directBytes.get();
+	}
+
+	// forgets the buffers the garbage collector has freed
+	private void expunge() {
+		for (Object ref; (ref = collected.poll()) != null; ) {
+			Allocation allocation = (Allocation) ref;
+			if (allocations.remove(allocation)) {
+				directBytes.addAndGet(-allocation.bytes);
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		if (!open) {
+			return;
+		}
+		open = false;
+		long freed = 0;
+		for (Allocation allocation : allocations) {
+			ByteBuffer buffer = allocation.get();
+			if (buffer != null) {
+				free(buffer);
+				freed += allocation.bytes;
+			}
+		}
+		allocations.clear();
+		directBytes.set(0);
+		log.debug("Freed {} off heap bytes.", freed);
+	}
+
+	private static void free(ByteBuffer buffer) {
+		if (INVOKE_CLEANER == null) {
+			return;
+		}
+		try {
+			INVOKE_CLEANER.invokeExact(buffer);
+		} catch (Throwable throwable) {
+			throw new MatrixException("Could not free off heap buffer: " + throwable);
+		}
+	}
+
+	private static MethodHandle invokeCleaner() {
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			return MethodHandles.lookup()
+				.findVirtual(unsafeClass, "invokeCleaner",
+					MethodType.methodType(void.class, ByteBuffer.class))
+				.bindTo(theUnsafe.get(null));
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			log.warn("Off heap buffers will be freed by the garbage collector only: {}", e.toString());
+			return null;
+		}
+	}
+
+	private static final class Allocation extends WeakReference<ByteBuffer> {
+
+		private final long bytes;
+
+		Allocation(ByteBuffer buffer, ReferenceQueue<ByteBuffer> queue) {
+			super(buffer, queue);
+			this.bytes = buffer.capacity();
+		}
+	}
+}
@@ -1,14 +1,20 @@
 package math.linearalgebra.ojalgo;
 
-import static utilities.MathUtilities.simpleMap;
-
+import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.List;
 import java.util.StringJoiner;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
 import java.util.function.Function;
 import math.linearalgebra.Matrix;
+import math.linearalgebra.MatrixIO;
+import math.linearalgebra.bridge.FlatStorage;
+import org.ojalgo.function.PrimitiveFunction;
 import org.ojalgo.function.aggregator.Aggregator;
 import org.ojalgo.matrix.Primitive64Matrix;
-import utilities.MathUtilities;
+import org.ojalgo.matrix.store.Primitive64Store;
+import utilities.exceptions.MatrixException;
 
 public class OjAlgoMatrix implements Matrix<Primitive64Matrix> {
 
@@ -102,9 +108,37 @@ public class OjAlgoMatrix implements Matrix<Primitive64Matrix> {
 		return mapping.apply(this);
 	}
 
+	// The mappings run on a mutable copy of the store through ojAlgo's primitive function
+	// interfaces, which are invoked with unboxed doubles.
+
 	@Override
-	public OjAlgoMatrix mapElements(Function<Double, Double> mapping) {
-		return new OjAlgoMatrix(simpleMap(mapping, this.delegate.toRawCopy2D()));
+	public OjAlgoMatrix mapValues(DoubleUnaryOperator mapping) {
+		Primitive64Matrix.DenseReceiver receiver = this.delegate.copy();
+		receiver.modifyAll((PrimitiveFunction.Unary) mapping::applyAsDouble);
+		return new OjAlgoMatrix(receiver.build());
+	}
+
+	@Override
+	public OjAlgoMatrix mapValuesInPlace(DoubleUnaryOperator mapping) {
+		this.delegate = this.mapValues(mapping).delegate;
+		return this;
+	}
+
+	@Override
+	public OjAlgoMatrix zipWith(Matrix<Primitive64Matrix> other, DoubleBinaryOperator mapping) {
+		if (other.rows() != rows() || other.cols() != cols()) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		Primitive64Matrix.DenseReceiver receiver = this.delegate.copy();
+		receiver.modifyMatching((PrimitiveFunction.Binary) mapping::applyAsDouble, other.delegate());
+		return new OjAlgoMatrix(receiver.build());
+	}
+
+	@Override
+	public OjAlgoMatrix zipWithInPlace(Matrix<Primitive64Matrix> other,
+		DoubleBinaryOperator mapping) {
+		this.delegate = this.zipWith(other, mapping).delegate;
+		return this;
 	}
 
 	@Override
@@ -122,13 +156,28 @@ public class OjAlgoMatrix implements Matrix<Primitive64Matrix> {
 		return this.delegate.aggregateAll(Aggregator.SUM);
 	}
 
+	// MAXIMUM and MINIMUM aggregators start from zero, so max and min read the elements instead
 	@Override
 	public double max() {
-		double[] array = this.delegate.toRawCopy1D();
-		double best = array[0];
-		for (int i = 1; i < array.length; i++) {
-			if (array[i] > best) {
-				best = array[i];
+		long count = this.delegate.count();
+		double best = -Double.MAX_VALUE;
+		for (long i = 0; i < count; i++) {
+			double e = this.delegate.doubleValue(i);
+			if (e > best) {
+				best = e;
+			}
+		}
+		return best;
+	}
+
+	@Override
+	public double min() {
+		long count = this.delegate.count();
+		double best = Double.MAX_VALUE;
+		for (long i = 0; i < count; i++) {
+			double e = this.delegate.doubleValue(i);
+			if (e < best) {
+				best = e;
 			}
 		}
 		return best;
@@ -136,8 +185,30 @@ public class OjAlgoMatrix implements Matrix<Primitive64Matrix> {
 
 	@Override
 	public int argMax() {
-		double[] array = this.delegate.toRawCopy1D();
-		return MathUtilities.argMax(array);
+		long count = this.delegate.count();
+		double best = -Double.MAX_VALUE;
+		int argMax = -1;
+		for (int i = 0; i < count; i++) {
+			double e = this.delegate.doubleValue(i);
+			if (e > best) {
+				best = e;
+				argMax = i;
+			}
+		}
+		return argMax;
+	}
+
+	@Override
+	public double sumOfSquares() {
+		return this.delegate.aggregateAll(Aggregator.SUM2);
+	}
+
+	@Override
+	public double dot(Matrix<Primitive64Matrix> other) {
+		if (other.rows() != rows() || other.cols() != cols()) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		return this.delegate.dot(other.delegate());
 	}
 
 	@Override
@@ -202,7 +273,7 @@ public class OjAlgoMatrix implements Matrix<Primitive64Matrix> {
 			throw new IllegalArgumentException("Trying to take the norm of matrix... sus.");
 		}
 
-		return this.mapElements(e -> e * e).map(e -> Math.sqrt(e.sum()));
+		return Math.sqrt(sumOfSquares());
 	}
 
 	@Override
@@ -215,6 +286,21 @@ public class OjAlgoMatrix implements Matrix<Primitive64Matrix> {
 		return this.delegate.toRawCopy2D();
 	}
 
+	// column major, the order of the store the matrix is copied to
+	@Override
+	public void writeTo(ByteBuffer buffer) {
+		MatrixIO.write(buffer, rows(), cols(), true).put(FlatStorage.of(this).columnMajor());
+	}
+
+	// The matrix is immutable, so the elements read replace it.
+	@Override
+	public OjAlgoMatrix readFrom(ByteBuffer buffer) {
+		double[] columnMajor = new double[rows() * cols()];
+		MatrixIO.read(buffer, rows(), cols(), true).get(columnMajor);
+		this.delegate = Primitive64Matrix.FACTORY.copy(Primitive64Store.wrap(columnMajor, rows()));
+		return this;
+	}
+
 	@Override
 	public int rows() {
 		return (int) this.delegate.countRows();
@@ -230,8 +316,158 @@ public class OjAlgoMatrix implements Matrix<Primitive64Matrix> {
 		return new OjAlgoMatrix(this.delegate.multiply(otherMatrix.delegate()));
 	}
 
+	// Primitive64Matrix.transpose() wraps the store in a transposed view without copying, so the
+	// products below read the original elements directly.
+
+	@Override
+	public OjAlgoMatrix multiplyTransposeLeft(Matrix<Primitive64Matrix> otherMatrix) {
+		return new OjAlgoMatrix(this.delegate.transpose().multiply(otherMatrix.delegate()));
+	}
+
+	@Override
+	public OjAlgoMatrix multiplyTransposeRight(Matrix<Primitive64Matrix> otherMatrix) {
+		return new OjAlgoMatrix(this.delegate.multiply(otherMatrix.delegate().transpose()));
+	}
+
+	@Override
+	public Matrix<Primitive64Matrix> multiplyTransposeRightInto(
+		Matrix<Primitive64Matrix> otherMatrix, Matrix<Primitive64Matrix> destination) {
+		destination.setDelegate(this.delegate.multiply(otherMatrix.delegate().transpose()));
+		return destination;
+	}
+
 	@Override
 	public Matrix<Primitive64Matrix> copy() {
 		return new OjAlgoMatrix(this.delegate.copy().build());
 	}
+
+	// Primitive64Matrix is immutable, so the in place operations below compute a new delegate and
+	// swap it in. Callers still see the mutation through this instance.
+
+	@Override
+	public OjAlgoMatrix addInPlace(Matrix<Primitive64Matrix> in) {
+		this.delegate = this.delegate.add(in.delegate());
+		return this;
+	}
+
+	@Override
+	public OjAlgoMatrix subtractInPlace(Matrix<Primitive64Matrix> in) {
+		this.delegate = this.delegate.subtract(in.delegate());
+		return this;
+	}
+
+	@Override
+	public OjAlgoMatrix hadamardInPlace(Matrix<Primitive64Matrix> in) {
+		this.delegate = this.hadamard(in).delegate;
+		return this;
+	}
+
+	@Override
+	public OjAlgoMatrix divideInPlace(Matrix<Primitive64Matrix> in) {
+		this.delegate = this.divide(in).delegate;
+		return this;
+	}
+
+	@Override
+	public OjAlgoMatrix scaleInPlace(double scalar) {
+		this.delegate = this.delegate.multiply(scalar);
+		return this;
+	}
+
+	@Override
+	public OjAlgoMatrix fill(double value) {
+		this.delegate = Primitive64Matrix.FACTORY.make(rows(), cols()).add(value);
+		return this;
+	}
+
+	// Slices, stacking and broadcasting go through ojAlgo's logical builder. Primitive64Matrix is
+	// immutable, so the logical views it returns behave like copies.
+
+	@Override
+	public OjAlgoMatrix sliceColumns(int from, int to) {
+		if (from < 0 || to > cols() || from > to) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		return new OjAlgoMatrix(this.delegate.logical().offsets(0, from).limits(rows(), to - from)
+			.get());
+	}
+
+	@Override
+	public OjAlgoMatrix sliceRows(int from, int to) {
+		if (from < 0 || to > rows() || from > to) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		return new OjAlgoMatrix(this.delegate.logical().offsets(from, 0).limits(to - from, cols())
+			.get());
+	}
+
+	@Override
+	public OjAlgoMatrix stackColumns(List<? extends Matrix<Primitive64Matrix>> columns) {
+		if (columns.isEmpty()) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		Primitive64Matrix.LogicalBuilder stacked = columns.get(0).delegate().logical();
+		for (int i = 1; i < columns.size(); i++) {
+			if (columns.get(i).rows() != columns.get(0).rows()) {
+				throw new MatrixException("Illegal matrix dimensions.");
+			}
+			stacked = stacked.right(columns.get(i).delegate());
+		}
+		// copied into one dense store, the products should not go through the logical structure
+		return new OjAlgoMatrix(stacked.get().copy().build());
+	}
+
+	@Override
+	public OjAlgoMatrix broadcastAdd(Matrix<Primitive64Matrix> column) {
+		if (column.rows() != rows() || column.cols() != 1) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		return new OjAlgoMatrix(
+			this.delegate.add(column.delegate().logical().repeat(1, cols()).get()));
+	}
+
+	@Override
+	public OjAlgoMatrix broadcastAddInPlace(Matrix<Primitive64Matrix> column) {
+		this.delegate = this.broadcastAdd(column).delegate;
+		return this;
+	}
+
+	@Override
+	public OjAlgoMatrix sumRows() {
+		return this.multiply(this.ones(cols(), 1));
+	}
+
+	@Override
+	public OjAlgoMatrix maxPerColumn() {
+		int[] argMax = argMaxPerColumn();
+		double[][] max = new double[1][argMax.length];
+		for (int j = 0; j < argMax.length; j++) {
+			max[0][j] = argMax[j] < 0 ? -Double.MAX_VALUE : this.delegate.doubleValue(argMax[j], j);
+		}
+		return new OjAlgoMatrix(max);
+	}
+
+	@Override
+	public int[] argMaxPerColumn() {
+		int[] argMax = new int[cols()];
+		for (int j = 0; j < argMax.length; j++) {
+			double max = -Double.MAX_VALUE;
+			argMax[j] = -1;
+			for (int i = 0; i < rows(); i++) {
+				double value = this.delegate.doubleValue(i, j);
+				if (value > max) {
+					max = value;
+					argMax[j] = i;
+				}
+			}
+		}
+		return argMax;
+	}
+
+	@Override
+	public Matrix<Primitive64Matrix> multiplyInto(Matrix<Primitive64Matrix> otherMatrix,
+		Matrix<Primitive64Matrix> destination) {
+		destination.setDelegate(this.delegate.multiply(otherMatrix.delegate()));
+		return destination;
+	}
 }
@@ -0,0 +1,508 @@
+package math.linearalgebra.ojalgo;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Function;
+import math.linearalgebra.Matrix;
+import math.linearalgebra.MatrixIO;
+import math.linearalgebra.Reductions;
+import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.function.constant.PrimitiveMath;
+import org.ojalgo.matrix.store.Primitive64Store;
+import utilities.exceptions.MatrixException;
+
+/**
+ * ojAlgo backend on the mutable {@link Primitive64Store}. Unlike {@link OjAlgoMatrix}, which wraps
+ * the immutable Primitive64Matrix, element wise operations run on the store with ojAlgo's
+ * modifyAll/modifyMatching (in place, or on one copy for the operations returning a new matrix),
+ * and products are written with fillByMultiplying, which uses ojAlgo's multithreaded multiply for
+ * large operands.
+ */
+public class OjAlgoStoreMatrix implements Matrix<Primitive64Store> {
+
+	private static final String NAME = "OjAlgoStore";
+	private Primitive64Store delegate;
+
+	public OjAlgoStoreMatrix(Primitive64Store in) {
+		this.delegate = in;
+	}
+
+	public OjAlgoStoreMatrix(double[] values) {
+		this.delegate = Primitive64Store.FACTORY.columns(values);
+	}
+
+	public OjAlgoStoreMatrix(double[][] data) {
+		this.delegate = Primitive64Store.FACTORY.rows(data);
+	}
+
+	public OjAlgoStoreMatrix(OjAlgoStoreMatrix out) {
+		this.delegate = out.delegate.copy();
+	}
+
+	@Override
+	public int hashCode() {
+		return delegate.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		OjAlgoStoreMatrix matrix = (OjAlgoStoreMatrix) o;
+		return delegate.equals(matrix.delegate);
+	}
+
+	@Override
+	public String toString() {
+		return new StringJoiner(", ", OjAlgoStoreMatrix.class.getSimpleName() + "[", "]")
+			.add("rawCopy=" + Arrays.deepToString(this.rawCopy())).toString();
+	}
+
+	@Override
+	public OjAlgoStoreMatrix hadamard(Matrix<Primitive64Store> otherMatrix) {
+		return this.copy().hadamardInPlace(otherMatrix);
+	}
+
+	@Override
+	public OjAlgoStoreMatrix multiply(double scalar) {
+		return this.copy().scaleInPlace(scalar);
+	}
+
+	@Override
+	public OjAlgoStoreMatrix add(Matrix<Primitive64Store> in) {
+		return this.copy().addInPlace(in);
+	}
+
+	@Override
+	public OjAlgoStoreMatrix add(double in) {
+		OjAlgoStoreMatrix out = this.copy();
+		out.delegate.modifyAll(PrimitiveMath.ADD.second(in));
+		return out;
+	}
+
+	@Override
+	public OjAlgoStoreMatrix subtract(double in) {
+		OjAlgoStoreMatrix out = this.copy();
+		out.delegate.modifyAll(PrimitiveMath.SUBTRACT.second(in));
+		return out;
+	}
+
+	@Override
+	public OjAlgoStoreMatrix subtract(Matrix<Primitive64Store> in) {
+		return this.copy().subtractInPlace(in);
+	}
+
+	@Override
+	public OjAlgoStoreMatrix divide(double in) {
+		OjAlgoStoreMatrix out = this.copy();
+		out.delegate.modifyAll(PrimitiveMath.DIVIDE.second(in));
+		return out;
+	}
+
+	@Override
+	public double map(Function<Matrix<Primitive64Store>, Double> mapping) {
+		return mapping.apply(this);
+	}
+
+	@Override
+	public OjAlgoStoreMatrix mapValues(DoubleUnaryOperator mapping) {
+		return this.copy().mapValuesInPlace(mapping);
+	}
+
+	@Override
+	public OjAlgoStoreMatrix mapValuesInPlace(DoubleUnaryOperator mapping) {
+		this.delegate.modifyAll((PrimitiveFunction.Unary) mapping::applyAsDouble);
+		return this;
+	}
+
+	@Override
+	public OjAlgoStoreMatrix zipWith(Matrix<Primitive64Store> other,
+		DoubleBinaryOperator mapping) {
+		return this.copy().zipWithInPlace(other, mapping);
+	}
+
+	@Override
+	public OjAlgoStoreMatrix zipWithInPlace(Matrix<Primitive64Store> other,
+		DoubleBinaryOperator mapping) {
+		return modifyMatching((PrimitiveFunction.Binary) mapping::applyAsDouble, other);
+	}
+
+	@Override
+	public Primitive64Store delegate() {
+		return this.delegate;
+	}
+
+	@Override
+	public void setDelegate(Primitive64Store delegate) {
+		this.delegate = delegate;
+	}
+
+	// The reductions read the column major data array of the store directly.
+
+	@Override
+	public double sum() {
+		double[] data = this.delegate.data;
+		return Reductions.sum(data, 0, data.length);
+	}
+
+	@Override
+	public double max() {
+		double[] data = this.delegate.data;
+		return Reductions.max(data, 0, data.length);
+	}
+
+	@Override
+	public double min() {
+		double[] data = this.delegate.data;
+		return Reductions.min(data, 0, data.length);
+	}
+
+	@Override
+	public double sumOfSquares() {
+		double[] data = this.delegate.data;
+		return Reductions.sumOfSquares(data, 0, data.length);
+	}
+
+	@Override
+	public double dot(Matrix<Primitive64Store> other) {
+		if (other.rows() != rows() || other.cols() != cols()) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		double[] data = this.delegate.data;
+		return Reductions.dot(data, 0, other.delegate().data, 0, data.length);
+	}
+
+	@Override
+	public int argMax() {
+		// column major, the first rows() elements are the first column
+		return Reductions.argMax(this.delegate.data, 0, rows(), 1);
+	}
+
+	@Override
+	public OjAlgoStoreMatrix transpose() {
+		return new OjAlgoStoreMatrix(Primitive64Store.FACTORY.transpose(this.delegate));
+	}
+
+	@Override
+	public OjAlgoStoreMatrix divide(Matrix<Primitive64Store> right) {
+		return this.copy().divideInPlace(right);
+	}
+
+	@Override
+	public OjAlgoStoreMatrix maxVector() {
+		Primitive64Store out = Primitive64Store.FACTORY.make(rows(), 1);
+		out.fillAll(this.max());
+		return new OjAlgoStoreMatrix(out);
+	}
+
+	@Override
+	public OjAlgoStoreMatrix zeroes(int rows, int cols) {
+		return new OjAlgoStoreMatrix(Primitive64Store.FACTORY.make(rows, cols));
+	}
+
+	@Override
+	public OjAlgoStoreMatrix ones(int rows, int cols) {
+		return this.zeroes(rows, cols).fill(1);
+	}
+
+	@Override
+	public OjAlgoStoreMatrix identity(int rows, int cols) {
+		return new OjAlgoStoreMatrix(Primitive64Store.FACTORY.makeEye(rows, cols));
+	}
+
+	@Override
+	public double norm() {
+		if (cols() != 1) {
+			throw new MatrixException("Not a vector.");
+		}
+		return Math.sqrt(sumOfSquares());
+	}
+
+	@Override
+	public String name() {
+		return NAME;
+	}
+
+	@Override
+	public double[][] rawCopy() {
+		return this.delegate.toRawCopy2D();
+	}
+
+	// The store is column major, so its array is written as it is and read back in place.
+
+	@Override
+	public void writeTo(ByteBuffer buffer) {
+		MatrixIO.write(buffer, rows(), cols(), true).put(this.delegate.data);
+	}
+
+	@Override
+	public OjAlgoStoreMatrix readFrom(ByteBuffer buffer) {
+		MatrixIO.read(buffer, rows(), cols(), true).get(this.delegate.data);
+		return this;
+	}
+
+	@Override
+	public int rows() {
+		return (int) this.delegate.countRows();
+	}
+
+	@Override
+	public int cols() {
+		return (int) this.delegate.countColumns();
+	}
+
+	@Override
+	public OjAlgoStoreMatrix multiply(Matrix<Primitive64Store> otherMatrix) {
+		Primitive64Store out = Primitive64Store.FACTORY.make(rows(), otherMatrix.cols());
+		return new OjAlgoStoreMatrix(fillByMultiplying(out, this.delegate, otherMatrix.delegate()));
+	}
+
+	// MatrixStore.transpose() is a view over the same data, so the products below read the
+	// original elements directly.
+
+	@Override
+	public OjAlgoStoreMatrix multiplyTransposeLeft(Matrix<Primitive64Store> otherMatrix) {
+		if (rows() != otherMatrix.rows()) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		Primitive64Store out = Primitive64Store.FACTORY.make(cols(), otherMatrix.cols());
+		out.fillByMultiplying(this.delegate.transpose(), otherMatrix.delegate());
+		return new OjAlgoStoreMatrix(out);
+	}
+
+	@Override
+	public Matrix<Primitive64Store> multiplyTransposeLeftInto(Matrix<Primitive64Store> otherMatrix,
+		Matrix<Primitive64Store> destination) {
+		Primitive64Store out = destination.delegate();
+		if (rows() != otherMatrix.rows() || out.countRows() != cols()
+			|| out.countColumns() != otherMatrix.cols()) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		out.fillByMultiplying(this.delegate.transpose(), otherMatrix.delegate());
+		return destination;
+	}
+
+	@Override
+	public OjAlgoStoreMatrix multiplyTransposeRight(Matrix<Primitive64Store> otherMatrix) {
+		Primitive64Store out = Primitive64Store.FACTORY.make(rows(), otherMatrix.rows());
+		return new OjAlgoStoreMatrix(timesTransposeInto(otherMatrix.delegate(), out));
+	}
+
+	@Override
+	public Matrix<Primitive64Store> multiplyTransposeRightInto(Matrix<Primitive64Store> otherMatrix,
+		Matrix<Primitive64Store> destination) {
+		timesTransposeInto(otherMatrix.delegate(), destination.delegate());
+		return destination;
+	}
+
+	private Primitive64Store timesTransposeInto(Primitive64Store right, Primitive64Store out) {
+		if (cols() != right.countColumns() || out.countRows() != rows()
+			|| out.countColumns() != right.countRows()) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		out.fillByMultiplying(this.delegate, right.transpose());
+		return out;
+	}
+
+	@Override
+	public Matrix<Primitive64Store> multiplyAddMap(Matrix<Primitive64Store> in,
+		Matrix<Primitive64Store> bias, DoubleUnaryOperator activation,
+		Matrix<Primitive64Store> preActivation) {
+		OjAlgoStoreMatrix out = this.multiply(in);
+		if (preActivation == null) {
+			// bias and activation in one pass over the product
+			return out.zipWithInPlace(bias, (p, b) -> activation.applyAsDouble(p + b));
+		}
+		out.addInPlace(bias);
+		preActivation.delegate().fillMatching(out.delegate);
+		return out.mapValuesInPlace(activation);
+	}
+
+	@Override
+	public OjAlgoStoreMatrix copy() {
+		return new OjAlgoStoreMatrix(this.delegate.copy());
+	}
+
+	@Override
+	public OjAlgoStoreMatrix addInPlace(Matrix<Primitive64Store> in) {
+		return modifyMatching(PrimitiveMath.ADD, in);
+	}
+
+	@Override
+	public OjAlgoStoreMatrix subtractInPlace(Matrix<Primitive64Store> in) {
+		return modifyMatching(PrimitiveMath.SUBTRACT, in);
+	}
+
+	@Override
+	public OjAlgoStoreMatrix hadamardInPlace(Matrix<Primitive64Store> in) {
+		return modifyMatching(PrimitiveMath.MULTIPLY, in);
+	}
+
+	@Override
+	public OjAlgoStoreMatrix divideInPlace(Matrix<Primitive64Store> in) {
+		return modifyMatching(PrimitiveMath.DIVIDE, in);
+	}
+
+	@Override
+	public OjAlgoStoreMatrix scaleInPlace(double scalar) {
+		this.delegate.modifyAll(PrimitiveMath.MULTIPLY.second(scalar));
+		return this;
+	}
+
+	@Override
+	public OjAlgoStoreMatrix fill(double value) {
+		this.delegate.fillAll(value);
+		return this;
+	}
+
+	@Override
+	public Matrix<Primitive64Store> multiplyInto(Matrix<Primitive64Store> otherMatrix,
+		Matrix<Primitive64Store> destination) {
+		fillByMultiplying(destination.delegate(), this.delegate, otherMatrix.delegate());
+		return destination;
+	}
+
+	// The store is column major, so a range of columns and every column of a batch are contiguous
+	// runs of the data array.
+
+	@Override
+	public OjAlgoStoreMatrix sliceColumns(int from, int to) {
+		if (from < 0 || to > cols() || from > to) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		Primitive64Store out = Primitive64Store.FACTORY.make(rows(), to - from);
+		System.arraycopy(this.delegate.data, from * rows(), out.data, 0, out.data.length);
+		return new OjAlgoStoreMatrix(out);
+	}
+
+	@Override
+	public OjAlgoStoreMatrix sliceRows(int from, int to) {
+		if (from < 0 || to > rows() || from > to) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		int rows = to - from;
+		Primitive64Store out = Primitive64Store.FACTORY.make(rows, cols());
+		for (int j = 0; j < cols(); j++) {
+			System.arraycopy(this.delegate.data, j * rows() + from, out.data, j * rows, rows);
+		}
+		return new OjAlgoStoreMatrix(out);
+	}
+
+	@Override
+	public OjAlgoStoreMatrix stackColumns(List<? extends Matrix<Primitive64Store>> columns) {
+		if (columns.isEmpty()) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		int rows = columns.get(0).rows();
+		int cols = 0;
+		for (Matrix<Primitive64Store> column : columns) {
+			if (column.rows() != rows) {
+				throw new MatrixException("Illegal matrix dimensions.");
+			}
+			cols += column.cols();
+		}
+		Primitive64Store out = Primitive64Store.FACTORY.make(rows, cols);
+		int offset = 0;
+		for (Matrix<Primitive64Store> column : columns) {
+			double[] data = column.delegate().data;
+			System.arraycopy(data, 0, out.data, offset, data.length);
+			offset += data.length;
+		}
+		return new OjAlgoStoreMatrix(out);
+	}
+
+	@Override
+	public OjAlgoStoreMatrix broadcastAdd(Matrix<Primitive64Store> column) {
+		return this.copy().broadcastAddInPlace(column);
+	}
+
+	@Override
+	public OjAlgoStoreMatrix broadcastAddInPlace(Matrix<Primitive64Store> column) {
+		if (column.rows() != rows() || column.cols() != 1) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		double[] data = this.delegate.data;
+		double[] bias = column.delegate().data;
+		int rows = rows();
+		for (int j = 0; j < cols(); j++) {
+			int offset = j * rows;
+			for (int i = 0; i < rows; i++) {
+				data[offset + i] += bias[i];
+			}
+		}
+		return this;
+	}
+
+	@Override
+	public OjAlgoStoreMatrix sumRows() {
+		Primitive64Store out = Primitive64Store.FACTORY.make(rows(), 1);
+		double[] data = this.delegate.data;
+		int rows = rows();
+		for (int j = 0; j < cols(); j++) {
+			int offset = j * rows;
+			for (int i = 0; i < rows; i++) {
+				out.data[i] += data[offset + i];
+			}
+		}
+		return new OjAlgoStoreMatrix(out);
+	}
+
+	@Override
+	public OjAlgoStoreMatrix maxPerColumn() {
+		Primitive64Store out = Primitive64Store.FACTORY.make(1, cols());
+		int[] argMax = argMaxPerColumn();
+		for (int j = 0; j < argMax.length; j++) {
+			out.data[j] = argMax[j] < 0 ? -Double.MAX_VALUE
+				: this.delegate.data[j * rows() + argMax[j]];
+		}
+		return new OjAlgoStoreMatrix(out);
+	}
+
+	@Override
+	public int[] argMaxPerColumn() {
+		double[] data = this.delegate.data;
+		int rows = rows();
+		int[] argMax = new int[cols()];
+		for (int j = 0; j < argMax.length; j++) {
+			int offset = j * rows;
+			double max = -Double.MAX_VALUE;
+			argMax[j] = -1;
+			for (int i = 0; i < rows; i++) {
+				if (data[offset + i] > max) {
+					max = data[offset + i];
+					argMax[j] = i;
+				}
+			}
+		}
+		return argMax;
+	}
+
+	// this = this op in, element wise
+	private OjAlgoStoreMatrix modifyMatching(PrimitiveFunction.Binary op,
+		Matrix<Primitive64Store> in) {
+		if (in.rows() != rows() || in.cols() != cols()) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		this.delegate.modifyMatching(op, in.delegate());
+		return this;
+	}
+
+	// out = left * right, out must not be one of the operands
+	private static Primitive64Store fillByMultiplying(Primitive64Store out, Primitive64Store left,
+		Primitive64Store right) {
+		if (left.countColumns() != right.countRows() || out.countRows() != left.countRows()
+			|| out.countColumns() != right.countColumns()) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		out.fillByMultiplying(left, right);
+		return out;
+	}
+}
@@ -0,0 +1,145 @@
+package math.linearalgebra.quantized;
+
+import utilities.exceptions.MatrixException;
+
+/**
+ * Symmetric int8 quantization of a matrix with one scale per row: element (i, j) stands for
+ * {@code data[i * N + j] * scale[i]}, where the scale maps the largest magnitude of the row to
+ * 127. A weight takes a byte instead of the eight of a double.
+ * <p>
+ * Activations are quantized per example, i.e. per column of the input, so they are kept
+ * transposed with an example per row and {@link #timesTransposeInto(Int8Matrix, int[])} computes
+ * the layer product as row by row int8 dot products accumulated in int32. The accumulators cannot
+ * overflow for rows shorter than 2^31 / 127^2, about 133 000 elements.
+ */
+public class Int8Matrix {
+
+	private static final int LEVELS = 127;
+
+	private final int M; // number of rows
+	private final int N; // number of columns
+	private final byte[] data; // row-major quantized elements
+	private final double[] scale; // value of one step, per row
+
+	private Int8Matrix(int M, int N, byte[] data, double[] scale) {
+		this.M = M;
+		this.N = N;
+		this.data = data;
+		this.scale = scale;
+	}
+
+	// quantize every row of vals with its own scale
+	public static Int8Matrix quantizeRows(double[][] vals) {
+		int M = vals.length;
+		int N = vals[0].length;
+		byte[] data = new byte[M * N];
+		double[] scale = new double[M];
+		for (int i = 0; i < M; i++) {
+			scale[i] = quantize(vals[i], data, i * N);
+		}
+		return new Int8Matrix(M, N, data, scale);
+	}
+
+	// quantize every column of vals with its own scale, stored transposed as the rows
+	public static Int8Matrix quantizeColumns(double[][] vals) {
+		int M = vals.length;
+		int N = vals[0].length;
+		byte[] data = new byte[M * N];
+		double[] scale = new double[N];
+		double[] column = new double[M];
+		for (int j = 0; j < N; j++) {
+			for (int i = 0; i < M; i++) {
+				column[i] = vals[i][j];
+			}
+			scale[j] = quantize(column, data, j * M);
+		}
+		return new Int8Matrix(N, M, data, scale);
+	}
+
+	// writes round(row / s) to data[offset...] and returns s, 0 for a row of zeros
+	private static double quantize(double[] row, byte[] data, int offset) {
+		double max = 0;
+		for (double v : row) {
+			max = Math.max(max, Math.abs(v));
+		}
+		if (max == 0) {
+			return 0;
+		}
+		double s = max / LEVELS;
+		for (int j = 0; j < row.length; j++) {
+			long q = Math.round(row[j] / s);
+			data[offset + j] = (byte) Math.max(-LEVELS, Math.min(LEVELS, q));
+		}
+		return s;
+	}
+
+	// C = A * B^T in int32, row-major M-by-B.M, one int8 dot product per element
+	public int[] timesTransposeInto(Int8Matrix B, int[] C) {
+		Int8Matrix A = this;
+		if (A.N != B.N || C.length != A.M * B.M) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		final int n = A.N;
+		for (int i = 0; i < A.M; i++) {
+			int a = i * n;
+			for (int j = 0; j < B.M; j++) {
+				int b = j * n;
+				int sum = 0;
+				for (int k = 0; k < n; k++) {
+					sum += A.data[a + k] * B.data[b + k];
+				}
+				C[i * B.M + j] = sum;
+			}
+		}
+		return C;
+	}
+
+	/**
+	 * Dequantized layer product, {@code out[i][j] = (A * B^T)[i][j] * scale_A[i] * scale_B[j] +
+	 * bias[i]}, for the quantized weights A and the quantized, transposed activations B.
+	 *
+	 * @param B    activations, one example per row
+	 * @param bias added to every row, may be null
+	 *
+	 * @return M-by-B.M product in double precision
+	 */
+	public double[][] timesTransposeDequantized(Int8Matrix B, double[] bias) {
+		int[] acc = timesTransposeInto(B, new int[M * B.M]);
+		double[][] out = new double[M][B.M];
+		for (int i = 0; i < M; i++) {
+			double b = bias == null ? 0 : bias[i];
+			for (int j = 0; j < B.M; j++) {
+				out[i][j] = acc[i * B.M + j] * scale[i] * B.scale[j] + b;
+			}
+		}
+		return out;
+	}
+
+	// return the approximation of the original matrix
+	public double[][] dequantize() {
+		double[][] out = new double[M][N];
+		for (int i = 0; i < M; i++) {
+			for (int j = 0; j < N; j++) {
+				out[i][j] = data[i * N + j] * scale[i];
+			}
+		}
+		return out;
+	}
+
+	public int rows() {
+		return M;
+	}
+
+	public int cols() {
+		return N;
+	}
+
+	public double scale(int row) {
+		return scale[row];
+	}
+
+	// bytes of the quantized elements and the scales
+	public long bytes() {
+		return data.length + (long) scale.length * Double.BYTES;
+	}
+}
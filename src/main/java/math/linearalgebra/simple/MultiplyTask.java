@@ -0,0 +1,65 @@
+package math.linearalgebra.simple;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes a rectangular tile of C = A * B, splitting the tile in half along its longest side
+ * until it is small enough to hand to the sequential kernels in {@link SMatrix}. Every leaf writes
+ * a disjoint region of C so no synchronisation is needed.
+ */
+class MultiplyTask extends RecursiveAction {
+
+	private static final long serialVersionUID = 1L;
+
+	// Below this many multiply-adds a tile is not worth another fork.
+	private static final long MIN_TASK_WORK = 1L << 15;
+
+	private final SMatrix a;
+	private final SMatrix b;
+	private final SMatrix c;
+	private final int rowFrom;
+	private final int rowTo;
+	private final int colFrom;
+	private final int colTo;
+
+	MultiplyTask(SMatrix a, SMatrix b, SMatrix c) {
+		this(a, b, c, 0, a.rows(), 0, b.cols());
+	}
+
+	private MultiplyTask(SMatrix a, SMatrix b, SMatrix c, int rowFrom, int rowTo, int colFrom,
+		int colTo) {
+		this.a = a;
+		this.b = b;
+		this.c = c;
+		this.rowFrom = rowFrom;
+		this.rowTo = rowTo;
+		this.colFrom = colFrom;
+		this.colTo = colTo;
+	}
+
+	@Override
+	protected void compute() {
+		int rows = rowTo - rowFrom;
+		int cols = colTo - colFrom;
+		long work = (long) rows * cols * a.cols();
+
+		if (work <= MIN_TASK_WORK || Math.max(rows, cols) <= SMatrix.BLOCK_SIZE) {
+			if (b.cols() == 1) {
+				SMatrix.gemv(a, b, c, rowFrom, rowTo);
+			} else {
+				SMatrix.gemm(a, b, c, rowFrom, rowTo, colFrom, colTo);
+			}
+			return;
+		}
+
+		if (rows >= cols) {
+			int mid = rowFrom + rows / 2;
+			invokeAll(new MultiplyTask(a, b, c, rowFrom, mid, colFrom, colTo),
+				new MultiplyTask(a, b, c, mid, rowTo, colFrom, colTo));
+		} else {
+			int mid = colFrom + cols / 2;
+			invokeAll(new MultiplyTask(a, b, c, rowFrom, rowTo, colFrom, mid),
+				new MultiplyTask(a, b, c, rowFrom, rowTo, mid, colTo));
+		}
+	}
+}
@@ -1,51 +1,82 @@
 package math.linearalgebra.simple;
 
+import java.nio.DoubleBuffer;
 import java.util.Arrays;
-import java.util.function.BiFunction;
-import java.util.function.Function;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import math.linearalgebra.Elementwise;
+import math.linearalgebra.Reductions;
+import math.linearalgebra.sparse.CSRMatrix;
+import utilities.compute.ComputeExecutor;
 import utilities.exceptions.MatrixException;
 
+/**
+ * Dense row-major matrix backed by a single contiguous {@code double[]}.
+ * <p>
+ * Element (i, j) lives at {@code offset + i * stride + j}. For matrices created by the public
+ * constructors offset is zero and stride equals the column count, the stride metadata is kept so
+ * that kernels can be pointed at a sub-block of a larger array.
+ */
 public class SMatrix {
 
+	// Tile edge for the blocked kernels. 64 doubles is 512 bytes, so one tile of each operand fits
+	// comfortably in L1/L2 for the layer sizes used by the networks.
+	static final int BLOCK_SIZE = 64;
+
+	// Products with fewer multiply-adds than this stay on the calling thread, so tiny layers (XOR,
+	// DQN) do not pay for task creation.
+	private static volatile long parallelThreshold = 1L << 18;
+	// used unless the calling thread works for a bound executor, null for the shared one
+	private static volatile ComputeExecutor executor;
+
 	private final int M; // number of rows
 	private final int N; // number of columns
-	private final double[][] data; // M-by-N array
+	private final int offset; // index of element (0, 0)
+	private final int stride; // distance between two consecutive rows
+	private final double[] data; // row-major storage
 
 	// create M-by-N matrix of 0's
 	public SMatrix(int M, int N) {
-		this.M = M;
-		this.N = N;
-		data = new double[M][N];
+		this(new double[M * N], M, N, 0, N);
 	}
 
 	// create matrix based on 2d array
 	public SMatrix(double[][] vals) {
-		M = vals.length;
-		N = vals[0].length;
-		this.data = new double[M][N];
+		this(vals.length, vals[0].length);
 		for (int i = 0; i < M; i++) {
-			for (int j = 0; j < N; j++) {
-				this.data[i][j] = vals[i][j];
-			}
+			System.arraycopy(vals[i], 0, this.data, i * N, N);
 		}
 	}
 
+	// create column vector based on 1d array
 	public SMatrix(double[] ds) {
-		this.M = ds.length;
-		this.N = 1;
-		this.data = new double[M][N];
-		for (int i = 0; i < M; i++) {
-			this.data[i][0] = ds[i];
+		this(ds.length, 1);
+		System.arraycopy(ds, 0, this.data, 0, M);
+	}
+
+	SMatrix(double[] data, int M, int N, int offset, int stride) {
+		this.M = M;
+		this.N = N;
+		this.offset = offset;
+		this.stride = stride;
+		this.data = data;
+	}
+
+	// M-by-N matrix on the row-major array data, sharing it: no copy is made
+	public static SMatrix wrap(double[] data, int M, int N) {
+		if (data.length != M * N) {
+			throw new RuntimeException("Illegal matrix dimensions.");
 		}
+		return new SMatrix(data, M, N, 0, N);
 	}
 
 	// create and return a random M-by-N matrix with values between 0 and 1
 	public static SMatrix random(int M, int N) {
 		SMatrix A = new SMatrix(M, N);
-		for (int i = 0; i < M; i++) {
-			for (int j = 0; j < N; j++) {
-				A.data[i][j] = Math.random();
-			}
+		for (int i = 0; i < A.data.length; i++) {
+			A.data[i] = Math.random();
 		}
 		return A;
 	}
@@ -54,17 +85,71 @@ public class SMatrix {
 	public static SMatrix identity(int N) {
 		SMatrix I = new SMatrix(N, N);
 		for (int i = 0; i < N; i++) {
-			I.data[i][i] = 1;
+			I.data[I.index(i, i)] = 1;
 		}
 		return I;
 	}
 
-	// create and return the transpose of the invoking matrix
+	/**
+	 * Sets the pool that large products are split across.
+	 *
+	 * @param forkJoinPool pool to run {@link MultiplyTask}s on
+	 */
+	public static void setPool(ForkJoinPool forkJoinPool) {
+		executor = ComputeExecutor.of(forkJoinPool);
+	}
+
+	/**
+	 * Sets the executor that large products are split across, null for the shared one. Products
+	 * stay on the calling thread if it is sequential. The executor bound to the calling thread, e.g.
+	 * the one of the network training on it, takes precedence (see {@link
+	 * ComputeExecutor#bound()}).
+	 *
+	 * @param computeExecutor executor to run {@link MultiplyTask}s on
+	 */
+	public static void setExecutor(ComputeExecutor computeExecutor) {
+		executor = computeExecutor;
+	}
+
+	private static ComputeExecutor executor() {
+		return ComputeExecutor.resolve(executor);
+	}
+
+	private static boolean parallel(long work) {
+		return work >= parallelThreshold && !executor().isSequential();
+	}
+
+	/**
+	 * Sets the number of multiply-adds from which {@link #times(SMatrix)} runs in parallel.
+	 *
+	 * @param threshold work size, Long.MAX_VALUE disables the parallel kernel
+	 */
+	public static void setParallelThreshold(long threshold) {
+		parallelThreshold = threshold;
+	}
+
+	public static long getParallelThreshold() {
+		return parallelThreshold;
+	}
+
+	private int index(int i, int j) {
+		return offset + i * stride + j;
+	}
+
+	// create and return the transpose of the invoking matrix, tile by tile so that both the reads
+	// and the writes stay within a few cache lines
 	public SMatrix transpose() {
 		SMatrix A = new SMatrix(N, M);
-		for (int i = 0; i < M; i++) {
-			for (int j = 0; j < N; j++) {
-				A.data[j][i] = this.data[i][j];
+		for (int ii = 0; ii < M; ii += BLOCK_SIZE) {
+			int iMax = Math.min(ii + BLOCK_SIZE, M);
+			for (int jj = 0; jj < N; jj += BLOCK_SIZE) {
+				int jMax = Math.min(jj + BLOCK_SIZE, N);
+				for (int i = ii; i < iMax; i++) {
+					int row = index(i, 0);
+					for (int j = jj; j < jMax; j++) {
+						A.data[j * M + i] = this.data[row + j];
+					}
+				}
 			}
 		}
 		return A;
@@ -72,32 +157,12 @@ public class SMatrix {
 
 	// return C = A + B
 	public SMatrix plus(SMatrix B) {
-		SMatrix A = this;
-		if (B.M != A.M || B.N != A.N) {
-			throw new RuntimeException("Illegal matrix dimensions.");
-		}
-		SMatrix C = new SMatrix(M, N);
-		for (int i = 0; i < M; i++) {
-			for (int j = 0; j < N; j++) {
-				C.data[i][j] = A.data[i][j] + B.data[i][j];
-			}
-		}
-		return C;
+		return applyOperator((a, b) -> a + b, B);
 	}
 
 	// return C = A - B
 	public SMatrix minus(SMatrix B) {
-		SMatrix A = this;
-		if (B.M != A.M || B.N != A.N) {
-			throw new RuntimeException("Illegal matrix dimensions.");
-		}
-		SMatrix C = new SMatrix(M, N);
-		for (int i = 0; i < M; i++) {
-			for (int j = 0; j < N; j++) {
-				C.data[i][j] = A.data[i][j] - B.data[i][j];
-			}
-		}
-		return C;
+		return applyOperator((a, b) -> a - b, B);
 	}
 
 	// does A = B exactly?
@@ -109,8 +174,10 @@ public class SMatrix {
 			throw new RuntimeException("Illegal matrix dimensions.");
 		}
 		for (int i = 0; i < M; i++) {
+			int a = A.index(i, 0);
+			int b = B.index(i, 0);
 			for (int j = 0; j < N; j++) {
-				if (A.data[i][j] != B.data[i][j]) {
+				if (A.data[a + j] != B.data[b + j]) {
 					return false;
 				}
 			}
@@ -120,7 +187,7 @@ public class SMatrix {
 
 	@Override
 	public String toString() {
-		return Arrays.deepToString(this.data);
+		return Arrays.deepToString(this.rawCopy());
 	}
 
 	// return C = A * B
@@ -130,29 +197,308 @@ public class SMatrix {
 			throw new RuntimeException("Illegal matrix dimensions.");
 		}
 		SMatrix C = new SMatrix(A.M, B.N);
-		for (int i = 0; i < C.M; i++) {
-			for (int j = 0; j < C.N; j++) {
-				for (int k = 0; k < A.N; k++) {
-					C.data[i][j] += (A.data[i][k] * B.data[k][j]);
+		if (parallel((long) A.M * A.N * B.N)) {
+			executor().invoke(new MultiplyTask(A, B, C));
+		} else if (B.N == 1) {
+			gemv(A, B, C, 0, A.M);
+		} else {
+			gemm(A, B, C, 0, A.M, 0, B.N);
+		}
+		return C;
+	}
+
+	// return f(A * B + C), C added and f applied as each element of the product is stored instead
+	// of in separate passes, Z (may be null) receives A * B + C
+	public SMatrix timesPlusMap(SMatrix B, SMatrix C, DoubleUnaryOperator f, SMatrix Z) {
+		SMatrix A = this;
+		if (A.N != B.M || C.M != A.M || C.N != B.N
+			|| Z != null && (Z.M != C.M || Z.N != C.N)) {
+			throw new RuntimeException("Illegal matrix dimensions.");
+		}
+		SMatrix out = new SMatrix(A.M, B.N);
+		if (B.N == 1 && !parallel((long) A.M * A.N)) {
+			final int n = A.N;
+			for (int i = 0; i < A.M; i++) {
+				int a = A.index(i, 0);
+				int x = B.offset;
+				double sum = 0;
+				for (int k = 0; k < n; k++) {
+					sum += A.data[a + k] * B.data[x];
+					x += B.stride;
+				}
+				sum += C.data[C.index(i, 0)];
+				if (Z != null) {
+					Z.data[Z.index(i, 0)] = sum;
+				}
+				out.data[i] = f.applyAsDouble(sum);
+			}
+			return out;
+		}
+
+		// the tiled and parallel products revisit every element of C, so the epilogue runs once
+		// after them
+		timesInto(B, out);
+		return out.plusMapEquals(C, f, Z);
+	}
+
+	// A = f(A + C) in place, Z (may be null) receives A + C
+	public SMatrix plusMapEquals(SMatrix C, DoubleUnaryOperator f, SMatrix Z) {
+		SMatrix A = this;
+		if (C.M != A.M || C.N != A.N || Z != null && (Z.M != A.M || Z.N != A.N)) {
+			throw new RuntimeException("Illegal matrix dimensions.");
+		}
+		for (int i = 0; i < A.M; i++) {
+			int a = A.index(i, 0);
+			int c = C.index(i, 0);
+			int z = Z == null ? 0 : Z.index(i, 0);
+			for (int j = 0; j < A.N; j++) {
+				double sum = A.data[a + j] + C.data[c + j];
+				if (Z != null) {
+					Z.data[z + j] = sum;
+				}
+				A.data[a + j] = f.applyAsDouble(sum);
+			}
+		}
+		return A;
+	}
+
+	// return C = A^T * B without forming A^T
+	public SMatrix transposeTimes(SMatrix B) {
+		return transposeTimesInto(B, new SMatrix(N, B.N));
+	}
+
+	// C = A^T * B written into an existing matrix, C must not share storage with A or B
+	public SMatrix transposeTimesInto(SMatrix B, SMatrix C) {
+		SMatrix A = this;
+		if (A.M != B.M || C.M != A.N || C.N != B.N) {
+			throw new RuntimeException("Illegal matrix dimensions.");
+		}
+		C.fill(0);
+		// k-i-j: row k of A scales row k of B into every row of C, all rows read contiguously
+		for (int k = 0; k < A.M; k++) {
+			int a = A.index(k, 0);
+			int b = B.index(k, 0);
+			for (int i = 0; i < A.N; i++) {
+				double aki = A.data[a + i];
+				int c = C.index(i, 0);
+				for (int j = 0; j < B.N; j++) {
+					C.data[c + j] += aki * B.data[b + j];
 				}
 			}
 		}
 		return C;
 	}
 
-	public SMatrix times(double val) {
+	// return C = A * B^T without forming B^T
+	public SMatrix timesTranspose(SMatrix B) {
+		return timesTransposeInto(B, new SMatrix(M, B.M));
+	}
+
+	// C = A * B^T written into an existing matrix, C must not share storage with A or B
+	public SMatrix timesTransposeInto(SMatrix B, SMatrix C) {
 		SMatrix A = this;
-		SMatrix C = new SMatrix(A.M, A.N);
-		for (int i = 0; i < C.M; i++) {
-			for (int j = 0; j < C.N; j++) {
-				for (int k = 0; k < A.N; k++) {
-					C.data[i][j] = (A.data[i][k] * val);
+		if (A.N != B.N || C.M != A.M || C.N != B.M) {
+			throw new RuntimeException("Illegal matrix dimensions.");
+		}
+		// every element is a dot product of two rows, tiled over the rows of B so a tile of B
+		// stays in cache while all rows of A pass over it
+		final int n = A.N;
+		for (int jj = 0; jj < B.M; jj += BLOCK_SIZE) {
+			int jMax = Math.min(jj + BLOCK_SIZE, B.M);
+			for (int i = 0; i < A.M; i++) {
+				int a = A.index(i, 0);
+				int c = C.index(i, 0);
+				for (int j = jj; j < jMax; j++) {
+					int b = B.index(j, 0);
+					double sum = 0;
+					for (int k = 0; k < n; k++) {
+						sum += A.data[a + k] * B.data[b + k];
+					}
+					C.data[c + j] = sum;
 				}
 			}
 		}
 		return C;
 	}
 
+	/**
+	 * C[rows, 0] = A[rows, :] * b for a column vector b, one dot product per row of A.
+	 */
+	static void gemv(SMatrix A, SMatrix b, SMatrix C, int rowFrom, int rowTo) {
+		final int n = A.N;
+		for (int i = rowFrom; i < rowTo; i++) {
+			int a = A.index(i, 0);
+			int x = b.offset;
+			double sum = 0;
+			for (int k = 0; k < n; k++) {
+				sum += A.data[a + k] * b.data[x];
+				x += b.stride;
+			}
+			C.data[C.index(i, 0)] = sum;
+		}
+	}
+
+	/**
+	 * C[rows, cols] += A[rows, :] * B[:, cols], tiled in all three dimensions with an i-k-j inner
+	 * order so that the innermost loop streams contiguous rows of both B and C.
+	 */
+	static void gemm(SMatrix A, SMatrix B, SMatrix C, int rowFrom, int rowTo, int colFrom,
+		int colTo) {
+		final int n = A.N;
+		for (int ii = rowFrom; ii < rowTo; ii += BLOCK_SIZE) {
+			int iMax = Math.min(ii + BLOCK_SIZE, rowTo);
+			for (int kk = 0; kk < n; kk += BLOCK_SIZE) {
+				int kMax = Math.min(kk + BLOCK_SIZE, n);
+				for (int jj = colFrom; jj < colTo; jj += BLOCK_SIZE) {
+					int jMax = Math.min(jj + BLOCK_SIZE, colTo);
+					for (int i = ii; i < iMax; i++) {
+						int a = A.index(i, 0);
+						int c = C.index(i, 0);
+						for (int k = kk; k < kMax; k++) {
+							double aik = A.data[a + k];
+							int b = B.index(k, 0);
+							for (int j = jj; j < jMax; j++) {
+								C.data[c + j] += aik * B.data[b + j];
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	// C = A * B written into an existing matrix, C must not share storage with A or B
+	public SMatrix timesInto(SMatrix B, SMatrix C) {
+		SMatrix A = this;
+		if (A.N != B.M || C.M != A.M || C.N != B.N) {
+			throw new RuntimeException("Illegal matrix dimensions.");
+		}
+		if (parallel((long) A.M * A.N * B.N)) {
+			return timesParallelInto(B, C);
+		}
+		return timesBlockedInto(B, C);
+	}
+
+	// C = A * B with the textbook loop, one dot product per element and no tiling, which has the
+	// least overhead for products of a few elements
+	public SMatrix timesNaiveInto(SMatrix B, SMatrix C) {
+		SMatrix A = this;
+		if (A.N != B.M || C.M != A.M || C.N != B.N) {
+			throw new RuntimeException("Illegal matrix dimensions.");
+		}
+		final int n = A.N;
+		for (int i = 0; i < A.M; i++) {
+			int a = A.index(i, 0);
+			int c = C.index(i, 0);
+			for (int j = 0; j < B.N; j++) {
+				int b = B.index(0, j);
+				double sum = 0;
+				for (int k = 0; k < n; k++) {
+					sum += A.data[a + k] * B.data[b];
+					b += B.stride;
+				}
+				C.data[c + j] = sum;
+			}
+		}
+		return C;
+	}
+
+	// C = A * B on the calling thread with the tiled kernels, whatever the size
+	public SMatrix timesBlockedInto(SMatrix B, SMatrix C) {
+		SMatrix A = this;
+		if (A.N != B.M || C.M != A.M || C.N != B.N) {
+			throw new RuntimeException("Illegal matrix dimensions.");
+		}
+		if (B.N == 1) {
+			gemv(A, B, C, 0, A.M);
+		} else {
+			C.fill(0);
+			gemm(A, B, C, 0, A.M, 0, B.N);
+		}
+		return C;
+	}
+
+	// C = A * B split across the executor, whatever the size, unless it is sequential
+	public SMatrix timesParallelInto(SMatrix B, SMatrix C) {
+		SMatrix A = this;
+		if (A.N != B.M || C.M != A.M || C.N != B.N) {
+			throw new RuntimeException("Illegal matrix dimensions.");
+		}
+		C.fill(0);
+		ComputeExecutor out = executor();
+		if (out.isSequential()) {
+			gemm(A, B, C, 0, A.M, 0, B.N);
+		} else {
+			out.invoke(new MultiplyTask(A, B, C));
+		}
+		return C;
+	}
+
+	// return C = A * B for a sparse B, only the columns of A matching stored rows of B are read
+	public SMatrix timesSparse(CSRMatrix B) {
+		return timesSparseInto(B, new SMatrix(M, B.cols()));
+	}
+
+	// C = A * B for a sparse B written into an existing matrix
+	public SMatrix timesSparseInto(CSRMatrix B, SMatrix C) {
+		SMatrix A = this;
+		if (A.N != B.rows() || C.M != A.M || C.N != B.cols()) {
+			throw new RuntimeException("Illegal matrix dimensions.");
+		}
+		int[] rowPointers = B.rowPointers();
+		int[] columns = B.columns();
+		double[] values = B.values();
+		int[] stored = new int[B.rows()];
+		int count = 0;
+		for (int k = 0; k < B.rows(); k++) {
+			if (rowPointers[k] != rowPointers[k + 1]) {
+				stored[count++] = k;
+			}
+		}
+
+		C.fill(0);
+		for (int i = 0; i < A.M; i++) {
+			int a = A.index(i, 0);
+			int c = C.index(i, 0);
+			for (int s = 0; s < count; s++) {
+				int k = stored[s];
+				double aik = A.data[a + k];
+				for (int p = rowPointers[k]; p < rowPointers[k + 1]; p++) {
+					C.data[c + columns[p]] += aik * values[p];
+				}
+			}
+		}
+		return C;
+	}
+
+	// C = A * B^T for a sparse B written into an existing matrix, every element is a dot product
+	// of a row of A with the stored elements of a row of B
+	public SMatrix timesSparseTransposeInto(CSRMatrix B, SMatrix C) {
+		SMatrix A = this;
+		if (A.N != B.cols() || C.M != A.M || C.N != B.rows()) {
+			throw new RuntimeException("Illegal matrix dimensions.");
+		}
+		int[] rowPointers = B.rowPointers();
+		int[] columns = B.columns();
+		double[] values = B.values();
+		for (int i = 0; i < A.M; i++) {
+			int a = A.index(i, 0);
+			int c = C.index(i, 0);
+			for (int j = 0; j < B.rows(); j++) {
+				double sum = 0;
+				for (int p = rowPointers[j]; p < rowPointers[j + 1]; p++) {
+					sum += A.data[a + columns[p]] * values[p];
+				}
+				C.data[c + j] = sum;
+			}
+		}
+		return C;
+	}
+
+	public SMatrix times(double val) {
+		return applyOperator(e -> e * val);
+	}
+
 	public int rows() {
 		return this.M;
 	}
@@ -161,14 +507,22 @@ public class SMatrix {
 		return applyOperator((a, b) -> a * b, B);
 	}
 
-	private SMatrix applyOperator(BiFunction<Double, Double, Double> in, SMatrix B) {
+	private SMatrix applyOperator(DoubleBinaryOperator in, SMatrix B) {
 		SMatrix A = this;
+		if (B.M != A.M || B.N != A.N) {
+			throw new RuntimeException("Illegal matrix dimensions.");
+		}
 		SMatrix out = new SMatrix(A.M, A.N);
-		for (int i = 0; i < out.M; i++) {
-			for (int j = 0; j < out.N; j++) {
-				out.data[i][j] = in.apply(A.data[i][j], B.data[i][j]);
+		Elementwise.forEach(out.M, out.N, (from, to) -> {
+			for (int i = from; i < to; i++) {
+				int a = A.index(i, 0);
+				int b = B.index(i, 0);
+				int o = out.index(i, 0);
+				for (int j = 0; j < out.N; j++) {
+					out.data[o + j] = in.applyAsDouble(A.data[a + j], B.data[b + j]);
+				}
 			}
-		}
+		});
 		return out;
 	}
 
@@ -176,17 +530,105 @@ public class SMatrix {
 		return applyOperator(e -> e + in);
 	}
 
-	private SMatrix applyOperator(Function<Double, Double> in) {
+	private SMatrix applyOperator(DoubleUnaryOperator in) {
 		SMatrix A = this;
 		SMatrix out = new SMatrix(A.M, A.N);
-		for (int i = 0; i < out.M; i++) {
-			for (int j = 0; j < out.N; j++) {
-				out.data[i][j] = in.apply(A.data[i][j]);
+		Elementwise.forEach(out.M, out.N, (from, to) -> {
+			for (int i = from; i < to; i++) {
+				int a = A.index(i, 0);
+				int o = out.index(i, 0);
+				for (int j = 0; j < out.N; j++) {
+					out.data[o + j] = in.applyAsDouble(A.data[a + j]);
+				}
 			}
-		}
+		});
 		return out;
 	}
 
+	// A = A op B, element wise and in place
+	private SMatrix applyOperatorInPlace(DoubleBinaryOperator in, SMatrix B) {
+		SMatrix A = this;
+		if (B.M != A.M || B.N != A.N) {
+			throw new RuntimeException("Illegal matrix dimensions.");
+		}
+		Elementwise.forEach(A.M, A.N, (from, to) -> {
+			for (int i = from; i < to; i++) {
+				int a = A.index(i, 0);
+				int b = B.index(i, 0);
+				for (int j = 0; j < A.N; j++) {
+					A.data[a + j] = in.applyAsDouble(A.data[a + j], B.data[b + j]);
+				}
+			}
+		});
+		return A;
+	}
+
+	// A = f(A), element wise and in place
+	private SMatrix applyOperatorInPlace(DoubleUnaryOperator in) {
+		Elementwise.forEach(M, N, (from, to) -> {
+			for (int i = from; i < to; i++) {
+				int row = index(i, 0);
+				for (int j = 0; j < N; j++) {
+					data[row + j] = in.applyAsDouble(data[row + j]);
+				}
+			}
+		});
+		return this;
+	}
+
+	// A += B
+	public SMatrix plusEquals(SMatrix B) {
+		return applyOperatorInPlace((a, b) -> a + b, B);
+	}
+
+	// A -= B
+	public SMatrix minusEquals(SMatrix B) {
+		return applyOperatorInPlace((a, b) -> a - b, B);
+	}
+
+	// A .*= B
+	public SMatrix hadamardEquals(SMatrix B) {
+		return applyOperatorInPlace((a, b) -> a * b, B);
+	}
+
+	// A ./= B
+	public SMatrix divideEquals(SMatrix B) {
+		return applyOperatorInPlace((a, b) -> a / b, B);
+	}
+
+	// A *= val
+	public SMatrix timesEquals(double val) {
+		return applyOperatorInPlace(e -> e * val);
+	}
+
+	// return C = f(A), element wise
+	public SMatrix map(DoubleUnaryOperator in) {
+		return applyOperator(in);
+	}
+
+	// A = f(A)
+	public SMatrix mapEquals(DoubleUnaryOperator in) {
+		return applyOperatorInPlace(in);
+	}
+
+	// return C = f(A, B), element wise
+	public SMatrix zip(SMatrix B, DoubleBinaryOperator in) {
+		return applyOperator(in, B);
+	}
+
+	// A = f(A, B)
+	public SMatrix zipEquals(SMatrix B, DoubleBinaryOperator in) {
+		return applyOperatorInPlace(in, B);
+	}
+
+	public SMatrix fill(double val) {
+		for (int i = 0; i < M; i++) {
+			int row = index(i, 0);
+			Arrays.fill(data, row, row + N, val);
+		}
+		return this;
+	}
+
 	public SMatrix minus(double in) {
 		return applyOperator(e -> e - in);
 	}
@@ -195,60 +637,53 @@ public class SMatrix {
 		return applyOperator(e -> e / in);
 	}
 
+	// index of the largest element in the first column
 	public int argMax() {
-		double max = -Double.MAX_VALUE;
-		int argMax = -1;
-		for (int i = 0; i < this.M; i++) {
-			if (data[i][0] > max) {
-				max = data[i][0];
-				argMax = i;
-			}
-		}
-		return argMax;
+		return Reductions.argMax(data, offset, M, stride);
 	}
 
 	public SMatrix divide(SMatrix delegate) {
-		SMatrix A = this;
-		if (delegate.M != A.M || delegate.N != A.N) {
-			throw new RuntimeException("Illegal matrix dimensions.");
-		}
-		SMatrix C = new SMatrix(M, N);
-		for (int i = 0; i < M; i++) {
-			for (int j = 0; j < N; j++) {
-				C.data[i][j] = A.data[i][j] / delegate.data[i][j];
-			}
-		}
-		return C;
+		return applyOperator((a, b) -> a / b, delegate);
 	}
 
 	public SMatrix maxVector() {
-		double[][] values = new double[M][1];
-		double max = this.max();
-		for (int i = 0; i < M; i++) {
-			values[i][0] = max;
-		}
-		return new SMatrix(values);
+		SMatrix out = new SMatrix(M, 1);
+		Arrays.fill(out.data, this.max());
+		return out;
 	}
 
+	// The reductions below run over the whole array range at once when the rows are contiguous,
+	// and row by row for a view with a wider stride.
+
 	public double max() {
+		if (contiguous()) {
+			return Reductions.max(data, offset, offset + M * N);
+		}
 		double max = -Double.MAX_VALUE;
-		for (int i = 0; i < this.M; i++) {
-			for (int j = 0; j < this.N; j++) {
-				if (data[i][j] > max) {
-					max = data[i][j];
-				}
-			}
+		for (int i = 0; i < M; i++) {
+			int row = index(i, 0);
+			max = Math.max(max, Reductions.max(data, row, row + N));
 		}
 		return max;
 	}
 
+	public double min() {
+		if (contiguous()) {
+			return Reductions.min(data, offset, offset + M * N);
+		}
+		double min = Double.MAX_VALUE;
+		for (int i = 0; i < M; i++) {
+			int row = index(i, 0);
+			min = Math.min(min, Reductions.min(data, row, row + N));
+		}
+		return min;
+	}
+
 	public double norm() {
 		if (this.cols() != 1) {
 			throw new MatrixException("Not a vector.");
 		}
-
-		SMatrix squared = applyOperator(e -> e * e);
-		return Math.sqrt(squared.sum());
+		return Math.sqrt(sumOfSquares());
 	}
 
 	public int cols() {
@@ -256,23 +691,204 @@ public class SMatrix {
 	}
 
 	public double sum() {
+		if (contiguous()) {
+			return Reductions.sum(data, offset, offset + M * N);
+		}
 		double sum = 0;
-		for (int i = 0; i < this.M; i++) {
-			for (int j = 0; j < this.N; j++) {
-				sum += data[i][j];
-			}
+		for (int i = 0; i < M; i++) {
+			int row = index(i, 0);
+			sum += Reductions.sum(data, row, row + N);
 		}
 		return sum;
 	}
 
-	public double[][] rawCopy() {
-		if (data == null) {
-			return null;
+	public double sumOfSquares() {
+		if (contiguous()) {
+			return Reductions.sumOfSquares(data, offset, offset + M * N);
+		}
+		double sum = 0;
+		for (int i = 0; i < M; i++) {
+			int row = index(i, 0);
+			sum += Reductions.sumOfSquares(data, row, row + N);
+		}
+		return sum;
+	}
+
+	// sum of A[i][j] * B[i][j]
+	public double dot(SMatrix B) {
+		SMatrix A = this;
+		if (B.M != A.M || B.N != A.N) {
+			throw new RuntimeException("Illegal matrix dimensions.");
+		}
+		if (A.contiguous() && B.contiguous()) {
+			return Reductions.dot(A.data, A.offset, B.data, B.offset, M * N);
 		}
-		double[][] result = new double[data.length][];
-		for (int r = 0; r < data.length; r++) {
-			result[r] = data[r].clone();
+		double sum = 0;
+		for (int i = 0; i < M; i++) {
+			sum += Reductions.dot(A.data, A.index(i, 0), B.data, B.index(i, 0), N);
+		}
+		return sum;
+	}
+
+	// the M * N elements are one run of the array, true for everything but column slices
+	private boolean contiguous() {
+		return stride == N || M <= 1;
+	}
+
+	// the row-major storage if it holds exactly this matrix, null for views. Exposed so kernels of
+	// other libraries can wrap it without a copy, writes go straight into the matrix.
+	public double[] storage() {
+		return offset == 0 && stride == N && data.length == M * N ? data : null;
+	}
+
+	public SMatrix copy() {
+		SMatrix out = new SMatrix(M, N);
+		for (int i = 0; i < M; i++) {
+			System.arraycopy(data, index(i, 0), out.data, i * N, N);
+		}
+		return out;
+	}
+
+	// view of columns [from, to), sharing storage with this matrix
+	public SMatrix sliceColumns(int from, int to) {
+		if (from < 0 || to > N || from > to) {
+			throw new RuntimeException("Illegal matrix dimensions.");
+		}
+		return new SMatrix(data, M, to - from, offset + from, stride);
+	}
+
+	// view of rows [from, to), sharing storage with this matrix
+	public SMatrix sliceRows(int from, int to) {
+		if (from < 0 || to > M || from > to) {
+			throw new RuntimeException("Illegal matrix dimensions.");
+		}
+		return new SMatrix(data, to - from, N, offset + from * stride, stride);
+	}
+
+	// return [A_0 A_1 ...], the blocks side by side
+	public static SMatrix stackColumns(List<SMatrix> blocks) {
+		if (blocks.isEmpty()) {
+			throw new RuntimeException("Illegal matrix dimensions.");
+		}
+		int M = blocks.get(0).M;
+		int N = 0;
+		for (SMatrix B : blocks) {
+			if (B.M != M) {
+				throw new RuntimeException("Illegal matrix dimensions.");
+			}
+			N += B.N;
+		}
+		SMatrix out = new SMatrix(M, N);
+		int col = 0;
+		for (SMatrix B : blocks) {
+			for (int i = 0; i < M; i++) {
+				int b = B.index(i, 0);
+				int o = i * N + col;
+				for (int j = 0; j < B.N; j++) {
+					out.data[o + j] = B.data[b + j];
+				}
+			}
+			col += B.N;
+		}
+		return out;
+	}
+
+	// return C = A + b, the column vector b added to every column of A
+	public SMatrix plusColumn(SMatrix b) {
+		return copy().plusColumnEquals(b);
+	}
+
+	// A[:, j] += b for every column j
+	public SMatrix plusColumnEquals(SMatrix b) {
+		if (b.M != M || b.N != 1) {
+			throw new RuntimeException("Illegal matrix dimensions.");
+		}
+		for (int i = 0; i < M; i++) {
+			double bi = b.data[b.index(i, 0)];
+			int row = index(i, 0);
+			for (int j = 0; j < N; j++) {
+				data[row + j] += bi;
+			}
+		}
+		return this;
+	}
+
+	// return the M-by-1 vector of row sums
+	public SMatrix sumRows() {
+		SMatrix out = new SMatrix(M, 1);
+		for (int i = 0; i < M; i++) {
+			int row = index(i, 0);
+			double sum = 0;
+			for (int j = 0; j < N; j++) {
+				sum += data[row + j];
+			}
+			out.data[i] = sum;
+		}
+		return out;
+	}
+
+	// return the 1-by-N vector of column maxima, read row by row to stay contiguous
+	public SMatrix maxPerColumn() {
+		SMatrix out = new SMatrix(1, N);
+		Arrays.fill(out.data, -Double.MAX_VALUE);
+		for (int i = 0; i < M; i++) {
+			int row = index(i, 0);
+			for (int j = 0; j < N; j++) {
+				if (data[row + j] > out.data[j]) {
+					out.data[j] = data[row + j];
+				}
+			}
+		}
+		return out;
+	}
+
+	// row index of the max of every column
+	public int[] argMaxPerColumn() {
+		double[] max = new double[N];
+		int[] argMax = new int[N];
+		Arrays.fill(max, -Double.MAX_VALUE);
+		Arrays.fill(argMax, -1);
+		for (int i = 0; i < M; i++) {
+			int row = index(i, 0);
+			for (int j = 0; j < N; j++) {
+				if (data[row + j] > max[j]) {
+					max[j] = data[row + j];
+					argMax[j] = i;
+				}
+			}
+		}
+		return argMax;
+	}
+
+	public double[][] rawCopy() {
+		double[][] result = new double[M][];
+		for (int r = 0; r < M; r++) {
+			int row = index(r, 0);
+			result[r] = Arrays.copyOfRange(data, row, row + N);
 		}
 		return result;
 	}
+
+	// writes the elements row by row, in one bulk copy unless this is a view
+	public void writeTo(DoubleBuffer out) {
+		if (stride == N) {
+			out.put(data, offset, M * N);
+			return;
+		}
+		for (int i = 0; i < M; i++) {
+			out.put(data, index(i, 0), N);
+		}
+	}
+
+	// overwrites the elements row by row
+	public SMatrix readFrom(DoubleBuffer in) {
+		if (stride == N) {
+			in.get(data, offset, M * N);
+			return this;
+		}
+		for (int i = 0; i < M; i++) {
+			in.get(data, index(i, 0), N);
+		}
+		return this;
+	}
 }
@@ -1,8 +1,14 @@
 package math.linearalgebra.simple;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
 import java.util.function.Function;
 import math.linearalgebra.Matrix;
-import utilities.MathUtilities;
+import math.linearalgebra.MatrixIO;
+import math.linearalgebra.sparse.SparseMatrix;
 import utilities.exceptions.MatrixException;
 
 public class SimpleMatrix implements Matrix<SMatrix> {
@@ -18,7 +24,7 @@ public class SimpleMatrix implements Matrix<SMatrix> {
 	}
 
 	public SimpleMatrix(SimpleMatrix out) {
-		this.delegate = out.delegate;
+		this.delegate = out.delegate.copy();
 	}
 
 	public SimpleMatrix(double[] ds) {
@@ -66,8 +72,25 @@ public class SimpleMatrix implements Matrix<SMatrix> {
 	}
 
 	@Override
-	public SimpleMatrix mapElements(Function<Double, Double> mapping) {
-		return new SimpleMatrix(MathUtilities.simpleMap(mapping, this.rawCopy()));
+	public SimpleMatrix mapValues(DoubleUnaryOperator mapping) {
+		return new SimpleMatrix(this.delegate.map(mapping));
+	}
+
+	@Override
+	public SimpleMatrix mapValuesInPlace(DoubleUnaryOperator mapping) {
+		this.delegate.mapEquals(mapping);
+		return this;
+	}
+
+	@Override
+	public SimpleMatrix zipWith(Matrix<SMatrix> other, DoubleBinaryOperator mapping) {
+		return new SimpleMatrix(this.delegate.zip(other.delegate(), mapping));
+	}
+
+	@Override
+	public SimpleMatrix zipWithInPlace(Matrix<SMatrix> other, DoubleBinaryOperator mapping) {
+		this.delegate.zipEquals(other.delegate(), mapping);
+		return this;
 	}
 
 	@Override
@@ -144,6 +167,24 @@ public class SimpleMatrix implements Matrix<SMatrix> {
 		return this.delegate.norm();
 	}
 
+	@Override
+	public double sumOfSquares() {
+		return this.delegate.sumOfSquares();
+	}
+
+	@Override
+	public double min() {
+		return this.delegate.min();
+	}
+
+	@Override
+	public double dot(Matrix<SMatrix> other) {
+		if (other instanceof SparseMatrix) {
+			return other.dot(this);
+		}
+		return this.delegate.dot(other.delegate());
+	}
+
 	@Override
 	public String name() {
 		return "SimpleMatrix";
@@ -154,6 +195,17 @@ public class SimpleMatrix implements Matrix<SMatrix> {
 		return this.delegate.rawCopy();
 	}
 
+	@Override
+	public void writeTo(ByteBuffer buffer) {
+		this.delegate.writeTo(MatrixIO.write(buffer, rows(), cols(), false));
+	}
+
+	@Override
+	public SimpleMatrix readFrom(ByteBuffer buffer) {
+		this.delegate.readFrom(MatrixIO.read(buffer, rows(), cols(), false));
+		return this;
+	}
+
 	@Override
 	public int rows() {
 		return delegate.rows();
@@ -166,12 +218,145 @@ public class SimpleMatrix implements Matrix<SMatrix> {
 
 	@Override
 	public SimpleMatrix multiply(Matrix<SMatrix> otherMatrix) {
+		if (otherMatrix instanceof SparseMatrix) {
+			return new SimpleMatrix(this.delegate.timesSparse(((SparseMatrix<?>) otherMatrix).csr()));
+		}
 		return new SimpleMatrix(this.delegate.times(otherMatrix.delegate()));
 	}
 
+	@Override
+	public SimpleMatrix multiplyAddMap(Matrix<SMatrix> in, Matrix<SMatrix> bias,
+		DoubleUnaryOperator activation, Matrix<SMatrix> preActivation) {
+		if (in instanceof SparseMatrix) {
+			return (SimpleMatrix) Matrix.super.multiplyAddMap(in, bias, activation, preActivation);
+		}
+		return new SimpleMatrix(this.delegate.timesPlusMap(in.delegate(), bias.delegate(), activation,
+			preActivation == null ? null : preActivation.delegate()));
+	}
+
+	@Override
+	public SimpleMatrix multiplyTransposeLeft(Matrix<SMatrix> otherMatrix) {
+		return new SimpleMatrix(this.delegate.transposeTimes(otherMatrix.delegate()));
+	}
+
+	@Override
+	public Matrix<SMatrix> multiplyTransposeLeftInto(Matrix<SMatrix> otherMatrix,
+		Matrix<SMatrix> destination) {
+		this.delegate.transposeTimesInto(otherMatrix.delegate(), destination.delegate());
+		return destination;
+	}
+
+	@Override
+	public SimpleMatrix multiplyTransposeRight(Matrix<SMatrix> otherMatrix) {
+		return new SimpleMatrix(this.delegate.timesTranspose(otherMatrix.delegate()));
+	}
+
+	@Override
+	public Matrix<SMatrix> multiplyTransposeRightInto(Matrix<SMatrix> otherMatrix,
+		Matrix<SMatrix> destination) {
+		if (otherMatrix instanceof SparseMatrix) {
+			this.delegate.timesSparseTransposeInto(((SparseMatrix<?>) otherMatrix).csr(),
+				destination.delegate());
+			return destination;
+		}
+		this.delegate.timesTransposeInto(otherMatrix.delegate(), destination.delegate());
+		return destination;
+	}
+
 	@Override
 	public Matrix<SMatrix> copy() {
-		return new SimpleMatrix(this.delegate.rawCopy());
+		return new SimpleMatrix(this.delegate.copy());
+	}
+
+	@Override
+	public SimpleMatrix addInPlace(Matrix<SMatrix> in) {
+		this.delegate.plusEquals(in.delegate());
+		return this;
+	}
+
+	@Override
+	public SimpleMatrix subtractInPlace(Matrix<SMatrix> in) {
+		this.delegate.minusEquals(in.delegate());
+		return this;
+	}
+
+	@Override
+	public SimpleMatrix hadamardInPlace(Matrix<SMatrix> in) {
+		this.delegate.hadamardEquals(in.delegate());
+		return this;
+	}
+
+	@Override
+	public SimpleMatrix divideInPlace(Matrix<SMatrix> in) {
+		this.delegate.divideEquals(in.delegate());
+		return this;
+	}
+
+	@Override
+	public SimpleMatrix scaleInPlace(double scalar) {
+		this.delegate.timesEquals(scalar);
+		return this;
+	}
+
+	@Override
+	public SimpleMatrix fill(double value) {
+		this.delegate.fill(value);
+		return this;
+	}
+
+	@Override
+	public Matrix<SMatrix> multiplyInto(Matrix<SMatrix> otherMatrix, Matrix<SMatrix> destination) {
+		if (otherMatrix instanceof SparseMatrix) {
+			this.delegate.timesSparseInto(((SparseMatrix<?>) otherMatrix).csr(), destination.delegate());
+			return destination;
+		}
+		this.delegate.timesInto(otherMatrix.delegate(), destination.delegate());
+		return destination;
+	}
+
+	@Override
+	public SimpleMatrix sliceColumns(int from, int to) {
+		return new SimpleMatrix(this.delegate.sliceColumns(from, to));
+	}
+
+	@Override
+	public SimpleMatrix sliceRows(int from, int to) {
+		return new SimpleMatrix(this.delegate.sliceRows(from, to));
+	}
+
+	@Override
+	public SimpleMatrix stackColumns(List<? extends Matrix<SMatrix>> columns) {
+		List<SMatrix> blocks = new ArrayList<>(columns.size());
+		for (Matrix<SMatrix> column : columns) {
+			blocks.add(column.delegate());
+		}
+		return new SimpleMatrix(SMatrix.stackColumns(blocks));
+	}
+
+	@Override
+	public SimpleMatrix broadcastAdd(Matrix<SMatrix> column) {
+		return new SimpleMatrix(this.delegate.plusColumn(column.delegate()));
+	}
+
+	@Override
+	public SimpleMatrix broadcastAddInPlace(Matrix<SMatrix> column) {
+		this.delegate.plusColumnEquals(column.delegate());
+		return this;
+	}
+
+	@Override
+	public SimpleMatrix sumRows() {
+		return new SimpleMatrix(this.delegate.sumRows());
+	}
+
+	@Override
+	public SimpleMatrix maxPerColumn() {
+		return new SimpleMatrix(this.delegate.maxPerColumn());
+	}
+
+	@Override
+	public int[] argMaxPerColumn() {
+		return this.delegate.argMaxPerColumn();
 	}
 
 	@Override
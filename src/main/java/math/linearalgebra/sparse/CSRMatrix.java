@@ -0,0 +1,408 @@
+package math.linearalgebra.sparse;
+
+import java.util.Arrays;
+import java.util.List;
+import math.linearalgebra.Reductions;
+import math.linearalgebra.bridge.FlatStorage;
+import utilities.exceptions.MatrixException;
+
+/**
+ * Immutable sparse matrix in compressed sparse row form.
+ * <p>
+ * The non zero elements of row i are {@code values[rowPointers[i]]} up to (excluding) {@code
+ * values[rowPointers[i + 1]]}, with their column indices in the same positions of {@code columns}
+ * in increasing order. The arrays are exposed for the dense kernels and must not be modified.
+ */
+public class CSRMatrix {
+
+	private final int M; // number of rows
+	private final int N; // number of columns
+	private final int[] rowPointers; // M + 1 offsets into columns and values
+	private final int[] columns; // column index of every stored element
+	private final double[] values; // stored elements, row by row
+
+	// create sparse matrix from the non zero elements of a 2d array
+	public CSRMatrix(double[][] vals) {
+		this(compress(vals));
+	}
+
+	// create sparse column vector from the non zero elements of a 1d array
+	public CSRMatrix(double[] ds) {
+		this(compressColumn(ds));
+	}
+
+	CSRMatrix(int M, int N, int[] rowPointers, int[] columns, double[] values) {
+		this.M = M;
+		this.N = N;
+		this.rowPointers = rowPointers;
+		this.columns = columns;
+		this.values = values;
+	}
+
+	private CSRMatrix(CSRMatrix other) {
+		this(other.M, other.N, other.rowPointers, other.columns, other.values);
+	}
+
+	private static CSRMatrix compress(double[][] vals) {
+		int M = vals.length;
+		int N = M == 0 ? 0 : vals[0].length;
+		int nonZeros = 0;
+		for (double[] row : vals) {
+			for (double v : row) {
+				if (v != 0) {
+					nonZeros++;
+				}
+			}
+		}
+		int[] rowPointers = new int[M + 1];
+		int[] columns = new int[nonZeros];
+		double[] values = new double[nonZeros];
+		int p = 0;
+		for (int i = 0; i < M; i++) {
+			for (int j = 0; j < N; j++) {
+				if (vals[i][j] != 0) {
+					columns[p] = j;
+					values[p++] = vals[i][j];
+				}
+			}
+			rowPointers[i + 1] = p;
+		}
+		return new CSRMatrix(M, N, rowPointers, columns, values);
+	}
+
+	private static CSRMatrix compressColumn(double[] ds) {
+		int nonZeros = 0;
+		for (double v : ds) {
+			if (v != 0) {
+				nonZeros++;
+			}
+		}
+		int[] rowPointers = new int[ds.length + 1];
+		double[] values = new double[nonZeros];
+		int p = 0;
+		for (int i = 0; i < ds.length; i++) {
+			if (ds[i] != 0) {
+				values[p++] = ds[i];
+			}
+			rowPointers[i + 1] = p;
+		}
+		return new CSRMatrix(ds.length, 1, rowPointers, new int[nonZeros], values);
+	}
+
+	public int rows() {
+		return M;
+	}
+
+	public int cols() {
+		return N;
+	}
+
+	public int nonZeros() {
+		return rowPointers[M];
+	}
+
+	public int[] rowPointers() {
+		return rowPointers;
+	}
+
+	public int[] columns() {
+		return columns;
+	}
+
+	public double[] values() {
+		return values;
+	}
+
+	public double get(int i, int j) {
+		int from = rowPointers[i];
+		int to = rowPointers[i + 1];
+		int p = Arrays.binarySearch(columns, from, to, j);
+		return p < 0 ? 0 : values[p];
+	}
+
+	// return A^T, still compressed by rows
+	public CSRMatrix transpose() {
+		int[] rowPointers = new int[N + 1];
+		for (int p = 0; p < nonZeros(); p++) {
+			rowPointers[this.columns[p] + 1]++;
+		}
+		for (int j = 0; j < N; j++) {
+			rowPointers[j + 1] += rowPointers[j];
+		}
+		int[] next = Arrays.copyOf(rowPointers, N);
+		int[] columns = new int[nonZeros()];
+		double[] values = new double[nonZeros()];
+		// rows of A are visited in order, so every row of A^T gets increasing column indices
+		for (int i = 0; i < M; i++) {
+			for (int p = this.rowPointers[i]; p < this.rowPointers[i + 1]; p++) {
+				int q = next[this.columns[p]]++;
+				columns[q] = i;
+				values[q] = this.values[p];
+			}
+		}
+		return new CSRMatrix(N, M, rowPointers, columns, values);
+	}
+
+	// return C = A * B for a dense B, each stored element scales one row of B into C
+	public double[][] times(FlatStorage B) {
+		if (B.rows() != N) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		int P = B.cols();
+		double[] b = B.array();
+		int rowStride = rowStride(B), colStride = colStride(B);
+		double[][] C = new double[M][P];
+		for (int i = 0; i < M; i++) {
+			double[] c = C[i];
+			for (int p = rowPointers[i]; p < rowPointers[i + 1]; p++) {
+				double v = values[p];
+				int row = columns[p] * rowStride;
+				for (int j = 0; j < P; j++) {
+					c[j] += v * b[row + j * colStride];
+				}
+			}
+		}
+		return C;
+	}
+
+	// return C = A^T * B for a dense B without forming A^T, row i of A scatters row i of B
+	public double[][] transposeTimes(FlatStorage B) {
+		if (B.rows() != M) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		int P = B.cols();
+		double[] b = B.array();
+		int rowStride = rowStride(B), colStride = colStride(B);
+		double[][] C = new double[N][P];
+		for (int i = 0; i < M; i++) {
+			int row = i * rowStride;
+			for (int p = rowPointers[i]; p < rowPointers[i + 1]; p++) {
+				double v = values[p];
+				double[] c = C[columns[p]];
+				for (int j = 0; j < P; j++) {
+					c[j] += v * b[row + j * colStride];
+				}
+			}
+		}
+		return C;
+	}
+
+	// return C = A * B^T for a dense B without forming B^T, each stored element scales one column
+	// of B into C, contiguous when B is column major
+	public double[][] timesTranspose(FlatStorage B) {
+		if (B.cols() != N) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		int P = B.rows();
+		double[] b = B.array();
+		int rowStride = rowStride(B), colStride = colStride(B);
+		double[][] C = new double[M][P];
+		for (int i = 0; i < M; i++) {
+			double[] c = C[i];
+			for (int p = rowPointers[i]; p < rowPointers[i + 1]; p++) {
+				double v = values[p];
+				int column = columns[p] * colStride;
+				for (int j = 0; j < P; j++) {
+					c[j] += v * b[column + j * rowStride];
+				}
+			}
+		}
+		return C;
+	}
+
+	// distance between the elements (i, j) and (i + 1, j) of the array of B
+	private static int rowStride(FlatStorage B) {
+		return B.isColumnMajor() ? 1 : B.cols();
+	}
+
+	// distance between the elements (i, j) and (i, j + 1) of the array of B
+	private static int colStride(FlatStorage B) {
+		return B.isColumnMajor() ? B.rows() : 1;
+	}
+
+	// rows [from, to), the stored elements of the range with the row pointers rebased to zero
+	public CSRMatrix sliceRows(int from, int to) {
+		if (from < 0 || to > M || from > to) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		int start = rowPointers[from];
+		int[] rowPointers = new int[to - from + 1];
+		for (int i = 0; i < rowPointers.length; i++) {
+			rowPointers[i] = this.rowPointers[from + i] - start;
+		}
+		int end = this.rowPointers[to];
+		return new CSRMatrix(to - from, N, rowPointers, Arrays.copyOfRange(columns, start, end),
+			Arrays.copyOfRange(values, start, end));
+	}
+
+	// columns [from, to), the stored elements of every row within the range
+	public CSRMatrix sliceColumns(int from, int to) {
+		if (from < 0 || to > N || from > to) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		int[] rowPointers = new int[M + 1];
+		int[] columns = new int[nonZeros()];
+		double[] values = new double[nonZeros()];
+		int q = 0;
+		for (int i = 0; i < M; i++) {
+			for (int p = this.rowPointers[i]; p < this.rowPointers[i + 1]; p++) {
+				if (this.columns[p] >= from && this.columns[p] < to) {
+					columns[q] = this.columns[p] - from;
+					values[q++] = this.values[p];
+				}
+			}
+			rowPointers[i + 1] = q;
+		}
+		return new CSRMatrix(M, to - from, rowPointers, Arrays.copyOf(columns, q),
+			Arrays.copyOf(values, q));
+	}
+
+	// return [A_0 A_1 ...], row i holds the stored elements of row i of every block in turn with
+	// the column indices shifted past the preceding blocks, so no element is densified
+	public static CSRMatrix stackColumns(List<CSRMatrix> blocks) {
+		if (blocks.isEmpty()) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		int M = blocks.get(0).M;
+		int N = 0;
+		int nonZeros = 0;
+		for (CSRMatrix B : blocks) {
+			if (B.M != M) {
+				throw new MatrixException("Illegal matrix dimensions.");
+			}
+			N += B.N;
+			nonZeros += B.nonZeros();
+		}
+		int[] rowPointers = new int[M + 1];
+		int[] columns = new int[nonZeros];
+		double[] values = new double[nonZeros];
+		int q = 0;
+		for (int i = 0; i < M; i++) {
+			int shift = 0;
+			for (CSRMatrix B : blocks) {
+				for (int p = B.rowPointers[i]; p < B.rowPointers[i + 1]; p++) {
+					columns[q] = B.columns[p] + shift;
+					values[q++] = B.values[p];
+				}
+				shift += B.N;
+			}
+			rowPointers[i + 1] = q;
+		}
+		return new CSRMatrix(M, N, rowPointers, columns, values);
+	}
+
+	// return the sum of every row
+	public double[] sumRows() {
+		double[] out = new double[M];
+		for (int i = 0; i < M; i++) {
+			for (int p = rowPointers[i]; p < rowPointers[i + 1]; p++) {
+				out[i] += values[p];
+			}
+		}
+		return out;
+	}
+
+	public double sum() {
+		return Reductions.sum(values, 0, nonZeros());
+	}
+
+	public double max() {
+		// implicit zeros take part as soon as a single element is not stored
+		double max = Reductions.max(values, 0, nonZeros());
+		return nonZeros() < (long) M * N ? Math.max(max, 0) : max;
+	}
+
+	public double min() {
+		double min = Reductions.min(values, 0, nonZeros());
+		return nonZeros() < (long) M * N ? Math.min(min, 0) : min;
+	}
+
+	public double sumOfSquares() {
+		return Reductions.sumOfSquares(values, 0, nonZeros());
+	}
+
+	public double norm() {
+		return Math.sqrt(sumOfSquares());
+	}
+
+	// sum of A[i][j] * B[i][j] over the stored elements of A
+	public double dot(FlatStorage B) {
+		if (B.rows() != M || B.cols() != N) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		double[] b = B.array();
+		int rowStride = rowStride(B), colStride = colStride(B);
+		double sum = 0;
+		for (int i = 0; i < M; i++) {
+			int row = i * rowStride;
+			for (int p = rowPointers[i]; p < rowPointers[i + 1]; p++) {
+				sum += values[p] * b[row + columns[p] * colStride];
+			}
+		}
+		return sum;
+	}
+
+	// sum of A[i][j] * B[i][j] over the elements stored in both, merging the sorted columns of
+	// every row
+	public double dot(CSRMatrix B) {
+		if (B.M != M || B.N != N) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		double sum = 0;
+		for (int i = 0; i < M; i++) {
+			int p = rowPointers[i], pEnd = rowPointers[i + 1];
+			int q = B.rowPointers[i], qEnd = B.rowPointers[i + 1];
+			while (p < pEnd && q < qEnd) {
+				if (columns[p] < B.columns[q]) {
+					p++;
+				} else if (columns[p] > B.columns[q]) {
+					q++;
+				} else {
+					sum += values[p++] * B.values[q++];
+				}
+			}
+		}
+		return sum;
+	}
+
+	public double[][] rawCopy() {
+		double[][] out = new double[M][N];
+		for (int i = 0; i < M; i++) {
+			for (int p = rowPointers[i]; p < rowPointers[i + 1]; p++) {
+				out[i][columns[p]] = values[p];
+			}
+		}
+		return out;
+	}
+
+	public CSRMatrix copy() {
+		// immutable, the arrays can be shared
+		return new CSRMatrix(this);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		CSRMatrix that = (CSRMatrix) o;
+		return M == that.M && N == that.N && Arrays.equals(rowPointers, that.rowPointers)
+			&& Arrays.equals(columns, that.columns) && Arrays.equals(values, that.values);
+	}
+
+	@Override
+	public int hashCode() {
+		int result = 31 * M + N;
+		result = 31 * result + Arrays.hashCode(columns);
+		result = 31 * result + Arrays.hashCode(values);
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.deepToString(this.rawCopy());
+	}
+}
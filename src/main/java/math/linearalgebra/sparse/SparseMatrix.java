@@ -0,0 +1,396 @@
+package math.linearalgebra.sparse;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Function;
+import math.linearalgebra.Matrix;
+import math.linearalgebra.bridge.FlatStorage;
+import utilities.exceptions.MatrixException;
+
+/**
+ * Read only sparse {@link Matrix} for inputs that are mostly zeros, stored as a {@link CSRMatrix}
+ * next to a factory for the dense backend it is used with, e.g.
+ * {@code SparseMatrix.of(pixels, SimpleMatrix::new)}.
+ * <p>
+ * Products and dot products with this matrix on the left are computed from the stored elements,
+ * reading a dense operand in place through its {@link FlatStorage} and a sparse one without
+ * densifying it, as are sums, norms and transposes. Backends that recognise a sparse right hand operand (see {@link
+ * math.linearalgebra.simple.SimpleMatrix}) skip the zero columns of their own products, which is
+ * what makes a sparse input cheap for the first layer of a network. Everything else works on a
+ * dense copy built once through the factory, so {@link #delegate()} is valid for every backend.
+ * The in place operations throw, as they would have to densify the matrix.
+ *
+ * @param <M> the dense backend type
+ */
+public class SparseMatrix<M> implements Matrix<M> {
+
+	private static final String NAME = "SparseMatrix";
+	private final CSRMatrix csr;
+	private final Function<double[][], Matrix<M>> factory;
+	private Matrix<M> dense;
+
+	public SparseMatrix(CSRMatrix csr, Function<double[][], Matrix<M>> factory) {
+		this.csr = csr;
+		this.factory = factory;
+	}
+
+	public static <M> SparseMatrix<M> of(double[] column,
+		Function<double[][], Matrix<M>> factory) {
+		return new SparseMatrix<>(new CSRMatrix(column), factory);
+	}
+
+	public static <M> SparseMatrix<M> of(double[][] values,
+		Function<double[][], Matrix<M>> factory) {
+		return new SparseMatrix<>(new CSRMatrix(values), factory);
+	}
+
+	public static <M> SparseMatrix<M> fromDense(Matrix<M> dense,
+		Function<double[][], Matrix<M>> factory) {
+		return of(dense.rawCopy(), factory);
+	}
+
+	public CSRMatrix csr() {
+		return this.csr;
+	}
+
+	public Matrix<M> toDense() {
+		return factory.apply(csr.rawCopy());
+	}
+
+	// dense copy for the operations without a sparse kernel, built on first use
+	private Matrix<M> dense() {
+		Matrix<M> out = this.dense;
+		if (out == null) {
+			out = toDense();
+			this.dense = out;
+		}
+		return out;
+	}
+
+	private SparseMatrix<M> sparse(CSRMatrix out) {
+		return new SparseMatrix<>(out, factory);
+	}
+
+	private static MatrixException readOnly() {
+		return new MatrixException("Sparse matrices are read only.");
+	}
+
+	@Override
+	public Matrix<M> hadamard(Matrix<M> otherMatrix) {
+		return dense().hadamard(otherMatrix);
+	}
+
+	@Override
+	public Matrix<M> multiply(double scalar) {
+		return dense().multiply(scalar);
+	}
+
+	@Override
+	public Matrix<M> add(Matrix<M> in) {
+		return dense().add(in);
+	}
+
+	@Override
+	public Matrix<M> add(double in) {
+		return dense().add(in);
+	}
+
+	@Override
+	public Matrix<M> subtract(double in) {
+		return dense().subtract(in);
+	}
+
+	@Override
+	public Matrix<M> subtract(Matrix<M> in) {
+		return dense().subtract(in);
+	}
+
+	@Override
+	public Matrix<M> divide(double in) {
+		return dense().divide(in);
+	}
+
+	@Override
+	public double map(Function<Matrix<M>, Double> mapping) {
+		return mapping.apply(this);
+	}
+
+	@Override
+	public Matrix<M> mapValues(DoubleUnaryOperator mapping) {
+		return dense().mapValues(mapping);
+	}
+
+	@Override
+	public Matrix<M> mapValuesInPlace(DoubleUnaryOperator mapping) {
+		throw readOnly();
+	}
+
+	@Override
+	public Matrix<M> zipWith(Matrix<M> other, DoubleBinaryOperator mapping) {
+		return dense().zipWith(other, mapping);
+	}
+
+	@Override
+	public Matrix<M> zipWithInPlace(Matrix<M> other, DoubleBinaryOperator mapping) {
+		throw readOnly();
+	}
+
+	@Override
+	public M delegate() {
+		return dense().delegate();
+	}
+
+	@Override
+	public void setDelegate(M delegate) {
+		throw readOnly();
+	}
+
+	@Override
+	public double sum() {
+		return csr.sum();
+	}
+
+	@Override
+	public double max() {
+		return csr.max();
+	}
+
+	@Override
+	public int argMax() {
+		double max = -Double.MAX_VALUE;
+		int argMax = -1;
+		for (int i = 0; i < rows(); i++) {
+			double value = csr.get(i, 0);
+			if (value > max) {
+				max = value;
+				argMax = i;
+			}
+		}
+		return argMax;
+	}
+
+	@Override
+	public SparseMatrix<M> transpose() {
+		return sparse(csr.transpose());
+	}
+
+	@Override
+	public Matrix<M> divide(Matrix<M> right) {
+		return dense().divide(right);
+	}
+
+	@Override
+	public Matrix<M> maxVector() {
+		return dense().maxVector();
+	}
+
+	@Override
+	public Matrix<M> zeroes(int rows, int cols) {
+		return factory.apply(new double[rows][cols]);
+	}
+
+	@Override
+	public Matrix<M> ones(int rows, int cols) {
+		return zeroes(rows, cols).fill(1);
+	}
+
+	@Override
+	public Matrix<M> identity(int rows, int cols) {
+		return dense().identity(rows, cols);
+	}
+
+	@Override
+	public double norm() throws MatrixException {
+		if (cols() != 1) {
+			throw new MatrixException("Not a vector.");
+		}
+		return csr.norm();
+	}
+
+	@Override
+	public double sumOfSquares() {
+		return csr.sumOfSquares();
+	}
+
+	@Override
+	public double min() {
+		return csr.min();
+	}
+
+	@Override
+	public double dot(Matrix<M> other) {
+		if (other instanceof SparseMatrix) {
+			return csr.dot(((SparseMatrix<M>) other).csr);
+		}
+		return csr.dot(FlatStorage.of(other));
+	}
+
+	@Override
+	public String name() {
+		return NAME;
+	}
+
+	@Override
+	public double[][] rawCopy() {
+		return csr.rawCopy();
+	}
+
+	@Override
+	public SparseMatrix<M> readFrom(ByteBuffer buffer) {
+		throw readOnly();
+	}
+
+	@Override
+	public int rows() {
+		return csr.rows();
+	}
+
+	@Override
+	public int cols() {
+		return csr.cols();
+	}
+
+	@Override
+	public Matrix<M> multiply(Matrix<M> otherMatrix) {
+		return factory.apply(csr.times(FlatStorage.of(otherMatrix)));
+	}
+
+	@Override
+	public Matrix<M> multiplyTransposeLeft(Matrix<M> otherMatrix) {
+		return factory.apply(csr.transposeTimes(FlatStorage.of(otherMatrix)));
+	}
+
+	@Override
+	public Matrix<M> multiplyTransposeRight(Matrix<M> otherMatrix) {
+		return factory.apply(csr.timesTranspose(FlatStorage.of(otherMatrix)));
+	}
+
+	@Override
+	public Matrix<M> multiplyTransposeRightInto(Matrix<M> otherMatrix, Matrix<M> destination) {
+		return destination.zipWithInPlace(multiplyTransposeRight(otherMatrix), (d, p) -> p);
+	}
+
+	@Override
+	public Matrix<M> copy() {
+		return sparse(csr.copy());
+	}
+
+	@Override
+	public Matrix<M> addInPlace(Matrix<M> in) {
+		throw readOnly();
+	}
+
+	@Override
+	public Matrix<M> subtractInPlace(Matrix<M> in) {
+		throw readOnly();
+	}
+
+	@Override
+	public Matrix<M> hadamardInPlace(Matrix<M> in) {
+		throw readOnly();
+	}
+
+	@Override
+	public Matrix<M> divideInPlace(Matrix<M> in) {
+		throw readOnly();
+	}
+
+	@Override
+	public Matrix<M> scaleInPlace(double scalar) {
+		throw readOnly();
+	}
+
+	@Override
+	public Matrix<M> fill(double value) {
+		throw readOnly();
+	}
+
+	@Override
+	public Matrix<M> multiplyInto(Matrix<M> otherMatrix, Matrix<M> destination) {
+		return destination.zipWithInPlace(multiply(otherMatrix), (d, p) -> p);
+	}
+
+	@Override
+	public SparseMatrix<M> sliceColumns(int from, int to) {
+		return sparse(csr.sliceColumns(from, to));
+	}
+
+	@Override
+	public SparseMatrix<M> sliceRows(int from, int to) {
+		return sparse(csr.sliceRows(from, to));
+	}
+
+	/**
+	 * A batch of sparse inputs stays sparse, so the first layer of a network runs the whole batch
+	 * through the sparse kernels. Any dense matrix among the columns makes the result dense.
+	 */
+	@Override
+	public Matrix<M> stackColumns(List<? extends Matrix<M>> columns) {
+		List<CSRMatrix> blocks = new ArrayList<>(columns.size());
+		for (Matrix<M> column : columns) {
+			if (!(column instanceof SparseMatrix)) {
+				return dense().stackColumns(columns);
+			}
+			blocks.add(((SparseMatrix<M>) column).csr);
+		}
+		return sparse(CSRMatrix.stackColumns(blocks));
+	}
+
+	@Override
+	public Matrix<M> broadcastAdd(Matrix<M> column) {
+		return dense().broadcastAdd(column);
+	}
+
+	@Override
+	public Matrix<M> broadcastAddInPlace(Matrix<M> column) {
+		throw readOnly();
+	}
+
+	@Override
+	public Matrix<M> sumRows() {
+		double[] sums = csr.sumRows();
+		double[][] out = new double[sums.length][1];
+		for (int i = 0; i < sums.length; i++) {
+			out[i][0] = sums[i];
+		}
+		return factory.apply(out);
+	}
+
+	@Override
+	public Matrix<M> maxPerColumn() {
+		return dense().maxPerColumn();
+	}
+
+	@Override
+	public int[] argMaxPerColumn() {
+		return dense().argMaxPerColumn();
+	}
+
+	@Override
+	public int hashCode() {
+		return csr.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		SparseMatrix<?> matrix = (SparseMatrix<?>) o;
+		return Objects.equals(csr, matrix.csr);
+	}
+
+	@Override
+	public String toString() {
+		return new StringJoiner(", ", SparseMatrix.class.getSimpleName() + "[", "]")
+			.add("nonZeros=" + csr.nonZeros()).add("rawCopy=" + csr).toString();
+	}
+}
@@ -0,0 +1,38 @@
+package math.linearalgebra.ujmp;
+
+import org.ujmp.core.Matrix;
+import org.ujmp.core.doublematrix.impl.DefaultDenseDoubleMatrix2D;
+import org.ujmp.core.interfaces.HasColumnMajorDoubleArray1D;
+import org.ujmp.core.interfaces.HasRowMajorDoubleArray2D;
+
+/**
+ * Read only view of the storage of a dense UJMP matrix, either the row-major {@code double[][]} or
+ * the column-major {@code double[]} UJMP creates. Other storage is copied once into a column major
+ * array.
+ */
+final class DenseView {
+
+	final int rows;
+	final int cols;
+	private final double[][] rowMajor;
+	private final double[] columnMajor;
+
+	DenseView(Matrix m) {
+		this.rows = (int) m.getRowCount();
+		this.cols = (int) m.getColumnCount();
+		if (m instanceof HasRowMajorDoubleArray2D) {
+			this.rowMajor = ((HasRowMajorDoubleArray2D) m).getRowMajorDoubleArray2D();
+			this.columnMajor = null;
+		} else if (m instanceof HasColumnMajorDoubleArray1D) {
+			this.rowMajor = null;
+			this.columnMajor = ((HasColumnMajorDoubleArray1D) m).getColumnMajorDoubleArray1D();
+		} else {
+			this.rowMajor = null;
+			this.columnMajor = new DefaultDenseDoubleMatrix2D(m).getColumnMajorDoubleArray1D();
+		}
+	}
+
+	double get(int row, int col) {
+		return rowMajor != null ? rowMajor[row][col] : columnMajor[row + col * rows];
+	}
+}
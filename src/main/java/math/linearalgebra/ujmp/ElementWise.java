@@ -0,0 +1,109 @@
+package math.linearalgebra.ujmp;
+
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import org.ujmp.core.Matrix;
+import org.ujmp.core.interfaces.HasColumnMajorDoubleArray1D;
+import org.ujmp.core.interfaces.HasRowMajorDoubleArray2D;
+import utilities.exceptions.MatrixException;
+
+/**
+ * Element wise mappings for UJMP matrices on primitive doubles. getAsDouble/setAsDouble go through
+ * UJMP's generic coordinate handling per element, so the dense layouts are mapped on their backing
+ * arrays and only other storage falls back to the element accessors.
+ */
+final class ElementWise {
+
+	private ElementWise() {
+	}
+
+	// A = f(A)
+	static Matrix mapInPlace(Matrix a, DoubleUnaryOperator f) {
+		if (a instanceof HasColumnMajorDoubleArray1D) {
+			double[] data = ((HasColumnMajorDoubleArray1D) a).getColumnMajorDoubleArray1D();
+			for (int i = 0; i < data.length; i++) {
+				data[i] = f.applyAsDouble(data[i]);
+			}
+		} else if (a instanceof HasRowMajorDoubleArray2D) {
+			for (double[] row : ((HasRowMajorDoubleArray2D) a).getRowMajorDoubleArray2D()) {
+				for (int j = 0; j < row.length; j++) {
+					row[j] = f.applyAsDouble(row[j]);
+				}
+			}
+		} else {
+			for (long i = 0; i < a.getRowCount(); i++) {
+				for (long j = 0; j < a.getColumnCount(); j++) {
+					a.setAsDouble(f.applyAsDouble(a.getAsDouble(i, j)), i, j);
+				}
+			}
+		}
+		return a;
+	}
+
+	// A = f(A, B)
+	static Matrix zipInPlace(Matrix a, Matrix b, DoubleBinaryOperator f) {
+		if (a.getRowCount() != b.getRowCount() || a.getColumnCount() != b.getColumnCount()) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		DenseView B = new DenseView(b);
+		if (a instanceof HasColumnMajorDoubleArray1D) {
+			double[] data = ((HasColumnMajorDoubleArray1D) a).getColumnMajorDoubleArray1D();
+			for (int j = 0; j < B.cols; j++) {
+				int column = j * B.rows;
+				for (int i = 0; i < B.rows; i++) {
+					data[column + i] = f.applyAsDouble(data[column + i], B.get(i, j));
+				}
+			}
+		} else if (a instanceof HasRowMajorDoubleArray2D) {
+			double[][] data = ((HasRowMajorDoubleArray2D) a).getRowMajorDoubleArray2D();
+			for (int i = 0; i < B.rows; i++) {
+				double[] row = data[i];
+				for (int j = 0; j < B.cols; j++) {
+					row[j] = f.applyAsDouble(row[j], B.get(i, j));
+				}
+			}
+		} else {
+			for (int i = 0; i < B.rows; i++) {
+				for (int j = 0; j < B.cols; j++) {
+					a.setAsDouble(f.applyAsDouble(a.getAsDouble(i, j), B.get(i, j)), i, j);
+				}
+			}
+		}
+		return a;
+	}
+
+	// A[:, j] = f(A[:, j], b) for every column j of A and the column vector b
+	static Matrix broadcastInPlace(Matrix a, Matrix b, DoubleBinaryOperator f) {
+		if (a.getRowCount() != b.getRowCount() || b.getColumnCount() != 1) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		DenseView B = new DenseView(b);
+		int cols = (int) a.getColumnCount();
+		if (a instanceof HasColumnMajorDoubleArray1D) {
+			double[] data = ((HasColumnMajorDoubleArray1D) a).getColumnMajorDoubleArray1D();
+			for (int j = 0; j < cols; j++) {
+				int column = j * B.rows;
+				for (int i = 0; i < B.rows; i++) {
+					data[column + i] = f.applyAsDouble(data[column + i], B.get(i, 0));
+				}
+			}
+		} else if (a instanceof HasRowMajorDoubleArray2D) {
+			double[][] data = ((HasRowMajorDoubleArray2D) a).getRowMajorDoubleArray2D();
+			for (int i = 0; i < B.rows; i++) {
+				double bi = B.get(i, 0);
+				double[] row = data[i];
+				for (int j = 0; j < cols; j++) {
+					row[j] = f.applyAsDouble(row[j], bi);
+				}
+			}
+		} else {
+			for (int i = 0; i < B.rows; i++) {
+				double bi = B.get(i, 0);
+				for (int j = 0; j < cols; j++) {
+					a.setAsDouble(f.applyAsDouble(a.getAsDouble(i, j), bi), i, j);
+				}
+			}
+		}
+		return a;
+	}
+}
@@ -0,0 +1,90 @@
+package math.linearalgebra.ujmp;
+
+import org.ujmp.core.Matrix;
+import org.ujmp.core.doublematrix.impl.DefaultDenseDoubleMatrix2D;
+import org.ujmp.core.interfaces.HasColumnMajorDoubleArray1D;
+import org.ujmp.core.interfaces.HasRowMajorDoubleArray2D;
+import utilities.exceptions.MatrixException;
+
+/**
+ * A^T * B and A * B^T for UJMP matrices without building the transpose. UJMP's linked transpose
+ * boxes every element it hands out, so these kernels read the backing arrays of the two dense
+ * layouts UJMP creates (row-major {@code double[][]} and column-major {@code double[]}) instead.
+ */
+final class TransposedProducts {
+
+	private TransposedProducts() {
+	}
+
+	// C = A^T * B
+	static Matrix transposeTimes(Matrix a, Matrix b) {
+		return transposeTimesInto(a, b, new DefaultDenseDoubleMatrix2D((int) a.getColumnCount(),
+			(int) b.getColumnCount()));
+	}
+
+	// C = A^T * B written into an existing matrix
+	static Matrix transposeTimesInto(Matrix a, Matrix b, Matrix c) {
+		DenseView A = new DenseView(a);
+		DenseView B = new DenseView(b);
+		if (A.rows != B.rows || c.getRowCount() != A.cols || c.getColumnCount() != B.cols) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		double[] columnMajor = c instanceof HasColumnMajorDoubleArray1D
+			? ((HasColumnMajorDoubleArray1D) c).getColumnMajorDoubleArray1D() : null;
+		double[][] rowMajor = c instanceof HasRowMajorDoubleArray2D
+			? ((HasRowMajorDoubleArray2D) c).getRowMajorDoubleArray2D() : null;
+
+		for (int j = 0; j < B.cols; j++) {
+			for (int i = 0; i < A.cols; i++) {
+				double sum = 0;
+				for (int k = 0; k < A.rows; k++) {
+					sum += A.get(k, i) * B.get(k, j);
+				}
+				if (columnMajor != null) {
+					columnMajor[i + j * A.cols] = sum;
+				} else if (rowMajor != null) {
+					rowMajor[i][j] = sum;
+				} else {
+					c.setAsDouble(sum, i, j);
+				}
+			}
+		}
+		return c;
+	}
+
+	// C = A * B^T
+	static Matrix timesTranspose(Matrix a, Matrix b) {
+		return timesTransposeInto(a, b, new DefaultDenseDoubleMatrix2D((int) a.getRowCount(),
+			(int) b.getRowCount()));
+	}
+
+	// C = A * B^T written into an existing matrix
+	static Matrix timesTransposeInto(Matrix a, Matrix b, Matrix c) {
+		DenseView A = new DenseView(a);
+		DenseView B = new DenseView(b);
+		if (A.cols != B.cols || c.getRowCount() != A.rows || c.getColumnCount() != B.rows) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		double[] columnMajor = c instanceof HasColumnMajorDoubleArray1D
+			? ((HasColumnMajorDoubleArray1D) c).getColumnMajorDoubleArray1D() : null;
+		double[][] rowMajor = c instanceof HasRowMajorDoubleArray2D
+			? ((HasRowMajorDoubleArray2D) c).getRowMajorDoubleArray2D() : null;
+
+		for (int j = 0; j < B.rows; j++) {
+			for (int i = 0; i < A.rows; i++) {
+				double sum = 0;
+				for (int k = 0; k < A.cols; k++) {
+					sum += A.get(i, k) * B.get(j, k);
+				}
+				if (columnMajor != null) {
+					columnMajor[i + j * A.rows] = sum;
+				} else if (rowMajor != null) {
+					rowMajor[i][j] = sum;
+				} else {
+					c.setAsDouble(sum, i, j);
+				}
+			}
+		}
+		return c;
+	}
+}
@@ -1,15 +1,29 @@
 package math.linearalgebra.ujmp;
 
-import static utilities.MathUtilities.simpleMap;
-
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
 import java.util.Arrays;
+import java.util.List;
 import java.util.StringJoiner;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
 import java.util.function.Function;
 import math.linearalgebra.Matrix;
+import math.linearalgebra.MatrixIO;
+import math.linearalgebra.Reductions;
+import math.linearalgebra.bridge.FlatStorage;
 import org.ujmp.core.calculation.Calculation.Ret;
-import utilities.MathUtilities;
+import org.ujmp.core.calculation.Mtimes;
+import org.ujmp.core.doublematrix.impl.DefaultDenseDoubleMatrix2D;
+import org.ujmp.core.interfaces.HasColumnMajorDoubleArray1D;
 import utilities.exceptions.MatrixException;
 
+/**
+ * UJMP backend. Matrices built here are stored column major in a {@link DefaultDenseDoubleMatrix2D},
+ * the same layout UJMP uses for the results of mtimes, zeros and rand. Mtimes only picks its
+ * multithreaded double[] kernel when all operands share that layout, so mixing in row major
+ * {@code importFromArray} matrices would send every layer product down the generic path.
+ */
 public class UJMPMatrix implements Matrix<org.ujmp.core.Matrix> {
 
 	private static final String NAME = "UJMPMatrix";
@@ -20,21 +34,16 @@ public class UJMPMatrix implements Matrix<org.ujmp.core.Matrix> {
 	}
 
 	public UJMPMatrix(double[] values) {
-		double[][] transpose = new double[values.length][1];
-		int i = 0;
-		for (var d : values) {
-			transpose[i++] = new double[]{d};
-		} // Hack, need to transpose, because UJMP thinks everyone just LOOOVEs row
-		// vectors.
-		this.delegate = org.ujmp.core.Matrix.Factory.importFromArray(transpose);
+		// column major, so the values of a column vector are already in storage order
+		this.delegate = new DefaultDenseDoubleMatrix2D(values.clone(), values.length, 1);
 	}
 
 	public UJMPMatrix(double[][] data) {
-		this.delegate = org.ujmp.core.Matrix.Factory.importFromArray(data);
+		this.delegate = columnMajor(data);
 	}
 
 	public UJMPMatrix(UJMPMatrix out) {
-		this.delegate = out.delegate;
+		this.delegate = out.delegate.clone();
 	}
 
 	@Override
@@ -102,9 +111,28 @@ public class UJMPMatrix implements Matrix<org.ujmp.core.Matrix> {
 	}
 
 	@Override
-	public UJMPMatrix mapElements(Function<Double, Double> mapping) {
+	public UJMPMatrix mapValues(DoubleUnaryOperator mapping) {
+		return new UJMPMatrix(ElementWise.mapInPlace(new DefaultDenseDoubleMatrix2D(this.delegate),
+			mapping));
+	}
+
+	@Override
+	public UJMPMatrix mapValuesInPlace(DoubleUnaryOperator mapping) {
+		ElementWise.mapInPlace(this.delegate, mapping);
+		return this;
+	}
+
+	@Override
+	public UJMPMatrix zipWith(Matrix<org.ujmp.core.Matrix> other, DoubleBinaryOperator mapping) {
+		return new UJMPMatrix(ElementWise.zipInPlace(new DefaultDenseDoubleMatrix2D(this.delegate),
+			other.delegate(), mapping));
+	}
 
-		return new UJMPMatrix(simpleMap(mapping, this.delegate.toDoubleArray()));
+	@Override
+	public UJMPMatrix zipWithInPlace(Matrix<org.ujmp.core.Matrix> other,
+		DoubleBinaryOperator mapping) {
+		ElementWise.zipInPlace(this.delegate, other.delegate(), mapping);
+		return this;
 	}
 
 	@Override
@@ -117,25 +145,100 @@ public class UJMPMatrix implements Matrix<org.ujmp.core.Matrix> {
 		this.delegate = delegate;
 	}
 
+	// column major storage of a dense matrix, null for views and other storage
+	private static double[] storage(org.ujmp.core.Matrix m) {
+		return m instanceof HasColumnMajorDoubleArray1D
+			? ((HasColumnMajorDoubleArray1D) m).getColumnMajorDoubleArray1D() : null;
+	}
+
 	@Override
 	public double sum() {
-		return this.delegate.getValueSum();
+		double[] a = storage(this.delegate);
+		return a != null ? Reductions.sum(a, 0, a.length) : this.delegate.getValueSum();
 	}
 
 	@Override
 	public double max() {
-		return this.delegate.max(org.ujmp.core.calculation.Calculation.Ret.NEW, 0).doubleValue();
+		double[] a = storage(this.delegate);
+		if (a != null) {
+			return Reductions.max(a, 0, a.length);
+		}
+		double max = -Double.MAX_VALUE;
+		for (int j = 0; j < cols(); j++) {
+			for (int i = 0; i < rows(); i++) {
+				max = Math.max(max, this.delegate.getAsDouble(i, j));
+			}
+		}
+		return max;
+	}
+
+	@Override
+	public double min() {
+		double[] a = storage(this.delegate);
+		if (a != null) {
+			return Reductions.min(a, 0, a.length);
+		}
+		double min = Double.MAX_VALUE;
+		for (int j = 0; j < cols(); j++) {
+			for (int i = 0; i < rows(); i++) {
+				min = Math.min(min, this.delegate.getAsDouble(i, j));
+			}
+		}
+		return min;
 	}
 
 	@Override
 	public int argMax() {
-		double[][] array = this.delegate.toDoubleArray();
-		double[] args = new double[array.length];
-		for (int i = 0; i < array.length; i++) {
-			args[i] = array[i][0];
+		double[] a = storage(this.delegate);
+		if (a != null) {
+			return Reductions.argMax(a, 0, rows(), 1);
 		}
-		return MathUtilities.argMax(args);
+		double max = -Double.MAX_VALUE;
+		int argMax = -1;
+		for (int i = 0; i < rows(); i++) {
+			double value = this.delegate.getAsDouble(i, 0);
+			if (value > max) {
+				max = value;
+				argMax = i;
+			}
+		}
+		return argMax;
+	}
 
+	@Override
+	public double sumOfSquares() {
+		double[] a = storage(this.delegate);
+		if (a != null) {
+			return Reductions.sumOfSquares(a, 0, a.length);
+		}
+		double sum = 0;
+		for (int j = 0; j < cols(); j++) {
+			for (int i = 0; i < rows(); i++) {
+				double value = this.delegate.getAsDouble(i, j);
+				sum += value * value;
+			}
+		}
+		return sum;
+	}
+
+	@Override
+	public double dot(Matrix<org.ujmp.core.Matrix> other) {
+		if (other.rows() != rows() || other.cols() != cols()) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		double[] a = storage(this.delegate);
+		double[] b = storage(other.delegate());
+		if (a != null && b != null) {
+			return Reductions.dot(a, 0, b, 0, a.length);
+		}
+		org.ujmp.core.Matrix right = other.delegate();
+		double sum = 0;
+		for (int j = 0; j < cols(); j++) {
+			for (int i = 0; i < rows(); i++) {
+				sum += this.delegate.getAsDouble(i, j) * right.getAsDouble(i, j);
+			}
+		}
+		return sum;
 	}
 
 	@Override
@@ -182,7 +285,7 @@ public class UJMPMatrix implements Matrix<org.ujmp.core.Matrix> {
 			throw new MatrixException("Not a vector.");
 		}
 
-		return this.delegate.times(this.delegate).sqrt(Ret.NEW).getValueSum();
+		return Math.sqrt(sumOfSquares());
 	}
 
 	@Override
@@ -195,6 +298,27 @@ public class UJMPMatrix implements Matrix<org.ujmp.core.Matrix> {
 		return this.delegate.toDoubleArray();
 	}
 
+	// in the order of the storage, column major for the dense matrices of UJMP
+	@Override
+	public void writeTo(ByteBuffer buffer) {
+		FlatStorage storage = FlatStorage.of(this);
+		MatrixIO.write(buffer, rows(), cols(), storage.isColumnMajor()).put(storage.array());
+	}
+
+	@Override
+	public UJMPMatrix readFrom(ByteBuffer buffer) {
+		DoubleBuffer columnMajor = MatrixIO.read(buffer, rows(), cols(), true);
+		if (this.delegate instanceof HasColumnMajorDoubleArray1D) {
+			columnMajor.get(((HasColumnMajorDoubleArray1D) this.delegate)
+				.getColumnMajorDoubleArray1D());
+		} else {
+			double[] storage = new double[rows() * cols()];
+			columnMajor.get(storage);
+			this.delegate = new DefaultDenseDoubleMatrix2D(storage, rows(), cols());
+		}
+		return this;
+	}
+
 	@Override
 	public int rows() {
 		return (int) this.delegate.getRowCount();
@@ -210,8 +334,181 @@ public class UJMPMatrix implements Matrix<org.ujmp.core.Matrix> {
 		return new UJMPMatrix(this.delegate.mtimes(otherMatrix.delegate()));
 	}
 
+	@Override
+	public Matrix<org.ujmp.core.Matrix> multiplyAddMap(Matrix<org.ujmp.core.Matrix> in,
+		Matrix<org.ujmp.core.Matrix> bias, DoubleUnaryOperator activation,
+		Matrix<org.ujmp.core.Matrix> preActivation) {
+		if (preActivation != null) {
+			return Matrix.super.multiplyAddMap(in, bias, activation, preActivation);
+		}
+		// the product is a fresh dense matrix, bias and activation go over it in a single pass
+		org.ujmp.core.Matrix product = this.delegate.mtimes(in.delegate());
+		return new UJMPMatrix(ElementWise.zipInPlace(product, bias.delegate(),
+			(p, b) -> activation.applyAsDouble(p + b)));
+	}
+
+	@Override
+	public UJMPMatrix multiplyTransposeLeft(Matrix<org.ujmp.core.Matrix> otherMatrix) {
+		return new UJMPMatrix(
+			TransposedProducts.transposeTimes(this.delegate, otherMatrix.delegate()));
+	}
+
+	@Override
+	public Matrix<org.ujmp.core.Matrix> multiplyTransposeLeftInto(
+		Matrix<org.ujmp.core.Matrix> otherMatrix, Matrix<org.ujmp.core.Matrix> destination) {
+		TransposedProducts
+			.transposeTimesInto(this.delegate, otherMatrix.delegate(), destination.delegate());
+		return destination;
+	}
+
+	@Override
+	public UJMPMatrix multiplyTransposeRight(Matrix<org.ujmp.core.Matrix> otherMatrix) {
+		return new UJMPMatrix(
+			TransposedProducts.timesTranspose(this.delegate, otherMatrix.delegate()));
+	}
+
+	@Override
+	public Matrix<org.ujmp.core.Matrix> multiplyTransposeRightInto(
+		Matrix<org.ujmp.core.Matrix> otherMatrix, Matrix<org.ujmp.core.Matrix> destination) {
+		TransposedProducts
+			.timesTransposeInto(this.delegate, otherMatrix.delegate(), destination.delegate());
+		return destination;
+	}
+
 	@Override
 	public Matrix<org.ujmp.core.Matrix> copy() {
 		return new UJMPMatrix(this.delegate.clone());
 	}
+
+	@Override
+	public UJMPMatrix addInPlace(Matrix<org.ujmp.core.Matrix> in) {
+		this.delegate.plus(Ret.ORIG, false, in.delegate());
+		return this;
+	}
+
+	@Override
+	public UJMPMatrix subtractInPlace(Matrix<org.ujmp.core.Matrix> in) {
+		this.delegate.minus(Ret.ORIG, false, in.delegate());
+		return this;
+	}
+
+	@Override
+	public UJMPMatrix hadamardInPlace(Matrix<org.ujmp.core.Matrix> in) {
+		this.delegate.times(Ret.ORIG, false, in.delegate());
+		return this;
+	}
+
+	@Override
+	public UJMPMatrix divideInPlace(Matrix<org.ujmp.core.Matrix> in) {
+		this.delegate.divide(Ret.ORIG, false, in.delegate());
+		return this;
+	}
+
+	@Override
+	public UJMPMatrix scaleInPlace(double scalar) {
+		this.delegate.times(Ret.ORIG, false, scalar);
+		return this;
+	}
+
+	@Override
+	public UJMPMatrix fill(double value) {
+		ElementWise.mapInPlace(this.delegate, e -> value);
+		return this;
+	}
+
+	@Override
+	public Matrix<org.ujmp.core.Matrix> multiplyInto(Matrix<org.ujmp.core.Matrix> otherMatrix, Matrix<org.ujmp.core.Matrix> destination) {
+		Mtimes.MATRIX.calc(this.delegate, otherMatrix.delegate(), destination.delegate());
+		return destination;
+	}
+
+	// Slices are linked sub matrices, so they share elements with this. They are not dense
+	// column major themselves and take the generic paths of mtimes and ElementWise.
+
+	@Override
+	public UJMPMatrix sliceColumns(int from, int to) {
+		if (from < 0 || to > cols() || from > to) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		return new UJMPMatrix(this.delegate.subMatrix(Ret.LINK, 0, from, rows() - 1, to - 1));
+	}
+
+	@Override
+	public UJMPMatrix sliceRows(int from, int to) {
+		if (from < 0 || to > rows() || from > to) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		return new UJMPMatrix(this.delegate.subMatrix(Ret.LINK, from, 0, to - 1, cols() - 1));
+	}
+
+	@Override
+	public UJMPMatrix stackColumns(List<? extends Matrix<org.ujmp.core.Matrix>> columns) {
+		if (columns.isEmpty()) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		int rows = columns.get(0).rows();
+		int cols = 0;
+		for (Matrix<org.ujmp.core.Matrix> column : columns) {
+			if (column.rows() != rows) {
+				throw new MatrixException("Illegal matrix dimensions.");
+			}
+			cols += column.cols();
+		}
+		// column major, every block is a contiguous run of the result
+		double[] values = new double[rows * cols];
+		int offset = 0;
+		for (Matrix<org.ujmp.core.Matrix> column : columns) {
+			DenseView block = new DenseView(column.delegate());
+			for (int j = 0; j < block.cols; j++) {
+				for (int i = 0; i < rows; i++) {
+					values[offset++] = block.get(i, j);
+				}
+			}
+		}
+		return new UJMPMatrix(new DefaultDenseDoubleMatrix2D(values, rows, cols));
+	}
+
+	@Override
+	public UJMPMatrix broadcastAdd(Matrix<org.ujmp.core.Matrix> column) {
+		return new UJMPMatrix(ElementWise.broadcastInPlace(
+			new DefaultDenseDoubleMatrix2D(this.delegate), column.delegate(), Double::sum));
+	}
+
+	@Override
+	public UJMPMatrix broadcastAddInPlace(Matrix<org.ujmp.core.Matrix> column) {
+		ElementWise.broadcastInPlace(this.delegate, column.delegate(), Double::sum);
+		return this;
+	}
+
+	@Override
+	public UJMPMatrix sumRows() {
+		return new UJMPMatrix(this.delegate.sum(Ret.NEW, org.ujmp.core.Matrix.COLUMN, false));
+	}
+
+	@Override
+	public UJMPMatrix maxPerColumn() {
+		return new UJMPMatrix(this.delegate.max(Ret.NEW, org.ujmp.core.Matrix.ROW));
+	}
+
+	@Override
+	public int[] argMaxPerColumn() {
+		org.ujmp.core.Matrix indices = this.delegate.indexOfMax(Ret.NEW, org.ujmp.core.Matrix.ROW);
+		int[] argMax = new int[cols()];
+		for (int j = 0; j < argMax.length; j++) {
+			argMax[j] = indices.getAsInt(0, j);
+		}
+		return argMax;
+	}
+
+	private static org.ujmp.core.Matrix columnMajor(double[][] data) {
+		int rows = data.length;
+		int cols = rows == 0 ? 0 : data[0].length;
+		double[] values = new double[rows * cols];
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < cols; j++) {
+				values[i + j * rows] = data[i][j];
+			}
+		}
+		return new DefaultDenseDoubleMatrix2D(values, rows, cols);
+	}
 }
@@ -58,31 +58,30 @@ public class ADAM<M> implements Optimizer<M> {
 	}
 
 	private Matrix<M> adamSingleDeltas(int i, Matrix<M> parameters, Matrix<M> deltaForLayer,
-		List<Matrix<M>> M,
-		List<Matrix<M>> N) {
+		List<Matrix<M>> M, List<Matrix<M>> N) {
 
 		int exponent = i + 1;
-		Matrix<M> mHat;
-		Matrix<M> vHat;
-		if (M.get(i) != null && N.get(i) != null) {
-			// m = beta_1 * m + (1 - beta_1) * g
-			// v = beta_2 * v + (1 - beta_2) * np.power(g, 2)
-			Matrix<M> m = M.get(i).multiply(beta1).add(deltaForLayer.multiply((1 - beta1)));
-			Matrix<M> v = N.get(i).multiply(beta2)
-				.add(deltaForLayer.hadamard(deltaForLayer).multiply((1 - beta2)));
-			M.set(i, m);
-			N.set(i, v);
-		} else {
-			M.set(i, deltaForLayer.multiply(1 - beta1));
-			Matrix<M> fix = deltaForLayer.hadamard(deltaForLayer).multiply(1 - beta2);
-			N.set(i, fix);
+		if (M.get(i) == null || N.get(i) == null) {
+			// Zero moments make the first step m = (1 - beta_1) * g, v = (1 - beta_2) * g^2.
+			int rows = deltaForLayer.rows(), cols = deltaForLayer.cols();
+			M.set(i, deltaForLayer.zeroes(rows, cols));
+			N.set(i, deltaForLayer.zeroes(rows, cols));
 		}
-		mHat = M.get(i).divide((1 - Math.pow(beta1, exponent)));
-		vHat = N.get(i).divide((1 - Math.pow(beta2, exponent)));
-		Matrix<M> deNom = vHat.mapElements(Math::sqrt).add(EPSILON);
-		Matrix<M> num = mHat.multiply(this.lR);
-		Matrix<M> adam = num.divide(deNom);
-		return parameters.subtract(adam);
+		Matrix<M> m = M.get(i);
+		Matrix<M> v = N.get(i);
+
+		// v = beta_2 * v + (1 - beta_2) * np.power(g, 2)
+		v.zipWithInPlace(deltaForLayer, (e, g) -> beta2 * e + (1 - beta2) * g * g);
+		// m = beta_1 * m + (1 - beta_1) * g
+		m.zipWithInPlace(deltaForLayer, (e, g) -> beta1 * e + (1 - beta1) * g);
+
+		double mCorrection = 1 - Math.pow(beta1, exponent);
+		double vCorrection = 1 - Math.pow(beta2, exponent);
+
+		// lR * mHat / (sqrt(vHat) + epsilon) in the gradient, which is not needed after this
+		Matrix<M> adam = deltaForLayer.zipWithInPlace(m, (g, e) -> this.lR * e / mCorrection)
+			.zipWithInPlace(v, (step, e) -> step / (Math.sqrt(e / vCorrection) + EPSILON));
+		return parameters.subtractInPlace(adam);
 	}
 
 	@Override
@@ -117,33 +116,7 @@ public class ADAM<M> implements Optimizer<M> {
 		List<Matrix<M>> newOut = new ArrayList<>(inParams.size());
 
 		for (int i = 0; i < inParams.size(); i++) {
-			newOut.add(i, null);
-		}
-
-		for (int i = 0; i < inParams.size(); i++) {
-			int exponent = i + 1;
-			Matrix<M> mHat;
-			Matrix<M> vHat;
-			if (M.get(i) != null && N.get(i) != null) {
-				// m = beta_1 * m + (1 - beta_1) * g
-				// v = beta_2 * v + (1 - beta_2) * np.power(g, 2)
-				Matrix<M> m = M.get(i).multiply(beta1)
-					.add(paramDeltas.get(i).multiply((1 - beta1)));
-				Matrix<M> v = N.get(i).multiply(beta2)
-					.add(paramDeltas.get(i).hadamard(paramDeltas.get(i)).multiply((1 - beta2)));
-				M.set(i, m);
-				N.set(i, v);
-			} else {
-				M.set(i, paramDeltas.get(i).multiply(1 - beta1));
-				Matrix<M> fix = paramDeltas.get(i).hadamard(paramDeltas.get(i)).multiply(1 - beta2);
-				N.set(i, fix);
-			}
-			mHat = M.get(i).divide((1 - Math.pow(beta1, exponent)));
-			vHat = N.get(i).divide((1 - Math.pow(beta2, exponent)));
-			Matrix<M> deNom = vHat.mapElements(Math::sqrt).add(EPSILON);
-			Matrix<M> num = mHat.multiply(this.lR);
-			Matrix<M> adam = num.divide(deNom);
-			newOut.set(i, inParams.get(i).subtract(adam));
+			newOut.add(adamSingleDeltas(i, inParams.get(i), paramDeltas.get(i), M, N));
 		}
 		return newOut;
 	}
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import math.linearalgebra.Matrix;
+import math.linearalgebra.lazy.LazyMatrix;
 
 public class Momentum<M> implements Optimizer<M> {
 
@@ -60,10 +61,12 @@ public class Momentum<M> implements Optimizer<M> {
 		if (lastDeltas.get(i) == null) {
 			lastDeltas.set(i, deltaIns.multiply(this.lR));
 		} else {
-			lastDeltas.set(i, lastDeltas.get(i)).multiply(momentumRate)
-				.add(deltaIns.multiply(this.lR));
+			// v = momentum * v + lR * g, fused into one pass over v and g
+			Matrix<M> velocity = lastDeltas.get(i);
+			LazyMatrix.of(velocity).multiply(momentumRate)
+				.add(LazyMatrix.of(deltaIns).multiply(this.lR)).evaluateInto(velocity);
 		}
-		return in.subtract(lastDeltas.get(i));
+		return in.subtractInPlace(lastDeltas.get(i));
 	}
 
 	@Override
@@ -93,13 +96,7 @@ public class Momentum<M> implements Optimizer<M> {
 		final List<Matrix<M>> lastDeltas) {
 		List<Matrix<M>> newOut = new ArrayList<>();
 		for (int i = 0; i < in.size(); i++) {
-			if (lastDeltas.get(i) == null) {
-				lastDeltas.set(i, deltaIns.get(i).multiply(this.lR));
-			} else {
-				lastDeltas.set(i, lastDeltas.get(i)).multiply(momentumRate)
-					.add(deltaIns.get(i).multiply(this.lR));
-			}
-			newOut.add(i, in.get(i).subtract(lastDeltas.get(i)));
+			newOut.add(i, getMomentumDeltaSingle(i, in.get(i), deltaIns.get(i), lastDeltas));
 		}
 		return newOut;
 	}
@@ -6,14 +6,18 @@ import utilities.serialise.NetworkSerializable;
 
 /**
  * The optimizer for the gradient descent, represents some strategy for the neural network.
+ * <p>
+ * Parameters are updated in place so that a training step does not allocate. The deltas handed
+ * to an optimizer are treated as scratch space and may be overwritten, callers reset them after
+ * every step anyway.
  */
 public interface Optimizer<M> extends NetworkSerializable<String, Double> {
 
 	void init(double... in);
 
 	/**
-	 * Changes the networks weights (immutably, returns a new set of weights) with respect to the
-	 * strategy
+	 * Changes the networks weights (in place, the returned list holds the same matrices) with
+	 * respect to the strategy
 	 *
 	 * @param weights the weights of the network
 	 * @param deltas  the gradients provided by backpropagation and normalisation
@@ -23,8 +27,8 @@ public interface Optimizer<M> extends NetworkSerializable<String, Double> {
 	List<Matrix<M>> changeWeights(List<Matrix<M>> weights, List<Matrix<M>> deltas);
 
 	/**
-	 * Changes the networks biases (immutably, returns a new set of biases) with respect to the
-	 * strategy
+	 * Changes the networks biases (in place, the returned list holds the same matrices) with
+	 * respect to the strategy
 	 *
 	 * @param biases the biases of the network
 	 * @param deltas the gradients provided by backpropagation and normalisation
@@ -33,8 +37,26 @@ public interface Optimizer<M> extends NetworkSerializable<String, Double> {
 	 */
 	List<Matrix<M>> changeBiases(List<Matrix<M>> biases, List<Matrix<M>> deltas);
 
+	/**
+	 * Changes one layer's bias in place.
+	 *
+	 * @param layerIndex index of the layer
+	 * @param bias       the bias, overwritten with the new value
+	 * @param deltaBias  the averaged gradient, may be overwritten
+	 *
+	 * @return bias
+	 */
 	Matrix<M> changeBias(int layerIndex, Matrix<M> bias, Matrix<M> deltaBias);
 
+	/**
+	 * Changes one layer's weight in place.
+	 *
+	 * @param layerIndex  index of the layer
+	 * @param weight      the weight, overwritten with the new value
+	 * @param deltaWeight the averaged gradient, may be overwritten
+	 *
+	 * @return weight
+	 */
 	Matrix<M> changeWeight(int layerIndex, Matrix<M> weight, Matrix<M> deltaWeight);
 
 	/**
@@ -46,4 +68,30 @@ public interface Optimizer<M> extends NetworkSerializable<String, Double> {
 
 	String name();
 
+	/**
+	 * A new optimizer of the kind named by {@link #name()}, without state.
+	 *
+	 * @param params the values of {@link #params()}, none for the defaults
+	 */
+	static <M> Optimizer<M> get(String name, double... params) {
+		Optimizer<M> optimizer;
+		switch (name) {
+			case "Adaptive Moment Estimation":
+				optimizer = new ADAM<>(0.01, 0.9, 0.999);
+				break;
+			case "Stochastic Gradient Descent":
+				optimizer = new StochasticGradientDescent<>(0.01);
+				break;
+			case "Momentum":
+				optimizer = new Momentum<>(0.01, 0.9);
+				break;
+			default:
+				throw new IllegalArgumentException("Unsupported optimizer.");
+		}
+		if (params.length != 0) {
+			optimizer.init(params);
+		}
+		return optimizer;
+	}
+
 }
@@ -44,13 +44,13 @@ public class StochasticGradientDescent<M> implements Optimizer<M> {
 
 	@Override
 	public Matrix<M> changeBias(int index, Matrix<M> bias, Matrix<M> deltaBias) {
-		return bias.subtract(deltaBias.multiply(this.learningRate));
+		return bias.subtractInPlace(deltaBias.scaleInPlace(this.learningRate));
 
 	}
 
 	@Override
 	public Matrix<M> changeWeight(int index, Matrix<M> weight, Matrix<M> deltaWeight) {
-		return weight.subtract(deltaWeight.multiply(this.learningRate));
+		return weight.subtractInPlace(deltaWeight.scaleInPlace(this.learningRate));
 	}
 
 	@Override
@@ -67,8 +67,7 @@ public class StochasticGradientDescent<M> implements Optimizer<M> {
 	private List<Matrix<M>> sgdDelta(final List<Matrix<M>> weights, final List<Matrix<M>> deltas) {
 		List<Matrix<M>> matrixList = new ArrayList<>();
 		for (int i = 0; i < weights.size(); i++) {
-			Matrix<M> newValue = deltas.get(i).multiply(this.learningRate);
-			matrixList.add(i, weights.get(i).subtract(newValue));
+			matrixList.add(i, changeWeight(i, weights.get(i), deltas.get(i)));
 		}
 		return matrixList;
 	}
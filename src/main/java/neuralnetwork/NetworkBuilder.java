@@ -11,6 +11,7 @@ import math.evaluation.EvaluationFunction;
 import math.linearalgebra.Matrix;
 import math.optimizers.Optimizer;
 import neuralnetwork.initialiser.ParameterInitializer;
+import utilities.compute.ComputeExecutor;
 
 public class NetworkBuilder<M> {
 
@@ -28,6 +29,7 @@ public class NetworkBuilder<M> {
     protected List<Matrix<M>> weights;
     protected List<Matrix<M>> biases;
     protected ParameterInitializer<M> initialiser;
+    protected ComputeExecutor executor;
 
     public NetworkBuilder(int[] structure) {
         this.structure = structure;
@@ -79,6 +81,11 @@ public class NetworkBuilder<M> {
         return this;
     }
 
+    public NetworkBuilder<M> setExecutor(final ComputeExecutor e) {
+        this.executor = e;
+        return this;
+    }
+
     public NetworkBuilder<M> setCostFunction(CostFunction<M> k) {
         this.costFunction = k;
         return this;
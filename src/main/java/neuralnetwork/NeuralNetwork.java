@@ -1,5 +1,7 @@
 package neuralnetwork;
 
+import static java.util.stream.Collectors.toList;
+
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -11,11 +13,15 @@ import math.activations.ActivationFunction;
 import math.costfunctions.CostFunction;
 import math.evaluation.EvaluationFunction;
 import math.linearalgebra.Matrix;
+import math.linearalgebra.bridge.Backend;
+import math.linearalgebra.instrumented.InstrumentedMatrix;
 import math.optimizers.Optimizer;
 import neuralnetwork.initialiser.ParameterInitializer;
 import neuralnetwork.inputs.NetworkInput;
+import neuralnetwork.memory.MatrixPool;
 import org.jetbrains.annotations.NotNull;
 import utilities.NetworkUtilities;
+import utilities.compute.ComputeExecutor;
 import utilities.types.Pair;
 
 /**
@@ -46,6 +52,11 @@ public class NeuralNetwork<M> implements DeepLearnable<M> {
 	private transient List<Matrix<M>> dB;
 	private transient List<Matrix<M>> deltaWeights;
 	private transient List<Matrix<M>> deltaBias;
+	// Per example temporaries of the back propagation, returned once the batch is learnt.
+	private final transient MatrixPool<M> pool = new MatrixPool<>();
+	// Runs the examples of a batch, the optimizer steps and their kernels, null for
+	// ComputeExecutor.shared().
+	private transient ComputeExecutor executor;
 
 	public NeuralNetwork(final NetworkBuilder<M> b,
 		final ParameterInitializer<M> parameterSupplier) {
@@ -54,6 +65,7 @@ public class NeuralNetwork<M> implements DeepLearnable<M> {
 		this.functions = b.getActivationFunctions();
 		this.costFunction = b.costFunction;
 		this.evaluationFunction = b.evaluationFunction;
+		this.executor = b.executor;
 		this.totalLayers = b.total - 1;
 
 		// Initialize the optimizer and the parameters.
@@ -76,6 +88,7 @@ public class NeuralNetwork<M> implements DeepLearnable<M> {
 		this.functions = b.getActivationFunctions();
 		this.costFunction = b.costFunction;
 		this.evaluationFunction = b.evaluationFunction;
+		this.executor = b.executor;
 		this.totalLayers = b.total - 1;
 
 		// Initialize the optimizer and the parameters.
@@ -98,6 +111,7 @@ public class NeuralNetwork<M> implements DeepLearnable<M> {
 		this.functions = n.functions;
 		this.costFunction = n.costFunction;
 		this.evaluationFunction = n.evaluationFunction;
+		this.executor = n.executor;
 		this.totalLayers = n.totalLayers;
 		this.initialiser = n.initialiser;
 		this.optimizer = n.optimizer;
@@ -111,6 +125,48 @@ public class NeuralNetwork<M> implements DeepLearnable<M> {
 		this.deltaBias = initialiser.getDeltaBiasParameters();
 	}
 
+	/**
+	 * This network on another backend. The parameters are copied with {@link
+	 * Backend#convert(Matrix)}, so both networks can be trained. The optimizer of the copy has the
+	 * same parameters but starts without state.
+	 *
+	 * @param initialiser of the target backend, provides the gradient buffers
+	 */
+	@SuppressWarnings("unchecked")
+	public <U> NeuralNetwork<U> convert(Backend<U> backend, ParameterInitializer<U> initialiser) {
+		// Activation, cost and evaluation functions only use the Matrix interface, so one instance
+		// serves every backend.
+		NetworkBuilder<U> b = new NetworkBuilder<>(this.sizes.length);
+		b.structure = this.sizes.clone();
+		for (int i = 0; i < this.functions.size(); i++) {
+			b.functionMap
+				.put(i, (ActivationFunction<U>) (ActivationFunction<?>) this.functions.get(i));
+		}
+		b.costFunction = (CostFunction<U>) (CostFunction<?>) this.costFunction;
+		b.evaluationFunction =
+			(EvaluationFunction<U>) (EvaluationFunction<?>) this.evaluationFunction;
+		double[] params = this.optimizer.params().values().stream()
+			.mapToDouble(Double::doubleValue).toArray();
+		b.optimizer = Optimizer.get(this.optimizer.name(), params);
+		b.initialiser = initialiser;
+		b.executor = this.executor;
+		b.weights = backend.convert(this.weights);
+		b.biases = backend.convert(this.biases);
+		return new NeuralNetwork<>(b);
+	}
+
+	public ComputeExecutor getExecutor() {
+		return this.executor != null ? this.executor : ComputeExecutor.shared();
+	}
+
+	public void setExecutor(ComputeExecutor executor) {
+		this.executor = executor;
+	}
+
+	public MatrixPool<M> getPool() {
+		return this.pool;
+	}
+
 	protected List<Matrix<M>> getdB() {
 		return this.dB;
 	}
@@ -149,33 +205,39 @@ public class NeuralNetwork<M> implements DeepLearnable<M> {
 				this.learnFromDeltas();
 			}
 		}
+		reportProfile();
 	}
 
 	/**
 	 * Back-propagates a data set and normalizes the deltas against the size of the batch to be used
-	 * in an optimizer.
+	 * in an optimizer. The examples run in parallel on {@link #getExecutor()}, reading the
+	 * parameters only, and this returns once all of them are accumulated.
 	 */
 	protected void evaluateTrainingExample(final List<NetworkInput<M>> trainingExamples) {
 		final int size = trainingExamples.size();
 		final double inverse = 1d / size;
 
-		for (final var data : trainingExamples) {
+		getExecutor().forEach(trainingExamples, data -> {
 			final BackPropContainer deltas = backPropagate(data);
-			final List<Matrix<M>> deltaW = deltas.getDeltaWeights();
-			final List<Matrix<M>> deltaB = deltas.getDeltaBiases();
-
-			for (int j = 0; j < this.totalLayers; j++) {
-				Matrix<M> newDeltaWeight = this.dW.get(j).add(deltaW.get(j).multiply(inverse));
-				Matrix<M> newDeltaBias = this.dB.get(j).add(deltaB.get(j).multiply(inverse));
-				this.dW.set(j, newDeltaWeight);
-				this.dB.set(j, newDeltaBias);
-			}
+			accumulate(deltas.getDeltaWeights(), deltas.getDeltaBiases(), inverse);
+		});
+	}
+
+	/**
+	 * Adds one example's (pooled) deltas, scaled by inverse, to the batch deltas.
+	 */
+	private synchronized void accumulate(final List<Matrix<M>> deltaW,
+		final List<Matrix<M>> deltaB, final double inverse) {
+		for (int j = 0; j < this.totalLayers; j++) {
+			this.dW.get(j).addInPlace(deltaW.get(j).scaleInPlace(inverse));
+			this.dB.get(j).addInPlace(deltaB.get(j).scaleInPlace(inverse));
 		}
 	}
 
 	private BackPropContainer backPropagate(final NetworkInput<M> in) {
-		var deltaWeights = this.initialiser.getDeltaWeightParameters();
-		var deltaBias = this.initialiser.getDeltaBiasParameters();
+		// Every slot is overwritten below, so there is no need for zeroed matrices.
+		List<Matrix<M>> deltaWeights = new ArrayList<>(Collections.nCopies(totalLayers, null));
+		List<Matrix<M>> deltaBias = new ArrayList<>(Collections.nCopies(totalLayers, null));
 
 		final List<Matrix<M>> activations = this.feedForward(in.getData());
 
@@ -187,13 +249,17 @@ public class NeuralNetwork<M> implements DeepLearnable<M> {
 			final Matrix<M> aCurr = activations.get(k + 1); // this layer
 			final Matrix<M> aNext = activations.get(k); // Previous layer
 
+			// deltaError is not needed afterwards, so it is overwritten
 			final Matrix<M> differentiate = this.functions.get(k + 1)
-				.derivativeOnInput(aCurr, deltaError);
+				.derivativeOnInputInPlace(aCurr, deltaError);
 
+			final Matrix<M> weight = this.weights.get(k);
 			deltaBias.set(k, differentiate);
-			deltaWeights.set(k, differentiate.multiply(aNext.transpose()));
+			deltaWeights.set(k, differentiate.multiplyTransposeRightInto(aNext,
+				this.pool.borrow(weight, differentiate.rows(), aNext.rows())));
 
-			deltaError = this.weights.get(k).transpose().multiply(differentiate);
+			deltaError = weight.multiplyTransposeLeftInto(differentiate,
+				this.pool.borrow(weight, weight.cols(), differentiate.cols()));
 		}
 
 		return new BackPropContainer(deltaWeights, deltaBias);
@@ -210,9 +276,9 @@ public class NeuralNetwork<M> implements DeepLearnable<M> {
 
 		out.add(toPredict);
 		for (int i = 0; i < this.totalLayers; i++) {
-			final Matrix<M> x = this.weights.get(i).multiply(toPredict).add(this.biases.get(i));
-
-			toPredict = this.functions.get(i + 1).function(x);
+			final Matrix<M> weight = this.weights.get(i);
+			toPredict = this.functions.get(i + 1).affineInto(weight, toPredict, this.biases.get(i),
+				this.pool.borrow(weight, weight.rows(), toPredict.cols()));
 			out.add(toPredict);
 		}
 		return out;
@@ -220,13 +286,22 @@ public class NeuralNetwork<M> implements DeepLearnable<M> {
 
 	/**
 	 * Updates weights and biases and resets the batch adjusted deltas.
+	 * <p>
+	 * The optimizers change the parameters and deltas in place, so this runs between batches, once
+	 * {@link #evaluateTrainingExample(List)} has returned and no example reads them.
 	 */
 	private synchronized void learnFromDeltas() {
-		this.weights = this.optimizer.changeWeights(this.weights, this.dW);
-		this.biases = this.optimizer.changeBiases(this.biases, this.dB);
-
-		this.dB = this.initialiser.getDeltaBiasParameters();
-		this.dW = this.initialiser.getDeltaWeightParameters();
+		getExecutor().run(() -> {
+			this.weights = this.optimizer.changeWeights(this.weights, this.dW);
+			this.biases = this.optimizer.changeBiases(this.biases, this.dB);
+		});
+
+		for (int j = 0; j < this.totalLayers; j++) {
+			this.dW.get(j).fill(0);
+			this.dB.get(j).fill(0);
+		}
+		// the batch is complete, so no thread still uses its buffers
+		this.pool.releaseAll();
 	}
 
 	/**
@@ -253,6 +328,7 @@ public class NeuralNetwork<M> implements DeepLearnable<M> {
 				this.learnFromDeltas();
 			}
 		}
+		reportProfile();
 	}
 
 	/**
@@ -292,10 +368,10 @@ public class NeuralNetwork<M> implements DeepLearnable<M> {
 
 			// Calculates a batch of training data and update the deltas.
 			t1 = System.nanoTime();
-			split.parallelStream().forEach(e -> {
+			for (final var e : split) {
 				this.evaluateTrainingExample(e);
 				this.learnFromDeltas();
-			});
+			}
 			t2 = System.nanoTime();
 
 			// Feed forward the validation data
@@ -325,6 +401,14 @@ public class NeuralNetwork<M> implements DeepLearnable<M> {
 			e.printStackTrace();
 		}
 		log.info("Charts outputted.");
+		reportProfile();
+	}
+
+	// Logs the operation counts of instrumented parameters, see InstrumentedMatrix.
+	private void reportProfile() {
+		this.weights.stream().filter(w -> w instanceof InstrumentedMatrix)
+			.map(w -> ((InstrumentedMatrix<M>) w).profile()).distinct()
+			.forEach(p -> log.info("Matrix operations after training:{}", p.report()));
 	}
 
 	private List<NetworkInput<M>> feedForwardData(final List<NetworkInput<M>> test) {
@@ -384,8 +468,9 @@ public class NeuralNetwork<M> implements DeepLearnable<M> {
 
 	@Override
 	public void copyParameters(final List<Matrix<M>> weights, final List<Matrix<M>> biases) {
-		this.weights = new ArrayList<>(weights);
-		this.biases = new ArrayList<>(biases);
+		// Copies, as the optimizers update parameters in place.
+		this.weights = weights.stream().map(Matrix::copy).collect(toList());
+		this.biases = biases.stream().map(Matrix::copy).collect(toList());
 	}
 
 	@Override
@@ -408,9 +493,7 @@ public class NeuralNetwork<M> implements DeepLearnable<M> {
 		Matrix<M> input = in;
 
 		for (int i = 0; i < this.totalLayers; i++) {
-			final Matrix<M> wI = this.weights.get(i).multiply(input);
-			final Matrix<M> a = wI.add(this.biases.get(i));
-			input = functions.get(i + 1).function(a);
+			input = functions.get(i + 1).affine(this.weights.get(i), input, this.biases.get(i));
 		}
 
 		return input;
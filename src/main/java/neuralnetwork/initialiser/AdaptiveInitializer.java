@@ -0,0 +1,48 @@
+package neuralnetwork.initialiser;
+
+import java.util.ArrayList;
+import java.util.List;
+import math.linearalgebra.Matrix;
+import math.linearalgebra.adaptive.AdaptiveMatrix;
+import math.linearalgebra.simple.SMatrix;
+
+public class AdaptiveInitializer extends SimpleInitializer {
+
+    public AdaptiveInitializer(InitialisationMethod weightMethod, InitialisationMethod biasMethod) {
+        super(weightMethod, biasMethod);
+    }
+
+    private static List<Matrix<SMatrix>> adaptive(List<Matrix<SMatrix>> matrices) {
+        List<Matrix<SMatrix>> out = new ArrayList<>(matrices.size());
+        for (Matrix<SMatrix> matrix : matrices) {
+            out.add(new AdaptiveMatrix(matrix.delegate()));
+        }
+        return out;
+    }
+
+    @Override
+    public List<Matrix<SMatrix>> getWeightParameters() {
+        return adaptive(super.getWeightParameters());
+    }
+
+    @Override
+    public List<Matrix<SMatrix>> getBiasParameters() {
+        return adaptive(super.getBiasParameters());
+    }
+
+    @Override
+    protected List<Matrix<SMatrix>> getDeltaParameters(boolean isBias) {
+        return adaptive(super.getDeltaParameters(isBias));
+    }
+
+    @Override
+    public Matrix<SMatrix> getFirstBias() {
+        return new AdaptiveMatrix(super.getFirstBias().delegate());
+    }
+
+    @Override
+    public String name() {
+        return "AdaptiveInitializer";
+    }
+
+}
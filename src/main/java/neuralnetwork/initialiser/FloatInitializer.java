@@ -0,0 +1,60 @@
+package neuralnetwork.initialiser;
+
+import java.util.ArrayList;
+import java.util.List;
+import math.linearalgebra.Matrix;
+import math.linearalgebra.floats.FMatrix;
+import math.linearalgebra.floats.FloatMatrix;
+
+public class FloatInitializer extends ParameterInitializer<FMatrix> {
+
+	public FloatInitializer(InitialisationMethod weightMethod, InitialisationMethod biasMethod) {
+		super(weightMethod, biasMethod);
+	}
+
+	@Override
+	public void init(int[] sizes) {
+		this.sizes = sizes.clone();
+	}
+
+	public List<Matrix<FMatrix>> getWeightParameters() {
+		List<Matrix<FMatrix>> weights = new ArrayList<>();
+		for (int i = 0; i < this.sizes.length - 1; i++) {
+			int current = this.sizes[i + 1];
+			int next = this.sizes[i];
+			weights.add(new FloatMatrix(wM.initialisationValues(0, current, next)));
+		}
+		return weights;
+	}
+
+	public List<Matrix<FMatrix>> getBiasParameters() {
+		List<Matrix<FMatrix>> biases = new ArrayList<>();
+		for (int i = 0; i < this.sizes.length - 1; i++) {
+			int current = this.sizes[i + 1];
+			biases.add(new FloatMatrix(bM.initialisationValues(0, current, 1)));
+		}
+		return biases;
+	}
+
+	@Override
+	protected List<Matrix<FMatrix>> getDeltaParameters(boolean isBias) {
+		List<Matrix<FMatrix>> deltaParams = new ArrayList<>();
+		for (int i = 0; i < this.sizes.length - 1; i++) {
+			int current = this.sizes[i + 1];
+			int next = isBias ? 1 : this.sizes[i];
+			deltaParams.add(new FloatMatrix(new FMatrix(current, next)));
+		}
+		return deltaParams;
+	}
+
+	@Override
+	public Matrix<FMatrix> getFirstBias() {
+		return new FloatMatrix(this.bM.initialisationValues(0, this.sizes[0], 1));
+	}
+
+	@Override
+	public String name() {
+		return "FloatInitializer";
+	}
+
+}
@@ -0,0 +1,78 @@
+package neuralnetwork.initialiser;
+
+import java.util.ArrayList;
+import java.util.List;
+import math.linearalgebra.Matrix;
+import math.linearalgebra.offheap.DMatrix;
+import math.linearalgebra.offheap.OffHeapMatrix;
+import math.linearalgebra.offheap.OffHeapScope;
+
+/**
+ * Allocates the parameters in an {@link OffHeapScope} and generates their values straight into
+ * the off heap storage, element by element, without building them on the heap first.
+ */
+public class OffHeapInitializer extends ParameterInitializer<DMatrix> {
+
+	private final OffHeapScope scope;
+
+	public OffHeapInitializer(InitialisationMethod weightMethod, InitialisationMethod biasMethod,
+		OffHeapScope scope) {
+		super(weightMethod, biasMethod);
+		this.scope = scope;
+	}
+
+	@Override
+	public void init(int[] sizes) {
+		this.sizes = sizes.clone();
+	}
+
+	private Matrix<DMatrix> generate(InitialisationMethod method, int rows, int cols) {
+		return new OffHeapMatrix(new DMatrix(scope, rows, cols)
+			.generate(() -> method.calculateInitialisation(0, rows, cols)));
+	}
+
+	public List<Matrix<DMatrix>> getWeightParameters() {
+		List<Matrix<DMatrix>> weights = new ArrayList<>();
+		for (int i = 0; i < this.sizes.length - 1; i++) {
+			int current = this.sizes[i + 1];
+			int next = this.sizes[i];
+			weights.add(generate(wM, current, next));
+		}
+		return weights;
+	}
+
+	public List<Matrix<DMatrix>> getBiasParameters() {
+		List<Matrix<DMatrix>> biases = new ArrayList<>();
+		for (int i = 0; i < this.sizes.length - 1; i++) {
+			int current = this.sizes[i + 1];
+			biases.add(generate(bM, current, 1));
+		}
+		return biases;
+	}
+
+	@Override
+	protected List<Matrix<DMatrix>> getDeltaParameters(boolean isBias) {
+		List<Matrix<DMatrix>> deltaParams = new ArrayList<>();
+		for (int i = 0; i < this.sizes.length - 1; i++) {
+			int current = this.sizes[i + 1];
+			int next = isBias ? 1 : this.sizes[i];
+			deltaParams.add(new OffHeapMatrix(new DMatrix(scope, current, next)));
+		}
+		return deltaParams;
+	}
+
+	@Override
+	public Matrix<DMatrix> getFirstBias() {
+		return generate(bM, this.sizes[0], 1);
+	}
+
+	public OffHeapScope getScope() {
+		return scope;
+	}
+
+	@Override
+	public String name() {
+		return "OffHeapInitializer";
+	}
+
+}
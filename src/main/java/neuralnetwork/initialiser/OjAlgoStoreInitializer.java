@@ -0,0 +1,61 @@
+package neuralnetwork.initialiser;
+
+import java.util.ArrayList;
+import java.util.List;
+import math.linearalgebra.Matrix;
+import math.linearalgebra.ojalgo.OjAlgoStoreMatrix;
+import org.ojalgo.matrix.store.Primitive64Store;
+
+public class OjAlgoStoreInitializer extends ParameterInitializer<Primitive64Store> {
+
+	public OjAlgoStoreInitializer(InitialisationMethod weightMethod,
+		InitialisationMethod biasMethod) {
+		super(weightMethod, biasMethod);
+	}
+
+	@Override
+	public void init(int[] sizes) {
+		this.sizes = sizes.clone();
+	}
+
+	public List<Matrix<Primitive64Store>> getWeightParameters() {
+		List<Matrix<Primitive64Store>> weights = new ArrayList<>();
+		for (int i = 0; i < this.sizes.length - 1; i++) {
+			int current = this.sizes[i + 1];
+			int next = this.sizes[i];
+			weights.add(new OjAlgoStoreMatrix(wM.initialisationValues(0, current, next)));
+		}
+		return weights;
+	}
+
+	public List<Matrix<Primitive64Store>> getBiasParameters() {
+		List<Matrix<Primitive64Store>> biases = new ArrayList<>();
+		for (int i = 0; i < this.sizes.length - 1; i++) {
+			int current = this.sizes[i + 1];
+			biases.add(new OjAlgoStoreMatrix(bM.initialisationValues(0, current, 1)));
+		}
+		return biases;
+	}
+
+	@Override
+	protected List<Matrix<Primitive64Store>> getDeltaParameters(boolean isBias) {
+		List<Matrix<Primitive64Store>> deltaParams = new ArrayList<>();
+		for (int i = 0; i < this.sizes.length - 1; i++) {
+			int current = this.sizes[i + 1];
+			int next = isBias ? 1 : this.sizes[i];
+			deltaParams.add(new OjAlgoStoreMatrix(Primitive64Store.FACTORY.make(current, next)));
+		}
+		return deltaParams;
+	}
+
+	@Override
+	public Matrix<Primitive64Store> getFirstBias() {
+		return new OjAlgoStoreMatrix(this.bM.initialisationValues(0, this.sizes[0], 1));
+	}
+
+	@Override
+	public String name() {
+		return "OjAlgoStoreInitializer";
+	}
+
+}
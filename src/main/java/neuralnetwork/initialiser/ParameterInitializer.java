@@ -2,8 +2,10 @@ package neuralnetwork.initialiser;
 
 import java.util.List;
 import math.linearalgebra.Matrix;
+import math.linearalgebra.floats.FMatrix;
 import math.linearalgebra.simple.SMatrix;
 import org.ojalgo.matrix.Primitive64Matrix;
+import org.ojalgo.matrix.store.Primitive64Store;
 import utilities.types.Pair;
 
 public abstract class ParameterInitializer<M> {
@@ -23,8 +25,12 @@ public abstract class ParameterInitializer<M> {
 		Class<?> typeOf) {
 		if (typeOf.equals(SMatrix.class)) {
 			return new SimpleInitializer(wM, bM);
+		} else if (typeOf.equals(FMatrix.class)) {
+			return new FloatInitializer(wM, bM);
 		} else if (typeOf.equals(Primitive64Matrix.class)) {
 			return new OjAlgoInitializer(wM, bM);
+		} else if (typeOf.equals(Primitive64Store.class)) {
+			return new OjAlgoStoreInitializer(wM, bM);
 		} else if (typeOf.equals(org.ujmp.core.Matrix.class)) {
 			return new UJMPInitializer(wM, bM);
 		} else {
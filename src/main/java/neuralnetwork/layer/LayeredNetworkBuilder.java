@@ -9,6 +9,7 @@ import math.evaluation.EvaluationFunction;
 import math.optimizers.ADAM;
 import math.optimizers.Optimizer;
 import neuralnetwork.initialiser.ParameterInitializer;
+import utilities.compute.ComputeExecutor;
 
 public class LayeredNetworkBuilder<M> {
 
@@ -20,6 +21,7 @@ public class LayeredNetworkBuilder<M> {
 	public CostFunction<M> costFunction = new CrossEntropyCostFunction<>();
 	public EvaluationFunction<M> evaluationFunction = new ArgMaxEvaluationFunction<>();
 	public Optimizer<M> optimizer = new ADAM<>(0.01, 0.9, 0.999);
+	public ComputeExecutor executor;
 
 	public LayeredNetworkBuilder() {
 	}
@@ -29,6 +31,7 @@ public class LayeredNetworkBuilder<M> {
 		this.costFunction = other.getCostFunction();
 		this.evaluationFunction = other.getEvaluationFunction();
 		this.optimizer = other.getOptimizer();
+		this.executor = other.getExecutor();
 
 		var otherLayers = other.getLayers();
 
@@ -61,6 +64,11 @@ public class LayeredNetworkBuilder<M> {
 		return this;
 	}
 
+	public LayeredNetworkBuilder<M> executor(ComputeExecutor executor) {
+		this.executor = executor;
+		return this;
+	}
+
 	public LayeredNetworkBuilder<M> layer(NetworkLayer<M> layer) {
 		layers.add(layer);
 		return this;
@@ -10,18 +10,24 @@ import lombok.extern.slf4j.Slf4j;
 import math.costfunctions.CostFunction;
 import math.evaluation.EvaluationFunction;
 import math.linearalgebra.Matrix;
+import math.linearalgebra.bridge.Backend;
+import math.linearalgebra.instrumented.InstrumentedMatrix;
 import math.optimizers.Optimizer;
 import neuralnetwork.DeepLearnable;
 import neuralnetwork.NetworkMetrics;
 import neuralnetwork.initialiser.ParameterInitializer;
 import neuralnetwork.inputs.NetworkInput;
+import neuralnetwork.memory.MatrixPool;
 import org.jetbrains.annotations.NotNull;
+import utilities.compute.ComputeExecutor;
 import utilities.types.Pair;
 
 @Slf4j
 public class LayeredNeuralNetwork<M> implements DeepLearnable<M> {
 
 	public static final boolean DEBUG = false;
+	// Inputs stacked into one matrix by predict(List), bounding the memory of the batch.
+	public static final int PREDICT_BATCH = 256;
 
 	private final List<NetworkLayer<M>> networkLayers;
 	// The error function to minimize.
@@ -33,10 +39,16 @@ public class LayeredNeuralNetwork<M> implements DeepLearnable<M> {
 
 	private final ParameterInitializer<M> initializer;
 	private final int inputNeurons;
+	// Activations and deltas of the examples in a batch, returned when the batch is fitted.
+	private final transient MatrixPool<M> pool = new MatrixPool<>();
+	// Runs the examples of a batch, the optimizer steps and their kernels, null for
+	// ComputeExecutor.shared().
+	private final transient ComputeExecutor executor;
 	private boolean clipping;
 
 	public LayeredNeuralNetwork(LayeredNetworkBuilder<M> b) {
 		this.costFunction = b.costFunction;
+		this.executor = b.executor;
 		this.evaluationFunction = b.evaluationFunction;
 
 		this.optimizer = b.optimizer;
@@ -83,6 +95,7 @@ public class LayeredNeuralNetwork<M> implements DeepLearnable<M> {
 
 	private LayeredNeuralNetwork(int inputNeurons, LayeredNetworkBuilder<M> b) {
 		this.costFunction = b.costFunction;
+		this.executor = b.executor;
 		this.evaluationFunction = b.evaluationFunction;
 
 		this.optimizer = b.optimizer;
@@ -110,17 +123,67 @@ public class LayeredNeuralNetwork<M> implements DeepLearnable<M> {
 		return new LayeredNeuralNetwork<>(inputNeurons, b);
 	}
 
+	/**
+	 * This network on another backend, e.g. one deserialized with the serializer of one backend
+	 * and run on another. The parameters are copied with {@link Backend#convert(Matrix)}, so both
+	 * networks can be trained. The optimizer of the copy has the same parameters but starts
+	 * without state.
+	 *
+	 * @param initializer of the target backend, provides the gradient buffers
+	 */
+	public <U> LayeredNeuralNetwork<U> convert(Backend<U> backend,
+		ParameterInitializer<U> initializer) {
+		LayeredNetworkBuilder<U> b = new LayeredNetworkBuilder<>();
+		b.layer(new NetworkLayer<>(retype(networkLayers.get(0).getFunction()), inputNeurons));
+		for (int i = 1; i < networkLayers.size(); i++) {
+			NetworkLayer<M> l = networkLayers.get(i);
+			b.layer(new NetworkLayer<>(l.getNeurons(), l.getL2(), retype(l.getFunction()),
+				backend.convert(l.getWeight()), backend.convert(l.getBias())));
+		}
+		double[] params = optimizer.params().values().stream().mapToDouble(Double::doubleValue)
+			.toArray();
+		b.optimizer(Optimizer.get(optimizer.name(), params)).initializer(initializer)
+			.costFunction(retype(costFunction)).evaluationFunction(retype(evaluationFunction))
+			.executor(executor);
+		b.total = b.layers.size();
+
+		LayeredNeuralNetwork<U> out = new LayeredNeuralNetwork<>(inputNeurons, b);
+		out.clipping = clipping;
+		var deltaW = initializer.getDeltaWeightParameters();
+		var deltaB = initializer.getDeltaBiasParameters();
+		for (int i = 1; i < out.networkLayers.size(); i++) {
+			NetworkLayer<U> layer = out.networkLayers.get(i);
+			layer.setPrecedingLayer(out.networkLayers.get(i - 1));
+			layer.setDeltaWeight(deltaW.get(i - 1));
+			layer.setDeltaBias(deltaB.get(i - 1));
+			layer.setRegularization(networkLayers.get(i).getL2());
+		}
+		return out;
+	}
+
+	// Activation, cost and evaluation functions only use the Matrix interface, so one instance
+	// serves every backend.
+	@SuppressWarnings("unchecked")
+	private static <T> T retype(Object function) {
+		return (T) function;
+	}
+
 	@Override
 	public void train(List<NetworkInput<M>> training, final int epochs, int batchSize) {
 		int batches = training.size() / batchSize;
 
 		for (int i = 0; i < epochs; i++) {
 			for (int j = 0; j <= batches; j++) {
-				getBatch(j, batchSize, training).parallelStream()
-					.forEach(e -> this.evaluate(e.getData(), e.getLabel()));
+				getExecutor().forEach(getBatch(j, batchSize, training),
+					e -> this.evaluate(e.getData(), e.getLabel()));
 				this.fit();
 			}
 		}
+		reportProfile();
+	}
+
+	public ComputeExecutor getExecutor() {
+		return this.executor != null ? this.executor : ComputeExecutor.shared();
 	}
 
 	private static <U> List<U> getBatch(final int i, final int batchSize, final List<U> data) {
@@ -142,7 +205,7 @@ public class LayeredNeuralNetwork<M> implements DeepLearnable<M> {
 		for (int epoch = 0; epoch < epochs; epoch++) {
 			log.info("Epoch: {}", epoch + 1);
 			for (int i = 0; i <= batches; i++) {
-				getBatch(i, batchSize, training).parallelStream().forEach(e -> {
+				getExecutor().forEach(getBatch(i, batchSize, training), e -> {
 					this.evaluate(e.getData(), e.getLabel());
 				});
 				this.fit();
@@ -151,6 +214,7 @@ public class LayeredNeuralNetwork<M> implements DeepLearnable<M> {
 			log.info("\nLoss: {}\nEvaluation percentage: {}%.", this.testLoss(validation),
 				this.testEvaluation(validation, 37) * 100d);
 		}
+		reportProfile();
 	}
 
 	public void trainWithMetrics(@NotNull final List<NetworkInput<M>> training,
@@ -212,6 +276,7 @@ public class LayeredNeuralNetwork<M> implements DeepLearnable<M> {
 			e.printStackTrace();
 		}
 		log.info("Charts outputted.");
+		reportProfile();
 	}
 
 	@Override
@@ -262,8 +327,10 @@ public class LayeredNeuralNetwork<M> implements DeepLearnable<M> {
 
 		for (int i = 0; i < weights.size(); i++) {
 			int layerIndex = i + 1;
-			this.networkLayers.get(layerIndex).setWeight(weights.get(i));
-			this.networkLayers.get(layerIndex).setBias(biases.get(i));
+			// Copies, as the optimizers update parameters in place.
+			NetworkLayer<M> layer = this.networkLayers.get(layerIndex);
+			layer.setWeight(layer.getWeight().assign(weights.get(i)));
+			layer.setBias(layer.getBias().assign(biases.get(i)));
 		}
 
 	}
@@ -278,6 +345,32 @@ public class LayeredNeuralNetwork<M> implements DeepLearnable<M> {
 		return this.checkEvaluate(input, null);
 	}
 
+	/**
+	 * Predictions for many inputs at once. Up to {@link #PREDICT_BATCH} inputs are stacked into one
+	 * matrix with an input per column, so each layer runs one product for all of them instead of
+	 * one small product per input. Every prediction is copied out of the output of its batch, so
+	 * keeping one does not keep the whole batch alive.
+	 *
+	 * @param inputs column vectors
+	 *
+	 * @return the prediction for each input, in order, each with storage of its own
+	 */
+	public List<Matrix<M>> predict(List<? extends Matrix<M>> inputs) {
+		List<Matrix<M>> out = new ArrayList<>(inputs.size());
+		for (int from = 0; from < inputs.size(); from += PREDICT_BATCH) {
+			var block = inputs.subList(from, Math.min(inputs.size(), from + PREDICT_BATCH));
+			Matrix<M> batch = block.get(0).stackColumns(block);
+			for (var layer : networkLayers) {
+				batch = layer.calculateBatch(batch);
+			}
+			for (int j = 0; j < batch.cols(); j++) {
+				// a view for the strided backends, which would retain the batch
+				out.add(batch.sliceColumns(j, j + 1).copy());
+			}
+		}
+		return out;
+	}
+
 	private Matrix<M> checkEvaluate(final Matrix<M> data, final Matrix<M> label) {
 		if (label == null) {
 			return this.evaluate(data, null);
@@ -288,13 +381,17 @@ public class LayeredNeuralNetwork<M> implements DeepLearnable<M> {
 
 	private Matrix<M> evaluate(Matrix<M> input, Matrix<M> label) {
 		Matrix<M> toEvaluate = input;
-		for (var layer : networkLayers) {
-			toEvaluate = layer.calculate(toEvaluate);
+		if (label == null) {
+			for (var layer : networkLayers) {
+				toEvaluate = layer.calculate(toEvaluate);
+			}
+			return toEvaluate;
 		}
 
-		if (label != null) {
-			this.backPropagation(label);
+		for (var layer : networkLayers) {
+			toEvaluate = layer.calculate(toEvaluate, this.pool);
 		}
+		this.backPropagation(label);
 
 		return toEvaluate;
 	}
@@ -306,16 +403,23 @@ public class LayeredNeuralNetwork<M> implements DeepLearnable<M> {
 		var costDerivative = this.costFunction.applyCostFunctionGradient(lastActivation, label);
 
 		do {
-			// Also deltaBias.
-			var dCdI = layer.getFunction().derivativeOnInput(lastActivation, costDerivative);
+			// Also deltaBias. The cost derivative is not needed afterwards, so it is overwritten.
+			var dCdI = layer.getFunction().derivativeOnInputInPlace(lastActivation, costDerivative);
 
-			Matrix<M> activation = layer.precedingLayer().activation().transpose();
+			Matrix<M> activation = layer.precedingLayer().activation();
 
-			var deltaWeights = dCdI.multiply(activation);
+			var deltaWeights = dCdI
+				.multiplyTransposeRightInto(activation, layer.exampleDeltaWeight());
 
 			layer.addDeltas(deltaWeights, dCdI);
 
-			costDerivative = layer.getWeight().transpose().multiply(dCdI);
+			// Nothing is learned for the input layer, so the first layer skips W^T * dCdI, the
+			// widest product of the pass.
+			if (layer.precedingLayer().hasPrecedingLayer()) {
+				var weight = layer.getWeight();
+				costDerivative = weight.multiplyTransposeLeftInto(dCdI,
+					this.pool.borrow(weight, weight.cols(), dCdI.cols()));
+			}
 
 			layer = layer.precedingLayer();
 			lastActivation = layer.activation();
@@ -328,13 +432,22 @@ public class LayeredNeuralNetwork<M> implements DeepLearnable<M> {
 		return networkLayers.get(networkLayers.size() - 1);
 	}
 
+	/**
+	 * Applies the deltas of the batch to every layer. The optimizers update the parameters in
+	 * place, so this must only run once the examples of the batch are done, as the training loops
+	 * do after their parallel section, never while another thread feeds an example forward.
+	 */
 	public synchronized void fit() {
-		for (int i = 0; i < networkLayers.size(); i++) {
-			var layer = networkLayers.get(i);
-			if (layer.hasPrecedingLayer()) {
-				layer.fit(i, this.optimizer);
+		getExecutor().run(() -> {
+			for (int i = 0; i < networkLayers.size(); i++) {
+				var layer = networkLayers.get(i);
+				if (layer.hasPrecedingLayer()) {
+					layer.fit(i, this.optimizer);
+				}
 			}
-		}
+		});
+		// the batch is complete, so no thread still uses its buffers
+		this.pool.releaseAll();
 	}
 
 	public void train(List<NetworkInput<M>> training, List<NetworkInput<M>> validation,
@@ -369,16 +482,31 @@ public class LayeredNeuralNetwork<M> implements DeepLearnable<M> {
 				}
 			}
 		}
+		if (!silent) {
+			reportProfile();
+		}
+	}
+
+	// Logs the operation counts of instrumented parameters, see InstrumentedMatrix.
+	private void reportProfile() {
+		this.networkLayers.stream().map(NetworkLayer::getWeight)
+			.filter(w -> w instanceof InstrumentedMatrix)
+			.map(w -> ((InstrumentedMatrix<M>) w).profile()).distinct()
+			.forEach(p -> log.info("Matrix operations after training:{}", p.report()));
 	}
 
 	private List<NetworkInput<M>> feedforward(List<NetworkInput<M>> data) {
-		return data.stream()
-			.map(e -> new NetworkInput<M>(this.checkEvaluate(e.getData(), null), e.getLabel()))
-			.collect(toList());
+		var predictions = this.predict(data.stream().map(NetworkInput::getData).collect(toList()));
+		List<NetworkInput<M>> out = new ArrayList<>(data.size());
+		for (int i = 0; i < data.size(); i++) {
+			out.add(new NetworkInput<>(predictions.get(i), data.get(i).getLabel()));
+		}
+		return out;
 	}
 
 	public Matrix<M> predict(Matrix<M> input, Matrix<M> label) {
-		return this.checkEvaluate(input, label);
+		// the output is a pooled buffer, reused after the next fit
+		return this.checkEvaluate(input, label).copy();
 	}
 
 	public int getInputSize() {
@@ -405,6 +533,10 @@ public class LayeredNeuralNetwork<M> implements DeepLearnable<M> {
 		return this.evaluationFunction;
 	}
 
+	public MatrixPool<M> getPool() {
+		return this.pool;
+	}
+
 	public boolean isClipping() {
 		return clipping;
 	}
@@ -4,6 +4,7 @@ import java.util.StringJoiner;
 import math.activations.ActivationFunction;
 import math.linearalgebra.Matrix;
 import math.optimizers.Optimizer;
+import neuralnetwork.memory.MatrixPool;
 
 public class NetworkLayer<M> {
 
@@ -20,6 +21,8 @@ public class NetworkLayer<M> {
 	private transient int deltasAdded;
 	private transient Matrix<M> deltaWeight;
 	private transient Matrix<M> deltaBias;
+	// Per thread buffer for a single example's weight gradient, reused between examples.
+	private transient final ThreadLocal<Matrix<M>> exampleDeltaWeight = new ThreadLocal<>();
 	private double l2 = 0d;
 
 	public NetworkLayer(ActivationFunction<M> activationFunction, int neurons, double l2) {
@@ -58,38 +61,72 @@ public class NetworkLayer<M> {
 		if (!hasPrecedingLayer()) {
 			this.activated.set(in);
 		} else {
-			var out = activationFunction.function(this.weight.multiply(in).add(bias));
+			var out = activationFunction.affine(this.weight, in, this.bias);
 			this.activated.set(out);
 		}
 
 		return this.activated.get();
 	}
 
+	/**
+	 * Output of this layer for a batch with one example per column, without keeping it as the
+	 * activation of this layer.
+	 */
+	public Matrix<M> calculateBatch(Matrix<M> batch) {
+		if (!hasPrecedingLayer()) {
+			return batch;
+		}
+		return activationFunction.affineBatch(this.weight, batch, this.bias);
+	}
+
+	/**
+	 * {@link #calculate(Matrix)} with the output written into a matrix borrowed from pool.
+	 */
+	public Matrix<M> calculate(Matrix<M> in, MatrixPool<M> pool) {
+		if (!hasPrecedingLayer()) {
+			this.activated.set(in);
+		} else {
+			var out = pool.borrow(this.weight, this.weight.rows(), in.cols());
+			this.activated.set(activationFunction.affineInto(this.weight, in, this.bias, out));
+		}
+
+		return this.activated.get();
+	}
+
 	public boolean hasPrecedingLayer() {
 		return this.previousLayer != null;
 	}
 
 	public synchronized void addDeltas(Matrix<M> deltaWeights, Matrix<M> deltaBias) {
-		this.deltaWeight = this.deltaWeight.add(deltaWeights);
-		this.deltaBias = this.deltaBias.add(deltaBias);
+		this.deltaWeight.addInPlace(deltaWeights);
+		this.deltaBias.addInPlace(deltaBias);
 		this.deltasAdded++;
 	}
 
+	/**
+	 * A weight shaped buffer owned by the calling thread, for computing one example's weight
+	 * gradient before it is passed to {@link #addDeltas(Matrix, Matrix)}.
+	 */
+	Matrix<M> exampleDeltaWeight() {
+		Matrix<M> buffer = this.exampleDeltaWeight.get();
+		if (buffer == null) {
+			buffer = this.weight.zeroes(this.weight.rows(), this.weight.cols());
+			this.exampleDeltaWeight.set(buffer);
+		}
+		return buffer;
+	}
+
 	public synchronized void fit(int index, Optimizer<M> optimizer) {
 		if (this.deltasAdded > 0) {
 
-			if (l2 > 0) {
-				// regularization
-				this.deltaWeight = this.deltaWeight.mapElements(e -> e - this.l2 * e);
-				this.deltaBias = this.deltaBias.mapElements(e -> e - this.l2 * e);
-			}
-
-			var averageDeltaW = this.deltaWeight.mapElements(e -> e / this.deltasAdded);
-			var averageDeltaB = this.deltaBias.mapElements(e -> e / this.deltasAdded);
+			// regularization (e - l2 * e) and averaging over the batch in one pass
+			double scale = (l2 > 0 ? 1 - this.l2 : 1) / this.deltasAdded;
+			var averageDeltaW = this.deltaWeight.scaleInPlace(scale);
+			var averageDeltaB = this.deltaBias.scaleInPlace(scale);
 			this.bias = optimizer.changeBias(index, this.bias, averageDeltaB);
 			this.weight = optimizer.changeWeight(index, this.weight, averageDeltaW);
-			this.deltaWeight = this.deltaWeight.mapElements(e -> 0d);
-			this.deltaBias = this.deltaBias.mapElements(e -> 0d);
+			this.deltaWeight.fill(0);
+			this.deltaBias.fill(0);
 		}
 		this.deltasAdded = 0;
 	}
@@ -0,0 +1,194 @@
+package neuralnetwork.memory;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import math.linearalgebra.Matrix;
+
+/**
+ * Shape keyed pool of matrices for the temporaries of a training step.
+ * <p>
+ * Every thread borrows from its own arena, so the parallel stream paths need no locking. Borrowed
+ * matrices stay with the borrower until the arena is released in bulk, after which the next
+ * borrows of the same shapes get them back instead of allocating. Borrowed matrices have
+ * arbitrary contents and are meant as the destination of the {@code Into} and in place
+ * operations.
+ * <p>
+ * An arena keeps at most a fixed number of bytes across releases, matrices beyond it are left to
+ * the garbage collector. Arenas of threads that have died are dropped, so pools whose threads come
+ * and go, e.g. executors created per run, do not keep their matrices.
+ *
+ * @param <M> the backend type
+ */
+public class MatrixPool<M> {
+
+	// 256 MB per thread by default
+	public static final long DEFAULT_ARENA_BYTES = 1L << 28;
+
+	private final ThreadLocal<Arena<M>> arenas = ThreadLocal.withInitial(this::newArena);
+	private final List<Arena<M>> all = new CopyOnWriteArrayList<>();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final long maxArenaBytes;
+
+	public MatrixPool() {
+		this(DEFAULT_ARENA_BYTES);
+	}
+
+	/**
+	 * @param maxArenaBytes bytes each thread keeps pooled across releases
+	 */
+	public MatrixPool(long maxArenaBytes) {
+		this.maxArenaBytes = maxArenaBytes;
+	}
+
+	private Arena<M> newArena() {
+		dropDeadArenas();
+		Arena<M> arena = new Arena<>(Thread.currentThread(), maxArenaBytes);
+		all.add(arena);
+		return arena;
+	}
+
+	private void dropDeadArenas() {
+		all.removeIf(arena -> !arena.isAlive());
+	}
+
+	/**
+	 * @param prototype any matrix of the backend, used to allocate on a miss
+	 * @param rows      rows of the matrix
+	 * @param cols      columns of the matrix
+	 *
+	 * @return a rows x cols matrix owned by the calling thread until its arena is released
+	 */
+	public Matrix<M> borrow(Matrix<M> prototype, int rows, int cols) {
+		Arena<M> arena = arenas.get();
+		if (arena.cleared) {
+			arenas.remove();
+			arena = arenas.get();
+		}
+		Matrix<M> out = arena.take(rows, cols);
+		if (out == null) {
+			misses.increment();
+			out = prototype.zeroes(rows, cols);
+			arena.retained.addAndGet(bytes(out));
+		} else {
+			hits.increment();
+		}
+		arena.borrowed.add(out);
+		return out;
+	}
+
+	/**
+	 * Returns everything the calling thread borrowed to its arena.
+	 */
+	public void release() {
+		arenas.get().release();
+	}
+
+	/**
+	 * Returns everything borrowed by any thread. Only safe when no other thread is still using
+	 * its borrowed matrices, e.g. after a parallel batch has completed.
+	 */
+	public void releaseAll() {
+		dropDeadArenas();
+		for (Arena<M> arena : all) {
+			arena.release();
+		}
+	}
+
+	/**
+	 * Drops every arena and its matrices, borrowed ones are no longer returned. Threads start a
+	 * new arena on their next borrow.
+	 */
+	public void clear() {
+		for (Arena<M> arena : all) {
+			arena.clear();
+		}
+		all.clear();
+	}
+
+	public long hits() {
+		return hits.sum();
+	}
+
+	public long misses() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return bytes held by the pool, borrowed or free, at the element size of the backend
+	 */
+	public long bytesRetained() {
+		dropDeadArenas();
+		long bytes = 0;
+		for (Arena<M> arena : all) {
+			bytes += arena.retained.get();
+		}
+		return bytes;
+	}
+
+	private static long bytes(Matrix<?> matrix) {
+		return (long) matrix.rows() * matrix.cols() * matrix.elementBytes();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("MatrixPool{hits=%d, misses=%d, bytesRetained=%d}", hits(), misses(),
+			bytesRetained());
+	}
+
+	private static final class Arena<M> {
+
+		private final Map<Long, ArrayDeque<Matrix<M>>> free = new HashMap<>();
+		private final List<Matrix<M>> borrowed = new ArrayList<>();
+		// bytes of the borrowed and free matrices
+		private final AtomicLong retained = new AtomicLong();
+		private final WeakReference<Thread> owner;
+		private final long maxBytes;
+		private volatile boolean cleared;
+
+		private Arena(Thread owner, long maxBytes) {
+			this.owner = new WeakReference<>(owner);
+			this.maxBytes = maxBytes;
+		}
+
+		private boolean isAlive() {
+			Thread thread = owner.get();
+			return thread != null && thread.isAlive() && !cleared;
+		}
+
+		private static long key(int rows, int cols) {
+			return (long) rows << 32 | cols;
+		}
+
+		private Matrix<M> take(int rows, int cols) {
+			ArrayDeque<Matrix<M>> matrices = free.get(key(rows, cols));
+			return matrices == null ? null : matrices.poll();
+		}
+
+		private void release() {
+			for (Matrix<M> matrix : borrowed) {
+				if (retained.get() > maxBytes) {
+					retained.addAndGet(-bytes(matrix));
+					continue;
+				}
+				free.computeIfAbsent(key(matrix.rows(), matrix.cols()), k -> new ArrayDeque<>())
+					.push(matrix);
+			}
+			borrowed.clear();
+		}
+
+		private void clear() {
+			free.clear();
+			borrowed.clear();
+			retained.set(0);
+			cleared = true;
+		}
+	}
+}
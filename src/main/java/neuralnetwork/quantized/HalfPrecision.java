@@ -0,0 +1,53 @@
+package neuralnetwork.quantized;
+
+import lombok.extern.slf4j.Slf4j;
+import math.linearalgebra.Matrix;
+import math.linearalgebra.half.HalfFormat;
+import math.linearalgebra.half.HalfMatrix;
+import math.linearalgebra.simple.SMatrix;
+import neuralnetwork.layer.LayeredNeuralNetwork;
+import neuralnetwork.layer.NetworkLayer;
+
+/**
+ * Moves the large weight matrices of a network of the {@link SMatrix} backend into 16 bit storage
+ * (see {@link HalfMatrix}), a quarter of their memory. Unlike {@link QuantizedNetwork} the network
+ * stays trainable: the products widen the weights as they read them, and the optimizers' updates
+ * are rounded back into the format. Biases and small weights are kept in double precision.
+ * <p>
+ * The simple serializer writes the widened weights, which are exact doubles, together with their
+ * format, and its deserializer restores them into 16 bit storage bit for bit.
+ */
+@Slf4j
+public final class HalfPrecision {
+
+	private HalfPrecision() {
+	}
+
+	/**
+	 * @param network     network whose weights are replaced in place
+	 * @param format      format of the stored weights
+	 * @param minElements weights with fewer elements are kept in double precision
+	 *
+	 * @return number of weight matrices now stored in 16 bits
+	 */
+	public static int compress(LayeredNeuralNetwork<SMatrix> network, HalfFormat format,
+		long minElements) {
+		int compressed = 0;
+		long saved = 0;
+		for (NetworkLayer<SMatrix> layer : network.getLayers()) {
+			Matrix<SMatrix> weight = layer.getWeight();
+			if (!layer.hasPrecedingLayer() || weight instanceof HalfMatrix) {
+				continue;
+			}
+			long elements = (long) weight.rows() * weight.cols();
+			if (elements < minElements) {
+				continue;
+			}
+			layer.setWeight(HalfMatrix.of(weight, format));
+			saved += elements * (Double.BYTES - Short.BYTES);
+			compressed++;
+		}
+		log.info("Stored {} weight matrices as {}, saving {} bytes.", compressed, format, saved);
+		return compressed;
+	}
+}
@@ -0,0 +1,138 @@
+package neuralnetwork.quantized;
+
+import static java.util.stream.Collectors.toList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import math.activations.ActivationFunction;
+import math.evaluation.EvaluationFunction;
+import math.linearalgebra.Matrix;
+import math.linearalgebra.quantized.Int8Matrix;
+import neuralnetwork.inputs.NetworkInput;
+import neuralnetwork.layer.LayeredNeuralNetwork;
+import neuralnetwork.layer.NetworkLayer;
+
+/**
+ * Inference only copy of a trained {@link LayeredNeuralNetwork} with int8 weights, one scale per
+ * row (see {@link Int8Matrix}).
+ * <p>
+ * Every layer quantizes its input per example, multiplies in int8 with int32 accumulators and
+ * dequantizes once, adding the bias, before the activation, which runs in double precision as in
+ * the original network. Activations without a scalar form, e.g. softmax, are applied to a matrix
+ * of the backend built by the factory. The weights take an eighth of the memory of the doubles;
+ * {@link #accuracyDelta(LayeredNeuralNetwork, List)} reports what the quantization costs.
+ *
+ * @param <M> the backend type of the inputs and predictions
+ */
+@Slf4j
+public class QuantizedNetwork<M> {
+
+	private final List<Int8Matrix> weights;
+	private final List<double[]> biases;
+	private final List<ActivationFunction<M>> functions;
+	private final EvaluationFunction<M> evaluationFunction;
+	private final Function<double[][], Matrix<M>> factory;
+
+	private QuantizedNetwork(List<Int8Matrix> weights, List<double[]> biases,
+		List<ActivationFunction<M>> functions, EvaluationFunction<M> evaluationFunction,
+		Function<double[][], Matrix<M>> factory) {
+		this.weights = weights;
+		this.biases = biases;
+		this.functions = functions;
+		this.evaluationFunction = evaluationFunction;
+		this.factory = factory;
+	}
+
+	/**
+	 * @param network trained network, not changed
+	 * @param factory builds matrices of the backend, e.g. {@code SimpleMatrix::new}
+	 *
+	 * @return the network with its weights quantized
+	 */
+	public static <M> QuantizedNetwork<M> quantize(LayeredNeuralNetwork<M> network,
+		Function<double[][], Matrix<M>> factory) {
+		List<Int8Matrix> weights = new ArrayList<>();
+		List<double[]> biases = new ArrayList<>();
+		List<ActivationFunction<M>> functions = new ArrayList<>();
+		for (NetworkLayer<M> layer : network.getLayers()) {
+			if (!layer.hasPrecedingLayer()) {
+				continue;
+			}
+			weights.add(Int8Matrix.quantizeRows(layer.getWeight().rawCopy()));
+			double[][] bias = layer.getBias().rawCopy();
+			double[] column = new double[bias.length];
+			for (int i = 0; i < bias.length; i++) {
+				column[i] = bias[i][0];
+			}
+			biases.add(column);
+			functions.add(layer.getFunction());
+		}
+		return new QuantizedNetwork<>(weights, biases, functions, network.getEvaluationFunction(),
+			factory);
+	}
+
+	/**
+	 * @param input one example per column
+	 *
+	 * @return the output of the last layer, one column per example
+	 */
+	public Matrix<M> predict(Matrix<M> input) {
+		double[][] activation = input.rawCopy();
+		for (int l = 0; l < weights.size(); l++) {
+			Int8Matrix examples = Int8Matrix.quantizeColumns(activation);
+			double[][] z = weights.get(l).timesTransposeDequantized(examples, biases.get(l));
+			activation = activate(functions.get(l), z);
+		}
+		return factory.apply(activation);
+	}
+
+	private double[][] activate(ActivationFunction<M> function, double[][] z) {
+		DoubleUnaryOperator scalar = function.scalarFunction();
+		if (scalar == null) {
+			return function.function(factory.apply(z)).rawCopy();
+		}
+		for (double[] row : z) {
+			for (int j = 0; j < row.length; j++) {
+				row[j] = scalar.applyAsDouble(row[j]);
+			}
+		}
+		return z;
+	}
+
+	public List<NetworkInput<M>> feedforward(List<NetworkInput<M>> data) {
+		return data.stream().map(e -> new NetworkInput<M>(predict(e.getData()), e.getLabel()))
+			.collect(toList());
+	}
+
+	public double testEvaluation(List<NetworkInput<M>> data) {
+		return this.evaluationFunction.evaluatePrediction(feedforward(data));
+	}
+
+	/**
+	 * Evaluates this network and the one it was quantized from on the same data.
+	 *
+	 * @return evaluation of this network minus that of the original, negative when the
+	 * quantization costs accuracy
+	 */
+	public double accuracyDelta(LayeredNeuralNetwork<M> original, List<NetworkInput<M>> validation) {
+		double full = original.testEvaluation(validation, 1);
+		double quantized = testEvaluation(validation);
+		log.info("\nEvaluation, double weights: {}%\nEvaluation, int8 weights: {}%", full * 100d,
+			quantized * 100d);
+		return quantized - full;
+	}
+
+	/**
+	 * @return bytes of the quantized weights and their scales
+	 */
+	public long weightBytes() {
+		long bytes = 0;
+		for (Int8Matrix weight : weights) {
+			bytes += weight.bytes();
+		}
+		return bytes;
+	}
+}
@@ -3,13 +3,14 @@ package reinforcement.learning.dqn;
 import static java.util.stream.Collectors.toList;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.stream.Collectors;
 import math.activations.LeakyReluFunction;
 import math.activations.LinearFunction;
 import math.costfunctions.MeanSquaredCostFunction;
 import math.evaluation.ArgMaxEvaluationFunction;
+import math.linearalgebra.Matrix;
 import math.linearalgebra.ojalgo.OjAlgoMatrix;
 import math.optimizers.ADAM;
 import neuralnetwork.initialiser.MethodConstants;
@@ -117,23 +118,31 @@ public class DQNAgent<ObsT> extends LearningAgent<ObsT> {
 	}
 
 	private List<NetworkInput<Primitive64Matrix>> toBellman(final List<Transition> sample) {
-		return sample.parallelStream().map(transition -> {
-			var oldState = new OjAlgoMatrix(transition.getS().getObservations());
-			var oldStateCopy = oldState.copy();
-			var newState = new OjAlgoMatrix(transition.getNewS().getObservations());
+		List<Matrix<Primitive64Matrix>> oldStates = new ArrayList<>(sample.size());
+		List<Matrix<Primitive64Matrix>> newStates = new ArrayList<>(sample.size());
+		for (var transition : sample) {
+			oldStates.add(new OjAlgoMatrix(transition.getS().getObservations()));
+			newStates.add(new OjAlgoMatrix(transition.getNewS().getObservations()));
+		}
+		// one batched pass per network instead of two predictions per transition
+		var oldQs = this.policy.predict(oldStates);
+		var newQs = this.target.predict(newStates);
+
+		List<NetworkInput<Primitive64Matrix>> out = new ArrayList<>(sample.size());
+		for (int i = 0; i < sample.size(); i++) {
+			var transition = sample.get(i);
 			var done = transition.isDone() ? 0 : 1;
 			var reward = transition.getReward();
 			var action = transition.getAction();
 
-			var oldQ = this.policy.predict(oldState).rawCopy();
-			var newQ = this.target.predict(newState);
-
-			var max = newQ.max();
+			var oldQ = oldQs.get(i).rawCopy();
+			var max = newQs.get(i).max();
 
 			oldQ[action][0] = max * gamma * done + reward;
 
-			return new NetworkInput<>(oldState.copy(), new OjAlgoMatrix(oldQ));
-		}).collect(Collectors.toList());
+			out.add(new NetworkInput<>(oldStates.get(i), new OjAlgoMatrix(oldQ)));
+		}
+		return out;
 	}
 
 	@Override
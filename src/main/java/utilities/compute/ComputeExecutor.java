@@ -0,0 +1,226 @@
+package utilities.compute;
+
+import static java.util.stream.Collectors.toList;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * The pool every parallel path of the library runs on: the examples of a batch, the Bellman
+ * targets of the DQN agent, the large products of {@link math.linearalgebra.simple.SMatrix}, the
+ * large {@link math.linearalgebra.Reductions} and the large {@link math.linearalgebra.Elementwise}
+ * operations.
+ * <p>
+ * Networks and kernels that are not given an executor of their own use {@link #shared()}, which
+ * is the JVM wide common pool until {@link #setShared(ComputeExecutor)} replaces it. A dedicated
+ * executor from {@link #create(int, String)} bounds how many cores training takes and names its
+ * threads, so they can be told apart in a profiler. The {@link #sequential()} executor has no
+ * pool and runs everything on the calling thread, for benchmarks and reproducible runs.
+ * <p>
+ * The kernels take no executor argument. Instead, {@link #forEach(List, Consumer)}, {@link
+ * #map(List, Function)} and {@link #run(Runnable)} bind the executor to the threads doing its
+ * work, and the kernels split across the {@link #bound()} executor before their own setting or
+ * the shared one. The examples and the optimizer steps of a network therefore run their products,
+ * reductions and element wise operations on the executor of that network, and two networks with
+ * different executors do not share a pool. Kernels called outside such a section, e.g. by a
+ * prediction, use their own setting or the shared executor.
+ */
+public final class ComputeExecutor implements AutoCloseable {
+
+	private static volatile ComputeExecutor shared = new ComputeExecutor(ForkJoinPool.commonPool(),
+		"common");
+
+	// the executor whose work the current thread is doing, null outside of it
+	private static final ThreadLocal<ComputeExecutor> BOUND = new ThreadLocal<>();
+
+	// null for the sequential executor
+	private final ForkJoinPool pool;
+	private final String name;
+
+	private ComputeExecutor(ForkJoinPool pool, String name) {
+		this.pool = pool;
+		this.name = name;
+	}
+
+	/**
+	 * @param parallelism number of worker threads
+	 * @param name        prefix of the thread names, which are numbered from 1
+	 *
+	 * @return an executor on a new pool, to be closed when no longer used
+	 */
+	public static ComputeExecutor create(int parallelism, String name) {
+		return new ComputeExecutor(newPool(parallelism, name), name);
+	}
+
+	/**
+	 * @return an executor without a pool, running the batch paths and the kernels on the calling
+	 * thread
+	 */
+	public static ComputeExecutor sequential() {
+		return new ComputeExecutor(null, "sequential");
+	}
+
+	private static ForkJoinPool newPool(int parallelism, String name) {
+		AtomicInteger count = new AtomicInteger();
+		return new ForkJoinPool(parallelism, p -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+			thread.setName(name + "-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}, null, false);
+	}
+
+	/**
+	 * @param pool an existing pool, which closing the executor will shut down unless it is the
+	 *             common pool
+	 *
+	 * @return an executor on the pool
+	 */
+	public static ComputeExecutor of(ForkJoinPool pool) {
+		return new ComputeExecutor(pool, pool == ForkJoinPool.commonPool() ? "common" : "pool");
+	}
+
+	/**
+	 * @return the executor of every network and kernel that has none of its own
+	 */
+	public static ComputeExecutor shared() {
+		return shared;
+	}
+
+	public static void setShared(ComputeExecutor executor) {
+		shared = executor;
+	}
+
+	/**
+	 * @return the executor whose work the calling thread is doing, see {@link #run(Runnable)}, or
+	 * null
+	 */
+	public static ComputeExecutor bound() {
+		return BOUND.get();
+	}
+
+	/**
+	 * @param fallback the setting of a kernel, may be null
+	 *
+	 * @return the executor a kernel splits across: the {@link #bound()} one, else fallback, else
+	 * the shared one
+	 */
+	public static ComputeExecutor resolve(ComputeExecutor fallback) {
+		ComputeExecutor out = BOUND.get();
+		if (out == null) {
+			out = fallback != null ? fallback : shared;
+		}
+		return out;
+	}
+
+	/**
+	 * Runs body on the calling thread with this executor bound, so the kernels it calls split
+	 * across this executor.
+	 */
+	public void run(Runnable body) {
+		call(() -> {
+			body.run();
+			return null;
+		});
+	}
+
+	private <R> R call(Supplier<R> body) {
+		ComputeExecutor previous = BOUND.get();
+		BOUND.set(this);
+		try {
+			return body.get();
+		} finally {
+			if (previous == null) {
+				BOUND.remove();
+			} else {
+				BOUND.set(previous);
+			}
+		}
+	}
+
+	/**
+	 * Runs action for every item, in parallel unless sequential, and returns once all are done.
+	 */
+	public <T> void forEach(List<T> items, Consumer<? super T> action) {
+		if (isSequential()) {
+			run(() -> items.forEach(action));
+			return;
+		}
+		// a parallel stream started from inside a pool splits across that pool
+		pool.invoke(ForkJoinTask.adapt(
+			() -> items.parallelStream().forEach(e -> run(() -> action.accept(e)))));
+	}
+
+	/**
+	 * @return mapping of every item, in the order of the items
+	 */
+	public <T, R> List<R> map(List<T> items, Function<? super T, ? extends R> mapping) {
+		if (isSequential()) {
+			return call(() -> items.stream().<R>map(mapping).collect(toList()));
+		}
+		return pool.invoke(ForkJoinTask.adapt(() -> items.parallelStream()
+			.<R>map(e -> call(() -> mapping.apply(e))).collect(toList())));
+	}
+
+	/**
+	 * Runs a fork join task, e.g. a split product or reduction, to completion. The sequential
+	 * executor has no pool to fork into, so kernels check {@link #isSequential()} first.
+	 *
+	 * @throws IllegalStateException if this executor is sequential
+	 */
+	public <T> T invoke(ForkJoinTask<T> task) {
+		if (isSequential()) {
+			throw new IllegalStateException("The sequential executor runs no fork join tasks.");
+		}
+		return pool.invoke(task);
+	}
+
+	public boolean isSequential() {
+		return pool == null;
+	}
+
+	public int parallelism() {
+		return isSequential() ? 1 : pool.getParallelism();
+	}
+
+	/**
+	 * @return tasks and submissions waiting in the queues of the pool, an estimate
+	 */
+	public long queueDepth() {
+		return isSequential() ? 0 : pool.getQueuedTaskCount() + pool.getQueuedSubmissionCount();
+	}
+
+	/**
+	 * @return tasks taken from the queue of another worker, an estimate
+	 */
+	public long stealCount() {
+		return isSequential() ? 0 : pool.getStealCount();
+	}
+
+	public int activeThreads() {
+		return isSequential() ? 0 : pool.getActiveThreadCount();
+	}
+
+	/**
+	 * Shuts the pool down once its tasks are done. The common pool is never shut down.
+	 */
+	@Override
+	public void close() {
+		if (pool != null && pool != ForkJoinPool.commonPool()) {
+			pool.shutdown();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+			"ComputeExecutor{name=%s, parallelism=%d, active=%d, queueDepth=%d, steals=%d}", name,
+			parallelism(), activeThreads(), queueDepth(), stealCount());
+	}
+}
@@ -0,0 +1,231 @@
+package utilities.serialise;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import java.util.Map;
+import java.util.Objects;
+import math.activations.ActivationFunction;
+import math.activations.DoNothingFunction;
+import math.costfunctions.CostFunction;
+import math.evaluation.EvaluationFunction;
+import math.linearalgebra.Matrix;
+import math.optimizers.Optimizer;
+import neuralnetwork.initialiser.InitialisationMethod;
+import neuralnetwork.initialiser.ParameterInitializer;
+import neuralnetwork.layer.LayeredNetworkBuilder;
+import neuralnetwork.layer.LayeredNeuralNetwork;
+import neuralnetwork.layer.NetworkLayer;
+
+/**
+ * The JSON layout shared by the serializers of {@link LayeredNeuralNetwork}:
+ * <p>
+ * "layers" ("neurons") or ("neurons", "activation", "weight", "bias", "l2"), "optimizer" ("name",
+ * "params"), "initializer" ("name", "weightmethod", "biasmethod"), "evaluator" ("name",
+ * "params"), "costfunction" ("name"), "networkLayout" and "clipping".
+ * <p>
+ * The backends only differ in how the weight and bias of a layer are written and read, e.g. as
+ * nested arrays of doubles or floats, or as offsets into a binary file, and in the properties
+ * they add next to them, e.g. "weightformat" for weights stored in 16 bits.
+ */
+public final class LayeredNetworkJson {
+
+	private LayeredNetworkJson() {
+	}
+
+	/**
+	 * Writes the weight and bias of a layer into its JSON object.
+	 */
+	@FunctionalInterface
+	public interface ParameterWriter<M> {
+
+		void write(NetworkLayer<M> layer, JsonObject out);
+	}
+
+	/**
+	 * Reads the parameter called name, "weight" or "bias", of a layer.
+	 */
+	@FunctionalInterface
+	public interface ParameterReader<M> {
+
+		Matrix<M> read(JsonObject layer, String name);
+	}
+
+	/**
+	 * Creates the initializer of the backend, used for the deltas of the network read.
+	 */
+	@FunctionalInterface
+	public interface InitializerFactory<M> {
+
+		ParameterInitializer<M> create(InitialisationMethod weights, InitialisationMethod biases,
+			String name);
+	}
+
+	/**
+	 * @param src        network to write, left unchanged
+	 * @param parameters writer of the weight and bias of each layer
+	 *
+	 * @return the JSON object of src
+	 */
+	public static <M> JsonObject write(LayeredNeuralNetwork<M> src, ParameterWriter<M> parameters) {
+		JsonObject networkSerialisation = new JsonObject();
+		// layers, without removing the input layer from the network
+		var layers = src.getLayers().subList(1, src.getLayers().size());
+
+		JsonArray layersArray = new JsonArray();
+		JsonObject firstL = new JsonObject();
+		firstL.addProperty("neurons", src.getLayers().get(0).getNeurons());
+		layersArray.add(firstL);
+
+		for (var l : layers) {
+			JsonObject layer = new JsonObject();
+			layer.addProperty("neurons", l.getNeurons());
+			layer.addProperty("activation", l.getFunction().getName());
+			parameters.write(l, layer);
+			layer.addProperty("l2", l.getL2());
+			layersArray.add(layer);
+		}
+		networkSerialisation.add("layers", layersArray);
+
+		JsonObject optimizer = new JsonObject();
+		optimizer.addProperty("name", src.getOptimizer().name());
+		optimizer.add("params", params(src.getOptimizer().params()));
+		networkSerialisation.add("optimizer", optimizer);
+
+		var init = src.getInitializer();
+		JsonObject initializer = new JsonObject();
+		initializer.addProperty("name", init.name());
+		initializer.addProperty("weightmethod", init.getMethods().left().getName());
+		initializer.addProperty("biasmethod", init.getMethods().right().getName());
+		networkSerialisation.add("initializer", initializer);
+
+		var evaluator = src.getEvaluationFunction();
+		JsonObject evaluatorObj = new JsonObject();
+		evaluatorObj.addProperty("name", evaluator.name());
+		evaluatorObj.add("params", params(evaluator.params()));
+		networkSerialisation.add("evaluator", evaluatorObj);
+
+		JsonObject costfunction = new JsonObject();
+		costfunction.addProperty("name", src.getCostFunction().name());
+		networkSerialisation.add("costfunction", costfunction);
+
+		JsonArray array = new JsonArray();
+		array.add(src.getInputSize());
+		layers.stream().mapToInt(NetworkLayer::getNeurons).forEach(array::add);
+		networkSerialisation.add("networkLayout", array);
+		networkSerialisation.add("clipping", new JsonPrimitive(src.isClipping()));
+
+		return networkSerialisation;
+	}
+
+	/**
+	 * Reads a network written by {@link #write(LayeredNeuralNetwork, ParameterWriter)}, looking up
+	 * its functions in the maps of the backend (see {@link NetworkDataCache}).
+	 */
+	public static <M> LayeredNeuralNetwork<M> read(JsonObject network,
+		InitializerFactory<M> initializers, ParameterReader<M> parameters,
+		Map<String, ActivationFunction<M>> functions, Map<String, Optimizer<M>> optimisers,
+		Map<String, EvaluationFunction<M>> evaluators, Map<String, CostFunction<M>> costFunctions) {
+		var layers = network.get("layers").getAsJsonArray();
+		LayeredNetworkBuilder<M> nBuilder = new LayeredNetworkBuilder<>();
+		NetworkLayer<M> first = new NetworkLayer<>(new DoNothingFunction<M>(),
+			layers.get(0).getAsJsonObject().get("neurons").getAsInt());
+
+		var initObj = network.get("initializer").getAsJsonObject();
+		ParameterInitializer<M> init = initializers.create(
+			InitialisationMethod.get(initObj.get("weightmethod").getAsString()),
+			InitialisationMethod.get(initObj.get("biasmethod").getAsString()),
+			initObj.get("name").getAsString());
+
+		var arr = network.get("networkLayout").getAsJsonArray();
+		int[] sizes = new int[arr.size()];
+		for (int i = 0; i < sizes.length; i++) {
+			sizes[i] = arr.get(i).getAsInt();
+		}
+		init.init(sizes);
+
+		var deltaB = init.getDeltaBiasParameters();
+		var deltaW = init.getDeltaWeightParameters();
+
+		nBuilder.layer(first);
+		for (int i = 1; i < layers.size(); i++) {
+			var lSrc = layers.get(i).getAsJsonObject();
+			int neurons = lSrc.get("neurons").getAsInt();
+			double l2 = lSrc.get("l2").getAsDouble();
+			ActivationFunction<M> act = functions.get(lSrc.get("activation").getAsString());
+
+			NetworkLayer<M> lr = new NetworkLayer<>(neurons, l2, act,
+				parameters.read(lSrc, "weight"), parameters.read(lSrc, "bias"));
+			lr.setPrecedingLayer(first);
+			lr.setDeltaBias(deltaB.get(i - 1));
+			lr.setDeltaWeight(deltaW.get(i - 1));
+			nBuilder.layer(lr);
+			first = lr;
+		}
+
+		var evalFunction = network.get("evaluator").getAsJsonObject();
+		EvaluationFunction<M> evaluator = evaluators.get(evalFunction.get("name").getAsString());
+		double[] evalParams = values(evalFunction.get("params").getAsJsonArray());
+		if (evalParams.length != 0) {
+			evaluator.init(evalParams);
+		}
+
+		var optimizerObj = network.get("optimizer").getAsJsonObject();
+		Optimizer<M> optimizer = optimisers.get(optimizerObj.get("name").getAsString());
+		double[] optimizerParams = values(optimizerObj.get("params").getAsJsonArray());
+		if (optimizerParams.length != 0) {
+			optimizer.init(optimizerParams);
+		}
+
+		nBuilder.initializer(init);
+		nBuilder.optimizer(optimizer);
+		var costObj = network.get("costfunction").getAsJsonObject();
+		nBuilder.costFunction(costFunctions.get(costObj.get("name").getAsString()));
+		nBuilder.evaluationFunction(evaluator);
+		nBuilder.clipping(network.get("clipping").getAsBoolean());
+
+		return nBuilder.deserialize();
+	}
+
+	/**
+	 * @return values as nested arrays, one per row
+	 */
+	public static JsonArray matrix(double[][] values) {
+		JsonArray out = new JsonArray();
+		for (double[] ds : values) {
+			JsonArray inner = new JsonArray();
+			for (double d : ds) {
+				inner.add(d);
+			}
+			out.add(inner);
+		}
+		return out;
+	}
+
+	/**
+	 * @return the rows of nested arrays written by {@link #matrix(double[][])}
+	 */
+	public static double[][] matrix(JsonArray nested) {
+		double[][] out = new double[nested.size()][];
+		for (int i = 0; i < out.length; i++) {
+			out[i] = values(nested.get(i).getAsJsonArray());
+		}
+		return out;
+	}
+
+	private static double[] values(JsonArray array) {
+		double[] out = new double[array.size()];
+		for (int i = 0; i < out.length; i++) {
+			out[i] = array.get(i).getAsDouble();
+		}
+		return out;
+	}
+
+	private static JsonArray params(Map<String, Double> params) {
+		JsonArray out = new JsonArray();
+		if (params != null) {
+			params.values().stream().filter(Objects::nonNull).forEach(out::add);
+		}
+		return out;
+	}
+}
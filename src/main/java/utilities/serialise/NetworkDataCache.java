@@ -16,12 +16,15 @@ import math.costfunctions.SmoothL1CostFunction;
 import math.evaluation.ArgMaxEvaluationFunction;
 import math.evaluation.EvaluationFunction;
 import math.evaluation.ThresholdEvaluationFunction;
+import math.linearalgebra.floats.FMatrix;
+import math.linearalgebra.offheap.DMatrix;
 import math.linearalgebra.simple.SMatrix;
 import math.optimizers.ADAM;
 import math.optimizers.Momentum;
 import math.optimizers.Optimizer;
 import math.optimizers.StochasticGradientDescent;
 import org.ojalgo.matrix.Primitive64Matrix;
+import org.ojalgo.matrix.store.Primitive64Store;
 
 public final class NetworkDataCache {
 
@@ -49,6 +52,31 @@ public final class NetworkDataCache {
 			new ArgMaxEvaluationFunction<>(), "Threshold Evaluation",
 			new ThresholdEvaluationFunction<>());
 
+	// OJALGO STORE
+
+	public static final Map<String, ActivationFunction<Primitive64Store>> ojStoreFunctions = Map
+		.of("DoNothing",
+			new DoNothingFunction<>(), "LeakyReLU", new LeakyReluFunction<>(), "Linear",
+			new LinearFunction<>(), "ReLU", new ReluFunction<>(), "Sigmoid",
+			new SigmoidFunction<>(), "Softmax", new SoftmaxFunction<>(), "Tanh",
+			new TanhFunction<>());
+
+	public static final Map<String, Optimizer<Primitive64Store>> ojStoreOptimisers = Map
+		.of("Adaptive Moment Estimation",
+			new ADAM<>(), "Stochastic Gradient Descent", new StochasticGradientDescent<>(),
+			"Momentum",
+			new Momentum<>());
+
+	public static final Map<String, EvaluationFunction<Primitive64Store>> ojStoreEvaluators = Map
+		.of("Argmax Evaluation",
+			new ArgMaxEvaluationFunction<>(), "Threshold Evaluation",
+			new ThresholdEvaluationFunction<>());
+
+	public static final Map<String, CostFunction<Primitive64Store>> ojStoreCostFunctions = Map
+		.of("Cross Entropy",
+			new CrossEntropyCostFunction<>(), "Mean Squared Error", new MeanSquaredCostFunction<>(),
+			"Huber Loss", new SmoothL1CostFunction<>());
+
 	// UJMP
 
 	public static final Map<String, ActivationFunction<org.ujmp.core.Matrix>> ujmpFunctions = Map
@@ -98,4 +126,54 @@ public final class NetworkDataCache {
 			new CrossEntropyCostFunction<>(), "Mean Squared Error", new MeanSquaredCostFunction<>(),
 			"Huber Loss", new SmoothL1CostFunction<>());
 
+	// FLOAT
+
+	public static final Map<String, ActivationFunction<FMatrix>> floatFunctions = Map
+		.of("DoNothing",
+			new DoNothingFunction<>(), "LeakyReLU", new LeakyReluFunction<>(), "Linear",
+			new LinearFunction<>(), "ReLU", new ReluFunction<>(), "Sigmoid",
+			new SigmoidFunction<>(), "Softmax", new SoftmaxFunction<>(), "Tanh",
+			new TanhFunction<>());
+
+	public static final Map<String, Optimizer<FMatrix>> floatOptimisers = Map
+		.of("Adaptive Moment Estimation",
+			new ADAM<>(), "Stochastic Gradient Descent", new StochasticGradientDescent<>(),
+			"Momentum",
+			new Momentum<>());
+
+	public static final Map<String, EvaluationFunction<FMatrix>> floatEvaluators = Map
+		.of("Argmax Evaluation",
+			new ArgMaxEvaluationFunction<>(), "Threshold Evaluation",
+			new ThresholdEvaluationFunction<>());
+
+	public static final Map<String, CostFunction<FMatrix>> floatCostFunctions = Map
+		.of("Cross Entropy",
+			new CrossEntropyCostFunction<>(), "Mean Squared Error", new MeanSquaredCostFunction<>(),
+			"Huber Loss", new SmoothL1CostFunction<>());
+
+	// OFF HEAP
+
+	public static final Map<String, ActivationFunction<DMatrix>> offHeapFunctions = Map
+		.of("DoNothing",
+			new DoNothingFunction<>(), "LeakyReLU", new LeakyReluFunction<>(), "Linear",
+			new LinearFunction<>(), "ReLU", new ReluFunction<>(), "Sigmoid",
+			new SigmoidFunction<>(), "Softmax", new SoftmaxFunction<>(), "Tanh",
+			new TanhFunction<>());
+
+	public static final Map<String, Optimizer<DMatrix>> offHeapOptimisers = Map
+		.of("Adaptive Moment Estimation",
+			new ADAM<>(), "Stochastic Gradient Descent", new StochasticGradientDescent<>(),
+			"Momentum",
+			new Momentum<>());
+
+	public static final Map<String, EvaluationFunction<DMatrix>> offHeapEvaluators = Map
+		.of("Argmax Evaluation",
+			new ArgMaxEvaluationFunction<>(), "Threshold Evaluation",
+			new ThresholdEvaluationFunction<>());
+
+	public static final Map<String, CostFunction<DMatrix>> offHeapCostFunctions = Map
+		.of("Cross Entropy",
+			new CrossEntropyCostFunction<>(), "Mean Squared Error", new MeanSquaredCostFunction<>(),
+			"Huber Loss", new SmoothL1CostFunction<>());
+
 }
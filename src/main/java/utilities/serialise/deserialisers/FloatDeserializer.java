@@ -0,0 +1,47 @@
+package utilities.serialise.deserialisers;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import lombok.extern.slf4j.Slf4j;
+import math.linearalgebra.floats.FMatrix;
+import math.linearalgebra.floats.FloatMatrix;
+import neuralnetwork.initialiser.ParameterInitializer;
+import neuralnetwork.layer.LayeredNeuralNetwork;
+import utilities.serialise.LayeredNetworkJson;
+import utilities.serialise.NetworkDataCache;
+
+@Slf4j
+public class FloatDeserializer {
+
+	@SuppressWarnings("unchecked")
+	private static LayeredNeuralNetwork<FMatrix> read(JsonObject network) {
+		return LayeredNetworkJson.read(network,
+			(weights, biases, name) -> (ParameterInitializer<FMatrix>) ParameterInitializer
+				.get(weights, biases, name, FMatrix.class),
+			(layer, name) -> new FloatMatrix(
+				LayeredNetworkJson.matrix(layer.get(name).getAsJsonArray())),
+			NetworkDataCache.floatFunctions, NetworkDataCache.floatOptimisers,
+			NetworkDataCache.floatEvaluators, NetworkDataCache.floatCostFunctions);
+	}
+
+	public LayeredNeuralNetwork<FMatrix> deserialize(File jsonFile) {
+
+		LayeredNeuralNetwork<FMatrix> out = null;
+		try (FileReader reader = new FileReader(jsonFile)) {
+			out = read(new JsonParser().parse(reader).getAsJsonObject());
+		} catch (IOException | JsonParseException e) {
+			log.error("Could not read network from {}.", jsonFile, e);
+		}
+
+		return out;
+	}
+
+	public LayeredNeuralNetwork<FMatrix> deserialize(String json) {
+		return read(new JsonParser().parse(json.trim()).getAsJsonObject());
+	}
+
+}
@@ -0,0 +1,87 @@
+package utilities.serialise.deserialisers;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import lombok.extern.slf4j.Slf4j;
+import math.linearalgebra.Matrix;
+import math.linearalgebra.offheap.DMatrix;
+import math.linearalgebra.offheap.OffHeapMatrix;
+import math.linearalgebra.offheap.OffHeapScope;
+import neuralnetwork.initialiser.OffHeapInitializer;
+import neuralnetwork.layer.LayeredNeuralNetwork;
+import utilities.serialise.LayeredNetworkJson;
+import utilities.serialise.NetworkDataCache;
+import utilities.serialise.serialisers.OffHeapSerializer;
+
+/**
+ * Reads the files of {@link OffHeapSerializer}. Every parameter is allocated in the scope and read
+ * from the file channel straight into its storage.
+ */
+@Slf4j
+public class OffHeapDeserializer {
+
+	private final OffHeapScope scope;
+
+	/**
+	 * @param scope owner of the parameters of the networks read
+	 */
+	public OffHeapDeserializer(OffHeapScope scope) {
+		this.scope = scope;
+	}
+
+	public LayeredNeuralNetwork<DMatrix> deserialize(File file) {
+
+		LayeredNeuralNetwork<DMatrix> out = null;
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			ByteBuffer length = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			readFully(channel, length, 0);
+			ByteBuffer json = ByteBuffer.allocate((int) length.getLong(0));
+			readFully(channel, json, Long.BYTES);
+			JsonObject network = new JsonParser().parse(new String(json.array(), UTF_8))
+				.getAsJsonObject();
+			long dataStart = OffHeapSerializer.align(Long.BYTES + json.capacity());
+			out = LayeredNetworkJson.read(network,
+				(weights, biases, name) -> new OffHeapInitializer(weights, biases, scope),
+				(layer, name) -> parameter(layer.get(name).getAsJsonObject(), channel, dataStart),
+				NetworkDataCache.offHeapFunctions, NetworkDataCache.offHeapOptimisers,
+				NetworkDataCache.offHeapEvaluators, NetworkDataCache.offHeapCostFunctions);
+		} catch (IOException | JsonParseException e) {
+			log.error("Could not read network from {}.", file, e);
+		} catch (UncheckedIOException e) {
+			log.error("Could not read network from {}.", file, e.getCause());
+		}
+
+		return out;
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+		throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new EOFException("Truncated network file.");
+			}
+		}
+	}
+
+	// the parameter {"rows", "cols", "offset"}, read into the scope
+	private Matrix<DMatrix> parameter(JsonObject src, FileChannel channel, long dataStart) {
+		OffHeapMatrix matrix = new OffHeapMatrix(
+			new DMatrix(scope, src.get("rows").getAsInt(), src.get("cols").getAsInt()));
+		try {
+			return matrix.readFrom(channel.position(dataStart + src.get("offset").getAsLong()));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
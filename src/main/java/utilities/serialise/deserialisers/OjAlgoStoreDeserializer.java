@@ -0,0 +1,47 @@
+package utilities.serialise.deserialisers;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import lombok.extern.slf4j.Slf4j;
+import math.linearalgebra.ojalgo.OjAlgoStoreMatrix;
+import neuralnetwork.initialiser.ParameterInitializer;
+import neuralnetwork.layer.LayeredNeuralNetwork;
+import org.ojalgo.matrix.store.Primitive64Store;
+import utilities.serialise.LayeredNetworkJson;
+import utilities.serialise.NetworkDataCache;
+
+@Slf4j
+public class OjAlgoStoreDeserializer {
+
+	@SuppressWarnings("unchecked")
+	private static LayeredNeuralNetwork<Primitive64Store> read(JsonObject network) {
+		return LayeredNetworkJson.read(network,
+			(weights, biases, name) -> (ParameterInitializer<Primitive64Store>)
+				ParameterInitializer.get(weights, biases, name, Primitive64Store.class),
+			(layer, name) -> new OjAlgoStoreMatrix(
+				LayeredNetworkJson.matrix(layer.get(name).getAsJsonArray())),
+			NetworkDataCache.ojStoreFunctions, NetworkDataCache.ojStoreOptimisers,
+			NetworkDataCache.ojStoreEvaluators, NetworkDataCache.ojStoreCostFunctions);
+	}
+
+	public LayeredNeuralNetwork<Primitive64Store> deserialize(File jsonFile) {
+
+		LayeredNeuralNetwork<Primitive64Store> out = null;
+		try (FileReader reader = new FileReader(jsonFile)) {
+			out = read(new JsonParser().parse(reader).getAsJsonObject());
+		} catch (IOException | JsonParseException e) {
+			log.error("Could not read network from {}.", jsonFile, e);
+		}
+
+		return out;
+	}
+
+	public LayeredNeuralNetwork<Primitive64Store> deserialize(String json) {
+		return read(new JsonParser().parse(json.trim()).getAsJsonObject());
+	}
+
+}
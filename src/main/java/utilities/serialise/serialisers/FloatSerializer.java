@@ -0,0 +1,44 @@
+package utilities.serialise.serialisers;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonPrimitive;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import lombok.extern.slf4j.Slf4j;
+import math.linearalgebra.floats.FMatrix;
+import neuralnetwork.layer.LayeredNeuralNetwork;
+import utilities.serialise.LayeredNetworkJson;
+
+/**
+ * Writes a float32 network in the same layout as {@link SimpleSerializer}. Parameters are written
+ * as floats, so the file holds the shortest representation of the stored values.
+ */
+@Slf4j
+public class FloatSerializer {
+
+    public void serialize(final File fileName, LayeredNeuralNetwork<FMatrix> network) {
+        String json = LayeredNetworkJson.write(network, (l, layer) -> {
+            layer.add("weight", floats(l.getWeight().rawCopy()));
+            layer.add("bias", floats(l.getBias().rawCopy()));
+        }).toString();
+
+        try (FileWriter fw = new FileWriter(fileName, false)) {
+            fw.write(json);
+        } catch (IOException e) {
+            log.error("Could not write network to {}.", fileName, e);
+        }
+    }
+
+    private static JsonArray floats(double[][] values) {
+        JsonArray out = new JsonArray();
+        for (double[] ds : values) {
+            JsonArray inner = new JsonArray();
+            for (double d : ds) {
+                inner.add(new JsonPrimitive((float) d));
+            }
+            out.add(inner);
+        }
+        return out;
+    }
+}
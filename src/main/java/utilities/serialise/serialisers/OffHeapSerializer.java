@@ -0,0 +1,75 @@
+package utilities.serialise.serialisers;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import com.google.gson.JsonObject;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import math.linearalgebra.Matrix;
+import math.linearalgebra.MatrixIO;
+import neuralnetwork.layer.LayeredNeuralNetwork;
+import utilities.serialise.LayeredNetworkJson;
+
+/**
+ * Writes a network as a binary file: the length of a JSON header as a little-endian long, the
+ * header, in the layout of {@link SimpleSerializer} with every weight and bias replaced by its
+ * shape and offset, and the parameters, aligned to 8 bytes. Each parameter is written with {@link
+ * Matrix#writeTo(java.nio.channels.WritableByteChannel)}, its {@link MatrixIO} header and its
+ * elements in the order of its backend, so the storage of an off heap network is
+ * handed to the file channel as is and never copied onto the heap. Any backend can be written;
+ * the file is read back as an off heap network.
+ */
+@Slf4j
+public class OffHeapSerializer {
+
+    public <M> void serialize(final File fileName, LayeredNeuralNetwork<M> network) {
+        List<Matrix<M>> parameters = new ArrayList<>();
+        byte[] json = LayeredNetworkJson.write(network, (l, layer) -> {
+            layer.add("weight", parameter(l.getWeight(), parameters));
+            layer.add("bias", parameter(l.getBias(), parameters));
+        }).toString().getBytes(UTF_8);
+        int dataStart = align(Long.BYTES + json.length);
+
+        try (FileChannel channel = FileChannel.open(fileName.toPath(), CREATE, WRITE,
+                TRUNCATE_EXISTING)) {
+            ByteBuffer head = ByteBuffer.allocate(dataStart).order(ByteOrder.LITTLE_ENDIAN);
+            head.putLong(json.length).put(json).clear();
+            MatrixIO.write(channel, head);
+            for (Matrix<M> parameter : parameters) {
+                parameter.writeTo(channel);
+            }
+        } catch (IOException e) {
+            log.error("Could not write network to {}.", fileName, e);
+        }
+    }
+
+    /**
+     * @return offset of the parameters in a file whose header takes the given number of bytes
+     */
+    public static int align(long headerBytes) {
+        return (int) (headerBytes + Long.BYTES - 1) / Long.BYTES * Long.BYTES;
+    }
+
+    // adds {"rows", "cols", "offset"} of the parameter and queues it for writing
+    private static <M> JsonObject parameter(Matrix<M> matrix, List<Matrix<M>> parameters) {
+        long offset = 0;
+        for (Matrix<M> previous : parameters) {
+            offset += MatrixIO.bytes(previous);
+        }
+        parameters.add(matrix);
+        JsonObject out = new JsonObject();
+        out.addProperty("rows", matrix.rows());
+        out.addProperty("cols", matrix.cols());
+        out.addProperty("offset", offset);
+        return out;
+    }
+}
@@ -0,0 +1,29 @@
+package utilities.serialise.serialisers;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import lombok.extern.slf4j.Slf4j;
+import neuralnetwork.layer.LayeredNeuralNetwork;
+import org.ojalgo.matrix.store.Primitive64Store;
+import utilities.serialise.LayeredNetworkJson;
+
+/**
+ * Writes an ojAlgo store network in the same layout as {@link SimpleSerializer}.
+ */
+@Slf4j
+public class OjAlgoStoreSerializer {
+
+    public void serialize(final File fileName, LayeredNeuralNetwork<Primitive64Store> network) {
+        String json = LayeredNetworkJson.write(network, (l, layer) -> {
+            layer.add("weight", LayeredNetworkJson.matrix(l.getWeight().rawCopy()));
+            layer.add("bias", LayeredNetworkJson.matrix(l.getBias().rawCopy()));
+        }).toString();
+
+        try (FileWriter fw = new FileWriter(fileName, false)) {
+            fw.write(json);
+        } catch (IOException e) {
+            log.error("Could not write network to {}.", fileName, e);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package math.linearalgebra;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import math.linearalgebra.floats.FloatMatrix;
+import math.linearalgebra.simple.SMatrix;
+import math.linearalgebra.simple.SimpleMatrix;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import utilities.compute.ComputeExecutor;
+
+public class ElementwiseTest {
+
+	private ComputeExecutor executor;
+	private int threshold;
+
+	@Before
+	public void setUp() {
+		executor = ComputeExecutor.create(4, "elementwise-test");
+		threshold = Elementwise.getParallelThreshold();
+		Elementwise.setExecutor(executor);
+	}
+
+	@After
+	public void tearDown() {
+		Elementwise.setParallelThreshold(threshold);
+		Elementwise.setExecutor(null);
+		executor.close();
+	}
+
+	@Test
+	public void splitsLargeRangesOnly() {
+		Elementwise.setParallelThreshold(1 << 10);
+		Set<Thread> threads = ConcurrentHashMap.newKeySet();
+		Elementwise.forEach((1 << 10) - 1, (from, to) -> threads.add(Thread.currentThread()));
+		assertEquals(Set.of(Thread.currentThread()), threads);
+
+		int[] covered = new int[Elementwise.MIN_TASK_SIZE * 8 + 3];
+		Elementwise.forEach(covered.length, (from, to) -> {
+			for (int i = from; i < to; i++) {
+				covered[i]++;
+			}
+		});
+		for (int count : covered) {
+			assertEquals(1, count);
+		}
+	}
+
+	@Test
+	public void parallelMatchesSequential() {
+		Random random = new Random(9);
+		// a view with a stride, so rows are not contiguous
+		double[][] values = new double[300][400];
+		for (double[] row : values) {
+			for (int j = 0; j < row.length; j++) {
+				row[j] = random.nextGaussian();
+			}
+		}
+		Matrix<SMatrix> a = new SimpleMatrix(values).sliceColumns(7, 390);
+		Matrix<SMatrix> b = new SimpleMatrix(values).sliceColumns(3, 386).mapValues(Math::abs);
+		Matrix<?> fa = new FloatMatrix(a.rawCopy());
+		Matrix<?> fb = new FloatMatrix(b.rawCopy());
+
+		Elementwise.setParallelThreshold(Integer.MAX_VALUE);
+		double[][][] expected = compute(a, b);
+		double[][][] expectedFloat = computeFloat(fa, fb);
+		Elementwise.setParallelThreshold(1);
+		assertEqualResults(expected, compute(a, b));
+		assertEqualResults(expectedFloat, computeFloat(fa, fb));
+	}
+
+	private static double[][][] compute(Matrix<SMatrix> a, Matrix<SMatrix> b) {
+		return new double[][][]{a.add(b).rawCopy(), a.hadamard(b).rawCopy(),
+			a.divide(b).rawCopy(), a.mapValues(Math::tanh).rawCopy(),
+			a.copy().subtractInPlace(b).rawCopy(),
+			a.copy().zipWithInPlace(b, (x, y) -> x * 0.9 + y * 0.1).rawCopy()};
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static double[][][] computeFloat(Matrix a, Matrix b) {
+		return new double[][][]{a.add(b).rawCopy(), a.hadamard(b).rawCopy(),
+			a.divide(b).rawCopy(), a.mapValues(Math::tanh).rawCopy(),
+			a.copy().subtractInPlace(b).rawCopy(), a.copy().scaleInPlace(0.5).rawCopy()};
+	}
+
+	private static void assertEqualResults(double[][][] expected, double[][][] actual) {
+		for (int k = 0; k < expected.length; k++) {
+			for (int i = 0; i < expected[k].length; i++) {
+				assertArrayEquals(expected[k][i], actual[k][i], 0);
+			}
+		}
+	}
+}
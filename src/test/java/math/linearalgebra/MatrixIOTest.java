@@ -0,0 +1,142 @@
+package math.linearalgebra;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.util.Random;
+import java.util.function.Function;
+import math.linearalgebra.floats.FloatMatrix;
+import math.linearalgebra.offheap.OffHeapMatrix;
+import math.linearalgebra.offheap.OffHeapScope;
+import math.linearalgebra.ojalgo.OjAlgoMatrix;
+import math.linearalgebra.ojalgo.OjAlgoStoreMatrix;
+import math.linearalgebra.simple.SMatrix;
+import math.linearalgebra.simple.SimpleMatrix;
+import math.linearalgebra.ujmp.UJMPMatrix;
+import org.junit.Test;
+import utilities.exceptions.MatrixException;
+
+public class MatrixIOTest {
+
+	private final double[][] values = values(new Random(5), 4, 3);
+
+	@Test
+	public void roundTripsEveryBackend() {
+		check(SimpleMatrix::new, 0);
+		check(OjAlgoMatrix::new, 0);
+		check(OjAlgoStoreMatrix::new, 0);
+		check(UJMPMatrix::new, 0);
+		check(FloatMatrix::new, 1e-6);
+		try (OffHeapScope scope = new OffHeapScope(0)) {
+			check(v -> new OffHeapMatrix(scope, v), 0);
+		}
+	}
+
+	@Test
+	public void layoutIsSharedAcrossBackends() {
+		// a column major backend written as it stores its elements and a row major one read, in
+		// big-endian order
+		ByteBuffer buffer = ByteBuffer.allocate(MatrixIO.HEADER + values.length * 3 * Double.BYTES)
+			.order(ByteOrder.BIG_ENDIAN);
+		new UJMPMatrix(values).writeTo(buffer);
+		assertEquals(1, buffer.getLong(0));
+		assertEquals(values[1][0], buffer.getDouble(MatrixIO.HEADER + Double.BYTES), 0);
+
+		buffer.flip();
+		Matrix<SMatrix> read = new SimpleMatrix(new SMatrix(4, 3)).readFrom(buffer);
+		assertEquals(0, buffer.remaining());
+		assertEqual(values, read.rawCopy(), 0);
+	}
+
+	@Test
+	public void roundTripsThroughChannels() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (OffHeapScope scope = new OffHeapScope(0)) {
+			new OffHeapMatrix(scope, values).writeTo(Channels.newChannel(bytes));
+		}
+		new OjAlgoStoreMatrix(values).writeTo(Channels.newChannel(bytes));
+		assertEquals(2 * (MatrixIO.HEADER + 12 * Double.BYTES), bytes.size());
+
+		ByteArrayInputStream in = new ByteArrayInputStream(bytes.toByteArray());
+		Matrix<SMatrix> first = new SimpleMatrix(new SMatrix(4, 3));
+		first.readFrom(Channels.newChannel(in));
+		assertEqual(values, first.rawCopy(), 0);
+		try (OffHeapScope scope = new OffHeapScope(0)) {
+			OffHeapMatrix second = new OffHeapMatrix(scope, new double[4][3]);
+			second.readFrom(Channels.newChannel(in));
+			assertEqual(values, second.rawCopy(), 0);
+		}
+	}
+
+	@Test
+	public void readsEitherOrderIntoEveryBackend() {
+		ByteBuffer rowMajor = ByteBuffer.allocate(MatrixIO.bytes(new SimpleMatrix(values)));
+		new SimpleMatrix(values).writeTo(rowMajor);
+		ByteBuffer columnMajor = ByteBuffer.allocate(rowMajor.capacity());
+		new OjAlgoStoreMatrix(values).writeTo(columnMajor);
+		assertEquals(0, rowMajor.getLong(0));
+		assertEquals(1, columnMajor.getLong(0));
+
+		for (ByteBuffer buffer : new ByteBuffer[]{rowMajor, columnMajor}) {
+			assertEqual(values, new SimpleMatrix(new double[4][3]).readFrom(buffer.flip())
+				.rawCopy(), 0);
+			assertEqual(values, new OjAlgoMatrix(new double[4][3]).readFrom(buffer.flip())
+				.rawCopy(), 0);
+			assertEqual(values, new OjAlgoStoreMatrix(new double[4][3]).readFrom(buffer.flip())
+				.rawCopy(), 0);
+			assertEqual(values, new UJMPMatrix(new double[4][3]).readFrom(buffer.flip())
+				.rawCopy(), 0);
+			assertEqual(values, new FloatMatrix(new double[4][3]).readFrom(buffer.flip())
+				.rawCopy(), 1e-6);
+		}
+	}
+
+	@Test(expected = MatrixException.class)
+	public void rejectsMissingHeaders() {
+		ByteBuffer buffer = ByteBuffer.allocate(MatrixIO.bytes(new SimpleMatrix(values)));
+		buffer.putLong(0, 2);
+		new SimpleMatrix(new double[4][3]).readFrom(buffer);
+	}
+
+	@Test(expected = MatrixException.class)
+	public void rejectsTooSmallBuffers() {
+		new SimpleMatrix(values).writeTo(ByteBuffer.allocate(MatrixIO.HEADER + 11 * Double.BYTES));
+	}
+
+	private <M> void check(Function<double[][], Matrix<M>> factory, double delta) {
+		Matrix<M> source = factory.apply(values);
+		ByteBuffer buffer = ByteBuffer.allocate(MatrixIO.bytes(source) + 3).order(MatrixIO.ORDER);
+		// at an offset, so the views of the buffer do not start at zero
+		buffer.position(3);
+		source.writeTo(buffer);
+		assertEquals(0, buffer.remaining());
+
+		buffer.position(3);
+		Matrix<M> target = factory.apply(new double[4][3]);
+		target.readFrom(buffer);
+		assertEqual(values, target.rawCopy(), delta);
+	}
+
+	private static void assertEqual(double[][] expected, double[][] actual, double delta) {
+		assertEquals(expected.length, actual.length);
+		for (int i = 0; i < expected.length; i++) {
+			assertArrayEquals(expected[i], actual[i], delta);
+		}
+	}
+
+	private static double[][] values(Random random, int rows, int cols) {
+		double[][] values = new double[rows][cols];
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < cols; j++) {
+				values[i][j] = random.nextGaussian();
+			}
+		}
+		return values;
+	}
+}
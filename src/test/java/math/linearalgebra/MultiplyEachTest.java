@@ -0,0 +1,61 @@
+package math.linearalgebra;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import math.linearalgebra.floats.FloatMatrix;
+import math.linearalgebra.ojalgo.OjAlgoMatrix;
+import math.linearalgebra.ojalgo.OjAlgoStoreMatrix;
+import math.linearalgebra.simple.SimpleMatrix;
+import math.linearalgebra.ujmp.UJMPMatrix;
+import org.junit.Test;
+
+public class MultiplyEachTest {
+
+	private final Random random = new Random(11);
+	private final double[][] weight = values(4, 3);
+
+	@Test
+	public void matchesOneProductPerVector() {
+		check(SimpleMatrix::new, 0);
+		check(OjAlgoMatrix::new, 0);
+		check(OjAlgoStoreMatrix::new, 0);
+		check(UJMPMatrix::new, 0);
+		check(FloatMatrix::new, 1e-5);
+	}
+
+	private <M> void check(Function<double[][], Matrix<M>> factory, double delta) {
+		Matrix<M> w = factory.apply(weight);
+		List<Matrix<M>> vectors = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			vectors.add(factory.apply(values(3, 1)));
+		}
+		// a block of two columns among the vectors
+		vectors.add(factory.apply(values(3, 2)));
+
+		List<Matrix<M>> products = w.multiplyEach(vectors);
+		assertEquals(vectors.size(), products.size());
+		for (int i = 0; i < vectors.size(); i++) {
+			double[][] expected = w.multiply(vectors.get(i)).rawCopy();
+			double[][] actual = products.get(i).rawCopy();
+			assertEquals(expected.length, actual.length);
+			for (int r = 0; r < expected.length; r++) {
+				assertArrayEquals(expected[r], actual[r], delta);
+			}
+		}
+	}
+
+	private double[][] values(int rows, int cols) {
+		double[][] values = new double[rows][cols];
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < cols; j++) {
+				values[i][j] = random.nextGaussian();
+			}
+		}
+		return values;
+	}
+}
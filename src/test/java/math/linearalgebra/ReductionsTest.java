@@ -0,0 +1,89 @@
+package math.linearalgebra;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import math.linearalgebra.ojalgo.OjAlgoMatrix;
+import math.linearalgebra.simple.SimpleMatrix;
+import math.linearalgebra.ujmp.UJMPMatrix;
+import org.junit.Test;
+
+public class ReductionsTest {
+
+	@Test
+	public void pairwiseSumIsMoreAccurate() {
+		Random random = new Random(3);
+		double[] a = new double[1 << 20];
+		BigDecimal exact = BigDecimal.ZERO;
+		double naive = 0;
+		for (int i = 0; i < a.length; i++) {
+			a[i] = random.nextDouble() * 1e-3 + 1;
+			exact = exact.add(new BigDecimal(a[i]));
+			naive += a[i];
+		}
+		double pairwise = Reductions.sum(a, 0, a.length);
+		double errorNaive = Math.abs(exact.subtract(new BigDecimal(naive)).doubleValue());
+		double errorPairwise = Math.abs(exact.subtract(new BigDecimal(pairwise)).doubleValue());
+		assertEquals(true, errorPairwise <= errorNaive);
+		assertEquals(exact.doubleValue(), pairwise, 1e-9);
+	}
+
+	@Test
+	public void parallelMatchesSequential() {
+		Random random = new Random(5);
+		double[] a = new double[100_003];
+		for (int i = 0; i < a.length; i++) {
+			a[i] = random.nextGaussian();
+		}
+		int threshold = Reductions.getParallelThreshold();
+		try {
+			Reductions.setParallelThreshold(Integer.MAX_VALUE);
+			double sum = Reductions.sum(a, 3, a.length);
+			double squares = Reductions.sumOfSquares(a, 0, a.length);
+			double dot = Reductions.dot(a, 0, a, 1, a.length - 1);
+			double max = Reductions.max(a, 0, a.length);
+			Reductions.setParallelThreshold(1);
+			assertEquals(Double.doubleToLongBits(sum),
+				Double.doubleToLongBits(Reductions.sum(a, 3, a.length)));
+			assertEquals(Double.doubleToLongBits(squares),
+				Double.doubleToLongBits(Reductions.sumOfSquares(a, 0, a.length)));
+			assertEquals(Double.doubleToLongBits(dot),
+				Double.doubleToLongBits(Reductions.dot(a, 0, a, 1, a.length - 1)));
+			assertEquals(max, Reductions.max(a, 0, a.length), 0);
+		} finally {
+			Reductions.setParallelThreshold(threshold);
+		}
+	}
+
+	@Test
+	public void argMaxWithStride() {
+		double[] a = {1, 9, 4, 2, 7, 8, 4, 0};
+		// first column of a 4 x 2 row-major matrix
+		assertEquals(2, Reductions.argMax(a, 0, 4, 2));
+		assertEquals(-1, Reductions.argMax(a, 0, 0, 1));
+	}
+
+	@Test
+	public void backendsAgree() {
+		double[][] values = {{-1, 2, -3}, {4, -5, 6}};
+		double[][] other = {{2, 0, 1}, {1, 1, -1}};
+		Matrix<?>[][] pairs = {
+			{new SimpleMatrix(values), new SimpleMatrix(other)},
+			{new OjAlgoMatrix(values), new OjAlgoMatrix(other)},
+			{new UJMPMatrix(values), new UJMPMatrix(other)}};
+		for (Matrix<?>[] pair : pairs) {
+			check(pair[0], pair[1]);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <M> void check(Matrix<M> m, Matrix<?> other) {
+		String name = m.name();
+		assertEquals(name, 3, m.sum(), 0);
+		assertEquals(name, 91, m.sumOfSquares(), 0);
+		assertEquals(name, 6, m.max(), 0);
+		assertEquals(name, -5, m.min(), 0);
+		assertEquals(name, -12, m.dot((Matrix<M>) other), 0);
+	}
+}
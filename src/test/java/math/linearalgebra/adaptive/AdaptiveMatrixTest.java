@@ -0,0 +1,109 @@
+package math.linearalgebra.adaptive;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import math.linearalgebra.Matrix;
+import math.linearalgebra.simple.SMatrix;
+import math.linearalgebra.simple.SimpleMatrix;
+import org.junit.After;
+import org.junit.Test;
+
+public class AdaptiveMatrixTest {
+
+	private final KernelProfile previous = AdaptiveMatrix.getProfile();
+
+	@After
+	public void tearDown() {
+		AdaptiveMatrix.setProfile(previous);
+	}
+
+	@Test
+	public void everyKernelMultiplies() {
+		SMatrix a = SMatrix.random(37, 70);
+		SMatrix b = SMatrix.random(70, 5);
+		double[][] expected = new SimpleMatrix(a).multiply(new SimpleMatrix(b)).rawCopy();
+		for (Kernel kernel : Kernel.values()) {
+			AdaptiveMatrix.setProfile(new KernelProfile(EnumSet.of(kernel)));
+			double[][] out = new AdaptiveMatrix(a).multiply(new SimpleMatrix(b)).rawCopy();
+			for (int i = 0; i < expected.length; i++) {
+				assertArrayEquals(kernel.name(), expected[i], out[i], 1e-9);
+			}
+		}
+	}
+
+	@Test
+	public void ojAlgoKernelOnViews() {
+		SMatrix a = SMatrix.random(6, 8);
+		SMatrix b = SMatrix.random(8, 8);
+		SMatrix c = new SMatrix(6, 8);
+		Kernel.OJALGO.multiplyInto(a, b.sliceColumns(2, 5), c.sliceColumns(0, 3));
+		double[][] expected = a.times(b.sliceColumns(2, 5)).rawCopy();
+		double[][] out = c.sliceColumns(0, 3).rawCopy();
+		for (int i = 0; i < expected.length; i++) {
+			assertArrayEquals(expected[i], out[i], 1e-9);
+		}
+	}
+
+	@Test
+	public void fusedLayerAndWrapping() {
+		AdaptiveMatrix.setProfile(new KernelProfile(EnumSet.of(Kernel.NAIVE)));
+		AdaptiveMatrix w = new AdaptiveMatrix(new double[][]{{1, 2}, {3, 4}});
+		AdaptiveMatrix x = new AdaptiveMatrix(new double[]{1, -1});
+		AdaptiveMatrix bias = new AdaptiveMatrix(new double[]{0.5, 0.5});
+		AdaptiveMatrix z = new AdaptiveMatrix(new double[2]);
+
+		Matrix<SMatrix> out = w.multiplyAddMap(x, bias, e -> Math.max(0, e), z);
+		assertArrayEquals(new double[]{0, 0}, column(out), 0);
+		assertArrayEquals(new double[]{-0.5, -0.5}, column(z), 0);
+		assertTrue(w.add(1).subtract(w) instanceof AdaptiveMatrix);
+		assertTrue(w.zeroes(3, 3) instanceof AdaptiveMatrix);
+	}
+
+	@Test
+	public void profileRoundTrip() throws Exception {
+		KernelProfile profile = new KernelProfile();
+		Kernel small = profile.kernelFor(2, 2, 1);
+		Kernel large = profile.kernelFor(100, 784, 1);
+		assertEquals(2, profile.kernels().size());
+
+		Path file = Files.createTempFile("kernels", ".properties");
+		try {
+			profile.save(file);
+			KernelProfile loaded = KernelProfile.load(file);
+			assertEquals(profile.kernels(), loaded.kernels());
+			assertEquals(small, loaded.kernelFor(2, 2, 1));
+			assertEquals(large, loaded.kernelFor(128, 1000, 1));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void concurrentCallersAgreeOnTheKernel() {
+		KernelProfile profile = new KernelProfile();
+		List<Kernel> chosen = IntStream.range(0, 8).parallel()
+			.mapToObj(i -> profile.kernelFor(64, 64, 8))
+			.collect(Collectors.toList());
+		for (Kernel kernel : chosen) {
+			assertEquals(chosen.get(0), kernel);
+		}
+		assertEquals(1, profile.kernels().size());
+	}
+
+	private static double[] column(Matrix<SMatrix> m) {
+		double[][] values = m.rawCopy();
+		double[] out = new double[values.length];
+		for (int i = 0; i < values.length; i++) {
+			out[i] = values[i][0];
+		}
+		return out;
+	}
+}
@@ -0,0 +1,165 @@
+package math.linearalgebra.bridge;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import math.activations.SoftmaxFunction;
+import math.activations.TanhFunction;
+import math.costfunctions.CrossEntropyCostFunction;
+import math.evaluation.ArgMaxEvaluationFunction;
+import math.linearalgebra.Matrix;
+import math.linearalgebra.offheap.OffHeapScope;
+import math.linearalgebra.ojalgo.OjAlgoStoreMatrix;
+import math.linearalgebra.simple.SMatrix;
+import math.linearalgebra.simple.SimpleMatrix;
+import math.optimizers.ADAM;
+import neuralnetwork.NetworkBuilder;
+import neuralnetwork.NeuralNetwork;
+import neuralnetwork.initialiser.MethodConstants;
+import neuralnetwork.initialiser.SimpleInitializer;
+import neuralnetwork.inputs.NetworkInput;
+import neuralnetwork.layer.LayeredNetworkBuilder;
+import neuralnetwork.layer.LayeredNeuralNetwork;
+import neuralnetwork.layer.NetworkLayer;
+import org.junit.Test;
+import org.ojalgo.matrix.store.Primitive64Store;
+import utilities.types.Pair;
+
+public class BackendTest {
+
+	private static final double[][] VALUES = values(new Random(3), 3, 5);
+
+	@Test
+	public void conversionsKeepElements() {
+		try (OffHeapScope scope = new OffHeapScope(0)) {
+			List<Backend<?>> backends = List.of(Backend.SIMPLE, Backend.ADAPTIVE,
+				Backend.OJALGO_STORE, Backend.OJALGO, Backend.UJMP, Backend.offHeap(scope));
+			for (Backend<?> from : backends) {
+				Matrix<?> source = from.convert(new SimpleMatrix(VALUES));
+				for (Backend<?> to : backends) {
+					assertValues(VALUES, to.convert(source).rawCopy(), 0);
+				}
+				assertValues(VALUES, Backend.FLOAT.convert(source).rawCopy(), 1e-6);
+			}
+		}
+	}
+
+	@Test
+	public void sameOrderSharesStorage() {
+		SimpleMatrix simple = new SimpleMatrix(VALUES);
+		Matrix<?> shared = Backend.SIMPLE.share(simple);
+		assertSame(simple.delegate().storage(), FlatStorage.of(shared).rowMajor());
+
+		Primitive64Store store = Primitive64Store.FACTORY.rows(VALUES);
+		Matrix<?> ujmp = Backend.UJMP.share(new OjAlgoStoreMatrix(store));
+		assertSame(store.data, FlatStorage.of(ujmp).columnMajor());
+	}
+
+	@Test
+	public void convertCopies() {
+		SimpleMatrix simple = new SimpleMatrix(VALUES);
+		Matrix<?> converted = Backend.SIMPLE.convert(simple);
+		assertNotSame(simple.delegate().storage(), FlatStorage.of(converted).rowMajor());
+
+		simple.scaleInPlace(2);
+		assertValues(VALUES, converted.rawCopy(), 0);
+		assertValues(VALUES, Backend.UJMP.convert(Backend.OJALGO_STORE.convert(converted))
+			.rawCopy(), 0);
+	}
+
+	@Test
+	public void trainingTheConvertedNetworkLeavesTheSource() {
+		LayeredNeuralNetwork<SMatrix> layered = new LayeredNetworkBuilder<SMatrix>()
+			.optimizer(new ADAM<>(0.01, 0.9, 0.999))
+			.costFunction(new CrossEntropyCostFunction<>())
+			.evaluationFunction(new ArgMaxEvaluationFunction<>())
+			.initializer(new SimpleInitializer(MethodConstants.XAVIER, MethodConstants.SCALAR))
+			.layer(new NetworkLayer<>(new TanhFunction<>(), 2))
+			.layer(new NetworkLayer<>(new TanhFunction<>(), 4))
+			.layer(new NetworkLayer<>(new SoftmaxFunction<>(), 2)).create();
+		List<double[][]> before = values(layered.getParameters());
+		LayeredNeuralNetwork<SMatrix> converted = layered.convert(Backend.SIMPLE,
+			new SimpleInitializer(MethodConstants.XAVIER, MethodConstants.SCALAR));
+		List<NetworkInput<SMatrix>> data = xor();
+		converted.train(data, data, 3, 4, true);
+
+		assertUnchanged(before, values(layered.getParameters()));
+		assertFalse(Arrays.deepEquals(before.get(0), values(converted.getParameters()).get(0)));
+
+		NeuralNetwork<SMatrix> network = new NetworkBuilder<SMatrix>(3).setFirstLayer(2)
+			.setLayer(4, new TanhFunction<>()).setLastLayer(2, new SoftmaxFunction<>())
+			.setCostFunction(new CrossEntropyCostFunction<>())
+			.setOptimizer(new ADAM<>(0.01, 0.9, 0.999))
+			.setInitialiser(new SimpleInitializer(MethodConstants.XAVIER, MethodConstants.SCALAR))
+			.setEvaluationFunction(new ArgMaxEvaluationFunction<>()).compile();
+		before = values(network.getParameters());
+		NeuralNetwork<SMatrix> same = network.convert(Backend.SIMPLE,
+			new SimpleInitializer(MethodConstants.XAVIER, MethodConstants.SCALAR));
+		same.train(data, 3, 4);
+
+		assertUnchanged(before, values(network.getParameters()));
+	}
+
+	private static List<NetworkInput<SMatrix>> xor() {
+		double[][] x = {{0, 1}, {1, 0}, {1, 1}, {0, 0}};
+		double[][] y = {{1, 0}, {1, 0}, {0, 1}, {0, 1}};
+		List<NetworkInput<SMatrix>> data = new ArrayList<>();
+		for (int i = 0; i < 16; i++) {
+			data.add(new NetworkInput<>(new SimpleMatrix(x[i % 4]), new SimpleMatrix(y[i % 4])));
+		}
+		return data;
+	}
+
+	// the weights and biases of every layer, copied
+	private static <M> List<double[][]> values(List<Pair<Matrix<M>, Matrix<M>>> parameters) {
+		List<double[][]> out = new ArrayList<>();
+		for (var p : parameters) {
+			out.add(p.left().rawCopy());
+			out.add(p.right().rawCopy());
+		}
+		return out;
+	}
+
+	private static void assertUnchanged(List<double[][]> expected, List<double[][]> actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertValues(expected.get(i), actual.get(i), 0);
+		}
+	}
+
+	@Test
+	public void transposedOrder() {
+		FlatStorage storage = FlatStorage.of(Backend.OJALGO_STORE.convert(new SimpleMatrix(VALUES)));
+		double[] rowMajor = storage.rowMajor();
+		assertEquals(VALUES.length * VALUES[0].length, rowMajor.length);
+		for (int i = 0; i < VALUES.length; i++) {
+			for (int j = 0; j < VALUES[0].length; j++) {
+				assertEquals(VALUES[i][j], rowMajor[i * VALUES[0].length + j], 0);
+			}
+		}
+	}
+
+	private static void assertValues(double[][] expected, double[][] actual, double delta) {
+		assertEquals(expected.length, actual.length);
+		for (int i = 0; i < expected.length; i++) {
+			assertArrayEquals(expected[i], actual[i], delta);
+		}
+	}
+
+	private static double[][] values(Random random, int rows, int cols) {
+		double[][] values = new double[rows][cols];
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < cols; j++) {
+				values[i][j] = random.nextGaussian();
+			}
+		}
+		return values;
+	}
+}
@@ -0,0 +1,86 @@
+package math.linearalgebra.floats;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import math.linearalgebra.Matrix;
+import org.apache.log4j.BasicConfigurator;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FloatMatrixTest {
+
+	@Before
+	public void setUp() throws Exception {
+		BasicConfigurator.configure();
+	}
+
+	@Test
+	public void rows() {
+		FloatMatrix matrix = new FloatMatrix(new double[][]{{1, 1, 2}, {1, 3, 1}});
+		assertEquals(2, matrix.rows());
+	}
+
+	@Test
+	public void cols() {
+		FloatMatrix matrix = new FloatMatrix(new double[][]{{1, 1, 2}, {1, 3, 1}});
+		assertEquals(3, matrix.cols());
+	}
+
+	@Test
+	public void multiply() {
+		FloatMatrix id = new FloatMatrix(new double[][]{{1, 0}, {0, 1}});
+		FloatMatrix out = new FloatMatrix(new double[][]{{2, 3}, {1, 5}});
+
+		FloatMatrix matrix = new FloatMatrix(new double[][]{{1, 1}, {0, 1}});
+		FloatMatrix otherMatrix = new FloatMatrix(new double[][]{{2, 3}, {1, 5}});
+		FloatMatrix expectedMult = new FloatMatrix(new double[][]{{3, 8}, {1, 5}});
+
+		assertEquals(out, out.multiply(id));
+		assertEquals(expectedMult, matrix.multiply(otherMatrix));
+	}
+
+	@Test
+	public void accumulatesInDouble() {
+		// 2^24 + 1 is not representable as a float, a float accumulator would drop every +1.
+		int n = 1 << 12;
+		double[][] row = new double[1][n];
+		double[] column = new double[n];
+		for (int i = 0; i < n; i++) {
+			row[0][i] = 1;
+			column[i] = 1;
+		}
+		row[0][0] = 1 << 24;
+		FloatMatrix product = new FloatMatrix(row).multiply(new FloatMatrix(column));
+
+		assertEquals((float) ((1 << 24) + n - 1), product.rawCopy()[0][0], 0d);
+		assertEquals((1 << 24) + n - 1, new FloatMatrix(row).sum(), 0d);
+	}
+
+	@Test
+	public void mapElements() {
+		FloatMatrix m = new FloatMatrix(
+			new double[][]{{9, 1_000_000, 4}, {1, 16, 49}, {25, 81, 100}});
+		assertEquals(new FloatMatrix(new double[][]{{3, 1000, 2}, {1, 4, 7}, {5, 9, 10}}),
+			m.mapElements(Math::sqrt));
+	}
+
+	@Test
+	public void batchOperations() {
+		FloatMatrix batch = new FloatMatrix(new double[][]{{1, 5, 2}, {4, 0, 6}});
+		Matrix<FMatrix> stacked = batch.stackColumns(Arrays.asList(
+			new FloatMatrix(new double[]{1, 4}),
+			new FloatMatrix(new double[]{5, 0}),
+			new FloatMatrix(new double[]{2, 6})));
+		assertArrayEquals(batch.rawCopy(), stacked.rawCopy());
+
+		assertArrayEquals(new double[][]{{5, 2}, {0, 6}}, batch.sliceColumns(1, 3).rawCopy());
+		assertArrayEquals(new double[][]{{4, 0, 6}}, batch.sliceRows(1, 2).rawCopy());
+		assertArrayEquals(new double[][]{{11, 15, 12}, {24, 20, 26}},
+			batch.broadcastAdd(new FloatMatrix(new double[]{10, 20})).rawCopy());
+		assertArrayEquals(new double[][]{{8}, {10}}, batch.sumRows().rawCopy());
+		assertArrayEquals(new double[][]{{4, 5, 6}}, batch.maxPerColumn().rawCopy());
+		assertArrayEquals(new int[]{1, 0, 1}, batch.argMaxPerColumn());
+	}
+}
@@ -0,0 +1,128 @@
+package math.linearalgebra.half;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Random;
+import math.linearalgebra.Matrix;
+import math.linearalgebra.simple.SMatrix;
+import math.linearalgebra.simple.SimpleMatrix;
+import org.junit.Test;
+
+public class HalfMatrixTest {
+
+	@Test
+	public void formatsRoundTripEveryPattern() {
+		for (HalfFormat format : HalfFormat.values()) {
+			for (int h = 0; h < 1 << 16; h++) {
+				float f = format.widen((short) h);
+				if (!Float.isNaN(f)) {
+					assertEquals(format + " " + h, (short) h, format.narrow(f));
+				}
+			}
+		}
+		assertEquals(65504f, HalfFormat.FLOAT16.widen(HalfFormat.FLOAT16.narrow(65519f)), 0);
+		assertEquals(Float.POSITIVE_INFINITY,
+			HalfFormat.FLOAT16.widen(HalfFormat.FLOAT16.narrow(65520f)), 0);
+		// ties to even
+		assertEquals(1f, HalfFormat.FLOAT16.widen(HalfFormat.FLOAT16.narrow(1 + 0x1p-11f)), 0);
+		assertEquals(1f, HalfFormat.BFLOAT16.widen(HalfFormat.BFLOAT16.narrow(1 + 0x1p-8f)), 0);
+	}
+
+	@Test
+	public void productsMatchDoubles() {
+		Random random = new Random(5);
+		double[][] w = new double[12][30];
+		double[][] x = new double[30][4];
+		double[][] d = new double[12][4];
+		fill(random, w);
+		fill(random, x);
+		fill(random, d);
+		for (HalfFormat format : HalfFormat.values()) {
+			HalfMatrix half = new HalfMatrix(w, format);
+			SimpleMatrix widened = new SimpleMatrix(half.rawCopy());
+			assertClose(widened.multiply(new SimpleMatrix(x)),
+				half.multiply(new SimpleMatrix(x)));
+			assertClose(widened.multiplyTransposeLeft(new SimpleMatrix(d)),
+				half.multiplyTransposeLeft(new SimpleMatrix(d)));
+			// the rounding itself stays within the precision of the format
+			double ulp = format == HalfFormat.FLOAT16 ? 0x1p-11 : 0x1p-8;
+			for (int i = 0; i < w.length; i++) {
+				for (int j = 0; j < w[i].length; j++) {
+					assertEquals(w[i][j], half.rawCopy()[i][j], Math.abs(w[i][j]) * ulp);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void inPlaceUpdatesStayHalf() {
+		HalfMatrix half = new HalfMatrix(new double[][]{{1, 2}, {3, 4}}, HalfFormat.FLOAT16);
+		Matrix<SMatrix> result = half.subtractInPlace(new SimpleMatrix(new double[][]{{0.5, 0.5}, {
+			0.5, 0.5}}));
+		assertEquals(half, result);
+		assertArrayEquals(new double[]{0.5, 1.5}, half.rawCopy()[0], 0);
+		half.setDelegate(new SMatrix(new double[][]{{1.0 / 3, 0}, {0, 0}}));
+		assertEquals(0.333251953125, half.rawCopy()[0][0], 0);
+
+		// assigned values are rounded into the storage, plain matrices are copied
+		assertSame(half, half.assign(new SimpleMatrix(new double[][]{{1.0 / 3, 1}, {2, 3}})));
+		assertEquals(0.333251953125, half.rawCopy()[0][0], 0);
+		SimpleMatrix plain = new SimpleMatrix(new double[][]{{1, 2}, {3, 4}});
+		assertNotSame(plain, plain.assign(half));
+		assertArrayEquals(half.rawCopy()[1], plain.assign(half).rawCopy()[1], 0);
+	}
+
+	@Test
+	public void inPlaceOperationsRoundEachElement() {
+		Random random = new Random(9);
+		double[][] w = new double[5][7], x = new double[5][7], column = new double[5][1];
+		fill(random, w);
+		fill(random, x);
+		fill(random, column);
+		SimpleMatrix other = new SimpleMatrix(x);
+		for (HalfFormat format : HalfFormat.values()) {
+			// the same as rounding the double result of every operation
+			HalfMatrix half = new HalfMatrix(w, format);
+			Matrix<SMatrix> expected = new SimpleMatrix(half.rawCopy());
+			half.addInPlace(other).hadamardInPlace(other).scaleInPlace(0.3).subtractInPlace(other)
+				.divideInPlace(other).broadcastAddInPlace(new SimpleMatrix(column))
+				.mapValuesInPlace(Math::tanh).zipWithInPlace(other, Math::max);
+			expected = round(expected.add(other), format);
+			expected = round(expected.hadamard(other), format);
+			expected = round(expected.multiply(0.3), format);
+			expected = round(expected.subtract(other), format);
+			expected = round(expected.divide(other), format);
+			expected = round(expected.broadcastAdd(new SimpleMatrix(column)), format);
+			expected = round(expected.mapValues(Math::tanh), format);
+			expected = round(expected.zipWith(other, Math::max), format);
+			for (int i = 0; i < w.length; i++) {
+				assertArrayEquals(expected.rawCopy()[i], half.rawCopy()[i], 0);
+			}
+
+			half.fill(1.0 / 3);
+			assertEquals(format.widen(format.narrow(1f / 3)), half.rawCopy()[4][6], 0);
+		}
+	}
+
+	private static Matrix<SMatrix> round(Matrix<SMatrix> m, HalfFormat format) {
+		return new SimpleMatrix(new HMatrix(m.rawCopy(), format).rawCopy());
+	}
+
+	private static void fill(Random random, double[][] values) {
+		for (double[] row : values) {
+			for (int j = 0; j < row.length; j++) {
+				row[j] = random.nextGaussian();
+			}
+		}
+	}
+
+	private static void assertClose(Matrix<SMatrix> expected, Matrix<SMatrix> actual) {
+		double[][] e = expected.rawCopy(), a = actual.rawCopy();
+		for (int i = 0; i < e.length; i++) {
+			assertArrayEquals(e[i], a[i], 1e-5);
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package math.linearalgebra.instrumented;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import math.linearalgebra.Matrix;
+import math.linearalgebra.instrumented.MatrixProfile.Op;
+import math.linearalgebra.simple.SMatrix;
+import math.linearalgebra.simple.SimpleMatrix;
+import org.junit.Test;
+
+public class InstrumentedMatrixTest {
+
+	private final double[][] a = {{1, 2, 3}, {4, 5, 6}};
+	private final double[][] b = {{1, 0}, {0, 1}, {2, 2}};
+
+	@Test
+	public void countsProductsAndDecoratesResults() {
+		MatrixProfile profile = new MatrixProfile();
+		Matrix<SMatrix> left = new InstrumentedMatrix<>(new SimpleMatrix(a), profile);
+		Matrix<SMatrix> out = left.multiply(new SimpleMatrix(b));
+
+		assertTrue(out instanceof InstrumentedMatrix);
+		assertArrayEquals(new SimpleMatrix(a).multiply(new SimpleMatrix(b)).rawCopy()[0],
+			out.rawCopy()[0], 0);
+		assertEquals(1, profile.calls(Op.MULTIPLY));
+		assertEquals(2 * 2 * 3 * 2, profile.flops(Op.MULTIPLY));
+		assertEquals(4 * Double.BYTES, profile.bytes(Op.MULTIPLY));
+		assertTrue(profile.report().contains("MULTIPLY"));
+	}
+
+	@Test
+	public void inPlaceAndIntoKeepTheirTargets() {
+		MatrixProfile profile = new MatrixProfile();
+		Matrix<SMatrix> left = new InstrumentedMatrix<>(new SimpleMatrix(a), profile);
+		Matrix<SMatrix> destination = new InstrumentedMatrix<>(new SimpleMatrix(new SMatrix(2, 2)),
+			profile);
+
+		assertSame(left, left.addInPlace(new InstrumentedMatrix<>(new SimpleMatrix(a), profile)));
+		assertEquals(12, left.rawCopy()[1][2], 0);
+		assertSame(destination, left.multiplyInto(new SimpleMatrix(b), destination));
+		assertEquals(2 + 12, destination.rawCopy()[0][0], 0);
+
+		assertEquals(1, profile.calls(Op.ELEMENTWISE_IN_PLACE));
+		assertEquals(0, profile.bytes(Op.ELEMENTWISE_IN_PLACE));
+		profile.reset();
+		assertEquals(0, profile.calls(Op.MULTIPLY));
+	}
+}
@@ -0,0 +1,102 @@
+package math.linearalgebra.lazy;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import math.linearalgebra.Matrix;
+import math.linearalgebra.simple.SMatrix;
+import math.linearalgebra.simple.SimpleMatrix;
+import org.apache.log4j.BasicConfigurator;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LazyMatrixTest {
+
+	private final SimpleMatrix a = new SimpleMatrix(new double[][]{{1, 4}, {9, 16}});
+	private final SimpleMatrix b = new SimpleMatrix(new double[][]{{2, 2}, {3, 3}});
+	private final SimpleMatrix c = new SimpleMatrix(new double[][]{{1, -1}, {1, -1}});
+	private final SimpleMatrix d = new SimpleMatrix(new double[][]{{0, 1}, {2, 3}});
+
+	@Before
+	public void setUp() throws Exception {
+		BasicConfigurator.configure();
+	}
+
+	@Test
+	public void singleMatrixChain() {
+		Matrix<SMatrix> lazy = LazyMatrix.of(a).mapValues(Math::sqrt).add(1).multiply(2)
+			.hadamard(LazyMatrix.of(a));
+		Matrix<SMatrix> eager = a.mapValues(Math::sqrt).add(1).multiply(2).hadamard(a);
+
+		assertArrayEquals(eager.rawCopy(), lazy.rawCopy());
+		assertEquals(new SimpleMatrix(new double[][]{{1, 4}, {9, 16}}), a);
+	}
+
+	@Test
+	public void twoMatrixChain() {
+		Matrix<SMatrix> lazy = LazyMatrix.of(a).divide(2).multiply(3)
+			.divide(LazyMatrix.of(b).mapValues(Math::sqrt).add(1e-6));
+		Matrix<SMatrix> eager = a.divide(2).multiply(3).divide(b.mapValues(Math::sqrt).add(1e-6));
+
+		assertEquals(eager, new SimpleMatrix(lazy.delegate()));
+		assertEquals(eager.multiply(c), lazy.multiply(c));
+	}
+
+	@Test
+	public void wideChain() {
+		Matrix<SMatrix> lazy = LazyMatrix.of(a).add(b).subtract(LazyMatrix.of(c).hadamard(d))
+			.divide(LazyMatrix.of(d).add(b).add(c));
+		Matrix<SMatrix> eager = a.add(b).subtract(c.hadamard(d)).divide(d.add(b).add(c));
+
+		assertArrayEquals(eager.rawCopy(), lazy.rawCopy());
+		assertEquals(eager.sum(), lazy.sum(), 1e-12);
+	}
+
+	@Test
+	public void evaluatesOnce() {
+		LazyMatrix<SMatrix> lazy = LazyMatrix.of(a).add(b);
+		Matrix<SMatrix> value = lazy.evaluate();
+		assertSame(value, lazy.evaluate());
+		assertSame(a, LazyMatrix.of(a).evaluate());
+
+		lazy.scaleInPlace(2);
+		assertEquals(new SimpleMatrix(new double[][]{{6, 12}, {24, 38}}), value);
+	}
+
+	@Test
+	public void evaluatesIntoAMatrix() {
+		SimpleMatrix left = new SimpleMatrix(a.rawCopy());
+		SimpleMatrix right = new SimpleMatrix(b.rawCopy());
+		SimpleMatrix other = new SimpleMatrix(new double[2][2]);
+		Matrix<SMatrix> expected = a.multiply(0.5).add(b.multiply(2));
+
+		// into the left leaf, the right leaf and a third matrix
+		assertSame(left, LazyMatrix.of(left).multiply(0.5).add(LazyMatrix.of(b).multiply(2))
+			.evaluateInto(left));
+		assertSame(right, LazyMatrix.of(a).multiply(0.5).add(LazyMatrix.of(right).multiply(2))
+			.evaluateInto(right));
+		LazyMatrix<SMatrix> lazy = LazyMatrix.of(a).multiply(0.5).add(LazyMatrix.of(b).multiply(2));
+		lazy.evaluateInto(other);
+		assertEquals(expected, left);
+		assertEquals(expected, right);
+		assertEquals(expected, other);
+		assertSame(other, lazy.evaluate());
+
+		SimpleMatrix single = new SimpleMatrix(a.rawCopy());
+		LazyMatrix.of(single).mapValues(Math::sqrt).evaluateInto(single);
+		assertEquals(new SimpleMatrix(new double[][]{{1, 2}, {3, 4}}), single);
+	}
+
+	@Test
+	public void copyIsASnapshot() {
+		SimpleMatrix leaf = new SimpleMatrix(new double[][]{{1, 2}, {3, 4}});
+		Matrix<SMatrix> lazy = LazyMatrix.of(leaf).multiply(2);
+		Matrix<SMatrix> copy = lazy.copy();
+
+		// changing the leaf in place, as ADAM does with its moments
+		leaf.scaleInPlace(10);
+		assertArrayEquals(new double[][]{{2, 4}, {6, 8}}, copy.rawCopy());
+		assertArrayEquals(new double[][]{{2, 4}, {6, 8}}, lazy.rawCopy());
+	}
+}
@@ -0,0 +1,95 @@
+package math.linearalgebra.offheap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import math.linearalgebra.Matrix;
+import math.linearalgebra.simple.SMatrix;
+import math.linearalgebra.simple.SimpleMatrix;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import utilities.exceptions.MatrixException;
+
+public class OffHeapMatrixTest {
+
+	private OffHeapScope scope;
+
+	@Before
+	public void setUp() {
+		scope = new OffHeapScope(0);
+	}
+
+	@After
+	public void tearDown() {
+		scope.close();
+	}
+
+	@Test
+	public void productsMatchSimpleMatrix() {
+		Random random = new Random(7);
+		// wider than a tile, so the products run over several tiles
+		double[][] a = values(random, 3, DMatrix.TILE_SIZE + 5);
+		double[][] b = values(random, DMatrix.TILE_SIZE + 5, 2);
+		double[][] c = values(random, 3, 2);
+		double[][] d = values(random, 4, DMatrix.TILE_SIZE + 5);
+
+		assertClose(new SimpleMatrix(a).multiply(new SimpleMatrix(b)),
+			new OffHeapMatrix(scope, a).multiply(new OffHeapMatrix(scope, b)));
+		assertClose(new SimpleMatrix(c).multiplyTransposeLeft(new SimpleMatrix(c)),
+			new OffHeapMatrix(scope, c).multiplyTransposeLeft(new OffHeapMatrix(scope, c)));
+		assertClose(new SimpleMatrix(a).multiplyTransposeRight(new SimpleMatrix(d)),
+			new OffHeapMatrix(scope, a).multiplyTransposeRight(new OffHeapMatrix(scope, d)));
+		assertClose(new SimpleMatrix(b).transpose(), new OffHeapMatrix(scope, b).transpose());
+		assertEquals(new SimpleMatrix(a).sum(), new OffHeapMatrix(scope, a).sum(), 1e-9);
+	}
+
+	@Test
+	public void slicesAndInPlaceOperations() {
+		OffHeapMatrix m = new OffHeapMatrix(scope, new double[][]{{1, 2, 3}, {4, 5, 6}});
+		assertArrayEquals(new double[]{2, 3}, m.sliceColumns(1, 3).rawCopy()[0], 0);
+		assertArrayEquals(new double[]{4, 5, 6}, m.sliceRows(1, 2).rawCopy()[0], 0);
+		m.addInPlace(m.copy()).scaleInPlace(0.5).broadcastAddInPlace(
+			new OffHeapMatrix(scope, new double[]{1, -1}));
+		assertArrayEquals(new double[]{3, 4, 5}, m.rawCopy()[1], 0);
+		assertArrayEquals(new int[]{1, 1, 1}, m.argMaxPerColumn());
+	}
+
+	@Test
+	public void smallMatricesStayOnTheHeap() {
+		try (OffHeapScope mixed = new OffHeapScope(4)) {
+			assertFalse(new DMatrix(mixed, 1, 3).isDirect());
+			assertTrue(new DMatrix(mixed, 2, 2).isDirect());
+			assertEquals(4 * Double.BYTES, mixed.directBytes());
+		}
+	}
+
+	@Test(expected = MatrixException.class)
+	public void closedScopeThrows() {
+		OffHeapMatrix m = new OffHeapMatrix(scope, new double[][]{{1, 2}, {3, 4}});
+		scope.close();
+		assertEquals(0, scope.directBytes());
+		m.sum();
+	}
+
+	private static double[][] values(Random random, int rows, int cols) {
+		double[][] out = new double[rows][cols];
+		for (double[] row : out) {
+			for (int j = 0; j < cols; j++) {
+				row[j] = random.nextGaussian();
+			}
+		}
+		return out;
+	}
+
+	private static void assertClose(Matrix<SMatrix> expected, Matrix<DMatrix> actual) {
+		double[][] e = expected.rawCopy(), a = actual.rawCopy();
+		assertEquals(e.length, a.length);
+		for (int i = 0; i < e.length; i++) {
+			assertArrayEquals(e[i], a[i], 1e-9);
+		}
+	}
+}
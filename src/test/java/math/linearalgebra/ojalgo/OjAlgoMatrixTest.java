@@ -1,10 +1,14 @@
 package math.linearalgebra.ojalgo;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
+import java.util.Arrays;
+import math.linearalgebra.Matrix;
 import org.apache.log4j.BasicConfigurator;
 import org.junit.Before;
 import org.junit.Test;
+import org.ojalgo.matrix.Primitive64Matrix;
 
 public class OjAlgoMatrixTest {
 
@@ -88,4 +92,22 @@ public class OjAlgoMatrixTest {
 
 		assertEquals(new OjAlgoMatrix(new double[][]{{3, 1000, 2}, {1, 4, 7}, {5, 9, 10}}), m);
 	}
+
+	@Test
+	public void batchOperations() {
+		OjAlgoMatrix batch = new OjAlgoMatrix(new double[][]{{1, 5, 2}, {4, 0, 6}});
+		Matrix<Primitive64Matrix> stacked = batch.stackColumns(Arrays.asList(
+			new OjAlgoMatrix(new double[]{1, 4}),
+			new OjAlgoMatrix(new double[]{5, 0}),
+			new OjAlgoMatrix(new double[]{2, 6})));
+		assertArrayEquals(batch.rawCopy(), stacked.rawCopy());
+
+		assertArrayEquals(new double[][]{{5, 2}, {0, 6}}, batch.sliceColumns(1, 3).rawCopy());
+		assertArrayEquals(new double[][]{{4, 0, 6}}, batch.sliceRows(1, 2).rawCopy());
+		assertArrayEquals(new double[][]{{11, 15, 12}, {24, 20, 26}},
+			batch.broadcastAdd(new OjAlgoMatrix(new double[]{10, 20})).rawCopy());
+		assertArrayEquals(new double[][]{{8}, {10}}, batch.sumRows().rawCopy());
+		assertArrayEquals(new double[][]{{4, 5, 6}}, batch.maxPerColumn().rawCopy());
+		assertArrayEquals(new int[]{1, 0, 1}, batch.argMaxPerColumn());
+	}
 }
\ No newline at end of file
@@ -0,0 +1,92 @@
+package math.linearalgebra.ojalgo;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import math.linearalgebra.Matrix;
+import org.apache.log4j.BasicConfigurator;
+import org.junit.Before;
+import org.junit.Test;
+import org.ojalgo.matrix.store.Primitive64Store;
+
+public class OjAlgoStoreMatrixTest {
+
+	@Before
+	public void setUp() throws Exception {
+		BasicConfigurator.configure();
+	}
+
+	@Test
+	public void multiply() {
+		OjAlgoStoreMatrix id = new OjAlgoStoreMatrix(new double[][]{{1, 0}, {0, 1}});
+		OjAlgoStoreMatrix out = new OjAlgoStoreMatrix(new double[][]{{2, 3}, {1, 5}});
+		OjAlgoStoreMatrix expectedIdOut = new OjAlgoStoreMatrix(out);
+
+		OjAlgoStoreMatrix matrix = new OjAlgoStoreMatrix(new double[][]{{1, 1}, {0, 1}});
+		OjAlgoStoreMatrix expectedMult = new OjAlgoStoreMatrix(new double[][]{{3, 8}, {1, 5}});
+
+		assertEquals(expectedIdOut, out.multiply(id));
+		assertEquals(expectedMult, matrix.multiply(out));
+	}
+
+	@Test
+	public void transposedProducts() {
+		OjAlgoStoreMatrix a = new OjAlgoStoreMatrix(new double[][]{{1, 2}, {3, 4}, {5, 6}});
+		OjAlgoStoreMatrix b = new OjAlgoStoreMatrix(new double[][]{{1, 0, 2}, {0, 1, 1}});
+
+		assertEquals(a.transpose().multiply(b.transpose()), a.multiplyTransposeLeft(b.transpose()));
+		assertEquals(b.multiply(a), b.multiplyTransposeRight(a.transpose()));
+	}
+
+	@Test
+	public void inPlace() {
+		OjAlgoStoreMatrix m = new OjAlgoStoreMatrix(new double[][]{{1, 2}, {3, 4}});
+		OjAlgoStoreMatrix other = new OjAlgoStoreMatrix(new double[][]{{4, 3}, {2, 1}});
+		Primitive64Store storage = m.delegate();
+
+		m.addInPlace(other).scaleInPlace(2).subtractInPlace(other).mapValuesInPlace(e -> e + 1);
+		assertEquals(new OjAlgoStoreMatrix(new double[][]{{7, 8}, {9, 10}}), m);
+		assertSame(storage, m.delegate());
+
+		OjAlgoStoreMatrix destination = new OjAlgoStoreMatrix(new double[][]{{9, 9}, {9, 9}});
+		new OjAlgoStoreMatrix(new double[][]{{1, 1}, {0, 1}}).multiplyInto(other, destination);
+		assertEquals(new OjAlgoStoreMatrix(new double[][]{{6, 4}, {2, 1}}), destination);
+	}
+
+	@Test
+	public void reductions() {
+		OjAlgoStoreMatrix m = new OjAlgoStoreMatrix(new double[]{3, -1, 4, 1});
+		assertEquals(7, m.sum(), 0d);
+		assertEquals(4, m.max(), 0d);
+		assertEquals(2, m.argMax());
+		assertEquals(Math.sqrt(27), m.norm(), 1e-12);
+	}
+
+	@Test
+	public void mapElements() {
+		OjAlgoStoreMatrix m = new OjAlgoStoreMatrix(
+			new double[][]{{9, 1_000_000, 4}, {1, 16, 49}, {25, 81, 100}});
+		assertEquals(new OjAlgoStoreMatrix(new double[][]{{3, 1000, 2}, {1, 4, 7}, {5, 9, 10}}),
+			m.mapElements(Math::sqrt));
+	}
+
+	@Test
+	public void batchOperations() {
+		OjAlgoStoreMatrix batch = new OjAlgoStoreMatrix(new double[][]{{1, 5, 2}, {4, 0, 6}});
+		Matrix<Primitive64Store> stacked = batch.stackColumns(Arrays.asList(
+			new OjAlgoStoreMatrix(new double[]{1, 4}),
+			new OjAlgoStoreMatrix(new double[]{5, 0}),
+			new OjAlgoStoreMatrix(new double[]{2, 6})));
+		assertArrayEquals(batch.rawCopy(), stacked.rawCopy());
+
+		assertArrayEquals(new double[][]{{5, 2}, {0, 6}}, batch.sliceColumns(1, 3).rawCopy());
+		assertArrayEquals(new double[][]{{4, 0, 6}}, batch.sliceRows(1, 2).rawCopy());
+		assertArrayEquals(new double[][]{{11, 15, 12}, {24, 20, 26}},
+			batch.broadcastAdd(new OjAlgoStoreMatrix(new double[]{10, 20})).rawCopy());
+		assertArrayEquals(new double[][]{{8}, {10}}, batch.sumRows().rawCopy());
+		assertArrayEquals(new double[][]{{4, 5, 6}}, batch.maxPerColumn().rawCopy());
+		assertArrayEquals(new int[]{1, 0, 1}, batch.argMaxPerColumn());
+	}
+}
@@ -0,0 +1,50 @@
+package math.linearalgebra.quantized;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import math.linearalgebra.simple.SMatrix;
+import org.junit.Test;
+
+public class Int8MatrixTest {
+
+	@Test
+	public void roundTripWithinHalfAStep() {
+		double[][] values = {{-1, 0.5, 0.25}, {0, 0, 0}, {100, -3, 7}};
+		Int8Matrix q = Int8Matrix.quantizeRows(values);
+		double[][] back = q.dequantize();
+		for (int i = 0; i < values.length; i++) {
+			assertArrayEquals(values[i], back[i], q.scale(i) / 2 + 1e-12);
+		}
+		assertEquals(0, q.scale(1), 0);
+		assertEquals(1, q.scale(0) * 127, 1e-12);
+	}
+
+	@Test
+	public void productMatchesDoubles() {
+		Random random = new Random(11);
+		double[][] w = new double[20][50];
+		double[][] x = new double[50][3];
+		for (double[] row : w) {
+			for (int j = 0; j < row.length; j++) {
+				row[j] = random.nextGaussian();
+			}
+		}
+		for (double[] row : x) {
+			for (int j = 0; j < row.length; j++) {
+				row[j] = random.nextDouble();
+			}
+		}
+		double[] bias = new double[20];
+		bias[3] = 1;
+		double[][] expected = new SMatrix(w).times(new SMatrix(x)).rawCopy();
+		expected[3] = new double[]{expected[3][0] + 1, expected[3][1] + 1, expected[3][2] + 1};
+
+		double[][] out = Int8Matrix.quantizeRows(w)
+			.timesTransposeDequantized(Int8Matrix.quantizeColumns(x), bias);
+		for (int i = 0; i < expected.length; i++) {
+			assertArrayEquals(expected[i], out[i], 0.1);
+		}
+	}
+}
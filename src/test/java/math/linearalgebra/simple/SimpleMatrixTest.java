@@ -1,8 +1,14 @@
 package math.linearalgebra.simple;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
 
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import math.linearalgebra.Matrix;
 import org.apache.log4j.BasicConfigurator;
 import org.junit.Before;
 import org.junit.Test;
@@ -42,6 +48,64 @@ public class SimpleMatrixTest {
 		assertEquals(expectedMult, matrix.multiply(otherMatrix));
 	}
 
+	@Test
+	public void blockedMultiply() {
+		// Spans several tiles in every dimension, including ragged edges.
+		double[][] a = randomValues(150, 97);
+		double[][] b = randomValues(97, 131);
+		double[][] expected = new double[150][131];
+		for (int i = 0; i < 150; i++) {
+			for (int j = 0; j < 131; j++) {
+				for (int k = 0; k < 97; k++) {
+					expected[i][j] += a[i][k] * b[k][j];
+				}
+			}
+		}
+
+		double[][] actual = new SimpleMatrix(a).multiply(new SimpleMatrix(b)).rawCopy();
+		for (int i = 0; i < 150; i++) {
+			assertArrayEquals(expected[i], actual[i], 1e-9);
+		}
+
+		double[][] vector = randomValues(97, 1);
+		double[][] gemv = new SimpleMatrix(a).multiply(new SimpleMatrix(vector)).rawCopy();
+		for (int i = 0; i < 150; i++) {
+			double dot = 0;
+			for (int k = 0; k < 97; k++) {
+				dot += a[i][k] * vector[k][0];
+			}
+			assertEquals(dot, gemv[i][0], 1e-9);
+		}
+	}
+
+	@Test
+	public void parallelMultiply() {
+		double[][] a = randomValues(300, 120);
+		double[][] b = randomValues(120, 90);
+		double[][] vector = randomValues(120, 1);
+
+		long threshold = SMatrix.getParallelThreshold();
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			// 300 x 120 x 90 is above the default threshold, the reference must not split
+			SMatrix.setParallelThreshold(Long.MAX_VALUE);
+			SimpleMatrix sequential = new SimpleMatrix(a).multiply(new SimpleMatrix(b));
+			SimpleMatrix sequentialVector = new SimpleMatrix(a).multiply(new SimpleMatrix(vector));
+
+			SMatrix.setPool(pool);
+			SMatrix.setParallelThreshold(0);
+			SimpleMatrix parallel = new SimpleMatrix(a).multiply(new SimpleMatrix(b));
+			SimpleMatrix parallelVector = new SimpleMatrix(a).multiply(new SimpleMatrix(vector));
+
+			assertEquals(sequential, parallel);
+			assertEquals(sequentialVector, parallelVector);
+		} finally {
+			SMatrix.setParallelThreshold(threshold);
+			SMatrix.setExecutor(null);
+			pool.shutdown();
+		}
+	}
+
 	@Test
 	public void testMultiply() {
 
@@ -53,6 +117,9 @@ public class SimpleMatrixTest {
 		assertEquals(new SimpleMatrix(new double[]{-2, -10, 6, -10}), out1Matrix);
 		assertEquals(new SimpleMatrix(new double[]{0.01 * 1, 0.01 * 5, 0.01 * -3, 0.01 * 5}),
 			out2Matrix);
+
+		SimpleMatrix m2 = new SimpleMatrix(new double[][]{{1, 2}, {3, 4}});
+		assertEquals(new SimpleMatrix(new double[][]{{2, 4}, {6, 8}}), m2.multiply(2));
 	}
 
 	@Test
@@ -92,6 +159,36 @@ public class SimpleMatrixTest {
 		assertEquals(new SimpleMatrix(new double[][]{{3, 1000, 2}, {1, 4, 7}, {5, 9, 10}}), m);
 	}
 
+	@Test
+	public void zipWith() {
+		SimpleMatrix m = new SimpleMatrix(new double[][]{{1, 2}, {3, 4}});
+		SimpleMatrix other = new SimpleMatrix(new double[][]{{4, 3}, {2, 1}});
+		SMatrix storage = m.delegate();
+
+		assertEquals(new SimpleMatrix(new double[][]{{4, 3}, {3, 4}}), m.zipWith(other, Math::max));
+		m.zipWithInPlace(other, (a, b) -> a * 10 + b).mapValuesInPlace(e -> e - 10);
+		assertEquals(new SimpleMatrix(new double[][]{{4, 13}, {22, 31}}), m);
+		assertSame(storage, m.delegate());
+	}
+
+	@Test
+	public void multiplyAddMap() {
+		SimpleMatrix w = new SimpleMatrix(new double[][]{{1, -2, 3}, {-4, 5, -6}});
+		SimpleMatrix bias = new SimpleMatrix(new double[]{1, 2});
+		SimpleMatrix x = new SimpleMatrix(new double[]{1, 2, 3});
+		SimpleMatrix z = new SimpleMatrix(new double[2]);
+
+		assertEquals(new SimpleMatrix(new double[]{7, 0}),
+			w.multiplyAddMap(x, bias, e -> Math.max(e, 0), z));
+		assertEquals(new SimpleMatrix(new double[]{7, -10}), z);
+
+		// batch of columns, bias as wide as the batch
+		SimpleMatrix batch = new SimpleMatrix(new double[][]{{1, 0}, {2, 1}, {3, 0}});
+		SimpleMatrix wideBias = new SimpleMatrix(new double[][]{{1, 1}, {2, 2}});
+		assertEquals(w.multiply(batch).add(wideBias).mapValues(Math::tanh),
+			w.multiplyAddMap(batch, wideBias, Math::tanh));
+	}
+
 	@Test
 	public void hadamard() {
 	}
@@ -118,6 +215,17 @@ public class SimpleMatrixTest {
 
 	@Test
 	public void transpose() {
+		SimpleMatrix m = new SimpleMatrix(new double[][]{{1, 2, 3}, {4, 5, 6}});
+		assertEquals(new SimpleMatrix(new double[][]{{1, 4}, {2, 5}, {3, 6}}), m.transpose());
+
+		double[][] large = randomValues(130, 70);
+		double[][] largeTransposed = new double[70][130];
+		for (int i = 0; i < 130; i++) {
+			for (int j = 0; j < 70; j++) {
+				largeTransposed[j][i] = large[i][j];
+			}
+		}
+		assertEquals(new SimpleMatrix(largeTransposed), new SimpleMatrix(large).transpose());
 	}
 
 	@Test
@@ -156,6 +264,36 @@ public class SimpleMatrixTest {
 		assertNotEquals(m.hashCode(), copy.hashCode());
 	}
 
+	@Test
+	public void transposedProducts() {
+		SimpleMatrix a = new SimpleMatrix(randomValues(70, 45));
+		SimpleMatrix b = new SimpleMatrix(randomValues(70, 3));
+		SimpleMatrix c = new SimpleMatrix(randomValues(90, 45));
+
+		assertArrayEquals(flatten(a.transpose().multiply(b)), flatten(a.multiplyTransposeLeft(b)),
+			1e-12);
+		assertArrayEquals(flatten(a.multiply(c.transpose())), flatten(a.multiplyTransposeRight(c)),
+			1e-12);
+	}
+
+	@Test
+	public void inPlace() {
+		SimpleMatrix m = new SimpleMatrix(new double[][]{{1, 2}, {3, 4}});
+		SimpleMatrix other = new SimpleMatrix(new double[][]{{4, 3}, {2, 1}});
+		SMatrix storage = m.delegate();
+
+		assertEquals(m, m.addInPlace(other).subtractInPlace(other).hadamardInPlace(other)
+			.divideInPlace(other).scaleInPlace(2));
+		assertEquals(new SimpleMatrix(new double[][]{{2, 4}, {6, 8}}), m);
+		assertEquals(new SimpleMatrix(new double[][]{{3, 3}, {3, 3}}), m.fill(3));
+		assertSame(storage, m.delegate());
+
+		SimpleMatrix destination = new SimpleMatrix(new double[][]{{9, 9}, {9, 9}});
+		SimpleMatrix product = new SimpleMatrix(new double[][]{{1, 1}, {0, 1}});
+		assertEquals(destination, product.multiplyInto(other, destination));
+		assertEquals(new SimpleMatrix(new double[][]{{6, 4}, {2, 1}}), destination);
+	}
+
 	@Test
 	public void testToString() {
 	}
@@ -163,4 +301,49 @@ public class SimpleMatrixTest {
 	@Test
 	public void testEquals() {
 	}
+
+	private static double[] flatten(Matrix<SMatrix> matrix) {
+		double[][] values = matrix.rawCopy();
+		double[] flat = new double[matrix.rows() * matrix.cols()];
+		for (int i = 0; i < values.length; i++) {
+			System.arraycopy(values[i], 0, flat, i * matrix.cols(), matrix.cols());
+		}
+		return flat;
+	}
+
+	private static double[][] randomValues(int rows, int cols) {
+		Random random = new Random(rows * 31L + cols);
+		double[][] values = new double[rows][cols];
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < cols; j++) {
+				values[i][j] = random.nextDouble() - 0.5;
+			}
+		}
+		return values;
+	}
+
+	@Test
+	public void batchOperations() {
+		SimpleMatrix batch = new SimpleMatrix(new double[][]{{1, 5, 2}, {4, 0, 6}});
+		Matrix<SMatrix> stacked = batch.stackColumns(Arrays.asList(
+			new SimpleMatrix(new double[]{1, 4}),
+			new SimpleMatrix(new double[]{5, 0}),
+			new SimpleMatrix(new double[]{2, 6})));
+		assertArrayEquals(batch.rawCopy(), stacked.rawCopy());
+
+		assertArrayEquals(new double[][]{{5, 2}, {0, 6}}, batch.sliceColumns(1, 3).rawCopy());
+		assertArrayEquals(new double[][]{{4, 0, 6}}, batch.sliceRows(1, 2).rawCopy());
+		assertArrayEquals(new double[][]{{11, 15, 12}, {24, 20, 26}},
+			batch.broadcastAdd(new SimpleMatrix(new double[]{10, 20})).rawCopy());
+		assertArrayEquals(new double[][]{{8}, {10}}, batch.sumRows().rawCopy());
+		assertArrayEquals(new double[][]{{4, 5, 6}}, batch.maxPerColumn().rawCopy());
+		assertArrayEquals(new int[]{1, 0, 1}, batch.argMaxPerColumn());
+
+		// slices are views, products and in place operations see and change batch
+		Matrix<SMatrix> slice = batch.sliceColumns(1, 3);
+		assertArrayEquals(new double[][]{{10, 6}, {0, 18}},
+			slice.multiply(new SimpleMatrix(new double[][]{{2, 0}, {0, 3}})).rawCopy());
+		slice.broadcastAddInPlace(new SimpleMatrix(new double[]{1, 1}));
+		assertArrayEquals(new double[][]{{1, 6, 3}, {4, 1, 7}}, batch.rawCopy());
+	}
 }
\ No newline at end of file
@@ -0,0 +1,132 @@
+package math.linearalgebra.sparse;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.function.Function;
+import math.linearalgebra.Matrix;
+import math.linearalgebra.ojalgo.OjAlgoStoreMatrix;
+import math.linearalgebra.simple.SMatrix;
+import math.linearalgebra.simple.SimpleMatrix;
+import org.apache.log4j.BasicConfigurator;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SparseMatrixTest {
+
+	private static final double[][] VALUES = {{0, 2, 0}, {0, 0, 0}, {1, 0, 3}, {0, 4, 0}};
+
+	@Before
+	public void setUp() throws Exception {
+		BasicConfigurator.configure();
+	}
+
+	@Test
+	public void conversions() {
+		SimpleMatrix dense = new SimpleMatrix(VALUES);
+		SparseMatrix<SMatrix> sparse = SparseMatrix.fromDense(dense, SimpleMatrix::new);
+
+		assertEquals(4, sparse.csr().nonZeros());
+		assertArrayEquals(new int[]{0, 1, 1, 3, 4}, sparse.csr().rowPointers());
+		assertEquals(dense, sparse.toDense());
+		assertEquals(dense.transpose(), sparse.transpose().toDense());
+		assertEquals(3, sparse.csr().get(2, 2), 0d);
+		assertEquals(0, sparse.csr().get(1, 2), 0d);
+		assertEquals(10, sparse.sum(), 0d);
+		assertEquals(4, sparse.max(), 0d);
+	}
+
+	@Test
+	public void sparseTimesDense() {
+		SparseMatrix<SMatrix> sparse = SparseMatrix.of(VALUES, SimpleMatrix::new);
+		SimpleMatrix dense = new SimpleMatrix(VALUES);
+		SimpleMatrix right = new SimpleMatrix(new double[][]{{1, 2}, {3, 4}, {5, 6}});
+		SimpleMatrix left = new SimpleMatrix(new double[][]{{1, 0, 2, 1}, {0, 3, 1, 2}});
+
+		assertEquals(dense.multiply(right), sparse.multiply(right));
+		assertEquals(dense.multiplyTransposeLeft(left.transpose()),
+			sparse.multiplyTransposeLeft(left.transpose()));
+		assertEquals(dense.multiplyTransposeRight(right.transpose()),
+			sparse.multiplyTransposeRight(right.transpose()));
+	}
+
+	@Test
+	public void readsEitherStorageOrder() {
+		// row major, and column major in place
+		checkProducts(SimpleMatrix::new);
+		checkProducts(OjAlgoStoreMatrix::new);
+	}
+
+	private <M> void checkProducts(Function<double[][], Matrix<M>> factory) {
+		SparseMatrix<M> sparse = SparseMatrix.of(VALUES, factory);
+		Matrix<M> dense = factory.apply(VALUES);
+		Matrix<M> right = factory.apply(new double[][]{{1, 2}, {3, 4}, {5, 6}});
+		Matrix<M> left = factory.apply(new double[][]{{1, 0}, {2, 3}, {0, 1}, {1, 2}});
+		Matrix<M> other = factory.apply(new double[][]{{1, 1, 1}, {2, 2, 2}, {3, 0, 3}, {4, 1, 0}});
+
+		assertArrayEquals(dense.multiply(right).rawCopy(), sparse.multiply(right).rawCopy());
+		assertArrayEquals(dense.multiplyTransposeLeft(left).rawCopy(),
+			sparse.multiplyTransposeLeft(left).rawCopy());
+		assertArrayEquals(dense.multiplyTransposeRight(right.transpose()).rawCopy(),
+			sparse.multiplyTransposeRight(right.transpose()).rawCopy());
+		assertEquals(dense.dot(other), sparse.dot(other), 0);
+	}
+
+	@Test
+	public void sparseDotSparse() {
+		SparseMatrix<SMatrix> first = SparseMatrix.of(VALUES, SimpleMatrix::new);
+		SparseMatrix<SMatrix> second = SparseMatrix.of(
+			new double[][]{{5, 2, 0}, {1, 0, 0}, {0, 0, 2}, {0, 3, 7}}, SimpleMatrix::new);
+
+		// 2 * 2 + 3 * 2 + 4 * 3, the other stored elements meet a zero
+		assertEquals(22, first.dot(second), 0);
+		assertEquals(first.toDense().dot(second.toDense()), second.dot(first), 0);
+	}
+
+	@Test
+	public void denseTimesSparse() {
+		SparseMatrix<SMatrix> sparse = SparseMatrix.of(VALUES, SimpleMatrix::new);
+		SimpleMatrix dense = new SimpleMatrix(VALUES);
+		SimpleMatrix left = new SimpleMatrix(new double[][]{{1, 0, 2, 1}, {0, 3, 1, 2}});
+		SimpleMatrix right = new SimpleMatrix(new double[][]{{1, 2, 3}, {4, 5, 6}});
+
+		assertEquals(left.multiply(dense), left.multiply(sparse));
+
+		Matrix<SMatrix> destination = new SimpleMatrix(new double[2][4]).fill(9);
+		right.multiplyTransposeRightInto(sparse, destination);
+		assertEquals(right.multiplyTransposeRight(dense), destination);
+	}
+
+	@Test
+	public void sparseInput() {
+		SparseMatrix<SMatrix> input = SparseMatrix.of(new double[]{0, 0.5, 0, 0, 1}, SimpleMatrix::new);
+		SimpleMatrix weight = new SimpleMatrix(
+			new double[][]{{1, 2, 3, 4, 5}, {-1, -2, -3, -4, -5}});
+		SimpleMatrix bias = new SimpleMatrix(new double[]{1, 1});
+
+		assertEquals(weight.multiplyAddMap(input.toDense(), bias, e -> Math.max(0, e)),
+			weight.multiplyAddMap(input, bias, e -> Math.max(0, e)));
+		assertEquals(Math.sqrt(1.25), input.norm(), 1e-12);
+		assertEquals(4, input.argMax());
+	}
+
+	@Test
+	public void sparseBatch() {
+		SparseMatrix<SMatrix> first = SparseMatrix.of(new double[]{0, 0, 1, 0}, SimpleMatrix::new);
+		SparseMatrix<SMatrix> second = SparseMatrix.of(new double[]{2, 0, 0, 4}, SimpleMatrix::new);
+		Matrix<SMatrix> batch = first.stackColumns(Arrays.asList(first, second));
+
+		assertTrue(batch instanceof SparseMatrix);
+		assertArrayEquals(new double[][]{{0, 2}, {0, 0}, {1, 0}, {0, 4}}, batch.rawCopy());
+		assertArrayEquals(new double[][]{{2}, {0}, {1}, {4}}, batch.sumRows().rawCopy());
+		assertArrayEquals(new int[]{2, 3}, batch.argMaxPerColumn());
+		assertArrayEquals(second.rawCopy(), batch.sliceColumns(1, 2).rawCopy());
+		assertArrayEquals(new double[][]{{1, 0}, {0, 4}}, batch.sliceRows(2, 4).rawCopy());
+
+		// one product for the whole batch, on the sparse kernel
+		SimpleMatrix weight = new SimpleMatrix(new double[][]{{1, 2, 3, 4}, {0, 1, 0, 1}});
+		assertArrayEquals(new double[][]{{3, 18}, {0, 4}}, weight.multiply(batch).rawCopy());
+	}
+}
@@ -1,10 +1,15 @@
 package math.linearalgebra.ujmp;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
+import java.util.Arrays;
+import math.linearalgebra.Matrix;
 import org.apache.log4j.BasicConfigurator;
 import org.junit.Before;
 import org.junit.Test;
+import org.ujmp.core.interfaces.HasColumnMajorDoubleArray1D;
 
 public class UJMPMatrixTest {
 
@@ -76,6 +81,65 @@ public class UJMPMatrixTest {
 	public void mapElements() {
 	}
 
+	@Test
+	public void transposedProducts() {
+		// one row-major and one column-major operand
+		UJMPMatrix a = new UJMPMatrix(new double[][]{{1, 2}, {3, 4}, {5, 6}});
+		UJMPMatrix b = new UJMPMatrix(org.ujmp.core.Matrix.Factory.linkToArray(
+			new double[][]{{3, 2}, {1, 0}, {4, 1}}));
+
+		assertEquals(a.transpose().multiply(b), a.multiplyTransposeLeft(b));
+		assertEquals(b.multiply(a.transpose()), b.multiplyTransposeRight(a));
+	}
+
+	@Test
+	public void inPlace() {
+		UJMPMatrix m = new UJMPMatrix(new double[][]{{1, 2}, {3, 4}});
+		UJMPMatrix other = new UJMPMatrix(new double[][]{{4, 3}, {2, 1}});
+		org.ujmp.core.Matrix storage = m.delegate();
+
+		m.addInPlace(other).scaleInPlace(2).subtractInPlace(other);
+		assertEquals(new UJMPMatrix(new double[][]{{6, 7}, {8, 9}}), m);
+		assertSame(storage, m.delegate());
+
+		UJMPMatrix destination = new UJMPMatrix(new double[][]{{9, 9}, {9, 9}});
+		new UJMPMatrix(new double[][]{{1, 1}, {0, 1}}).multiplyInto(other, destination);
+		assertEquals(new UJMPMatrix(new double[][]{{6, 4}, {2, 1}}), destination);
+	}
+
+	@Test
+	public void zipWith() {
+		// row-major receiver, column-major operand and the other way around
+		UJMPMatrix rowMajor = new UJMPMatrix(org.ujmp.core.Matrix.Factory.linkToArray(
+			new double[][]{{1, 2}, {3, 4}}));
+		UJMPMatrix columnMajor = new UJMPMatrix(new double[][]{{4, 3}, {2, 1}});
+
+		assertEquals(new UJMPMatrix(new double[][]{{14, 23}, {32, 41}}),
+			rowMajor.zipWith(columnMajor, (a, b) -> a * 10 + b));
+		assertEquals(new UJMPMatrix(new double[][]{{41, 32}, {23, 14}}),
+			columnMajor.zipWith(rowMajor, (a, b) -> a * 10 + b));
+
+		org.ujmp.core.Matrix storage = columnMajor.delegate();
+		columnMajor.zipWithInPlace(rowMajor, Math::min).mapValuesInPlace(e -> -e);
+		assertEquals(new UJMPMatrix(new double[][]{{-1, -2}, {-2, -1}}), columnMajor);
+		assertSame(storage, columnMajor.delegate());
+	}
+
+	@Test
+	public void columnMajorStorage() {
+		UJMPMatrix vector = new UJMPMatrix(new double[]{3, -1, 4, 1});
+		UJMPMatrix matrix = new UJMPMatrix(new double[][]{{1, 2, 3}, {4, 5, 6}});
+
+		assertEquals(4, vector.rows());
+		assertEquals(1, vector.cols());
+		assertEquals(Math.sqrt(27), vector.norm(), 1e-12);
+		assertEquals(2, vector.argMax());
+		assertArrayEquals(new double[]{1, 4, 2, 5, 3, 6},
+			((HasColumnMajorDoubleArray1D) matrix.delegate()).getColumnMajorDoubleArray1D(), 0d);
+		assertEquals(new UJMPMatrix(new double[]{14, 32}),
+			matrix.multiply(new UJMPMatrix(new double[]{1, 2, 3})));
+	}
+
 	@Test
 	public void mutableMapTest() {
 		UJMPMatrix m = new UJMPMatrix(
@@ -84,4 +148,29 @@ public class UJMPMatrixTest {
 
 		assertEquals(new UJMPMatrix(new double[][]{{3, 1000, 2}, {1, 4, 7}, {5, 9, 10}}), m);
 	}
+
+	@Test
+	public void batchOperations() {
+		UJMPMatrix batch = new UJMPMatrix(new double[][]{{1, 5, 2}, {4, 0, 6}});
+		Matrix<org.ujmp.core.Matrix> stacked = batch.stackColumns(Arrays.asList(
+			new UJMPMatrix(new double[]{1, 4}),
+			new UJMPMatrix(new double[]{5, 0}),
+			new UJMPMatrix(new double[]{2, 6})));
+		assertArrayEquals(batch.rawCopy(), stacked.rawCopy());
+
+		assertArrayEquals(new double[][]{{5, 2}, {0, 6}}, batch.sliceColumns(1, 3).rawCopy());
+		assertArrayEquals(new double[][]{{4, 0, 6}}, batch.sliceRows(1, 2).rawCopy());
+		assertArrayEquals(new double[][]{{11, 15, 12}, {24, 20, 26}},
+			batch.broadcastAdd(new UJMPMatrix(new double[]{10, 20})).rawCopy());
+		assertArrayEquals(new double[][]{{8}, {10}}, batch.sumRows().rawCopy());
+		assertArrayEquals(new double[][]{{4, 5, 6}}, batch.maxPerColumn().rawCopy());
+		assertArrayEquals(new int[]{1, 0, 1}, batch.argMaxPerColumn());
+
+		// slices are views, products and in place operations see and change batch
+		Matrix<org.ujmp.core.Matrix> slice = batch.sliceColumns(1, 3);
+		assertArrayEquals(new double[][]{{10, 6}, {0, 18}},
+			slice.multiply(new UJMPMatrix(new double[][]{{2, 0}, {0, 3}})).rawCopy());
+		slice.broadcastAddInPlace(new UJMPMatrix(new double[]{1, 1}));
+		assertArrayEquals(new double[][]{{1, 6, 3}, {4, 1, 7}}, batch.rawCopy());
+	}
 }
\ No newline at end of file
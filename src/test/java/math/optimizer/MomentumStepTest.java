@@ -0,0 +1,32 @@
+package math.optimizer;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import math.linearalgebra.Matrix;
+import math.linearalgebra.simple.SMatrix;
+import math.linearalgebra.simple.SimpleMatrix;
+import math.optimizers.Momentum;
+import org.junit.Test;
+
+public class MomentumStepTest {
+
+	@Test
+	public void velocityAccumulatesTheSteps() {
+		Momentum<SMatrix> momentum = new Momentum<>(0.1, 0.9);
+		momentum.initializeOptimizer(1, null, null);
+		Matrix<SMatrix> weight = new SimpleMatrix(new double[][]{{1, 2}, {3, 4}});
+		double[][] gradient = {{1, -1}, {2, 0.5}};
+
+		// v = 0.1 * g, then v = 0.9 * v + 0.1 * g = 0.19 * g
+		momentum.changeWeight(0, weight, new SimpleMatrix(gradient));
+		Matrix<SMatrix> g = new SimpleMatrix(gradient);
+		momentum.changeWeight(0, weight, g);
+
+		double[][] expected = {{1 - 0.29, 2 + 0.29}, {3 - 0.58, 4 - 0.145}};
+		for (int i = 0; i < expected.length; i++) {
+			assertArrayEquals(expected[i], weight.rawCopy()[i], 1e-12);
+			// the gradient is read, not scaled in place
+			assertArrayEquals(gradient[i], g.rawCopy()[i], 0);
+		}
+	}
+}
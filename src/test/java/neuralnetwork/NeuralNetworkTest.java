@@ -0,0 +1,80 @@
+package neuralnetwork;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import math.activations.SoftmaxFunction;
+import math.activations.TanhFunction;
+import math.costfunctions.CrossEntropyCostFunction;
+import math.evaluation.ArgMaxEvaluationFunction;
+import math.linearalgebra.Matrix;
+import math.linearalgebra.simple.SMatrix;
+import math.linearalgebra.simple.SimpleMatrix;
+import math.optimizers.ADAM;
+import neuralnetwork.initialiser.MethodConstants;
+import neuralnetwork.initialiser.SimpleInitializer;
+import neuralnetwork.inputs.NetworkInput;
+import org.junit.Test;
+import utilities.compute.ComputeExecutor;
+import utilities.types.Pair;
+
+public class NeuralNetworkTest {
+
+	@Test
+	public void parallelExamplesMatchSequentialTraining() {
+		List<NetworkInput<SMatrix>> data = data(new Random(17), 96);
+		try (ComputeExecutor sequential = ComputeExecutor.sequential();
+			ComputeExecutor parallel = ComputeExecutor.create(4, "examples")) {
+			NeuralNetwork<SMatrix> expected = network(sequential);
+			NeuralNetwork<SMatrix> actual = network(parallel);
+			List<Matrix<SMatrix>> weights = new ArrayList<>(), biases = new ArrayList<>();
+			for (Pair<Matrix<SMatrix>, Matrix<SMatrix>> p : expected.getParameters()) {
+				weights.add(p.left().copy());
+				biases.add(p.right().copy());
+			}
+			actual.copyParameters(weights, biases);
+
+			expected.train(data, 4, 16);
+			actual.train(data, 4, 16);
+
+			// the parameters only change between batches, so the runs differ by rounding only
+			var e = expected.getParameters();
+			var a = actual.getParameters();
+			for (int i = 0; i < e.size(); i++) {
+				assertEqual(e.get(i).left().rawCopy(), a.get(i).left().rawCopy());
+				assertEqual(e.get(i).right().rawCopy(), a.get(i).right().rawCopy());
+			}
+		}
+	}
+
+	private static NeuralNetwork<SMatrix> network(ComputeExecutor executor) {
+		return new NetworkBuilder<SMatrix>(3).setFirstLayer(4)
+			.setLayer(8, new TanhFunction<>()).setLastLayer(2, new SoftmaxFunction<>())
+			.setCostFunction(new CrossEntropyCostFunction<>())
+			.setOptimizer(new ADAM<>(0.01, 0.9, 0.999))
+			.setInitialiser(new SimpleInitializer(MethodConstants.XAVIER, MethodConstants.SCALAR))
+			.setEvaluationFunction(new ArgMaxEvaluationFunction<>()).setExecutor(executor)
+			.compile();
+	}
+
+	private static void assertEqual(double[][] expected, double[][] actual) {
+		for (int i = 0; i < expected.length; i++) {
+			assertArrayEquals(expected[i], actual[i], 1e-9);
+		}
+	}
+
+	private static List<NetworkInput<SMatrix>> data(Random random, int size) {
+		List<NetworkInput<SMatrix>> data = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			double[] x = new double[4];
+			for (int j = 0; j < x.length; j++) {
+				x[j] = random.nextGaussian();
+			}
+			double[] label = x[0] + x[1] > x[2] ? new double[]{1, 0} : new double[]{0, 1};
+			data.add(new NetworkInput<>(new SimpleMatrix(x), new SimpleMatrix(label)));
+		}
+		return data;
+	}
+}
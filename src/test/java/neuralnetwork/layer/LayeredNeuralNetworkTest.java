@@ -0,0 +1,55 @@
+package neuralnetwork.layer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import math.activations.LinearFunction;
+import math.activations.SigmoidFunction;
+import math.costfunctions.MeanSquaredCostFunction;
+import math.evaluation.ArgMaxEvaluationFunction;
+import math.linearalgebra.Matrix;
+import math.linearalgebra.simple.SMatrix;
+import math.linearalgebra.simple.SimpleMatrix;
+import math.optimizers.StochasticGradientDescent;
+import neuralnetwork.initialiser.MethodConstants;
+import neuralnetwork.initialiser.SimpleInitializer;
+import org.junit.Test;
+
+public class LayeredNeuralNetworkTest {
+
+	@Test
+	public void batchedPredictionsHaveTheirOwnStorage() {
+		LayeredNeuralNetwork<SMatrix> network = new LayeredNetworkBuilder<SMatrix>()
+			.optimizer(new StochasticGradientDescent<>(0.1))
+			.costFunction(new MeanSquaredCostFunction<>())
+			.evaluationFunction(new ArgMaxEvaluationFunction<>())
+			.initializer(new SimpleInitializer(MethodConstants.XAVIER, MethodConstants.SCALAR))
+			.layer(new NetworkLayer<>(new SigmoidFunction<>(), 3))
+			.layer(new NetworkLayer<>(new SigmoidFunction<>(), 4))
+			.layer(new NetworkLayer<>(new LinearFunction<>(1), 2))
+			.create();
+
+		Random random = new Random(5);
+		List<Matrix<SMatrix>> inputs = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			inputs.add(new SimpleMatrix(new double[][]{
+				{random.nextGaussian()}, {random.nextGaussian()}, {random.nextGaussian()}}));
+		}
+
+		List<Matrix<SMatrix>> predictions = network.predict(inputs);
+		assertEquals(inputs.size(), predictions.size());
+		for (int i = 0; i < inputs.size(); i++) {
+			// a SimpleMatrix slice is a view, on the storage of the whole batch
+			double[] storage = predictions.get(i).delegate().storage();
+			assertEquals(2, storage.length);
+			double[][] expected = network.predict(inputs.get(i)).rawCopy();
+			double[][] actual = predictions.get(i).rawCopy();
+			for (int r = 0; r < expected.length; r++) {
+				assertArrayEquals(expected[r], actual[r], 1e-12);
+			}
+		}
+	}
+}
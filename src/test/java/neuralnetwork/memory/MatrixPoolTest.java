@@ -0,0 +1,79 @@
+package neuralnetwork.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import math.linearalgebra.Matrix;
+import math.linearalgebra.floats.FMatrix;
+import math.linearalgebra.floats.FloatMatrix;
+import math.linearalgebra.simple.SMatrix;
+import math.linearalgebra.simple.SimpleMatrix;
+import org.junit.Test;
+
+public class MatrixPoolTest {
+
+	private final SimpleMatrix prototype = new SimpleMatrix(new double[][]{{1, 2}, {3, 4}});
+
+	@Test
+	public void reusesReleasedMatrices() {
+		MatrixPool<SMatrix> pool = new MatrixPool<>();
+		Matrix<SMatrix> a = pool.borrow(prototype, 3, 2);
+		Matrix<SMatrix> b = pool.borrow(prototype, 3, 2);
+		assertNotSame(a, b);
+		assertEquals(3, a.rows());
+		assertEquals(2, a.cols());
+
+		pool.release();
+		Matrix<SMatrix> c = pool.borrow(prototype, 3, 2);
+		Matrix<SMatrix> d = pool.borrow(prototype, 2, 3);
+		assertSame(b, c);
+		assertEquals(2, d.rows());
+
+		assertEquals(1, pool.hits());
+		assertEquals(3, pool.misses());
+		assertEquals(18 * Double.BYTES, pool.bytesRetained());
+
+		pool.clear();
+		assertEquals(0, pool.bytesRetained());
+	}
+
+	@Test
+	public void arenaPerThread() throws InterruptedException {
+		MatrixPool<SMatrix> pool = new MatrixPool<>();
+		Matrix<SMatrix> mine = pool.borrow(prototype, 2, 2);
+		pool.release();
+
+		Matrix<?>[] theirs = new Matrix<?>[1];
+		Thread other = new Thread(() -> theirs[0] = pool.borrow(prototype, 2, 2));
+		other.start();
+		other.join();
+
+		assertNotSame(mine, theirs[0]);
+		assertEquals(2, pool.misses());
+
+		pool.releaseAll();
+		assertSame(mine, pool.borrow(prototype, 2, 2));
+		// the arena of the finished thread is dropped with its matrix
+		assertEquals(4 * Double.BYTES, pool.bytesRetained());
+	}
+
+	@Test
+	public void retentionIsBounded() {
+		MatrixPool<FMatrix> pool = new MatrixPool<>(6 * Float.BYTES);
+		FloatMatrix floats = new FloatMatrix(new double[][]{{1, 2}, {3, 4}});
+		pool.borrow(floats, 2, 2);
+		pool.borrow(floats, 2, 2);
+		assertEquals(8 * Float.BYTES, pool.bytesRetained());
+
+		pool.release();
+		assertEquals(4 * Float.BYTES, pool.bytesRetained());
+		pool.borrow(floats, 2, 2);
+		pool.borrow(floats, 2, 2);
+		assertEquals(1, pool.hits());
+
+		pool.clear();
+		pool.borrow(floats, 2, 2);
+		assertEquals(4 * Float.BYTES, pool.bytesRetained());
+	}
+}
@@ -0,0 +1,83 @@
+package neuralnetwork.quantized;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import math.activations.ReluFunction;
+import math.activations.SoftmaxFunction;
+import math.costfunctions.CrossEntropyCostFunction;
+import math.evaluation.ArgMaxEvaluationFunction;
+import math.linearalgebra.simple.SMatrix;
+import math.linearalgebra.simple.SimpleMatrix;
+import math.optimizers.ADAM;
+import neuralnetwork.initialiser.MethodConstants;
+import neuralnetwork.initialiser.SimpleInitializer;
+import neuralnetwork.inputs.NetworkInput;
+import neuralnetwork.layer.LayeredNetworkBuilder;
+import neuralnetwork.layer.LayeredNeuralNetwork;
+import neuralnetwork.layer.NetworkLayer;
+import org.junit.Test;
+
+public class QuantizedNetworkTest {
+
+	private static final int FEATURES = 20;
+
+	@Test
+	public void quantizedClassifierKeepsItsAccuracy() {
+		Random random = new Random(13);
+		double[] direction = gaussian(random, FEATURES);
+		List<NetworkInput<SMatrix>> training = data(random, direction, 800);
+		List<NetworkInput<SMatrix>> validation = data(random, direction, 400);
+
+		// a 20-32-2 classifier, the softmax output runs on the matrix fallback
+		LayeredNeuralNetwork<SMatrix> network = new LayeredNetworkBuilder<SMatrix>()
+			.optimizer(new ADAM<>(0.005, 0.9, 0.999))
+			.costFunction(new CrossEntropyCostFunction<>())
+			.evaluationFunction(new ArgMaxEvaluationFunction<>())
+			.initializer(new SimpleInitializer(MethodConstants.XAVIER, MethodConstants.SCALAR))
+			.layer(new NetworkLayer<>(new ReluFunction<>(), FEATURES))
+			.layer(new NetworkLayer<>(new ReluFunction<>(), 32))
+			.layer(new NetworkLayer<>(new SoftmaxFunction<>(), 2)).create();
+		network.train(training, validation, 10, 16, true);
+		assertTrue(network.testEvaluation(validation, 1) > 0.9);
+
+		QuantizedNetwork<SMatrix> quantized = QuantizedNetwork.quantize(network, SimpleMatrix::new);
+		assertTrue(Math.abs(quantized.accuracyDelta(network, validation)) <= 0.02);
+
+		double[][] expected = network.predict(validation.get(0).getData()).rawCopy();
+		double[][] actual = quantized.predict(validation.get(0).getData()).rawCopy();
+		assertEquals(1, actual[0][0] + actual[1][0], 1e-9);
+		for (int i = 0; i < expected.length; i++) {
+			assertArrayEquals(expected[i], actual[i], 0.05);
+		}
+		// one byte per weight and a double scale per row
+		assertEquals(32 * FEATURES + 2 * 32 + (32 + 2) * Double.BYTES, quantized.weightBytes());
+	}
+
+	// two classes split by a hyperplane through the origin
+	private static List<NetworkInput<SMatrix>> data(Random random, double[] direction, int size) {
+		List<NetworkInput<SMatrix>> data = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			double[] x = gaussian(random, FEATURES);
+			double side = 0;
+			for (int j = 0; j < FEATURES; j++) {
+				side += x[j] * direction[j];
+			}
+			double[] label = side > 0 ? new double[]{1, 0} : new double[]{0, 1};
+			data.add(new NetworkInput<>(new SimpleMatrix(x), new SimpleMatrix(label)));
+		}
+		return data;
+	}
+
+	private static double[] gaussian(Random random, int length) {
+		double[] out = new double[length];
+		for (int i = 0; i < length; i++) {
+			out[i] = random.nextGaussian();
+		}
+		return out;
+	}
+}
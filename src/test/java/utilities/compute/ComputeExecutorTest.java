@@ -0,0 +1,81 @@
+package utilities.compute;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.Test;
+
+public class ComputeExecutorTest {
+
+	private static final List<Integer> ITEMS = IntStream.range(0, 1000).boxed()
+		.collect(Collectors.toList());
+
+	@Test
+	public void dedicatedPoolNamesItsThreads() {
+		try (ComputeExecutor executor = ComputeExecutor.create(2, "training")) {
+			Set<String> threads = ConcurrentHashMap.newKeySet();
+			executor.forEach(ITEMS, e -> threads.add(Thread.currentThread().getName()));
+			assertEquals(2, executor.parallelism());
+			for (String thread : threads) {
+				assertTrue(thread, thread.startsWith("training-"));
+			}
+		}
+	}
+
+	@Test
+	public void sequentialRunsOnCaller() {
+		try (ComputeExecutor executor = ComputeExecutor.sequential()) {
+			List<Integer> seen = new ArrayList<>();
+			Thread caller = Thread.currentThread();
+			executor.forEach(ITEMS, e -> {
+				assertEquals(caller, Thread.currentThread());
+				seen.add(e);
+			});
+			assertEquals(ITEMS, seen);
+			assertTrue(executor.isSequential());
+		}
+	}
+
+	@Test
+	public void mapKeepsOrder() {
+		try (ComputeExecutor executor = ComputeExecutor.create(3, "map")) {
+			List<Integer> squares = executor.map(ITEMS, e -> e * e);
+			for (int i = 0; i < ITEMS.size(); i++) {
+				assertEquals(i * i, (int) squares.get(i));
+			}
+			assertEquals(0, executor.queueDepth());
+		}
+	}
+
+	@Test
+	public void workIsBoundToItsExecutor() {
+		try (ComputeExecutor training = ComputeExecutor.create(2, "training");
+			ComputeExecutor sequential = ComputeExecutor.sequential()) {
+			training.forEach(ITEMS, e -> assertSame(training, ComputeExecutor.bound()));
+			sequential.forEach(ITEMS, e -> assertSame(sequential, ComputeExecutor.bound()));
+			training.run(() -> {
+				assertSame(training, ComputeExecutor.resolve(null));
+				sequential.run(() -> assertSame(sequential, ComputeExecutor.bound()));
+				assertSame(training, ComputeExecutor.bound());
+			});
+			assertNull(ComputeExecutor.bound());
+			assertSame(ComputeExecutor.shared(), ComputeExecutor.resolve(null));
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void sequentialHasNoPool() {
+		try (ComputeExecutor executor = ComputeExecutor.sequential()) {
+			assertEquals(1, executor.parallelism());
+			executor.invoke(null);
+		}
+	}
+}
@@ -0,0 +1,169 @@
+package utilities.serialise;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import math.activations.LeakyReluFunction;
+import math.activations.SoftmaxFunction;
+import math.activations.TanhFunction;
+import math.costfunctions.MeanSquaredCostFunction;
+import math.evaluation.ArgMaxEvaluationFunction;
+import math.linearalgebra.Matrix;
+import math.linearalgebra.floats.FMatrix;
+import math.linearalgebra.floats.FloatMatrix;
+import math.linearalgebra.half.HMatrix;
+import math.linearalgebra.half.HalfFormat;
+import math.linearalgebra.half.HalfMatrix;
+import math.linearalgebra.offheap.DMatrix;
+import math.linearalgebra.offheap.OffHeapMatrix;
+import math.linearalgebra.offheap.OffHeapScope;
+import math.linearalgebra.ojalgo.OjAlgoStoreMatrix;
+import math.linearalgebra.simple.SMatrix;
+import math.linearalgebra.simple.SimpleMatrix;
+import math.optimizers.ADAM;
+import neuralnetwork.initialiser.FloatInitializer;
+import neuralnetwork.initialiser.MethodConstants;
+import neuralnetwork.initialiser.OffHeapInitializer;
+import neuralnetwork.initialiser.OjAlgoStoreInitializer;
+import neuralnetwork.initialiser.ParameterInitializer;
+import neuralnetwork.initialiser.SimpleInitializer;
+import neuralnetwork.inputs.NetworkInput;
+import neuralnetwork.layer.LayeredNetworkBuilder;
+import neuralnetwork.layer.LayeredNeuralNetwork;
+import neuralnetwork.layer.NetworkLayer;
+import neuralnetwork.quantized.HalfPrecision;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.ojalgo.matrix.store.Primitive64Store;
+import utilities.serialise.deserialisers.FloatDeserializer;
+import utilities.serialise.deserialisers.OffHeapDeserializer;
+import utilities.serialise.deserialisers.OjAlgoStoreDeserializer;
+import utilities.serialise.deserialisers.SimpleDeserializer;
+import utilities.serialise.serialisers.FloatSerializer;
+import utilities.serialise.serialisers.OffHeapSerializer;
+import utilities.serialise.serialisers.OjAlgoStoreSerializer;
+import utilities.serialise.serialisers.SimpleSerializer;
+
+public class RoundTripTest {
+
+	private static final double[][] X = {{0, 1}, {1, 0}, {1, 1}, {0, 0}};
+	private static final double[][] Y = {{1, 0}, {1, 0}, {0, 1}, {0, 1}};
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void floatNetworkPredictsTheSame() throws IOException {
+		LayeredNeuralNetwork<FMatrix> network = trained(
+			new FloatInitializer(MethodConstants.XAVIER, MethodConstants.SCALAR), FloatMatrix::new);
+		File file = folder.newFile("float.json");
+		new FloatSerializer().serialize(file, network);
+		LayeredNeuralNetwork<FMatrix> read = new FloatDeserializer().deserialize(file);
+
+		assertSamePredictions(network, read, FloatMatrix::new);
+	}
+
+	@Test
+	public void ojAlgoStoreNetworkPredictsTheSame() throws IOException {
+		LayeredNeuralNetwork<Primitive64Store> network = trained(
+			new OjAlgoStoreInitializer(MethodConstants.XAVIER, MethodConstants.SCALAR),
+			OjAlgoStoreMatrix::new);
+		File file = folder.newFile("store.json");
+		new OjAlgoStoreSerializer().serialize(file, network);
+		LayeredNeuralNetwork<Primitive64Store> read = new OjAlgoStoreDeserializer()
+			.deserialize(file);
+
+		assertSamePredictions(network, read, OjAlgoStoreMatrix::new);
+	}
+
+	@Test
+	public void offHeapNetworkPredictsTheSame() throws IOException {
+		try (OffHeapScope scope = new OffHeapScope(0)) {
+			Function<double[], Matrix<DMatrix>> factory = v -> new OffHeapMatrix(scope, v);
+			LayeredNeuralNetwork<DMatrix> network = trained(
+				new OffHeapInitializer(MethodConstants.XAVIER, MethodConstants.SCALAR, scope),
+				factory);
+			File file = folder.newFile("network.bin");
+			new OffHeapSerializer().serialize(file, network);
+			LayeredNeuralNetwork<DMatrix> read = new OffHeapDeserializer(scope).deserialize(file);
+
+			assertSamePredictions(network, read, factory);
+		}
+	}
+
+	@Test
+	public void halfWeightsAreRestoredExactly() throws IOException {
+		LayeredNeuralNetwork<SMatrix> network = trained(
+			new SimpleInitializer(MethodConstants.XAVIER, MethodConstants.SCALAR), SimpleMatrix::new);
+		HalfPrecision.compress(network, HalfFormat.BFLOAT16, 0);
+		File file = folder.newFile("half.json");
+		new SimpleSerializer().serialize(file, network);
+		LayeredNeuralNetwork<SMatrix> read = new SimpleDeserializer().deserialize(file);
+
+		// read back into 16 bits, without compressing again
+		for (int i = 1; i < network.getLayers().size(); i++) {
+			HMatrix expected = ((HalfMatrix) network.getLayers().get(i).getWeight()).half();
+			HMatrix actual = ((HalfMatrix) read.getLayers().get(i).getWeight()).half();
+			assertEquals(HalfFormat.BFLOAT16, actual.format());
+			assertArrayEquals(expected.bits(), actual.bits());
+			assertFalse(read.getLayers().get(i).getBias() instanceof HalfMatrix);
+		}
+		assertSamePredictions(network, read, SimpleMatrix::new);
+
+		// copied parameters are rounded into the half storage
+		List<Matrix<SMatrix>> weights = new ArrayList<>(), biases = new ArrayList<>();
+		for (var parameters : trained(
+			new SimpleInitializer(MethodConstants.XAVIER, MethodConstants.SCALAR),
+			SimpleMatrix::new).getParameters()) {
+			weights.add(parameters.left());
+			biases.add(parameters.right());
+		}
+		read.copyParameters(weights, biases);
+		assertTrue(read.getLayers().get(1).getWeight() instanceof HalfMatrix);
+	}
+
+	static <M> LayeredNeuralNetwork<M> trained(ParameterInitializer<M> initializer,
+		Function<double[], Matrix<M>> factory) {
+		LayeredNeuralNetwork<M> network = new LayeredNetworkBuilder<M>()
+			.optimizer(new ADAM<>(0.01, 0.9, 0.999))
+			.costFunction(new MeanSquaredCostFunction<>())
+			.evaluationFunction(new ArgMaxEvaluationFunction<>()).initializer(initializer)
+			.layer(new NetworkLayer<>(new LeakyReluFunction<>(0.01), 2))
+			.layer(new NetworkLayer<>(new TanhFunction<>(), 8))
+			.layer(new NetworkLayer<>(new SoftmaxFunction<>(), 2)).create();
+		List<NetworkInput<M>> data = data(factory);
+		network.train(data, data, 5, 4, true);
+		return network;
+	}
+
+	static <M> void assertSamePredictions(LayeredNeuralNetwork<M> expected,
+		LayeredNeuralNetwork<M> actual, Function<double[], Matrix<M>> factory) {
+		assertEquals(expected.getLayers().size(), actual.getLayers().size());
+		for (double[] x : X) {
+			double[][] e = expected.predict(factory.apply(x)).rawCopy();
+			double[][] a = actual.predict(factory.apply(x)).rawCopy();
+			for (int i = 0; i < e.length; i++) {
+				assertArrayEquals(e[i], a[i], 0);
+			}
+		}
+	}
+
+	private static <M> List<NetworkInput<M>> data(Function<double[], Matrix<M>> factory) {
+		Random random = new Random(3);
+		List<NetworkInput<M>> data = new ArrayList<>();
+		for (int i = 0; i < 64; i++) {
+			int k = random.nextInt(X.length);
+			data.add(new NetworkInput<>(factory.apply(X[k]), factory.apply(Y[k])));
+		}
+		return data;
+	}
+}
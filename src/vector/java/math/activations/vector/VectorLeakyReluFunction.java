@@ -0,0 +1,53 @@
+package math.activations.vector;
+
+import java.util.function.DoubleUnaryOperator;
+import math.activations.LeakyReluFunction;
+import math.linearalgebra.Matrix;
+import math.linearalgebra.vector.VMatrix;
+import math.linearalgebra.vector.VectorMatrix;
+
+public class VectorLeakyReluFunction extends LeakyReluFunction<VMatrix> {
+
+	private double alpha;
+
+	public VectorLeakyReluFunction(double alpha) {
+		super(alpha);
+		this.alpha = alpha;
+	}
+
+	public VectorLeakyReluFunction() {
+		this(0.01);
+	}
+
+	@Override
+	public Matrix<VMatrix> function(Matrix<VMatrix> in) {
+		return new VectorMatrix(in.delegate().piecewise(1, 0, alpha, 0));
+	}
+
+	@Override
+	public Matrix<VMatrix> derivative(Matrix<VMatrix> in) {
+		return new VectorMatrix(in.delegate().piecewise(0, 1, 0, alpha));
+	}
+
+	@Override
+	public void setValues(double in) {
+		super.setValues(in);
+		this.alpha = in;
+	}
+
+	// null, so that the layers call function and derivative, the SIMD kernels, not a scalar form
+	@Override
+	public DoubleUnaryOperator scalarFunction() {
+		return null;
+	}
+
+	@Override
+	public DoubleUnaryOperator scalarDerivative() {
+		return null;
+	}
+
+	@Override
+	public boolean isElementWise() {
+		return true;
+	}
+}
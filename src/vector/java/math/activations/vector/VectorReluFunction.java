@@ -0,0 +1,36 @@
+package math.activations.vector;
+
+import java.util.function.DoubleUnaryOperator;
+import math.activations.ReluFunction;
+import math.linearalgebra.Matrix;
+import math.linearalgebra.vector.VMatrix;
+import math.linearalgebra.vector.VectorMatrix;
+
+public class VectorReluFunction extends ReluFunction<VMatrix> {
+
+	@Override
+	public Matrix<VMatrix> function(Matrix<VMatrix> m) {
+		return new VectorMatrix(m.delegate().piecewise(1, 0, 0, 0));
+	}
+
+	@Override
+	public Matrix<VMatrix> derivative(Matrix<VMatrix> m) {
+		return new VectorMatrix(m.delegate().piecewise(0, 1, 0, 0));
+	}
+
+	// null, so that the layers call function and derivative, the SIMD kernels, not a scalar form
+	@Override
+	public DoubleUnaryOperator scalarFunction() {
+		return null;
+	}
+
+	@Override
+	public DoubleUnaryOperator scalarDerivative() {
+		return null;
+	}
+
+	@Override
+	public boolean isElementWise() {
+		return true;
+	}
+}
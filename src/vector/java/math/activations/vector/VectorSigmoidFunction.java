@@ -0,0 +1,36 @@
+package math.activations.vector;
+
+import java.util.function.DoubleUnaryOperator;
+import math.activations.SigmoidFunction;
+import math.linearalgebra.Matrix;
+import math.linearalgebra.vector.VMatrix;
+import math.linearalgebra.vector.VectorMatrix;
+
+public class VectorSigmoidFunction extends SigmoidFunction<VMatrix> {
+
+	@Override
+	public Matrix<VMatrix> function(Matrix<VMatrix> m) {
+		return new VectorMatrix(m.delegate().sigmoid());
+	}
+
+	@Override
+	public Matrix<VMatrix> derivative(Matrix<VMatrix> m) {
+		return new VectorMatrix(m.delegate().timesOneMinus());
+	}
+
+	// null, so that the layers call function and derivative, the SIMD kernels, not a scalar form
+	@Override
+	public DoubleUnaryOperator scalarFunction() {
+		return null;
+	}
+
+	@Override
+	public DoubleUnaryOperator scalarDerivative() {
+		return null;
+	}
+
+	@Override
+	public boolean isElementWise() {
+		return true;
+	}
+}
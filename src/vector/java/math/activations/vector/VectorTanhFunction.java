@@ -0,0 +1,37 @@
+package math.activations.vector;
+
+import java.util.function.DoubleUnaryOperator;
+import jdk.incubator.vector.VectorOperators;
+import math.activations.TanhFunction;
+import math.linearalgebra.Matrix;
+import math.linearalgebra.vector.VMatrix;
+import math.linearalgebra.vector.VectorMatrix;
+
+public class VectorTanhFunction extends TanhFunction<VMatrix> {
+
+	@Override
+	public Matrix<VMatrix> function(Matrix<VMatrix> m) {
+		return new VectorMatrix(m.delegate().lanewise(VectorOperators.TANH));
+	}
+
+	@Override
+	public Matrix<VMatrix> derivative(Matrix<VMatrix> m) {
+		return new VectorMatrix(m.delegate().oneMinusSquare());
+	}
+
+	// null, so that the layers call function and derivative, the SIMD kernels, not a scalar form
+	@Override
+	public DoubleUnaryOperator scalarFunction() {
+		return null;
+	}
+
+	@Override
+	public DoubleUnaryOperator scalarDerivative() {
+		return null;
+	}
+
+	@Override
+	public boolean isElementWise() {
+		return true;
+	}
+}
@@ -0,0 +1,725 @@
+package math.linearalgebra.vector;
+
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import utilities.exceptions.MatrixException;
+
+/**
+ * Dense row-major matrix whose kernels are written against the JDK Vector API, so every loop
+ * runs at the widest lane count the CPU offers (4 doubles on AVX2, 8 on AVX-512), finishing
+ * the remainder with a masked or scalar tail.
+ */
+public class VMatrix {
+
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+	private static final int BLOCK_SIZE = 64;
+
+	private final int M; // number of rows
+	private final int N; // number of columns
+	private final double[] data; // row-major storage, length M * N
+
+	public VMatrix(int M, int N) {
+		this(new double[M * N], M, N);
+	}
+
+	public VMatrix(double[][] vals) {
+		this(vals.length, vals[0].length);
+		for (int i = 0; i < M; i++) {
+			System.arraycopy(vals[i], 0, this.data, i * N, N);
+		}
+	}
+
+	public VMatrix(double[] ds) {
+		this(ds.length, 1);
+		System.arraycopy(ds, 0, this.data, 0, M);
+	}
+
+	private VMatrix(double[] data, int M, int N) {
+		this.M = M;
+		this.N = N;
+		this.data = data;
+	}
+
+	public static VMatrix filled(int M, int N, double value) {
+		VMatrix out = new VMatrix(M, N);
+		Arrays.fill(out.data, value);
+		return out;
+	}
+
+	public static VMatrix identity(int M, int N) {
+		VMatrix out = new VMatrix(M, N);
+		for (int i = 0; i < Math.min(M, N); i++) {
+			out.data[i * N + i] = 1;
+		}
+		return out;
+	}
+
+	public int rows() {
+		return M;
+	}
+
+	public int cols() {
+		return N;
+	}
+
+	// return C = A * B
+	public VMatrix times(VMatrix B) {
+		return timesInto(B, new VMatrix(M, B.N));
+	}
+
+	// C = A * B written into an existing matrix, C must not share storage with A or B
+	public VMatrix timesInto(VMatrix B, VMatrix C) {
+		VMatrix A = this;
+		if (A.N != B.M || C.M != A.M || C.N != B.N) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		if (B.N == 1) {
+			for (int i = 0; i < A.M; i++) {
+				C.data[i] = dot(A.data, i * A.N, B.data, A.N);
+			}
+			return C;
+		}
+
+		Arrays.fill(C.data, 0d);
+		final int n = A.N;
+		final int p = B.N;
+		final int bound = SPECIES.loopBound(p);
+		for (int ii = 0; ii < A.M; ii += BLOCK_SIZE) {
+			int iMax = Math.min(ii + BLOCK_SIZE, A.M);
+			for (int kk = 0; kk < n; kk += BLOCK_SIZE) {
+				int kMax = Math.min(kk + BLOCK_SIZE, n);
+				for (int i = ii; i < iMax; i++) {
+					int c = i * p;
+					for (int k = kk; k < kMax; k++) {
+						double aik = A.data[i * n + k];
+						DoubleVector va = DoubleVector.broadcast(SPECIES, aik);
+						int b = k * p;
+						int j = 0;
+						for (; j < bound; j += SPECIES.length()) {
+							DoubleVector vb = DoubleVector.fromArray(SPECIES, B.data, b + j);
+							DoubleVector vc = DoubleVector.fromArray(SPECIES, C.data, c + j);
+							va.fma(vb, vc).intoArray(C.data, c + j);
+						}
+						for (; j < p; j++) {
+							C.data[c + j] += aik * B.data[b + j];
+						}
+					}
+				}
+			}
+		}
+		return C;
+	}
+
+	// return f(A * B + C), C added and f applied as each element of the product is stored instead
+	// of in separate passes, Z (may be null) receives A * B + C
+	public VMatrix timesPlusMap(VMatrix B, VMatrix C, DoubleUnaryOperator f, VMatrix Z) {
+		VMatrix A = this;
+		if (A.N != B.M || C.M != A.M || C.N != B.N
+			|| Z != null && (Z.M != C.M || Z.N != C.N)) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		VMatrix out = new VMatrix(A.M, B.N);
+		if (B.N == 1) {
+			for (int i = 0; i < A.M; i++) {
+				double z = dot(A.data, i * A.N, B.data, A.N) + C.data[i];
+				if (Z != null) {
+					Z.data[i] = z;
+				}
+				out.data[i] = f.applyAsDouble(z);
+			}
+			return out;
+		}
+
+		// the blocked product revisits every element of C, so the epilogue runs once after it
+		timesInto(B, out);
+		for (int i = 0; i < out.data.length; i++) {
+			double z = out.data[i] + C.data[i];
+			if (Z != null) {
+				Z.data[i] = z;
+			}
+			out.data[i] = f.applyAsDouble(z);
+		}
+		return out;
+	}
+
+	private static double dot(double[] a, int aOffset, double[] b, int length) {
+		return dot(a, aOffset, b, 0, length);
+	}
+
+	private static double dot(double[] a, int aOffset, double[] b, int bOffset, int length) {
+		DoubleVector acc = DoubleVector.zero(SPECIES);
+		int bound = SPECIES.loopBound(length);
+		int k = 0;
+		for (; k < bound; k += SPECIES.length()) {
+			DoubleVector va = DoubleVector.fromArray(SPECIES, a, aOffset + k);
+			DoubleVector vb = DoubleVector.fromArray(SPECIES, b, bOffset + k);
+			acc = va.fma(vb, acc);
+		}
+		double sum = acc.reduceLanes(VectorOperators.ADD);
+		for (; k < length; k++) {
+			sum += a[aOffset + k] * b[bOffset + k];
+		}
+		return sum;
+	}
+
+	// return C = A^T * B without forming A^T
+	public VMatrix transposeTimes(VMatrix B) {
+		VMatrix A = this;
+		if (A.M != B.M) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		VMatrix C = new VMatrix(A.N, B.N);
+		final int p = B.N;
+		final int bound = SPECIES.loopBound(p);
+		// k-i-j: row k of A broadcast against row k of B into every row of C
+		for (int k = 0; k < A.M; k++) {
+			int b = k * p;
+			for (int i = 0; i < A.N; i++) {
+				double aki = A.data[k * A.N + i];
+				DoubleVector va = DoubleVector.broadcast(SPECIES, aki);
+				int c = i * p;
+				int j = 0;
+				for (; j < bound; j += SPECIES.length()) {
+					DoubleVector vb = DoubleVector.fromArray(SPECIES, B.data, b + j);
+					DoubleVector vc = DoubleVector.fromArray(SPECIES, C.data, c + j);
+					va.fma(vb, vc).intoArray(C.data, c + j);
+				}
+				for (; j < p; j++) {
+					C.data[c + j] += aki * B.data[b + j];
+				}
+			}
+		}
+		return C;
+	}
+
+	// return C = A * B^T without forming B^T
+	public VMatrix timesTranspose(VMatrix B) {
+		return timesTransposeInto(B, new VMatrix(M, B.M));
+	}
+
+	// C = A * B^T written into an existing matrix, every element a dot product of two rows
+	public VMatrix timesTransposeInto(VMatrix B, VMatrix C) {
+		VMatrix A = this;
+		if (A.N != B.N || C.M != A.M || C.N != B.M) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		final int n = A.N;
+		if (n == 1) {
+			// outer product of two vectors, one broadcast per row
+			for (int i = 0; i < A.M; i++) {
+				double ai = A.data[i];
+				for (int j = 0; j < B.M; j++) {
+					C.data[i * C.N + j] = ai * B.data[j];
+				}
+			}
+			return C;
+		}
+		for (int jj = 0; jj < B.M; jj += BLOCK_SIZE) {
+			int jMax = Math.min(jj + BLOCK_SIZE, B.M);
+			for (int i = 0; i < A.M; i++) {
+				for (int j = jj; j < jMax; j++) {
+					C.data[i * C.N + j] = dot(A.data, i * n, B.data, j * n, n);
+				}
+			}
+		}
+		return C;
+	}
+
+	public VMatrix transpose() {
+		VMatrix out = new VMatrix(N, M);
+		for (int ii = 0; ii < M; ii += BLOCK_SIZE) {
+			int iMax = Math.min(ii + BLOCK_SIZE, M);
+			for (int jj = 0; jj < N; jj += BLOCK_SIZE) {
+				int jMax = Math.min(jj + BLOCK_SIZE, N);
+				for (int i = ii; i < iMax; i++) {
+					for (int j = jj; j < jMax; j++) {
+						out.data[j * M + i] = data[i * N + j];
+					}
+				}
+			}
+		}
+		return out;
+	}
+
+	public VMatrix plus(VMatrix B) {
+		return lanewise(VectorOperators.ADD, B, new VMatrix(M, N));
+	}
+
+	public VMatrix minus(VMatrix B) {
+		return lanewise(VectorOperators.SUB, B, new VMatrix(M, N));
+	}
+
+	public VMatrix hadamard(VMatrix B) {
+		return lanewise(VectorOperators.MUL, B, new VMatrix(M, N));
+	}
+
+	public VMatrix divide(VMatrix B) {
+		return lanewise(VectorOperators.DIV, B, new VMatrix(M, N));
+	}
+
+	public VMatrix plus(double in) {
+		return lanewise(VectorOperators.ADD, in, new VMatrix(M, N));
+	}
+
+	public VMatrix minus(double in) {
+		return lanewise(VectorOperators.SUB, in, new VMatrix(M, N));
+	}
+
+	public VMatrix times(double in) {
+		return lanewise(VectorOperators.MUL, in, new VMatrix(M, N));
+	}
+
+	public VMatrix divide(double in) {
+		return lanewise(VectorOperators.DIV, in, new VMatrix(M, N));
+	}
+
+	// A += B
+	public VMatrix plusEquals(VMatrix B) {
+		return lanewise(VectorOperators.ADD, B, this);
+	}
+
+	// A -= B
+	public VMatrix minusEquals(VMatrix B) {
+		return lanewise(VectorOperators.SUB, B, this);
+	}
+
+	// A .*= B
+	public VMatrix hadamardEquals(VMatrix B) {
+		return lanewise(VectorOperators.MUL, B, this);
+	}
+
+	// A ./= B
+	public VMatrix divideEquals(VMatrix B) {
+		return lanewise(VectorOperators.DIV, B, this);
+	}
+
+	// A *= in
+	public VMatrix timesEquals(double in) {
+		return lanewise(VectorOperators.MUL, in, this);
+	}
+
+	public VMatrix fill(double value) {
+		Arrays.fill(data, value);
+		return this;
+	}
+
+	// A = f(A), an arbitrary operator cannot be vectorised so this is a plain scalar loop
+	public VMatrix mapEquals(DoubleUnaryOperator mapping) {
+		return map(mapping, this);
+	}
+
+	// A = f(A, B)
+	public VMatrix zipEquals(VMatrix B, DoubleBinaryOperator mapping) {
+		return zip(B, mapping, this);
+	}
+
+	// out = f(A), out may be A itself
+	private VMatrix map(DoubleUnaryOperator mapping, VMatrix out) {
+		for (int i = 0; i < data.length; i++) {
+			out.data[i] = mapping.applyAsDouble(data[i]);
+		}
+		return out;
+	}
+
+	// out = f(A, B), out may be A itself
+	private VMatrix zip(VMatrix B, DoubleBinaryOperator mapping, VMatrix out) {
+		if (B.M != M || B.N != N) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		for (int i = 0; i < data.length; i++) {
+			out.data[i] = mapping.applyAsDouble(data[i], B.data[i]);
+		}
+		return out;
+	}
+
+	// out = A op B, out may be A itself
+	private VMatrix lanewise(VectorOperators.Binary op, VMatrix B, VMatrix out) {
+		if (B.M != M || B.N != N) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		int bound = SPECIES.loopBound(data.length);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			DoubleVector a = DoubleVector.fromArray(SPECIES, data, i);
+			DoubleVector b = DoubleVector.fromArray(SPECIES, B.data, i);
+			a.lanewise(op, b).intoArray(out.data, i);
+		}
+		if (i < data.length) {
+			VectorMask<Double> tail = SPECIES.indexInRange(i, data.length);
+			DoubleVector a = DoubleVector.fromArray(SPECIES, data, i, tail);
+			DoubleVector b = DoubleVector.fromArray(SPECIES, B.data, i, tail);
+			a.lanewise(op, b).intoArray(out.data, i, tail);
+		}
+		return out;
+	}
+
+	// out = A op scalar, out may be A itself
+	private VMatrix lanewise(VectorOperators.Binary op, double scalar, VMatrix out) {
+		int bound = SPECIES.loopBound(data.length);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			DoubleVector.fromArray(SPECIES, data, i).lanewise(op, scalar).intoArray(out.data, i);
+		}
+		if (i < data.length) {
+			VectorMask<Double> tail = SPECIES.indexInRange(i, data.length);
+			DoubleVector.fromArray(SPECIES, data, i, tail).lanewise(op, scalar)
+				.intoArray(out.data, i, tail);
+		}
+		return out;
+	}
+
+	/**
+	 * Applies a lane-wise unary operator such as {@link VectorOperators#EXP} or {@link
+	 * VectorOperators#TANH} to every element.
+	 */
+	public VMatrix lanewise(VectorOperators.Unary op) {
+		VMatrix out = new VMatrix(M, N);
+		int bound = SPECIES.loopBound(data.length);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			DoubleVector.fromArray(SPECIES, data, i).lanewise(op).intoArray(out.data, i);
+		}
+		if (i < data.length) {
+			VectorMask<Double> tail = SPECIES.indexInRange(i, data.length);
+			DoubleVector.fromArray(SPECIES, data, i, tail).lanewise(op).intoArray(out.data, i, tail);
+		}
+		return out;
+	}
+
+	/**
+	 * Element wise {@code e > 0 ? positive(e) : negative(e)} where both branches are affine, which
+	 * covers ReLU, leaky ReLU and their derivatives.
+	 *
+	 * @param positiveScale slope for positive elements
+	 * @param positiveShift constant added for positive elements
+	 * @param negativeScale slope for the other elements
+	 * @param negativeShift constant added for the other elements
+	 */
+	public VMatrix piecewise(double positiveScale, double positiveShift, double negativeScale,
+		double negativeShift) {
+		VMatrix out = new VMatrix(M, N);
+		int bound = SPECIES.loopBound(data.length);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			DoubleVector v = DoubleVector.fromArray(SPECIES, data, i);
+			VectorMask<Double> positive = v.compare(VectorOperators.GT, 0d);
+			DoubleVector negativeBranch = v.mul(negativeScale).add(negativeShift);
+			DoubleVector positiveBranch = v.mul(positiveScale).add(positiveShift);
+			negativeBranch.blend(positiveBranch, positive).intoArray(out.data, i);
+		}
+		for (; i < data.length; i++) {
+			double e = data[i];
+			out.data[i] = e > 0 ? e * positiveScale + positiveShift : e * negativeScale + negativeShift;
+		}
+		return out;
+	}
+
+	/**
+	 * Sigmoid, 1 / (1 + exp(-e)), for every element.
+	 */
+	public VMatrix sigmoid() {
+		VMatrix out = new VMatrix(M, N);
+		int bound = SPECIES.loopBound(data.length);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			DoubleVector v = DoubleVector.fromArray(SPECIES, data, i);
+			DoubleVector denominator = v.neg().lanewise(VectorOperators.EXP).add(1d);
+			DoubleVector.broadcast(SPECIES, 1d).div(denominator).intoArray(out.data, i);
+		}
+		for (; i < data.length; i++) {
+			out.data[i] = 1 / (1 + Math.exp(-data[i]));
+		}
+		return out;
+	}
+
+	/**
+	 * {@code e * (1 - e)} for every element, the derivative of sigmoid expressed in its output.
+	 */
+	public VMatrix timesOneMinus() {
+		VMatrix out = new VMatrix(M, N);
+		int bound = SPECIES.loopBound(data.length);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			DoubleVector v = DoubleVector.fromArray(SPECIES, data, i);
+			v.mul(v.neg().add(1d)).intoArray(out.data, i);
+		}
+		for (; i < data.length; i++) {
+			out.data[i] = data[i] * (1 - data[i]);
+		}
+		return out;
+	}
+
+	/**
+	 * {@code 1 - e * e} for every element, the derivative of tanh expressed in its output.
+	 */
+	public VMatrix oneMinusSquare() {
+		VMatrix out = new VMatrix(M, N);
+		int bound = SPECIES.loopBound(data.length);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			DoubleVector v = DoubleVector.fromArray(SPECIES, data, i);
+			v.neg().fma(v, DoubleVector.broadcast(SPECIES, 1d)).intoArray(out.data, i);
+		}
+		for (; i < data.length; i++) {
+			out.data[i] = 1 - data[i] * data[i];
+		}
+		return out;
+	}
+
+	public VMatrix map(DoubleUnaryOperator mapping) {
+		return map(mapping, new VMatrix(M, N));
+	}
+
+	public VMatrix zip(VMatrix B, DoubleBinaryOperator mapping) {
+		return zip(B, mapping, new VMatrix(M, N));
+	}
+
+	public double sum() {
+		DoubleVector acc = DoubleVector.zero(SPECIES);
+		int bound = SPECIES.loopBound(data.length);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			acc = acc.add(DoubleVector.fromArray(SPECIES, data, i));
+		}
+		double sum = acc.reduceLanes(VectorOperators.ADD);
+		for (; i < data.length; i++) {
+			sum += data[i];
+		}
+		return sum;
+	}
+
+	public double max() {
+		DoubleVector acc = DoubleVector.broadcast(SPECIES, -Double.MAX_VALUE);
+		int bound = SPECIES.loopBound(data.length);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			acc = acc.max(DoubleVector.fromArray(SPECIES, data, i));
+		}
+		double max = acc.reduceLanes(VectorOperators.MAX);
+		for (; i < data.length; i++) {
+			max = Math.max(max, data[i]);
+		}
+		return max;
+	}
+
+	public double min() {
+		DoubleVector acc = DoubleVector.broadcast(SPECIES, Double.MAX_VALUE);
+		int bound = SPECIES.loopBound(data.length);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			acc = acc.min(DoubleVector.fromArray(SPECIES, data, i));
+		}
+		double min = acc.reduceLanes(VectorOperators.MIN);
+		for (; i < data.length; i++) {
+			min = Math.min(min, data[i]);
+		}
+		return min;
+	}
+
+	public double sumOfSquares() {
+		return dot(data, 0, data, data.length);
+	}
+
+	// sum of A[i][j] * B[i][j]
+	public double dot(VMatrix B) {
+		if (B.M != M || B.N != N) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		return dot(data, 0, B.data, data.length);
+	}
+
+	// index of the largest element in the first column
+	public int argMax() {
+		double max = -Double.MAX_VALUE;
+		int argMax = -1;
+		for (int i = 0; i < M; i++) {
+			if (data[i * N] > max) {
+				max = data[i * N];
+				argMax = i;
+			}
+		}
+		return argMax;
+	}
+
+	public double norm() {
+		if (N != 1) {
+			throw new MatrixException("Not a vector.");
+		}
+		return Math.sqrt(dot(data, 0, data, data.length));
+	}
+
+	// copy of columns [from, to), the kernels rely on contiguous rows so slices are not views
+	public VMatrix sliceColumns(int from, int to) {
+		if (from < 0 || to > N || from > to) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		VMatrix out = new VMatrix(M, to - from);
+		for (int i = 0; i < M; i++) {
+			System.arraycopy(data, i * N + from, out.data, i * out.N, out.N);
+		}
+		return out;
+	}
+
+	// copy of rows [from, to)
+	public VMatrix sliceRows(int from, int to) {
+		if (from < 0 || to > M || from > to) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		return new VMatrix(Arrays.copyOfRange(data, from * N, to * N), to - from, N);
+	}
+
+	// return [A_0 A_1 ...], the blocks side by side
+	public static VMatrix stackColumns(List<VMatrix> blocks) {
+		if (blocks.isEmpty()) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		int M = blocks.get(0).M;
+		int N = 0;
+		for (VMatrix B : blocks) {
+			if (B.M != M) {
+				throw new MatrixException("Illegal matrix dimensions.");
+			}
+			N += B.N;
+		}
+		VMatrix out = new VMatrix(M, N);
+		int col = 0;
+		for (VMatrix B : blocks) {
+			for (int i = 0; i < M; i++) {
+				System.arraycopy(B.data, i * B.N, out.data, i * N + col, B.N);
+			}
+			col += B.N;
+		}
+		return out;
+	}
+
+	// return C = A + b, the column vector b added to every column of A
+	public VMatrix plusColumn(VMatrix b) {
+		return copy().plusColumnEquals(b);
+	}
+
+	// A[:, j] += b for every column j, b[i] broadcast across the lanes of row i
+	public VMatrix plusColumnEquals(VMatrix b) {
+		if (b.M != M || b.N != 1) {
+			throw new MatrixException("Illegal matrix dimensions.");
+		}
+		int bound = SPECIES.loopBound(N);
+		for (int i = 0; i < M; i++) {
+			double bi = b.data[i];
+			int row = i * N;
+			int j = 0;
+			for (; j < bound; j += SPECIES.length()) {
+				DoubleVector.fromArray(SPECIES, data, row + j).add(bi).intoArray(data, row + j);
+			}
+			for (; j < N; j++) {
+				data[row + j] += bi;
+			}
+		}
+		return this;
+	}
+
+	// return the M-by-1 vector of row sums
+	public VMatrix sumRows() {
+		VMatrix out = new VMatrix(M, 1);
+		int bound = SPECIES.loopBound(N);
+		for (int i = 0; i < M; i++) {
+			int row = i * N;
+			DoubleVector acc = DoubleVector.zero(SPECIES);
+			int j = 0;
+			for (; j < bound; j += SPECIES.length()) {
+				acc = acc.add(DoubleVector.fromArray(SPECIES, data, row + j));
+			}
+			double sum = acc.reduceLanes(VectorOperators.ADD);
+			for (; j < N; j++) {
+				sum += data[row + j];
+			}
+			out.data[i] = sum;
+		}
+		return out;
+	}
+
+	// return the 1-by-N vector of column maxima, a lane wise max of every row into the result
+	public VMatrix maxPerColumn() {
+		VMatrix out = filled(1, N, -Double.MAX_VALUE);
+		int bound = SPECIES.loopBound(N);
+		for (int i = 0; i < M; i++) {
+			int row = i * N;
+			int j = 0;
+			for (; j < bound; j += SPECIES.length()) {
+				DoubleVector.fromArray(SPECIES, out.data, j)
+					.max(DoubleVector.fromArray(SPECIES, data, row + j)).intoArray(out.data, j);
+			}
+			for (; j < N; j++) {
+				out.data[j] = Math.max(out.data[j], data[row + j]);
+			}
+		}
+		return out;
+	}
+
+	// row index of the max of every column
+	public int[] argMaxPerColumn() {
+		double[] max = new double[N];
+		int[] argMax = new int[N];
+		Arrays.fill(max, -Double.MAX_VALUE);
+		Arrays.fill(argMax, -1);
+		for (int i = 0; i < M; i++) {
+			int row = i * N;
+			for (int j = 0; j < N; j++) {
+				if (data[row + j] > max[j]) {
+					max[j] = data[row + j];
+					argMax[j] = i;
+				}
+			}
+		}
+		return argMax;
+	}
+
+	public VMatrix copy() {
+		return new VMatrix(data.clone(), M, N);
+	}
+
+	public double[][] rawCopy() {
+		double[][] result = new double[M][];
+		for (int i = 0; i < M; i++) {
+			result[i] = Arrays.copyOfRange(data, i * N, (i + 1) * N);
+		}
+		return result;
+	}
+
+	public void writeTo(DoubleBuffer out) {
+		out.put(data);
+	}
+
+	public VMatrix readFrom(DoubleBuffer in) {
+		in.get(data);
+		return this;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		VMatrix other = (VMatrix) o;
+		return M == other.M && N == other.N && Arrays.equals(data, other.data);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * (31 * M + N) + Arrays.hashCode(data);
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.deepToString(rawCopy());
+	}
+}
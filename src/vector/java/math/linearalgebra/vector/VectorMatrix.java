@@ -0,0 +1,340 @@
+package math.linearalgebra.vector;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Function;
+import math.linearalgebra.Matrix;
+import math.linearalgebra.MatrixIO;
+import utilities.exceptions.MatrixException;
+
+public class VectorMatrix implements Matrix<VMatrix> {
+
+	private static final String NAME = "VectorMatrix";
+	private VMatrix delegate;
+
+	public VectorMatrix(VMatrix in) {
+		this.delegate = in;
+	}
+
+	public VectorMatrix(double[][] vals) {
+		this.delegate = new VMatrix(vals);
+	}
+
+	public VectorMatrix(double[] ds) {
+		this.delegate = new VMatrix(ds);
+	}
+
+	@Override
+	public VectorMatrix hadamard(Matrix<VMatrix> otherMatrix) {
+		return new VectorMatrix(this.delegate.hadamard(otherMatrix.delegate()));
+	}
+
+	@Override
+	public VectorMatrix multiply(double scalar) {
+		return new VectorMatrix(this.delegate.times(scalar));
+	}
+
+	@Override
+	public VectorMatrix add(Matrix<VMatrix> in) {
+		return new VectorMatrix(this.delegate.plus(in.delegate()));
+	}
+
+	@Override
+	public VectorMatrix add(double in) {
+		return new VectorMatrix(this.delegate.plus(in));
+	}
+
+	@Override
+	public VectorMatrix subtract(double in) {
+		return new VectorMatrix(this.delegate.minus(in));
+	}
+
+	@Override
+	public VectorMatrix subtract(Matrix<VMatrix> in) {
+		return new VectorMatrix(this.delegate.minus(in.delegate()));
+	}
+
+	@Override
+	public VectorMatrix divide(double in) {
+		return new VectorMatrix(this.delegate.divide(in));
+	}
+
+	@Override
+	public double map(Function<Matrix<VMatrix>, Double> mapping) {
+		return mapping.apply(this);
+	}
+
+	@Override
+	public VectorMatrix mapValues(DoubleUnaryOperator mapping) {
+		return new VectorMatrix(this.delegate.map(mapping));
+	}
+
+	@Override
+	public VectorMatrix mapValuesInPlace(DoubleUnaryOperator mapping) {
+		this.delegate.mapEquals(mapping);
+		return this;
+	}
+
+	@Override
+	public VectorMatrix zipWith(Matrix<VMatrix> other, DoubleBinaryOperator mapping) {
+		return new VectorMatrix(this.delegate.zip(other.delegate(), mapping));
+	}
+
+	@Override
+	public VectorMatrix zipWithInPlace(Matrix<VMatrix> other, DoubleBinaryOperator mapping) {
+		this.delegate.zipEquals(other.delegate(), mapping);
+		return this;
+	}
+
+	@Override
+	public VMatrix delegate() {
+		return this.delegate;
+	}
+
+	@Override
+	public void setDelegate(VMatrix delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public double sum() {
+		return this.delegate.sum();
+	}
+
+	@Override
+	public double max() {
+		return this.delegate.max();
+	}
+
+	@Override
+	public int argMax() {
+		return this.delegate.argMax();
+	}
+
+	@Override
+	public VectorMatrix transpose() {
+		return new VectorMatrix(this.delegate.transpose());
+	}
+
+	@Override
+	public VectorMatrix divide(Matrix<VMatrix> right) {
+		return new VectorMatrix(this.delegate.divide(right.delegate()));
+	}
+
+	@Override
+	public VectorMatrix maxVector() {
+		return new VectorMatrix(VMatrix.filled(rows(), 1, this.delegate.max()));
+	}
+
+	@Override
+	public VectorMatrix zeroes(int rows, int cols) {
+		return new VectorMatrix(new VMatrix(rows, cols));
+	}
+
+	@Override
+	public VectorMatrix ones(int rows, int cols) {
+		return new VectorMatrix(VMatrix.filled(rows, cols, 1d));
+	}
+
+	@Override
+	public VectorMatrix identity(int rows, int cols) {
+		return new VectorMatrix(VMatrix.identity(rows, cols));
+	}
+
+	@Override
+	public double norm() throws MatrixException {
+		return this.delegate.norm();
+	}
+
+	@Override
+	public double sumOfSquares() {
+		return this.delegate.sumOfSquares();
+	}
+
+	@Override
+	public double min() {
+		return this.delegate.min();
+	}
+
+	@Override
+	public double dot(Matrix<VMatrix> other) {
+		return this.delegate.dot(other.delegate());
+	}
+
+	@Override
+	public String name() {
+		return NAME;
+	}
+
+	@Override
+	public double[][] rawCopy() {
+		return this.delegate.rawCopy();
+	}
+
+	@Override
+	public void writeTo(ByteBuffer buffer) {
+		this.delegate.writeTo(MatrixIO.write(buffer, rows(), cols(), false));
+	}
+
+	@Override
+	public VectorMatrix readFrom(ByteBuffer buffer) {
+		this.delegate.readFrom(MatrixIO.read(buffer, rows(), cols(), false));
+		return this;
+	}
+
+	@Override
+	public int rows() {
+		return this.delegate.rows();
+	}
+
+	@Override
+	public int cols() {
+		return this.delegate.cols();
+	}
+
+	@Override
+	public VectorMatrix multiply(Matrix<VMatrix> otherMatrix) {
+		return new VectorMatrix(this.delegate.times(otherMatrix.delegate()));
+	}
+
+	@Override
+	public VectorMatrix multiplyAddMap(Matrix<VMatrix> in, Matrix<VMatrix> bias,
+		DoubleUnaryOperator activation, Matrix<VMatrix> preActivation) {
+		return new VectorMatrix(this.delegate.timesPlusMap(in.delegate(), bias.delegate(), activation,
+			preActivation == null ? null : preActivation.delegate()));
+	}
+
+	@Override
+	public VectorMatrix multiplyTransposeLeft(Matrix<VMatrix> otherMatrix) {
+		return new VectorMatrix(this.delegate.transposeTimes(otherMatrix.delegate()));
+	}
+
+	@Override
+	public VectorMatrix multiplyTransposeRight(Matrix<VMatrix> otherMatrix) {
+		return new VectorMatrix(this.delegate.timesTranspose(otherMatrix.delegate()));
+	}
+
+	@Override
+	public Matrix<VMatrix> multiplyTransposeRightInto(Matrix<VMatrix> otherMatrix,
+		Matrix<VMatrix> destination) {
+		this.delegate.timesTransposeInto(otherMatrix.delegate(), destination.delegate());
+		return destination;
+	}
+
+	@Override
+	public Matrix<VMatrix> copy() {
+		return new VectorMatrix(this.delegate.copy());
+	}
+
+	@Override
+	public VectorMatrix addInPlace(Matrix<VMatrix> in) {
+		this.delegate.plusEquals(in.delegate());
+		return this;
+	}
+
+	@Override
+	public VectorMatrix subtractInPlace(Matrix<VMatrix> in) {
+		this.delegate.minusEquals(in.delegate());
+		return this;
+	}
+
+	@Override
+	public VectorMatrix hadamardInPlace(Matrix<VMatrix> in) {
+		this.delegate.hadamardEquals(in.delegate());
+		return this;
+	}
+
+	@Override
+	public VectorMatrix divideInPlace(Matrix<VMatrix> in) {
+		this.delegate.divideEquals(in.delegate());
+		return this;
+	}
+
+	@Override
+	public VectorMatrix scaleInPlace(double scalar) {
+		this.delegate.timesEquals(scalar);
+		return this;
+	}
+
+	@Override
+	public VectorMatrix fill(double value) {
+		this.delegate.fill(value);
+		return this;
+	}
+
+	@Override
+	public Matrix<VMatrix> multiplyInto(Matrix<VMatrix> otherMatrix, Matrix<VMatrix> destination) {
+		this.delegate.timesInto(otherMatrix.delegate(), destination.delegate());
+		return destination;
+	}
+
+	@Override
+	public VectorMatrix sliceColumns(int from, int to) {
+		return new VectorMatrix(this.delegate.sliceColumns(from, to));
+	}
+
+	@Override
+	public VectorMatrix sliceRows(int from, int to) {
+		return new VectorMatrix(this.delegate.sliceRows(from, to));
+	}
+
+	@Override
+	public VectorMatrix stackColumns(List<? extends Matrix<VMatrix>> columns) {
+		List<VMatrix> blocks = new ArrayList<>(columns.size());
+		for (Matrix<VMatrix> column : columns) {
+			blocks.add(column.delegate());
+		}
+		return new VectorMatrix(VMatrix.stackColumns(blocks));
+	}
+
+	@Override
+	public VectorMatrix broadcastAdd(Matrix<VMatrix> column) {
+		return new VectorMatrix(this.delegate.plusColumn(column.delegate()));
+	}
+
+	@Override
+	public VectorMatrix broadcastAddInPlace(Matrix<VMatrix> column) {
+		this.delegate.plusColumnEquals(column.delegate());
+		return this;
+	}
+
+	@Override
+	public VectorMatrix sumRows() {
+		return new VectorMatrix(this.delegate.sumRows());
+	}
+
+	@Override
+	public VectorMatrix maxPerColumn() {
+		return new VectorMatrix(this.delegate.maxPerColumn());
+	}
+
+	@Override
+	public int[] argMaxPerColumn() {
+		return this.delegate.argMaxPerColumn();
+	}
+
+	@Override
+	public int hashCode() {
+		return delegate.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		VectorMatrix matrix = (VectorMatrix) o;
+		return delegate.equals(matrix.delegate);
+	}
+
+	@Override
+	public String toString() {
+		return "VectorMatrix=[" + this.delegate.toString() + "]";
+	}
+}
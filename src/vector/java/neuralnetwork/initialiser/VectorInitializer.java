@@ -0,0 +1,60 @@
+package neuralnetwork.initialiser;
+
+import java.util.ArrayList;
+import java.util.List;
+import math.linearalgebra.Matrix;
+import math.linearalgebra.vector.VMatrix;
+import math.linearalgebra.vector.VectorMatrix;
+
+public class VectorInitializer extends ParameterInitializer<VMatrix> {
+
+	public VectorInitializer(InitialisationMethod weightMethod, InitialisationMethod biasMethod) {
+		super(weightMethod, biasMethod);
+	}
+
+	@Override
+	public void init(int[] sizes) {
+		this.sizes = sizes.clone();
+	}
+
+	public List<Matrix<VMatrix>> getWeightParameters() {
+		List<Matrix<VMatrix>> weights = new ArrayList<>();
+		for (int i = 0; i < this.sizes.length - 1; i++) {
+			int current = this.sizes[i + 1];
+			int next = this.sizes[i];
+			weights.add(new VectorMatrix(wM.initialisationValues(0, current, next)));
+		}
+		return weights;
+	}
+
+	public List<Matrix<VMatrix>> getBiasParameters() {
+		List<Matrix<VMatrix>> biases = new ArrayList<>();
+		for (int i = 0; i < this.sizes.length - 1; i++) {
+			int current = this.sizes[i + 1];
+			biases.add(new VectorMatrix(bM.initialisationValues(0, current, 1)));
+		}
+		return biases;
+	}
+
+	@Override
+	protected List<Matrix<VMatrix>> getDeltaParameters(boolean isBias) {
+		List<Matrix<VMatrix>> deltaParams = new ArrayList<>();
+		for (int i = 0; i < this.sizes.length - 1; i++) {
+			int current = this.sizes[i + 1];
+			int next = isBias ? 1 : this.sizes[i];
+			deltaParams.add(new VectorMatrix(new VMatrix(current, next)));
+		}
+		return deltaParams;
+	}
+
+	@Override
+	public Matrix<VMatrix> getFirstBias() {
+		return new VectorMatrix(this.bM.initialisationValues(0, this.sizes[0], 1));
+	}
+
+	@Override
+	public String name() {
+		return "VectorInitializer";
+	}
+
+}
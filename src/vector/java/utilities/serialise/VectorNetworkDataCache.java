@@ -0,0 +1,54 @@
+package utilities.serialise;
+
+import java.util.Map;
+import math.activations.ActivationFunction;
+import math.activations.DoNothingFunction;
+import math.activations.LinearFunction;
+import math.activations.SoftmaxFunction;
+import math.activations.vector.VectorLeakyReluFunction;
+import math.activations.vector.VectorReluFunction;
+import math.activations.vector.VectorSigmoidFunction;
+import math.activations.vector.VectorTanhFunction;
+import math.costfunctions.CostFunction;
+import math.costfunctions.CrossEntropyCostFunction;
+import math.costfunctions.MeanSquaredCostFunction;
+import math.costfunctions.SmoothL1CostFunction;
+import math.evaluation.ArgMaxEvaluationFunction;
+import math.evaluation.EvaluationFunction;
+import math.evaluation.ThresholdEvaluationFunction;
+import math.linearalgebra.vector.VMatrix;
+import math.optimizers.ADAM;
+import math.optimizers.Momentum;
+import math.optimizers.Optimizer;
+import math.optimizers.StochasticGradientDescent;
+
+/**
+ * {@link NetworkDataCache} entries for the Vector API backend. They live in the vector source set
+ * since the main source set cannot refer to {@code jdk.incubator.vector} types.
+ */
+public final class VectorNetworkDataCache {
+
+	public static final Map<String, ActivationFunction<VMatrix>> vectorFunctions = Map
+		.of("DoNothing",
+			new DoNothingFunction<>(), "LeakyReLU", new VectorLeakyReluFunction(), "Linear",
+			new LinearFunction<>(), "ReLU", new VectorReluFunction(), "Sigmoid",
+			new VectorSigmoidFunction(), "Softmax", new SoftmaxFunction<>(), "Tanh",
+			new VectorTanhFunction());
+
+	public static final Map<String, Optimizer<VMatrix>> vectorOptimisers = Map
+		.of("Adaptive Moment Estimation",
+			new ADAM<>(), "Stochastic Gradient Descent", new StochasticGradientDescent<>(),
+			"Momentum",
+			new Momentum<>());
+
+	public static final Map<String, EvaluationFunction<VMatrix>> vectorEvaluators = Map
+		.of("Argmax Evaluation",
+			new ArgMaxEvaluationFunction<>(), "Threshold Evaluation",
+			new ThresholdEvaluationFunction<>());
+
+	public static final Map<String, CostFunction<VMatrix>> vectorCostFunctions = Map
+		.of("Cross Entropy",
+			new CrossEntropyCostFunction<>(), "Mean Squared Error", new MeanSquaredCostFunction<>(),
+			"Huber Loss", new SmoothL1CostFunction<>());
+
+}
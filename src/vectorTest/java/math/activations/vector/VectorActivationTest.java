@@ -0,0 +1,119 @@
+package math.activations.vector;
+
+import static math.linearalgebra.vector.VectorMatrixTest.assertParity;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Random;
+import math.activations.ActivationFunction;
+import math.activations.LeakyReluFunction;
+import math.activations.ReluFunction;
+import math.activations.SigmoidFunction;
+import math.activations.TanhFunction;
+import math.linearalgebra.Matrix;
+import math.linearalgebra.simple.SMatrix;
+import math.linearalgebra.simple.SimpleMatrix;
+import math.linearalgebra.vector.VMatrix;
+import math.linearalgebra.vector.VectorMatrix;
+import org.junit.Test;
+
+/**
+ * The SIMD activations against the scalar ones they replace.
+ */
+public class VectorActivationTest {
+
+	private final double[][] values = values(new Random(11), 9, 11);
+	private final double[][] weight = values(new Random(12), 6, 9);
+	private final double[][] bias = values(new Random(13), 6, 1);
+
+	@Test
+	public void sigmoid() {
+		check(new SigmoidFunction<>(), new VectorSigmoidFunction());
+	}
+
+	@Test
+	public void tanh() {
+		check(new TanhFunction<>(), new VectorTanhFunction());
+	}
+
+	@Test
+	public void relu() {
+		check(new ReluFunction<>(), new VectorReluFunction());
+		check(new LeakyReluFunction<>(0.05), new VectorLeakyReluFunction(0.05));
+	}
+
+	@Test
+	public void layersRunTheKernels() {
+		int[] calls = new int[2];
+		VectorSigmoidFunction sigmoid = new VectorSigmoidFunction() {
+			@Override
+			public Matrix<VMatrix> function(Matrix<VMatrix> m) {
+				calls[0]++;
+				return super.function(m);
+			}
+
+			@Override
+			public Matrix<VMatrix> derivative(Matrix<VMatrix> m) {
+				calls[1]++;
+				return super.derivative(m);
+			}
+		};
+		checkLayer(new SigmoidFunction<>(), sigmoid);
+		// affine, affineInto, affineBatch, the in place function and the output for the
+		// derivatives, then both derivatives
+		assertEquals(5, calls[0]);
+		assertEquals(2, calls[1]);
+
+		checkLayer(new TanhFunction<>(), new VectorTanhFunction());
+		checkLayer(new ReluFunction<>(), new VectorReluFunction());
+		checkLayer(new LeakyReluFunction<>(0.05), new VectorLeakyReluFunction(0.05));
+	}
+
+	// the paths the layers take, which must not fall back to a scalar form of the function
+	private void checkLayer(ActivationFunction<SMatrix> expected,
+		ActivationFunction<VMatrix> actual) {
+		assertNull(actual.scalarFunction());
+		assertNull(actual.scalarDerivative());
+
+		SimpleMatrix sw = new SimpleMatrix(weight), sb = new SimpleMatrix(bias);
+		SimpleMatrix sx = new SimpleMatrix(values);
+		SimpleMatrix sin = new SimpleMatrix(sx.sliceColumns(0, 1).rawCopy());
+		VectorMatrix vw = new VectorMatrix(weight), vb = new VectorMatrix(bias);
+		VectorMatrix vx = new VectorMatrix(values);
+		VectorMatrix vin = new VectorMatrix(vx.sliceColumns(0, 1).rawCopy());
+
+		assertParity(expected.affine(sw, sin, sb), actual.affine(vw, vin, vb));
+		assertParity(expected.affineInto(sw, sin, sb, new SimpleMatrix(new double[6][1])),
+			actual.affineInto(vw, vin, vb, new VectorMatrix(new double[6][1])));
+		assertParity(expected.affineBatch(sw, sx, sb), actual.affineBatch(vw, vx, vb));
+		assertParity(expected.functionInPlace(sx.copy()), actual.functionInPlace(vx.copy()));
+
+		Matrix<SMatrix> so = expected.function(sx);
+		Matrix<VMatrix> vo = actual.function(vx);
+		assertParity(expected.derivativeOnInput(so, sx), actual.derivativeOnInput(vo, vx));
+		assertParity(expected.derivativeOnInputInPlace(so, sx.copy()),
+			actual.derivativeOnInputInPlace(vo, vx.copy()));
+	}
+
+	private void check(ActivationFunction<SMatrix> expected, ActivationFunction<VMatrix> actual) {
+		SimpleMatrix s = new SimpleMatrix(values);
+		VectorMatrix v = new VectorMatrix(values);
+
+		assertParity(expected.function(s), actual.function(v));
+		// the derivatives are taken of the activated output, as in back propagation
+		assertParity(expected.derivative(expected.function(s)),
+			actual.derivative(actual.function(v)));
+	}
+
+	private static double[][] values(Random random, int rows, int cols) {
+		double[][] values = new double[rows][cols];
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < cols; j++) {
+				values[i][j] = 4 * random.nextGaussian();
+			}
+		}
+		// both sides of the kink of ReLU
+		values[0][0] = 0;
+		return values;
+	}
+}
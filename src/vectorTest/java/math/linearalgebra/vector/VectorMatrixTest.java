@@ -0,0 +1,95 @@
+package math.linearalgebra.vector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import math.linearalgebra.Matrix;
+import math.linearalgebra.simple.SMatrix;
+import math.linearalgebra.simple.SimpleMatrix;
+import org.junit.Test;
+
+/**
+ * Parity of the SIMD backend with {@link SimpleMatrix}. The sizes are not multiples of any lane
+ * count, so every operation also runs its tail.
+ */
+public class VectorMatrixTest {
+
+	private static final double DELTA = 1e-12;
+
+	private final Random random = new Random(7);
+	private final double[][] a = values(7, 13);
+	private final double[][] b = values(13, 5);
+	private final double[][] c = values(7, 13);
+	private final double[] column = values(1, 7)[0];
+
+	@Test
+	public void gemm() {
+		assertParity(new SimpleMatrix(a).multiply(new SimpleMatrix(b)),
+			new VectorMatrix(a).multiply(new VectorMatrix(b)));
+		assertParity(new SimpleMatrix(a).multiplyTransposeLeft(new SimpleMatrix(c)),
+			new VectorMatrix(a).multiplyTransposeLeft(new VectorMatrix(c)));
+		assertParity(new SimpleMatrix(a).multiplyTransposeRight(new SimpleMatrix(c)),
+			new VectorMatrix(a).multiplyTransposeRight(new VectorMatrix(c)));
+
+		Matrix<VMatrix> into = new VectorMatrix(new double[7][5]).fill(1);
+		new VectorMatrix(a).multiplyInto(new VectorMatrix(b), into);
+		assertParity(new SimpleMatrix(a).multiply(new SimpleMatrix(b)), into);
+	}
+
+	@Test
+	public void lanewise() {
+		SimpleMatrix sa = new SimpleMatrix(a), sc = new SimpleMatrix(c);
+		VectorMatrix va = new VectorMatrix(a), vc = new VectorMatrix(c);
+
+		assertParity(sa.add(sc), va.add(vc));
+		assertParity(sa.subtract(sc), va.subtract(vc));
+		assertParity(sa.hadamard(sc), va.hadamard(vc));
+		assertParity(sa.divide(sc), va.divide(vc));
+		assertParity(sa.add(0.5).multiply(3).subtract(2).divide(7),
+			va.add(0.5).multiply(3).subtract(2).divide(7));
+		assertParity(sa.mapValues(Math::abs), va.mapValues(Math::abs));
+		assertParity(sa.zipWith(sc, Math::max), va.zipWith(vc, Math::max));
+		assertParity(sa.broadcastAdd(new SimpleMatrix(column)),
+			va.broadcastAdd(new VectorMatrix(column)));
+		assertParity(sa.transpose(), va.transpose());
+
+		assertParity(sa.copy().addInPlace(sc).hadamardInPlace(sc).scaleInPlace(2),
+			va.copy().addInPlace(vc).hadamardInPlace(vc).scaleInPlace(2));
+		assertParity(sa.copy().subtractInPlace(sc).divideInPlace(sc),
+			va.copy().subtractInPlace(vc).divideInPlace(vc));
+	}
+
+	@Test
+	public void reductions() {
+		SimpleMatrix sa = new SimpleMatrix(a);
+		VectorMatrix va = new VectorMatrix(a);
+
+		assertEquals(sa.sum(), va.sum(), DELTA);
+		assertEquals(sa.max(), va.max(), 0);
+		assertEquals(sa.min(), va.min(), 0);
+		assertEquals(sa.argMax(), va.argMax());
+		assertEquals(sa.sumOfSquares(), va.sumOfSquares(), DELTA);
+		assertEquals(sa.dot(new SimpleMatrix(c)), va.dot(new VectorMatrix(c)), DELTA);
+		assertParity(sa.sumRows(), va.sumRows());
+		assertArrayEquals(sa.argMaxPerColumn(), va.argMaxPerColumn());
+	}
+
+	public static void assertParity(Matrix<SMatrix> expected, Matrix<VMatrix> actual) {
+		double[][] e = expected.rawCopy(), v = actual.rawCopy();
+		assertEquals(e.length, v.length);
+		for (int i = 0; i < e.length; i++) {
+			assertArrayEquals(e[i], v[i], DELTA);
+		}
+	}
+
+	private double[][] values(int rows, int cols) {
+		double[][] values = new double[rows][cols];
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < cols; j++) {
+				values[i][j] = random.nextGaussian();
+			}
+		}
+		return values;
+	}
+}